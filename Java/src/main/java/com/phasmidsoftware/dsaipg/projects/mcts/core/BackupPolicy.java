@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Optional;
+
+/**
+ * This interface defines how {@link MCTSEngine} records the outcome of a playout in the nodes it passed through.
+ *
+ * @param <G> the type of the Game.
+ */
+public interface BackupPolicy<G extends Game> {
+
+    /**
+     * Method to record the outcome of a playout.
+     *
+     * @param leaf   the last node of the playout's path through the tree (whose ancestors lead to the root).
+     * @param winner the winner, or empty for a draw.
+     */
+    void backup(SearchNode<G> leaf, Optional<Integer> winner);
+
+    /**
+     * Update every node from the leaf to the root with the outcome, each from the point of view of the player who
+     * moved into it, so that a node's value is the mean outcome of its playouts.
+     *
+     * @param <G> the type of the Game.
+     * @return a BackupPolicy.
+     */
+    static <G extends Game> BackupPolicy<G> average() {
+        return (leaf, winner) -> {
+            for (SearchNode<G> node = leaf; node != null; node = node.parent()) node.update(winner);
+        };
+    }
+}
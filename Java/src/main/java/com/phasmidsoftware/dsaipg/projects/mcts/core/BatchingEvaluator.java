@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A queue which gathers the States submitted by any number of searches (on any threads) into batches of a fixed
+ * size, and evaluates each batch with one call to an {@link Evaluator} on its own thread.
+ * <p>
+ * A batch is evaluated as soon as it is full, or once its first State has waited for maxWaitMicros, so that a
+ * search which has too few States in flight to fill a batch is not kept waiting forever.
+ * The result for each State is delivered through the CompletableFuture returned by {@link #submit(State)}:
+ * the submitting search records it in its tree when it next looks (see {@link MCTSEngine}).
+ * If the Evaluator throws (even an Error), the futures of that batch are completed exceptionally.
+ *
+ * @param <G> the type of the Game.
+ */
+public class BatchingEvaluator<G extends Game> implements AutoCloseable {
+
+    /**
+     * Constructor, which starts the evaluating thread.
+     *
+     * @param evaluator     the Evaluator.
+     * @param batchSize     the number of States in a full batch.
+     * @param maxWaitMicros the longest time a State waits for its batch to fill, in microseconds.
+     */
+    public BatchingEvaluator(Evaluator<G> evaluator, int batchSize, long maxWaitMicros) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        this.evaluator = evaluator;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = maxWaitMicros * 1000;
+        this.thread = new Thread(this::run, "batching-evaluator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a State for evaluation.
+     *
+     * @param state a State which is not terminal.
+     * @return a future for its value: the expected result for the player to move, from 0 to 1.
+     * @throws IllegalStateException if this BatchingEvaluator is closed.
+     */
+    public CompletableFuture<Double> submit(State<G> state) {
+        Request<G> request = new Request<>(state);
+        // NOTE: the check and the add are atomic with respect to the final drain (see run), so no request is left behind
+        synchronized (queue) {
+            if (closed) throw new IllegalStateException("BatchingEvaluator is closed");
+            queue.add(request);
+        }
+        return request.future;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the number of batches evaluated so far.
+     */
+    public long batches() {
+        return batches.get();
+    }
+
+    /**
+     * @return the number of States evaluated so far.
+     */
+    public long evaluated() {
+        return evaluated.get();
+    }
+
+    /**
+     * @return the mean number of States in a batch (batches are smaller than batchSize when they time out).
+     */
+    public double meanBatchSize() {
+        long n = batches.get();
+        return n == 0 ? 0 : (double) evaluated.get() / n;
+    }
+
+    /**
+     * Stop the evaluating thread once it has finished the current batch.
+     * States which are still queued have their futures cancelled (as they are if the evaluating thread stops for any
+     * other reason).
+     */
+    public void close() {
+        closed = true;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Request<G>> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed) {
+                Request<G> first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    Request<G> request = queue.poll();
+                    if (request == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0 || (request = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) break;
+                    }
+                    batch.add(request);
+                }
+                evaluate(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closing
+        } finally {
+            for (Request<G> request : batch) request.future.cancel(false);
+            synchronized (queue) {
+                closed = true;
+                for (Request<G> request; (request = queue.poll()) != null; ) request.future.cancel(false);
+            }
+        }
+    }
+
+    private void evaluate(List<Request<G>> batch) {
+        List<State<G>> states = new ArrayList<>(batch.size());
+        for (Request<G> request : batch) states.add(request.state);
+        // Count the batch before completing its futures, so that a caller woken by one sees the batch counted
+        batches.incrementAndGet();
+        evaluated.addAndGet(batch.size());
+        try {
+            double[] values = evaluator.evaluate(states);
+            if (values.length != batch.size())
+                throw new IllegalStateException("evaluator returned " + values.length + " values for " + batch.size() + " states");
+            for (int i = 0; i < batch.size(); i++) batch.get(i).future.complete(values[i]);
+        } catch (Throwable e) {
+            // NOTE: an Error too, so that no search is left waiting for a future which will never complete
+            for (Request<G> request : batch) request.future.completeExceptionally(e);
+        }
+    }
+
+    private static class Request<G extends Game> {
+        Request(State<G> state) {
+            this.state = state;
+        }
+
+        private final State<G> state;
+        private final CompletableFuture<Double> future = new CompletableFuture<>();
+    }
+
+    private static final long POLL_MILLIS = 10; // How often an idle evaluating thread checks whether it is closed
+
+    private final Evaluator<G> evaluator;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final Thread thread;
+    private final BlockingQueue<Request<G>> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong evaluated = new AtomicLong();
+    private volatile boolean closed;
+}
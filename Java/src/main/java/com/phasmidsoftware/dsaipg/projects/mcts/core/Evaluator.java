@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * This interface defines how a batch of States reached by the search is evaluated in one call, as a heuristic or a
+ * learned model would be (see {@link BatchingEvaluator}, which forms the batches, and
+ * {@link MCTSEngine#withEvaluator(BatchingEvaluator, int)}).
+ *
+ * @param <G> the type of the Game.
+ */
+public interface Evaluator<G extends Game> {
+
+    /**
+     * Method to evaluate a batch of States, none of which is terminal.
+     * It is called from the thread of a {@link BatchingEvaluator}, never from the thread of a search.
+     *
+     * @param states the States.
+     * @return for each State, the expected result for the player to move: from 0 (a loss) to 1 (a win).
+     */
+    double[] evaluate(List<State<G>> states);
+
+    /**
+     * The reference evaluator, which needs nothing but the CPU: each State is valued by the mean result of some
+     * rollouts, and the States of a batch are played out in parallel on the common ForkJoinPool.
+     *
+     * @param rollout  the RolloutPolicy (which must be safe to call from several threads at once).
+     * @param playouts the number of rollouts from each State.
+     * @param <G>      the type of the Game.
+     * @return an Evaluator.
+     */
+    static <G extends Game> Evaluator<G> rollouts(RolloutPolicy<G> rollout, int playouts) {
+        if (playouts < 1) throw new IllegalArgumentException("playouts must be positive: " + playouts);
+        return states -> IntStream.range(0, states.size()).parallel().mapToDouble(i -> {
+            State<G> state = states.get(i);
+            int player = state.player();
+            double score = 0;
+            for (int j = 0; j < playouts; j++) {
+                Optional<Integer> winner = rollout.rollout(state);
+                score += winner.isEmpty() ? 0.5 : winner.get() == player ? 1 : 0;
+            }
+            return score / playouts;
+        }).toArray();
+    }
+
+    /**
+     * An Evaluator which waits for a fixed time on every call before delegating, standing in for the cost of a call
+     * to an accelerator or a remote model (transfers, a kernel launch), which is what batching amortizes.
+     * The wait does not occupy a CPU.
+     *
+     * @param evaluator the Evaluator to delegate to.
+     * @param micros    the overhead of each call, in microseconds.
+     * @param <G>       the type of the Game.
+     * @return an Evaluator.
+     */
+    static <G extends Game> Evaluator<G> withOverhead(Evaluator<G> evaluator, long micros) {
+        return states -> {
+            long deadline = System.nanoTime() + micros * 1000;
+            for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime())
+                LockSupport.parkNanos(remaining);
+            return evaluator.evaluate(states);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * This interface defines how {@link MCTSEngine} adds the children of a node.
+ *
+ * @param <G> the type of the Game.
+ */
+public interface ExpansionPolicy<G extends Game> {
+
+    /**
+     * Method to add the children of a node whose State is not terminal,
+     * using {@link SearchNode#addChild(Move, double)}.
+     *
+     * @param node the node to expand.
+     */
+    void expand(SearchNode<G> node);
+
+    /**
+     * Add a child for every move of the player to move, in random order, with equal priors.
+     *
+     * @param <G> the type of the Game.
+     * @return an ExpansionPolicy.
+     */
+    static <G extends Game> ExpansionPolicy<G> uniform() {
+        return node -> {
+            List<Move<G>> moves = moves(node.state());
+            for (Move<G> move : moves) node.addChild(move, 1.0 / moves.size());
+        };
+    }
+
+    /**
+     * Add a child for every move, with priors proportional to the given weights (which must not all be zero).
+     *
+     * @param weight a function of a State and one of its moves yielding a non-negative weight.
+     * @param <G>    the type of the Game.
+     * @return an ExpansionPolicy.
+     */
+    static <G extends Game> ExpansionPolicy<G> weighted(ToDoubleBiFunction<State<G>, Move<G>> weight) {
+        return node -> {
+            State<G> state = node.state();
+            List<Move<G>> moves = moves(state);
+            double[] weights = new double[moves.size()];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) total += weights[i] = weight.applyAsDouble(state, moves.get(i));
+            for (int i = 0; i < weights.length; i++)
+                node.addChild(moves.get(i), total > 0 ? weights[i] / total : 1.0 / weights.length);
+        };
+    }
+
+    private static <G extends Game> List<Move<G>> moves(State<G> state) {
+        List<Move<G>> result = new ArrayList<>();
+        for (Iterator<Move<G>> it = state.moveIterator(state.player()); it.hasNext(); ) result.add(it.next());
+        return result;
+    }
+}
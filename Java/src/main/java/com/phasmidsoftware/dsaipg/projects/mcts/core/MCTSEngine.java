@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A Monte Carlo Tree Search for any {@link Game}, with pluggable selection, expansion, rollout and backup policies.
+ * <p>
+ * Each iteration descends from the root through expanded nodes (selection), expands the node it reaches once that
+ * node has been visited often enough (expansion), plays out from there (rollout) and records the outcome along the
+ * path (backup). A terminal node is scored by its own {@link State#winner()}.
+ * Alternatively, the rollouts can be replaced by an {@link Evaluator} which values the States in batches
+ * (see {@link #withEvaluator(BatchingEvaluator, int)}).
+ * <p>
+ * An MCTSEngine is immutable: each with method returns a changed copy. The defaults are UCT with c = sqrt(2),
+ * uniform expansion of a node once it has been played out from, random rollouts, average backup and 1000 iterations,
+ * without the solver (see {@link #withSolver(boolean)}).
+ *
+ * @param <G> the type of the Game.
+ */
+public class MCTSEngine<G extends Game> {
+
+    /**
+     * Constructor with the default settings.
+     */
+    public MCTSEngine() {
+        this(SelectionPolicy.uct(Math.sqrt(2)), ExpansionPolicy.uniform(), RolloutPolicy.random(), BackupPolicy.average(), 1000, 0, 1, null, 0, false);
+    }
+
+    public MCTSEngine<G> withSelection(SelectionPolicy<G> selection) {
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    public MCTSEngine<G> withExpansion(ExpansionPolicy<G> expansion) {
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    public MCTSEngine<G> withRollout(RolloutPolicy<G> rollout) {
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    public MCTSEngine<G> withBackup(BackupPolicy<G> backup) {
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    /**
+     * @param iterations the maximum number of iterations of a search.
+     * @return a copy of this MCTSEngine with the given iteration budget.
+     */
+    public MCTSEngine<G> withIterations(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    /**
+     * @param millis the maximum duration of a search in milliseconds, or 0 for no time limit.
+     * @return a copy of this MCTSEngine with the given time budget (the iteration budget still applies).
+     */
+    public MCTSEngine<G> withTimeBudget(long millis) {
+        if (millis < 0) throw new IllegalArgumentException("millis must be non-negative: " + millis);
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, millis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    /**
+     * @return the maximum duration of a search in milliseconds, or 0 if there is no time limit.
+     */
+    public long timeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * @param visits the number of visits a node must have had before it is expanded (the root is always expanded).
+     * @return a copy of this MCTSEngine with the given expansion threshold.
+     */
+    public MCTSEngine<G> withExpansionThreshold(int visits) {
+        if (visits < 0) throw new IllegalArgumentException("visits must be non-negative: " + visits);
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, visits, evaluator, inFlight, solver);
+    }
+
+    /**
+     * Replace the rollouts by batched evaluation: each descent which ends at a non-terminal node puts a virtual loss
+     * on its path and submits the node's State to the evaluator, then the search goes on descending (steered away
+     * from that path by the virtual loss) while up to inFlight evaluations are pending. Each result is backed up,
+     * and its virtual losses withdrawn, by the search's own thread as soon as it has arrived.
+     * The BackupPolicy is then only used for terminal nodes.
+     * If the evaluator is closed during a search, the search ends early with the results which have arrived;
+     * if an evaluation fails, the search throws (see {@link #search(SearchNode)}).
+     *
+     * @param evaluator the BatchingEvaluator (which may be shared with other searches).
+     * @param inFlight  the greatest number of evaluations pending at once (at least the batch size, to fill batches).
+     * @return a copy of this MCTSEngine which evaluates in batches.
+     */
+    public MCTSEngine<G> withEvaluator(BatchingEvaluator<G> evaluator, int inFlight) {
+        if (inFlight < 1) throw new IllegalArgumentException("inFlight must be positive: " + inFlight);
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    /**
+     * Prove nodes as the search goes (MCTS-Solver; see {@link Proof}): a terminal node is proven by its winner, and
+     * each proof is propagated up the path for as far as it settles the value of the ancestors. Selection skips
+     * proven children (with the built-in SelectionPolicies), a descent which ends at a proven node backs up the known
+     * outcome without a rollout, and the search stops as soon as the root is proven.
+     *
+     * @param solver true to prove nodes.
+     * @return a copy of this MCTSEngine with the given solver setting.
+     */
+    public MCTSEngine<G> withSolver(boolean solver) {
+        return new MCTSEngine<>(selection, expansion, rollout, backup, iterations, timeBudgetMillis, expansionThreshold, evaluator, inFlight, solver);
+    }
+
+    /**
+     * Search from a State.
+     *
+     * @param state the State to search from.
+     * @return the Result of the search.
+     * @throws IllegalStateException if an evaluation fails (see {@link #search(SearchNode)}).
+     */
+    public Result<G> search(State<G> state) {
+        return search(new SearchNode<>(state));
+    }
+
+    /**
+     * Continue the search from a node (e.g. the child of a previous search's root which has been played).
+     *
+     * @param root the node to search from.
+     * @return the Result of the search.
+     * @throws IllegalStateException if an evaluation fails (the cause being the evaluator's exception);
+     *                               the virtual losses of the pending evaluations are withdrawn first.
+     */
+    public Result<G> search(SearchNode<G> root) {
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        Result<G> result = new Result<>(root);
+        Deque<Pending<G>> pending = new ArrayDeque<>();
+        boolean cancelled = false; // The evaluator has been closed
+        for (int i = 0; i < iterations && !cancelled && (deadline == Long.MAX_VALUE || System.nanoTime() < deadline); i++) {
+            if (solver && root.proof().isProven()) break; // Solved
+            SearchNode<G> node = root;
+            int depth = 0;
+            // Selection (which stops at a proven node)
+            while (node.isExpanded() && !node.searchChildren().isEmpty() && !node.proof().isProven()) {
+                node = selection.select(node);
+                depth++;
+            }
+            // Expansion
+            if (!node.isExpanded() && !node.isLeaf() && (node == root || node.playouts() >= expansionThreshold)) {
+                expansion.expand(node);
+                node.setExpanded();
+                result.nodes += node.searchChildren().size();
+                if (!node.searchChildren().isEmpty()) {
+                    node = selection.select(node);
+                    depth++;
+                }
+            }
+            result.iterations++;
+            result.totalDepth += depth;
+            result.maxDepth = Math.max(result.maxDepth, depth);
+            if (solver) {
+                if (node.isLeaf() && !node.proof().isProven()) result.provenNodes += prove(node);
+                if (node.proof().isProven()) {
+                    // The outcome is known, so there is nothing to roll out (or evaluate)
+                    result.provenPlayouts++;
+                    Optional<Integer> winner = node.isLeaf() ? node.state().winner() : node.proof().winner(node.mover(), node.state().player());
+                    backup.backup(node, winner);
+                    continue;
+                }
+            }
+            if (evaluator != null && !node.isLeaf()) {
+                // Evaluation (the backup follows when the result arrives)
+                CompletableFuture<Double> value;
+                try {
+                    value = evaluator.submit(node.state());
+                } catch (IllegalStateException e) {
+                    break; // The evaluator has been closed
+                }
+                for (SearchNode<G> n = node; n != null; n = n.parent()) n.addVirtualLoss();
+                pending.add(new Pending<>(node, value));
+                while (!pending.isEmpty() && (pending.size() >= inFlight || pending.peek().value.isDone()))
+                    cancelled |= !backup(pending);
+                continue;
+            }
+            // Rollout
+            Optional<Integer> winner = node.isLeaf() ? node.state().winner() : rollout.rollout(node.state());
+            // Backup
+            backup.backup(node, winner);
+        }
+        while (!pending.isEmpty()) backup(pending);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Prove a terminal node by its winner, then its ancestors for as long as their children settle their values.
+    // Returns the number of nodes proven.
+    private static <G extends Game> int prove(SearchNode<G> leaf) {
+        leaf.setProof(Proof.of(leaf.state().winner(), leaf.mover()));
+        int result = 1;
+        for (SearchNode<G> node = leaf.parent(); node != null; node = node.parent()) {
+            Proof proof = Proof.ofChildren(node.searchChildren());
+            if (!proof.isProven()) break;
+            node.setProof(proof);
+            result++;
+        }
+        return result;
+    }
+
+    // Wait for the result of the oldest pending evaluation and record it from the leaf to the root, withdrawing the
+    // virtual losses. Returns false (having only withdrawn the virtual losses) if the evaluation was cancelled
+    // because the evaluator has been closed.
+    // If the evaluation failed, the virtual losses of every pending evaluation are withdrawn and an
+    // IllegalStateException is thrown.
+    private static <G extends Game> boolean backup(Deque<Pending<G>> pending) {
+        Pending<G> next = pending.remove();
+        double value; // For the player to move at the leaf
+        try {
+            value = next.value.join();
+        } catch (CancellationException e) {
+            next.withdraw();
+            return false;
+        } catch (CompletionException e) {
+            next.withdraw();
+            while (!pending.isEmpty()) pending.remove().withdraw();
+            throw new IllegalStateException("evaluation failed", e.getCause());
+        }
+        int player = next.leaf.state().player();
+        for (SearchNode<G> node = next.leaf; node != null; node = node.parent()) {
+            node.removeVirtualLoss();
+            node.update(node.mover() == player ? value : 1 - value);
+        }
+        return true;
+    }
+
+    // A leaf whose evaluation has been submitted.
+    private static class Pending<G extends Game> {
+        Pending(SearchNode<G> leaf, CompletableFuture<Double> value) {
+            this.leaf = leaf;
+            this.value = value;
+        }
+
+        private void withdraw() {
+            for (SearchNode<G> node = leaf; node != null; node = node.parent()) node.removeVirtualLoss();
+        }
+
+        private final SearchNode<G> leaf;
+        private final CompletableFuture<Double> value;
+    }
+
+    /**
+     * The outcome of a search: the tree and statistics about the search.
+     *
+     * @param <G> the type of the Game.
+     */
+    public static class Result<G extends Game> {
+
+        public SearchNode<G> root() {
+            return root;
+        }
+
+        /**
+         * @return the move of the root's best child (see {@link SearchNode#best()}), or null if the root has no children.
+         */
+        public Move<G> bestMove() {
+            SearchNode<G> best = root.best();
+            return best == null ? null : best.move();
+        }
+
+        /**
+         * @return true if the value of the root has been proven (by a search with the solver).
+         */
+        public boolean solved() {
+            return root.proof().isProven();
+        }
+
+        /**
+         * @return the number of nodes proven by this search.
+         */
+        public long provenNodes() {
+            return provenNodes;
+        }
+
+        /**
+         * @return the number of iterations which ended at a proven node, and so needed no rollout.
+         */
+        public int provenPlayouts() {
+            return provenPlayouts;
+        }
+
+        /**
+         * @return the number of iterations (playouts) of this search.
+         */
+        public int iterations() {
+            return iterations;
+        }
+
+        /**
+         * @return the number of nodes added by this search.
+         */
+        public long nodes() {
+            return nodes;
+        }
+
+        /**
+         * @return the greatest depth (below the root) from which a playout started.
+         */
+        public int maxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @return the mean depth from which playouts started.
+         */
+        public double meanDepth() {
+            return iterations == 0 ? 0 : (double) totalDepth / iterations;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double iterationsPerSecond() {
+            return iterations * 1E9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Result{iterations=%d, nodes=%d, depth=%.1f (max %d), %.0f iterations/sec, proven=%d, provenPlayouts=%d, root=%s, best=%s}",
+                    iterations, nodes, meanDepth(), maxDepth, iterationsPerSecond(), provenNodes, provenPlayouts, root.proof(), root.best());
+        }
+
+        private Result(SearchNode<G> root) {
+            this.root = root;
+        }
+
+        private final SearchNode<G> root;
+        private int iterations;
+        private long nodes;
+        private long totalDepth;
+        private int maxDepth;
+        private long elapsedNanos;
+        private long provenNodes;
+        private int provenPlayouts;
+    }
+
+    private MCTSEngine(SelectionPolicy<G> selection, ExpansionPolicy<G> expansion, RolloutPolicy<G> rollout, BackupPolicy<G> backup,
+                       int iterations, long timeBudgetMillis, int expansionThreshold, BatchingEvaluator<G> evaluator, int inFlight, boolean solver) {
+        this.selection = selection;
+        this.expansion = expansion;
+        this.rollout = rollout;
+        this.backup = backup;
+        this.iterations = iterations;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.expansionThreshold = expansionThreshold;
+        this.evaluator = evaluator;
+        this.inFlight = inFlight;
+        this.solver = solver;
+    }
+
+    private final SelectionPolicy<G> selection;
+    private final ExpansionPolicy<G> expansion;
+    private final RolloutPolicy<G> rollout;
+    private final BackupPolicy<G> backup;
+    private final int iterations;
+    private final long timeBudgetMillis;
+    private final int expansionThreshold;
+    private final BatchingEvaluator<G> evaluator;
+    private final int inFlight;
+    private final boolean solver;
+}
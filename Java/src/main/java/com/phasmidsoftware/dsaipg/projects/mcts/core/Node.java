@@ -73,6 +73,14 @@ public interface Node<G extends Game> {
      */
     int playouts();
 
+    /**
+     * @return the game-theoretic value of this Node for the player who moved into it, if it has been proven
+     * (see {@link Proof}); UNPROVEN by default.
+     */
+    default Proof proof() {
+        return Proof.UNPROVEN;
+    }
+
     private void addChildren(final State<G> state) {
         for (Iterator<Move<G>> it = state.moveIterator(state.player()); it.hasNext(); )
             addChild(state.next(it.next()));
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * The game-theoretic value of a {@link Node}, once it is known, for the player who moved into the node
+ * (as with {@link Node#wins()}).
+ * <p>
+ * A terminal node is proven by its winner. An inner node is proven (as in MCTS-Solver) as soon as one of its
+ * children is a proven WIN (for the player to move at the node, so the node is a LOSS for the player who moved into
+ * it), or once all of its children are proven, by the best of them. A proven node need never be searched again.
+ */
+public enum Proof {
+    UNPROVEN, WIN, DRAW, LOSS;
+
+    /**
+     * @return true unless this is UNPROVEN.
+     */
+    public boolean isProven() {
+        return this != UNPROVEN;
+    }
+
+    /**
+     * @return this Proof from the other player's point of view.
+     */
+    public Proof negate() {
+        switch (this) {
+            case WIN:
+                return LOSS;
+            case LOSS:
+                return WIN;
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * The Proof of a terminal node.
+     *
+     * @param winner the winner, or empty for a draw.
+     * @param mover  the player who moved into the node.
+     * @return WIN, DRAW or LOSS.
+     */
+    public static Proof of(Optional<Integer> winner, int mover) {
+        return winner.isEmpty() ? DRAW : winner.get() == mover ? WIN : LOSS;
+    }
+
+    /**
+     * The Proof of a node from the Proofs of its children (each for the player to move at the node).
+     *
+     * @param children the children of the node.
+     * @param <G>      the type of the Game.
+     * @return LOSS if any child is a WIN; otherwise UNPROVEN if any child is unproven (or there are no children);
+     * otherwise the best child's Proof, negated.
+     */
+    public static <G extends Game> Proof ofChildren(Collection<? extends Node<G>> children) {
+        if (children.isEmpty()) return UNPROVEN;
+        boolean draw = false, unproven = false;
+        for (Node<G> child : children)
+            switch (child.proof()) {
+                case WIN:
+                    return LOSS;
+                case DRAW:
+                    draw = true;
+                    break;
+                case UNPROVEN:
+                    unproven = true;
+                    break;
+                default:
+            }
+        return unproven ? UNPROVEN : draw ? DRAW : WIN;
+    }
+
+    /**
+     * The outcome of a playout which reaches a proven node.
+     *
+     * @param mover the player who moved into the node.
+     * @param other the other player.
+     * @return the winner, or empty for a draw.
+     */
+    public Optional<Integer> winner(int mover, int other) {
+        switch (this) {
+            case WIN:
+                return Optional.of(mover);
+            case LOSS:
+                return Optional.of(other);
+            case DRAW:
+                return Optional.empty();
+            default:
+                throw new IllegalStateException("unproven");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Optional;
+
+/**
+ * This interface defines how {@link MCTSEngine} estimates the outcome of a State reached by the search.
+ *
+ * @param <G> the type of the Game.
+ */
+public interface RolloutPolicy<G extends Game> {
+
+    /**
+     * Method to play out (or otherwise evaluate) a State which is not terminal.
+     *
+     * @param state the State.
+     * @return the winner, or empty for a draw.
+     */
+    Optional<Integer> rollout(State<G> state);
+
+    /**
+     * Play random moves (see {@link State#chooseMove(int)}) until the game ends.
+     *
+     * @param <G> the type of the Game.
+     * @return a RolloutPolicy.
+     */
+    static <G extends Game> RolloutPolicy<G> random() {
+        return state -> {
+            while (!state.isTerminal()) state = state.next(state.chooseMove(state.player()));
+            return state.winner();
+        };
+    }
+}
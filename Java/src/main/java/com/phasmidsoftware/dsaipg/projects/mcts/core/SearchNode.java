@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A Node of the search tree grown by {@link MCTSEngine}.
+ * <p>
+ * As with other Nodes, wins are counted in half-points (a win is worth 2, a draw 1) from the point of view of the
+ * player who moved into this node. A child's State is only computed when it is first needed, so that expanding a
+ * node with many moves is cheap.
+ *
+ * @param <G> the type of the Game.
+ */
+public class SearchNode<G extends Game> implements Node<G> {
+
+    /**
+     * Constructor for a root node.
+     *
+     * @param state the State to search from.
+     */
+    public SearchNode(State<G> state) {
+        this(null, null, state, 1);
+    }
+
+    /**
+     * @return true if the State of this node is terminal.
+     */
+    public boolean isLeaf() {
+        return state().isTerminal();
+    }
+
+    /**
+     * @return the State of the Game G that this Node represents (computed from the parent's State on first use).
+     */
+    public State<G> state() {
+        if (state == null) state = parent.state().next(move);
+        return state;
+    }
+
+    /**
+     * Method to determine if the player who plays to this node is the opening player.
+     *
+     * @return true if this node represents a "white" move; false for "black."
+     */
+    public boolean white() {
+        return state().player() == state().game().opener();
+    }
+
+    /**
+     * @return the children of this Node (an unmodifiable view).
+     */
+    public Collection<Node<G>> children() {
+        return Collections.unmodifiableCollection(children);
+    }
+
+    /**
+     * Method to add a child to this Node, as {@link Node#explore()} does. The child has no move and a prior of 1.
+     *
+     * @param state the State for the new child.
+     */
+    public void addChild(State<G> state) {
+        children.add(new SearchNode<>(this, null, state, 1));
+    }
+
+    /**
+     * Method to add a child for a move, whose State will be computed when it is first needed.
+     *
+     * @param move  the move from this node's State.
+     * @param prior the prior probability of the move (used by PUCT selection).
+     * @return the new child.
+     */
+    public SearchNode<G> addChild(Move<G> move, double prior) {
+        SearchNode<G> child = new SearchNode<>(this, move, null, prior);
+        children.add(child);
+        return child;
+    }
+
+    /**
+     * This method sets the number of wins and playouts according to the children (whose wins are from the other
+     * player's point of view).
+     */
+    public void backPropagate() {
+        playouts = 0;
+        score = 0;
+        for (SearchNode<G> child : children) {
+            playouts += child.playouts;
+            score += 2 * child.playouts - child.score;
+        }
+    }
+
+    /**
+     * @return the score of the playouts through this node, in half-points for the player who moved into it
+     * (rounded, since an {@link Evaluator} may score a playout fractionally).
+     */
+    public int wins() {
+        return (int) Math.round(score);
+    }
+
+    /**
+     * @return the number of playouts through this node.
+     */
+    public int playouts() {
+        return playouts;
+    }
+
+    /**
+     * @return the mean result of the playouts through this node (0 to 1), or 0 if there have been none.
+     */
+    public double value() {
+        return playouts == 0 ? 0 : score / (2.0 * playouts);
+    }
+
+    /**
+     * Record the result of a playout through this node.
+     *
+     * @param winner the winner of the playout, or empty for a draw.
+     */
+    public void update(Optional<Integer> winner) {
+        playouts++;
+        if (winner.isEmpty()) score += 1;
+        else if (mover() == winner.get()) score += 2;
+    }
+
+    /**
+     * Record an evaluation of a position below this node.
+     *
+     * @param value the expected result for the player who moved into this node, from 0 (a loss) to 1 (a win).
+     */
+    public void update(double value) {
+        playouts++;
+        score += 2 * value;
+    }
+
+    /**
+     * Count a playout which has started through this node, but whose result is not yet known, as a loss,
+     * so that other descents made while it is pending prefer other paths.
+     */
+    public void addVirtualLoss() {
+        playouts++;
+        virtualLosses++;
+    }
+
+    /**
+     * Withdraw a virtual loss once the result of the pending playout is known (and about to be recorded).
+     */
+    public void removeVirtualLoss() {
+        if (virtualLosses == 0) throw new IllegalStateException("no virtual loss to remove: " + this);
+        playouts--;
+        virtualLosses--;
+    }
+
+    /**
+     * @return the number of pending playouts through this node (which are included in {@link #playouts()}).
+     */
+    public int virtualLosses() {
+        return virtualLosses;
+    }
+
+    /**
+     * @return the player who moved into this node: the player to move at the parent, or (for the root) the player
+     * who is not to move, which assumes a two-player game with players 0 and 1 (as in TicTacToe).
+     */
+    public int mover() {
+        return parent != null ? parent.state().player() : 1 - state().player();
+    }
+
+    /**
+     * @return the move which leads to this node, or null for the root (or a child added by explore()).
+     */
+    public Move<G> move() {
+        return move;
+    }
+
+    public SearchNode<G> parent() {
+        return parent;
+    }
+
+    public double prior() {
+        return prior;
+    }
+
+    /**
+     * @return true once children have been added (or the node has been found to have no moves).
+     */
+    public boolean isExpanded() {
+        return expanded;
+    }
+
+    void setExpanded() {
+        expanded = true;
+    }
+
+    /**
+     * @return the children, in the order they were added.
+     */
+    public List<SearchNode<G>> searchChildren() {
+        return children;
+    }
+
+    /**
+     * @return the Proof of this node, if the search has proven it (see {@link MCTSEngine#withSolver(boolean)}).
+     */
+    public Proof proof() {
+        return proof;
+    }
+
+    void setProof(Proof proof) {
+        this.proof = proof;
+    }
+
+    /**
+     * @return the child to play: a proven WIN if there is one; otherwise the most visited unproven child, unless its
+     * value is below that of a draw and there is a proven DRAW (which selection no longer visits), in which case the
+     * DRAW; otherwise the most visited child; null if there are no children.
+     */
+    public SearchNode<G> best() {
+        SearchNode<G> result = null, draw = null;
+        for (SearchNode<G> child : children) {
+            if (child.proof == Proof.WIN) return child;
+            if (child.proof == Proof.DRAW) draw = child;
+            else if (child.proof == Proof.UNPROVEN && (result == null || child.playouts > result.playouts)) result = child;
+        }
+        if (draw != null && (result == null || result.value() < 0.5)) return draw;
+        return result != null ? result : mostVisited();
+    }
+
+    /**
+     * @return the number of nodes in the subtree of this node, including this node.
+     */
+    public int size() {
+        int result = 1;
+        for (SearchNode<G> child : children) result += child.size();
+        return result;
+    }
+
+    /**
+     * Discard the subtrees of the descendants which have had fewer than minPlayouts playouts (each such node keeps
+     * its own statistics, but becomes unexpanded again), to bound the memory taken by the tree.
+     *
+     * @param minPlayouts the playouts a node needs to keep its children.
+     * @return the number of nodes discarded.
+     */
+    int prune(int minPlayouts) {
+        int result = 0;
+        for (SearchNode<G> child : children) {
+            if (child.playouts < minPlayouts) {
+                result += child.size() - 1;
+                child.children.clear();
+                child.expanded = false;
+            } else result += child.prune(minPlayouts);
+        }
+        return result;
+    }
+
+    /**
+     * Make this node the root of its own tree, so that the rest of its parent's tree can be discarded
+     * (e.g. once its move has been played).
+     */
+    void detach() {
+        state(); // Computed from the parent's State while there is one
+        parent = null;
+    }
+
+    /**
+     * @return the child with the most playouts, or null if there are no children.
+     */
+    public SearchNode<G> mostVisited() {
+        SearchNode<G> result = null;
+        for (SearchNode<G> child : children)
+            if (result == null || child.playouts > result.playouts) result = child;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchNode{move=" + move + ", playouts=" + playouts + ", value=" + String.format("%.3f", value()) + ", children=" + children.size() +
+                (proof.isProven() ? ", proof=" + proof : "") + '}';
+    }
+
+    private SearchNode(SearchNode<G> parent, Move<G> move, State<G> state, double prior) {
+        this.parent = parent;
+        this.move = move;
+        this.state = state;
+        this.prior = prior;
+    }
+
+    private SearchNode<G> parent;
+    private final Move<G> move;
+    private final double prior;
+    private final List<SearchNode<G>> children = new ArrayList<>();
+    private State<G> state;
+    private boolean expanded;
+    private double score; // In half-points
+    private int playouts;
+    private int virtualLosses;
+    private Proof proof = Proof.UNPROVEN;
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A service which hosts many games at once in one JVM, each in a {@link Session} with a search tree of its own which
+ * persists from move to move, searched by {@link MCTSEngine} in a {@link ForkJoinPool} shared by all sessions.
+ * <p>
+ * A request for a move is served in quanta of a few iterations: each quantum is a task of the pool, which takes the
+ * request at the head of a FIFO run queue, runs one quantum on its session's tree and, if the request has iterations
+ * (and time) left, puts it back at the tail.
+ * So every pending request gets an equal share of the workers (round robin), and a request for a short search is not
+ * held up behind a long one.
+ * If the engine has a time budget, it applies to each request as a whole, from the moment it is made: each quantum is
+ * cut short by the time the request has left.
+ * <p>
+ * The trees of all sessions are held to a total number of nodes. When a quantum takes the total over the cap, the
+ * session which ran it is pruned (see {@link SearchNode#prune(int)}) down to its share of the cap, discarding the
+ * subtrees of its least visited nodes first.
+ *
+ * @param <G> the type of the Game.
+ */
+public class SearchService<G extends Game> implements AutoCloseable {
+
+    /**
+     * Constructor which runs the quanta in a pool of the service's own (shut down when the service is closed).
+     *
+     * @param engine   the search settings (whose iteration budget is replaced by that of each request).
+     * @param workers  the number of worker threads.
+     * @param quantum  the number of iterations a worker runs on one request before moving on to the next.
+     * @param maxNodes the greatest number of nodes held by the trees of all sessions together.
+     */
+    public SearchService(MCTSEngine<G> engine, int workers, int quantum, long maxNodes) {
+        this(engine, newPool(workers), true, quantum, maxNodes);
+    }
+
+    /**
+     * Constructor which runs the quanta in the given pool (which may be shared with other services, and which must
+     * not be shut down before this service is closed).
+     *
+     * @param engine   the search settings (whose iteration budget is replaced by that of each request).
+     * @param pool     the pool whose threads run the quanta.
+     * @param quantum  the number of iterations a worker runs on one request before moving on to the next.
+     * @param maxNodes the greatest number of nodes held by the trees of all sessions together.
+     */
+    public SearchService(MCTSEngine<G> engine, ForkJoinPool pool, int quantum, long maxNodes) {
+        this(engine, pool, false, quantum, maxNodes);
+    }
+
+    private SearchService(MCTSEngine<G> engine, ForkJoinPool pool, boolean ownPool, int quantum, long maxNodes) {
+        if (quantum < 1) throw new IllegalArgumentException("quantum must be positive: " + quantum);
+        if (maxNodes < 1) throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        this.engine = engine;
+        this.quantumEngine = engine.withIterations(quantum);
+        this.timeBudgetNanos = engine.timeBudgetMillis() * 1_000_000L;
+        this.quantum = quantum;
+        this.maxNodes = maxNodes;
+        this.pool = pool;
+        this.ownPool = ownPool;
+    }
+
+    /**
+     * Start a game.
+     *
+     * @param state the State to play from.
+     * @return a new Session.
+     */
+    public Session open(State<G> state) {
+        if (closed) throw new IllegalStateException("service is closed");
+        Session session = new Session(state);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * @return the number of open sessions.
+     */
+    public int sessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of nodes in the trees of all open sessions.
+     */
+    public long nodes() {
+        return nodes.get();
+    }
+
+    /**
+     * @return the number of nodes discarded to keep within the cap.
+     */
+    public long prunedNodes() {
+        return pruned.get();
+    }
+
+    /**
+     * @return the number of quanta run.
+     */
+    public long quanta() {
+        return quanta.get();
+    }
+
+    /**
+     * @return the pool in which the quanta run.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Stop serving requests (and shut down the pool, if it is the service's own).
+     * Pending requests are cancelled, including any whose quantum is running.
+     */
+    public void close() {
+        closed = true;
+        for (Request request; (request = queue.poll()) != null; ) cancel(request);
+        if (ownPool) pool.shutdown();
+    }
+
+    /**
+     * A game hosted by the service: the tree searched from the current State, which is kept (below the moves
+     * played) for the next search. A session serves one request at a time.
+     */
+    public class Session {
+
+        /**
+         * Search the current State.
+         *
+         * @param iterations the number of iterations (fewer if the solver proves the State first, or if the engine's
+         *                   time budget runs out, counting from now).
+         * @return a future of the best move (see {@link SearchNode#best()}), or of null if the State is terminal.
+         * @throws IllegalStateException if a search of this session is already pending, or the session is closed.
+         */
+        public synchronized CompletableFuture<Move<G>> search(int iterations) {
+            if (iterations < 1) throw new IllegalArgumentException("iterations must be positive: " + iterations);
+            if (closed || SearchService.this.closed) throw new IllegalStateException("session is closed");
+            if (pending != null) throw new IllegalStateException("a search is already pending");
+            Request request = new Request(this, iterations, timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE);
+            if (root.isLeaf()) request.future.complete(null);
+            else {
+                pending = request;
+                enqueue(request);
+            }
+            return request.future;
+        }
+
+        /**
+         * Play a move (either player's), keeping the subtree below it for the next search.
+         *
+         * @param move a move from the current State.
+         * @throws IllegalStateException if a search is pending.
+         */
+        public synchronized void play(Move<G> move) {
+            if (pending != null) throw new IllegalStateException("a search is pending");
+            SearchNode<G> next = null;
+            for (SearchNode<G> child : root.searchChildren())
+                if (move.equals(child.move())) next = child;
+            long before = size;
+            if (next == null) {
+                root = new SearchNode<>(root.state().next(move));
+                size = 1;
+            } else {
+                next.detach();
+                root = next;
+                size = root.size();
+            }
+            nodes.addAndGet(size - before);
+        }
+
+        /**
+         * @return the current State.
+         */
+        public synchronized State<G> state() {
+            return root.state();
+        }
+
+        /**
+         * @return the root of the tree (which must not be changed while a search is pending).
+         */
+        public synchronized SearchNode<G> root() {
+            return root;
+        }
+
+        /**
+         * @return the number of nodes in this session's tree.
+         */
+        public synchronized long size() {
+            return size;
+        }
+
+        /**
+         * Discard the tree and leave the service. A pending search is cancelled.
+         */
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            if (pending != null) pending.future.cancel(false);
+            sessions.remove(this);
+            nodes.addAndGet(-size);
+            size = 0;
+        }
+
+        private Session(State<G> state) {
+            this.root = new SearchNode<>(state);
+            nodes.incrementAndGet();
+        }
+
+        // Run one quantum of the pending request (on a worker); return true if the request is finished
+        private synchronized boolean runQuantum(Request request) {
+            if (closed || request.future.isDone()) {
+                pending = null;
+                return true;
+            }
+            if (SearchService.this.closed) {
+                cancel(request);
+                return true;
+            }
+            int n = Math.min(quantum, request.remaining);
+            MCTSEngine<G> settings = n == quantum ? quantumEngine : engine.withIterations(n);
+            // NOTE: the time left is rounded up to the millisecond, so that a quantum is not cut short before the
+            // request's deadline (and one which has waited out its time in the queue still gets a move).
+            if (request.deadline != Long.MAX_VALUE)
+                settings = settings.withTimeBudget(Math.max(1, (request.deadline - System.nanoTime() + 999_999) / 1_000_000));
+            MCTSEngine.Result<G> result = settings.search(root);
+            request.remaining -= n;
+            size += result.nodes();
+            nodes.addAndGet(result.nodes());
+            if (nodes.get() > maxNodes) enforceCap();
+            if (request.remaining > 0 && result.iterations() == n && System.nanoTime() < request.deadline) {
+                if (!SearchService.this.closed) return false;
+                cancel(request);
+                return true;
+            }
+            pending = null;
+            SearchNode<G> best = root.best();
+            request.future.complete(best == null ? null : best.move());
+            return true;
+        }
+
+        // Prune this session's tree to its share of the cap: discard the subtrees of nodes with fewer than
+        // 2, 4, 8, ... playouts until it fits (the root and its children are always kept)
+        private void enforceCap() {
+            long share = maxNodes / Math.max(1, sessions.size());
+            for (int minPlayouts = 2; size > share && minPlayouts > 0; minPlayouts *= 2) {
+                int removed = root.prune(minPlayouts);
+                size -= removed;
+                nodes.addAndGet(-removed);
+                pruned.addAndGet(removed);
+                if (removed == 0 && minPlayouts > root.playouts()) break;
+            }
+        }
+
+        private SearchNode<G> root;
+        private long size = 1;
+        private Request pending;
+        private boolean closed;
+    }
+
+    // Run one quantum of the request at the head of the run queue (as a task of the pool)
+    private void runNext() {
+        Request request = queue.poll();
+        if (request == null) return; // Taken off the queue by close
+        boolean finished;
+        try {
+            finished = request.session.runQuantum(request);
+        } catch (RuntimeException e) {
+            synchronized (request.session) {
+                request.session.pending = null;
+            }
+            request.future.completeExceptionally(e);
+            finished = true;
+        }
+        quanta.incrementAndGet();
+        if (!finished) enqueue(request);
+    }
+
+    // Put the request on the run queue, with a task to serve it; if the service has been closed meanwhile, the
+    // request is cancelled (here or by close, whichever takes it off the queue) so that its future is always completed
+    // NOTE: there is one task in the pool for each request in the queue, so the order in which the pool runs its tasks
+    // does not matter: each takes the request at the head of the queue.
+    private void enqueue(Request request) {
+        queue.add(request);
+        if (closed && queue.remove(request)) cancel(request);
+        else try {
+            pool.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            // The pool has been shut down (by close, or by its owner)
+            if (queue.remove(request)) cancel(request);
+        }
+    }
+
+    private void cancel(Request request) {
+        synchronized (request.session) {
+            if (request.session.pending == request) request.session.pending = null;
+        }
+        request.future.cancel(false);
+    }
+
+    private static ForkJoinPool newPool(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive: " + workers);
+        return new ForkJoinPool(workers);
+    }
+
+    // A search requested of a session, with the iterations it has yet to run and the time by which it must end
+    private class Request {
+        Request(Session session, int iterations, long deadline) {
+            this.session = session;
+            this.remaining = iterations;
+            this.deadline = deadline;
+        }
+
+        private final Session session;
+        private final long deadline; // In nanoseconds (Long.MAX_VALUE if there is no time budget)
+        private final CompletableFuture<Move<G>> future = new CompletableFuture<>();
+        private int remaining;
+    }
+
+    private final MCTSEngine<G> engine;
+    private final MCTSEngine<G> quantumEngine;
+    private final long timeBudgetNanos;
+    private final int quantum;
+    private final long maxNodes;
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    private final ConcurrentLinkedQueue<Request> queue = new ConcurrentLinkedQueue<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong pruned = new AtomicLong();
+    private final AtomicLong quanta = new AtomicLong();
+    private volatile boolean closed;
+}
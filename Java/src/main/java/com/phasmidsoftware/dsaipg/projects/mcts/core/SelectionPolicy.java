@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import java.util.List;
+
+/**
+ * This interface defines how {@link MCTSEngine} chooses which child of an expanded node to descend into.
+ *
+ * @param <G> the type of the Game.
+ */
+public interface SelectionPolicy<G extends Game> {
+
+    /**
+     * Method to choose a child.
+     *
+     * @param parent an expanded node with at least one child.
+     * @return one of its children.
+     */
+    SearchNode<G> select(SearchNode<G> parent);
+
+    /**
+     * UCT (UCB1 applied to trees): the child maximizing value + c * sqrt(ln(N) / n).
+     * Unvisited children are chosen first, in the order they were added. Proven children are skipped (unless all are).
+     *
+     * @param c   the exploration constant (sqrt(2) in theory).
+     * @param <G> the type of the Game.
+     * @return a SelectionPolicy.
+     */
+    static <G extends Game> SelectionPolicy<G> uct(double c) {
+        return parent -> {
+            List<SearchNode<G>> children = parent.searchChildren();
+            double logParent = Math.log(Math.max(1, parent.playouts()));
+            SearchNode<G> best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (SearchNode<G> child : children) {
+                if (child.proof().isProven()) continue;
+                int n = child.playouts();
+                if (n == 0) return child;
+                double value = child.value() + c * Math.sqrt(logParent / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best != null ? best : children.get(0);
+        };
+    }
+
+    /**
+     * PUCT (as in AlphaZero): the child maximizing value + c * prior * sqrt(N) / (1 + n).
+     * An unvisited child's value is taken to be 0.5 (neither a win nor a loss), so the priors order the first visits.
+     * Proven children are skipped (unless all are).
+     *
+     * @param c   the exploration constant.
+     * @param <G> the type of the Game.
+     * @return a SelectionPolicy.
+     */
+    static <G extends Game> SelectionPolicy<G> puct(double c) {
+        return parent -> {
+            double sqrtParent = Math.sqrt(parent.playouts());
+            SearchNode<G> best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (SearchNode<G> child : parent.searchChildren()) {
+                if (child.proof().isProven()) continue;
+                int n = child.playouts();
+                double q = n == 0 ? 0.5 : child.value();
+                double value = q + c * child.prior() * sqrtParent / (1 + n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best != null ? best : parent.searchChildren().get(0);
+        };
+    }
+}
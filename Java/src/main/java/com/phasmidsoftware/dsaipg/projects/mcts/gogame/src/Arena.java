@@ -0,0 +1,379 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A headless match runner: plays a number of games between two {@link MCSTAgent} configurations, several games at a
+ * time, without the GUI.
+ * <p>
+ * The agents alternate colours from game to game, and each game gets two fresh agents (so each keeps its own tree
+ * for the whole game). A game ends after two consecutive passes (an agent passes when it has no legal move) or after
+ * 3 * size * size moves, and is scored by area with {@link MCSTAgent#KOMI}.
+ * <p>
+ * Each game's history is kept as a list of {@link Memeryunit_B} snapshots, as in {@link ChessBoardPanel_B}, from
+ * which it can be written as an SGF record. The {@link Report} gives the first agent's score with a confidence
+ * interval, moves and playouts per second, and each agent's per-move latency percentiles.
+ */
+public class Arena {
+
+    /**
+     * Constructor.
+     *
+     * @param first    the settings of the first agent.
+     * @param second   the settings of the second agent.
+     * @param size     the board size.
+     * @param parallel the number of games played at the same time.
+     */
+    public Arena(SearchConfig first, SearchConfig second, int size, int parallel) {
+        if (size < 2 || size > 25) throw new IllegalArgumentException("size must be between 2 and 25: " + size);
+        if (parallel < 1) throw new IllegalArgumentException("parallel must be positive: " + parallel);
+        this.first = first;
+        this.second = second;
+        this.size = size;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Play a match.
+     *
+     * @param games     the number of games (the first agent takes black in the even-numbered games).
+     * @param sgfFolder the folder in which to write game-NNN.sgf for each game, or null.
+     * @return the report of the match.
+     * @throws IOException if a record cannot be written.
+     */
+    public Report play(int games, Path sgfFolder) throws IOException {
+        if (sgfFolder != null) Files.createDirectories(sgfFolder);
+        ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        List<Game> results = new ArrayList<>(games);
+        long start = System.nanoTime();
+        try {
+            List<Future<Game>> futures = new ArrayList<>(games);
+            for (int g = 0; g < games; g++) {
+                boolean firstIsBlack = g % 2 == 0;
+                futures.add(executor.submit(() -> firstIsBlack
+                        ? playGame(new MCSTAgent(first), new MCSTAgent(second), size, true)
+                        : playGame(new MCSTAgent(second), new MCSTAgent(first), size, false)));
+            }
+            for (Future<Game> future : futures) results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("match interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sgfFolder != null)
+            for (int g = 0; g < games; g++)
+                Files.writeString(sgfFolder.resolve(String.format("game-%03d.sgf", g)), results.get(g).toSgf());
+        return new Report(results, elapsed);
+    }
+
+    /**
+     * Play one game.
+     *
+     * @param black        the agent which plays black.
+     * @param white        the agent which plays white.
+     * @param size         the board size.
+     * @param firstIsBlack true if black is the match's first agent (this only labels the record).
+     * @return the game.
+     */
+    public static Game playGame(MCSTAgent black, MCSTAgent white, int size, boolean firstIsBlack) {
+        GoBoard board = new GoBoard(size);
+        PositionHistory history = new PositionHistory();
+        history.add(board.hash());
+        Game game = new Game(size, firstIsBlack);
+        int turn = GoBoard.BLACK;
+        int passes = 0;
+        game.snapshot(board, turn);
+        for (int moves = 0; passes < 2 && moves < 3 * size * size; moves++) {
+            MCSTAgent agent = turn == GoBoard.BLACK ? black : white;
+            long start = System.nanoTime();
+            int[] move = agent.chooseMove(board, turn, history, agent.getConfig());
+            game.record(System.nanoTime() - start, agent.getIterations());
+            if (move == null) {
+                board.pass();
+                passes++;
+            } else {
+                board.play(board.point(move[0], move[1]), turn);
+                history.add(board.hash());
+                passes = 0;
+            }
+            turn = -turn;
+            game.snapshot(board, turn);
+        }
+        game.finish(board);
+        return game;
+    }
+
+    /**
+     * The record of one game.
+     */
+    public static class Game {
+
+        /**
+         * @return the snapshots of the game, as in ChessBoardPanel_B: the first is the empty board and each move
+         * (or pass) adds one, with the number of moves so far and the player to move next.
+         */
+        public List<Memeryunit_B> history() {
+            return history;
+        }
+
+        /**
+         * @return the winner (BLACK, WHITE or 0 for a draw).
+         */
+        public int winner() {
+            return winner;
+        }
+
+        /**
+         * @return the area score, black minus white, less komi.
+         */
+        public double score() {
+            return score;
+        }
+
+        /**
+         * @return true if black was the match's first agent.
+         */
+        public boolean firstIsBlack() {
+            return firstIsBlack;
+        }
+
+        /**
+         * @return the number of moves, including passes.
+         */
+        public int moves() {
+            return history.size() - 1;
+        }
+
+        /**
+         * @return the first agent's result: 1 for a win, 0.5 for a draw and 0 for a loss.
+         */
+        public double firstScore() {
+            int firstColour = firstIsBlack ? GoBoard.BLACK : GoBoard.WHITE;
+            return winner == 0 ? 0.5 : winner == firstColour ? 1 : 0;
+        }
+
+        /**
+         * @return the game as an SGF (FF[4]) record. The moves are recovered from the snapshots: the point which
+         * a snapshot gains over the one before is the move (stones which are placed are never suicides, so they
+         * are still there), and a snapshot which gains none is a pass.
+         */
+        public String toSgf() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("(;FF[4]GM[1]CA[UTF-8]AP[MCSTAgent Arena]SZ[").append(size).append("]KM[").append(MCSTAgent.KOMI)
+                    .append("]RU[Tromp-Taylor]PB[").append(firstIsBlack ? "first" : "second")
+                    .append("]PW[").append(firstIsBlack ? "second" : "first").append("]RE[").append(result()).append("]");
+            for (int k = 1; k < history.size(); k++) {
+                int[][] before = history.get(k - 1).getM_ChessMap(), after = history.get(k).getM_ChessMap();
+                int mover = -history.get(k).getM_Turnflag();
+                sb.append(';').append(mover == GoBoard.BLACK ? 'B' : 'W').append('[');
+                for (int i = 0; i < size; i++)
+                    for (int j = 0; j < size; j++)
+                        if (before[i][j] == GoBoard.EMPTY && after[i][j] == mover)
+                            sb.append((char) ('a' + j)).append((char) ('a' + i));
+                sb.append(']');
+            }
+            return sb.append(")\n").toString();
+        }
+
+        private String result() {
+            if (winner == 0) return "0";
+            return (winner == GoBoard.BLACK ? "B+" : "W+") + Math.abs(score);
+        }
+
+        Game(int size, boolean firstIsBlack) {
+            this.size = size;
+            this.firstIsBlack = firstIsBlack;
+        }
+
+        private void snapshot(GoBoard board, int turn) {
+            history.add(new Memeryunit_B(board.toArray(), history.size(), turn));
+        }
+
+        // Record the time taken by a move and the playouts of its search; the latencies of black's and white's
+        // moves alternate (black's at even indices), as the players do
+        private void record(long nanos, int playouts) {
+            if (moveCount == latencies.length) latencies = Arrays.copyOf(latencies, moveCount * 2);
+            latencies[moveCount++] = nanos;
+            this.playouts += playouts;
+        }
+
+        private void finish(GoBoard board) {
+            score = board.areaScore(MCSTAgent.KOMI);
+            winner = board.winner(MCSTAgent.KOMI);
+        }
+
+        // The latencies of the first (or second) agent's moves in this game
+        private long[] latencies(boolean ofFirst) {
+            int from = ofFirst == firstIsBlack ? 0 : 1;
+            long[] result = new long[(moveCount - from + 1) / 2];
+            for (int i = 0; i < result.length; i++) result[i] = latencies[from + 2 * i];
+            return result;
+        }
+
+        private final int size;
+        private final boolean firstIsBlack;
+        private final List<Memeryunit_B> history = new Vector<>();
+        private long[] latencies = new long[64];
+        private int moveCount;
+        private long playouts;
+        private double score;
+        private int winner;
+    }
+
+    /**
+     * The results of a match.
+     */
+    public static class Report {
+
+        Report(List<Game> games, long elapsedNanos) {
+            this.games = games;
+            this.elapsedNanos = elapsedNanos;
+            double score = 0;
+            for (Game game : games) {
+                score += game.firstScore();
+                moves += game.moves();
+                playouts += game.playouts;
+            }
+            this.score = score;
+            this.firstLatencies = latencies(games, true);
+            this.secondLatencies = latencies(games, false);
+        }
+
+        public List<Game> games() {
+            return games;
+        }
+
+        /**
+         * @return the first agent's score (draws count half) divided by the number of games.
+         */
+        public double winRate() {
+            return games.isEmpty() ? 0 : score / games.size();
+        }
+
+        /**
+         * The Wilson score interval for the first agent's win rate.
+         *
+         * @param z the normal quantile, e.g. 1.96 for 95%.
+         * @return {lower, upper}.
+         */
+        public double[] confidenceInterval(double z) {
+            return wilson(score, games.size(), z);
+        }
+
+        public double movesPerSecond() {
+            return moves * 1E9 / Math.max(1, elapsedNanos);
+        }
+
+        public double playoutsPerSecond() {
+            return playouts * 1E9 / Math.max(1, elapsedNanos);
+        }
+
+        /**
+         * @param ofFirst true for the first agent, false for the second.
+         * @param p       the percentile, between 0 and 100.
+         * @return that agent's per-move latency at the given percentile (nearest rank), in milliseconds.
+         */
+        public double latencyMillis(boolean ofFirst, double p) {
+            return percentile(ofFirst ? firstLatencies : secondLatencies, p) / 1E6;
+        }
+
+        @Override
+        public String toString() {
+            double[] ci = confidenceInterval(1.96);
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d games: first scores %.3f (95%% CI %.3f-%.3f); %,d moves at %,.1f moves/sec, %,.0f playouts/sec%n",
+                    games.size(), winRate(), ci[0], ci[1], moves, movesPerSecond(), playoutsPerSecond()));
+            for (boolean ofFirst : new boolean[]{true, false})
+                sb.append(String.format("  %s latency (ms): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n", ofFirst ? "first " : "second",
+                        latencyMillis(ofFirst, 50), latencyMillis(ofFirst, 90), latencyMillis(ofFirst, 99), latencyMillis(ofFirst, 100)));
+            return sb.toString();
+        }
+
+        private static long[] latencies(List<Game> games, boolean ofFirst) {
+            long[] result = new long[0];
+            for (Game game : games) {
+                long[] xs = game.latencies(ofFirst);
+                int n = result.length;
+                result = Arrays.copyOf(result, n + xs.length);
+                System.arraycopy(xs, 0, result, n, xs.length);
+            }
+            Arrays.sort(result);
+            return result;
+        }
+
+        private final List<Game> games;
+        private final long elapsedNanos;
+        private final double score;
+        private final long[] firstLatencies, secondLatencies;
+        private long moves;
+        private long playouts;
+    }
+
+    /**
+     * The Wilson score interval for a binomial proportion.
+     *
+     * @param successes the number of successes (may be fractional, for draws).
+     * @param n         the number of trials.
+     * @param z         the normal quantile.
+     * @return {lower, upper}, or {0, 1} if n is 0.
+     */
+    static double[] wilson(double successes, int n, double z) {
+        if (n == 0) return new double[]{0, 1};
+        double p = successes / n, z2 = z * z;
+        double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double half = z / (1 + z2 / n) * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n));
+        return new double[]{Math.max(0, centre - half), Math.min(1, centre + half)};
+    }
+
+    /**
+     * @param sorted values in ascending order.
+     * @param p      the percentile, between 0 and 100.
+     * @return the nearest-rank percentile, or 0 if there are no values.
+     */
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /**
+     * Play RAVE against plain UCT at equal time per move.
+     * Arguments: board sizes (comma-separated, default 9,13,19), games per size (default 20), milliseconds per move
+     * (default 100), games at a time (default the number of cores) and a folder for the SGF records (default none).
+     */
+    public static void main(String[] args) throws IOException {
+        String[] sizes = (args.length > 0 ? args[0] : "9,13,19").split(",");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        int parallel = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Path folder = args.length > 4 ? Paths.get(args[4]) : null;
+        SearchConfig plain = SearchConfig.DEFAULT.withTimeBudget(millis);
+        SearchConfig rave = plain.withRave(SearchConfig.RaveSchedule.EQUIVALENCE, 1000);
+        for (String s : sizes) {
+            int size = Integer.parseInt(s.trim());
+            System.out.printf("%dx%d, %d ms per move, first = %s, second = plain UCT%n", size, size, millis, rave.raveSchedule());
+            Report report = new Arena(rave, plain, size, parallel).play(games, folder == null ? null : folder.resolve(size + "x" + size));
+            System.out.print(report);
+        }
+    }
+
+    private final SearchConfig first;
+    private final SearchConfig second;
+    private final int size;
+    private final int parallel;
+}
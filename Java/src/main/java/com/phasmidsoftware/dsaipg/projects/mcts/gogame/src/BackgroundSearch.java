@@ -0,0 +1,110 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs an {@link MCSTAgent}'s searches on a worker thread, so that a GUI stays responsive while the agent thinks.
+ * <p>
+ * {@link #search} chooses a move and hands it to a callback, which runs on the given executor (for Swing,
+ * {@code SwingUtilities::invokeLater}). {@link #ponder} searches the position in which the opponent is to move,
+ * until the next call to search (or {@link #cancel()}): the agent keeps the tree, so when the opponent's move was
+ * one the ponder explored, the next search starts from that subtree.
+ * While either runs, {@link #snapshot()} shows its progress.
+ * <p>
+ * The board and history are copied on the calling thread, so the caller may go on changing its own.
+ */
+public class BackgroundSearch {
+
+    /**
+     * Constructor.
+     *
+     * @param agent     the agent.
+     * @param callbacks where the callbacks of search run.
+     */
+    public BackgroundSearch(MCSTAgent agent, Executor callbacks) {
+        this.agent = agent;
+        this.callbacks = callbacks;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MCSTAgent search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stop any search or ponder and start a search for the move of the player to move.
+     *
+     * @param board    the position.
+     * @param turn     the player to move.
+     * @param history  the positions played so far (for superko), or null.
+     * @param callback receives the move as [row, col], or null if there is no legal move (unless the search is
+     *                 cancelled, in which case it is not called).
+     * @return the Future of the move.
+     */
+    public synchronized Future<int[]> search(GoBoard board, int turn, PositionHistory history, Consumer<int[]> callback) {
+        cancel();
+        AtomicBoolean stop = new AtomicBoolean();
+        GoBoard position = board.copy();
+        PositionHistory positions = history == null ? null : history.copy();
+        cancelCurrent = stop;
+        return worker.submit(() -> {
+            int[] move = agent.chooseMove(position, turn, positions, agent.getConfig(), stop);
+            if (!stop.get()) callbacks.execute(() -> callback.accept(move));
+            return move;
+        });
+    }
+
+    /**
+     * Stop any search or ponder and start pondering: search the position (in which the opponent is to move) until
+     * cancelled, or until ten times the agent's iteration (or time) budget has been used.
+     *
+     * @param board   the position.
+     * @param turn    the player to move (the opponent).
+     * @param history the positions played so far, or null.
+     */
+    public synchronized void ponder(GoBoard board, int turn, PositionHistory history) {
+        cancel();
+        AtomicBoolean stop = new AtomicBoolean();
+        GoBoard position = board.copy();
+        PositionHistory positions = history == null ? null : history.copy();
+        SearchConfig config = agent.getConfig();
+        SearchConfig ponder = (config.timeBudgetMillis() > 0
+                ? config.withTimeBudget(10 * config.timeBudgetMillis())
+                : config.withIterations((int) Math.min(Integer.MAX_VALUE, 10L * config.iterations()))).withEarlyStop(false);
+        cancelCurrent = stop;
+        worker.submit(() -> agent.chooseMove(position, turn, positions, ponder, stop));
+    }
+
+    /**
+     * Stop the current search or ponder, if any. A search which is stopped does not call its callback.
+     */
+    public synchronized void cancel() {
+        if (cancelCurrent != null) cancelCurrent.set(true);
+        cancelCurrent = null;
+    }
+
+    /**
+     * @return the progress of the current search or ponder, or null if there is none.
+     */
+    public MCSTAgent.Snapshot snapshot() {
+        return agent.snapshot();
+    }
+
+    /**
+     * Stop searching and release the worker thread.
+     */
+    public synchronized void shutdown() {
+        cancel();
+        worker.shutdown();
+    }
+
+    private final MCSTAgent agent;
+    private final Executor callbacks;
+    private final ExecutorService worker;
+    private AtomicBoolean cancelCurrent; // Stops the latest search or ponder
+}
@@ -23,8 +23,8 @@ public class ChessBoardPanel_B extends JPanel {
 
 
 	///////////////////////////////////////// Info block ////////////////////////////////////////
-	private Vector vAllGroup = new Vector(); // All groups
-	private Vector CurrentRemovedGruop = new Vector(); // Currently removed neighbor group
+	private GoBoard rules = new GoBoard(ROWS); // Rules engine shared with MCSTAgent (captures, suicide, ko)
+	private final PositionHistory history = new PositionHistory(); // Positions of this game, for superko
 
 	private int[][] ChessMap; // Board coordinates
 	private Chess_B[][] ChessPoint = new Chess_B[ROWS][ROWS]; // Board coordinate objects
@@ -34,41 +34,15 @@ public class ChessBoardPanel_B extends JPanel {
 
 	private int Turnflag = 1; // Turn flag
 	private int CurrentMapPoint_X, CurrentMapPoint_Y; // Mouse-click grid position, -1 = invalid
+	private MCSTAgent.Snapshot snapshot; // The AI's search in progress, drawn over the board, or null
 	////////////////////////////////////////// Info block ////////////////////////////////////////
 
+	// Tromp-Taylor area scoring (stones plus the empty points they alone surround), as MCSTAgent scores games
 	public int Winner() {
-		blackSize=0;
-		whiteSize=0;
-		for (int i = 0; i < ROWS; i++) {
-			for (int j = 0; j < ROWS; j++) {
-
-				ChessPoint[i][j].setX_Map(i);
-				ChessPoint[i][j].setY_Map(j);
-				GenerateGruopforsinglechess(i, j);
-			}
-		}
-		
-		for(int k=0;k<vAllGroup.size();k++) {
-			Vector v=new Vector();
-			Chess_B CH;
-			v=(Vector)vAllGroup.elementAt(k);
-			CH=(Chess_B)v.elementAt(0);
-			if(ChessMap[CH.getX_Map()][CH.getY_Map()]==1) {
-				blackSize=blackSize+v.size();
-				
-			}
-			if(ChessMap[CH.getX_Map()][CH.getY_Map()]==-1) {
-				whiteSize=whiteSize+v.size();
-		}
-			
-		}
-		if(blackSize>whiteSize)
-			return 1;
-		if(blackSize<whiteSize)
-			return -1;
-		if(blackSize==whiteSize)
-			return 0;
-		return -2;
+		GoBoard board = new GoBoard(ChessMap);
+		blackSize = board.area(GoBoard.BLACK);
+		whiteSize = board.area(GoBoard.WHITE);
+		return board.winner(MCSTAgent.KOMI);
 	}
 	
 	public int getStep() {
@@ -93,12 +67,14 @@ public class ChessBoardPanel_B extends JPanel {
 
 	public void newGame() {
 		MapMemery.removeAllElements();
-		vAllGroup.removeAllElements();
 		for (int i = 0; i < ROWS; i++) {
 			for (int j = 0; j < ROWS; j++) {
 				ChessMap[i][j] = 0;
 			}
 		}
+		rules.clear();
+		history.clear();
+		history.add(rules.hash());
 
 		System.out.println("Renew");
 		// showChessMap(ChessMap);
@@ -110,7 +86,6 @@ public class ChessBoardPanel_B extends JPanel {
 		}
 		step = 0;
 		Turnflag = 1;
-		renewChessMap();
 		repaint();
 	}
 
@@ -193,10 +168,47 @@ public class ChessBoardPanel_B extends JPanel {
 			}
 		}
 
+		// Draw the progress of the AI's search over the stones
+		if (snapshot != null && snapshot.size == ROWS)
+			paintSnapshot(g);
+
 		System.out.println("Currentstep " + step);
 		System.out.println("MapMemerylength " + MapMemery.size() + " " + MapMemery);
 	}
 
+	// Heat map of the visits of each root move (the more visits, the stronger the colour), with the principal
+	// variation numbered in the colours of the players who would play it
+	private void paintSnapshot(Graphics g) {
+		int max = snapshot.maxVisits();
+		if (max == 0)
+			return;
+		int radius = span / 3;
+		for (int p = 0; p < snapshot.visits.length; p++) {
+			if (snapshot.visits[p] == 0)
+				continue;
+			Chess_B point = ChessPoint[p / ROWS][p % ROWS];
+			g.setColor(new Color(255, 64, 0, 40 + 180 * snapshot.visits[p] / max));
+			g.fillOval(point.getX_Point() - radius, point.getY_Point() - radius, 2 * radius, 2 * radius);
+		}
+		g.setFont(g.getFont().deriveFont(Font.BOLD, 12f));
+		FontMetrics metrics = g.getFontMetrics();
+		for (int k = 0; k < snapshot.principalVariation.length; k++) {
+			int p = snapshot.principalVariation[k];
+			Chess_B point = ChessPoint[p / ROWS][p % ROWS];
+			boolean black = (k % 2 == 0) == (snapshot.turn == 1);
+			g.setColor(black ? Color.BLACK : Color.WHITE);
+			String label = String.valueOf(k + 1);
+			g.drawString(label, point.getX_Point() - metrics.stringWidth(label) / 2,
+					point.getY_Point() + metrics.getAscent() / 2 - 1);
+		}
+	}
+
+	// Show the progress of a search over the board, or remove it (null)
+	public void setSearchSnapshot(MCSTAgent.Snapshot snapshot) {
+		this.snapshot = snapshot;
+		repaint();
+	}
+
 	// Initialize the board
 	public ChessBoardPanel_B() {
 
@@ -221,7 +233,7 @@ public class ChessBoardPanel_B extends JPanel {
 			}
 		}
 		MapMemery.removeAllElements();
-		vAllGroup.removeAllElements();
+		history.add(rules.hash());
 		// Print to console
 		showChessPointMap();
 		AddtoMemery(ChessMap, step, Turnflag);
@@ -231,13 +243,6 @@ public class ChessBoardPanel_B extends JPanel {
 
 	// Place a piece
 	public int playChess(int x, int y) {// Receives coordinates from the current mouse click
-		vAllGroup.removeAllElements();
-		for (int i = 0; i < ROWS; i++) {
-			for (int j = 0; j < ROWS; j++) {
-				ChessPoint[i][j].setvCurrentGroup(null);
-
-			}
-		}
 		// Check if the clicked position is valid
 		// Invalid move
 		if (judgeonMapPoint(x, y) == 0) {
@@ -252,113 +257,47 @@ public class ChessBoardPanel_B extends JPanel {
 			return -1;
 		}
 
-		// Temporarily update the board map
-		setChessMap(CurrentMapPoint_X, CurrentMapPoint_Y, Turnflag);
-		// Find neighbor groups for each piece
-		for (int i = 0; i < ROWS; i++) {
-			for (int j = 0; j < ROWS; j++) {
-
-				ChessPoint[i][j].setX_Map(i);
-				ChessPoint[i][j].setY_Map(j);
-				GenerateGruopforsinglechess(i, j);
-			}
+		// Suicide, ko and superko are not allowed; captured groups are removed
+		if (playByRules(CurrentMapPoint_X, CurrentMapPoint_Y, Turnflag) == -1) {
+			System.out.println("无效下棋");
+			return -1;
 		}
 		step++;// Increase move count
-		// addMap();
-		// If the piece has liberties, it's a valid move
-		if (countAir(CurrentMapPoint_X, CurrentMapPoint_Y) != 0) {
-			System.out.println("qi:" + countAir(CurrentMapPoint_X, CurrentMapPoint_Y));
-
-			renewChessMap();
-			AddtoMemery(ChessMap, step, Turnflag);
-			repaint();
-
-			showChessMap(ChessMap);
-
-			if (Turnflag == 1)
-				Turnflag = -1;
-			else
-				Turnflag = 1;
-
-			return 1;
-
-		}
-		// If the placed piece has no liberties
-		if (countAir(CurrentMapPoint_X, CurrentMapPoint_Y) == 0) {
-
-			// Find the neighbor group of the placed piece
-			// If the group has liberties
-			if (GruopAir(ChessPoint[CurrentMapPoint_X][CurrentMapPoint_Y].getvCurrentGroup()) != 0) {
-
-				System.out.println(
-						"group qi:" + GruopAir(ChessPoint[CurrentMapPoint_X][CurrentMapPoint_Y].getvCurrentGroup()));
-				renewChessMap();
-				AddtoMemery(this.ChessMap, this.step, this.Turnflag);
-				// AddtoMemery(ChessMap, ChessPoint,vAllGroup,CurrentRemovedGruop, step,
-
-				repaint();
-
-				showChessMap(ChessMap);
-
-				if (Turnflag == 1)
-					Turnflag = -1;
-				else
-					Turnflag = 1;
-
-				return 1;
-			}
-
-			// If the group has no liberties, check for enemy groups around
-			if (GruopAir(ChessPoint[CurrentMapPoint_X][CurrentMapPoint_Y].getvCurrentGroup()) == 0) {
-				int aliveflag = 0;// Dead stone flag
-				// Get all enemy neighbor groups
-				Vector vGroupunsamearound = getUnSamearound(CurrentMapPoint_X, CurrentMapPoint_Y);
-				// Check if any enemy neighbor groups have liberties
-				for (int i = 0; i < vGroupunsamearound.size(); i++) {
-
-					Vector vunsamearound = (Vector) vGroupunsamearound.elementAt(i);// Current enemy neighbor group
-					// If enemy group has no liberties, remove it from the board
-					if (GruopAir(vunsamearound) == 0) {
-						for (int j = 0; j < vunsamearound.size(); j++) {
-							int X, Y;
-							Chess_B CH = (Chess_B) vunsamearound.elementAt(j);
-							X = CH.getX_Map();
-							Y = CH.getY_Map();
-							setChessMap(X, Y, 0);// Capture
-							ChessPoint[X][Y].setvCurrentGroup(null);
-							aliveflag = 1;
-						}					
-					}
-
-				}
+		AddtoMemery(ChessMap, step, Turnflag);
+		repaint();
+		showChessMap(ChessMap);
+		if (Turnflag == 1)
+			Turnflag = -1;
+		else
+			Turnflag = 1;
+		return 1;
+	}
 
-				if (aliveflag == 0) {
-					// Remove the placed piece (suicide move)
-					setChessMap(CurrentMapPoint_X, CurrentMapPoint_Y, 0);
-					System.out.println("无效下棋");
-					if (step > 0)
-						step--;
-					showChessMap(ChessMap);
-					// deletMap(AllMaplength)
-					return -1;
-				} else {
-					renewChessMap();
-					AddtoMemery(ChessMap, step, Turnflag);
-					// AddtoMemery(ChessMap, ChessPoint,vAllGroup,CurrentRemovedGruop, step,
-
-					repaint();
-					showChessMap(ChessMap);
-					if (Turnflag == 1)
-						Turnflag = -1;
-					else
-						Turnflag = 1;
-					return 1;
-				}
+	// Play a move on the rules board and copy the result to ChessMap.
+	// Returns 1 if the move was played, -1 if it is suicide, retakes a ko or repeats an earlier position.
+	private int playByRules(int row, int col, int turn) {
+		GoBoard board = getRulesBoard();
+		int p = board.point(row, col);
+		if (!board.isLegal(p, turn) || board.repeatsPosition(p, turn, history))
+			return -1;
+		board.play(p, turn);
+		board.writeTo(ChessMap);
+		history.add(board.hash());
+		return 1;
+	}
 
-			}
+	// The rules board for the current position, with the ko point if there is one.
+	// If ChessMap has been changed directly, the board is reloaded from it (and any ko is forgotten).
+	public GoBoard getRulesBoard() {
+		GoBoard board = new GoBoard(ChessMap);
+		if (!board.sameStones(rules))
+			rules = board;
+		return rules;
+	}
 
-		}
-		return 0;
+	// The positions which have occurred in this game
+	public PositionHistory getPositionHistory() {
+		return history;
 	}
 
 	// Add memory unit
@@ -389,6 +328,11 @@ public class ChessBoardPanel_B extends JPanel {
 		}
 
 		int step = memery.getM_step();
+		// Recall the positions which remain in the game record
+		rules = new GoBoard(ChessMap);
+		history.clear();
+		for (int k = 0; k < MapMemery.size(); k++)
+			history.add(new GoBoard(((Memeryunit_B) MapMemery.elementAt(k)).getM_ChessMap()).hash());
 		repaint();
 		showChessMap(ChessMap);
 		if (step % 2 == 0)
@@ -522,135 +466,12 @@ public class ChessBoardPanel_B extends JPanel {
 			return 0;
 	}
 
-	// Refresh board state and remove groups with no liberties
-	public void renewChessMap() {
-		// CurrentRemovedGruop.removeAllElements();
-		for (int i = 0; i < vAllGroup.size(); i++) {
-			Vector CurrentGruop = (Vector) vAllGroup.elementAt(i);
-
-			if (GruopAir(CurrentGruop) == 0) {
-				for (int j = 0; j < CurrentGruop.size(); j++) {
-					Chess_B CH = (Chess_B) CurrentGruop.elementAt(j);
-					int X = CH.getX_Map();
-					int Y = CH.getY_Map();
-					setChessMap(X, Y, 0);
-					// ChessPoint[X][Y].setvCurrentGroup(null);
-				}
-				// CurrentRemovedGruop.addElement(CurrentGruop);
-				// vAllGroup.remove(CurrentGruop);
-			}
-		}
-	}
-
 	// Update board map with a new move
 	public void setChessMap(int x, int y, int flag) {
 		ChessMap[x][y] = flag;
 
 	}
 
-	// Get enemy groups adjacent to a piece
-	public Vector getUnSamearound(int x, int y) {
-		Vector v = new Vector();
-		int X, Y;
-		for (int l = 0; l < xdir.length; l++) {
-			X = x + xdir[l];
-			Y = y + ydir[l];
-			if (X < 0 || X > ROWS - 1 || Y < 0 || Y > ROWS - 1)
-				continue;
-			if (ChessMap[X][Y] == -ChessMap[x][y])
-				v.addElement(ChessPoint[X][Y].getvCurrentGroup());// Up
-
-		}
-		return v;
-	}
-
-	// Get enemy groups adjacent to a piece
-	public Vector getSamearound(int x, int y) {
-
-		Vector v = new Vector();
-		int X, Y;
-		for (int l = 0; l < xdir.length; l++) {
-			X = x + xdir[l];
-			Y = y + ydir[l];
-			if (X < 0 || X > ROWS - 1 || Y < 0 || Y > ROWS - 1)
-				continue;
-			if (ChessMap[X][Y] == ChessMap[x][y] && ChessPoint[X][Y].getvCurrentGroup() != null)
-				v.addElement(ChessPoint[X][Y].getvCurrentGroup());// Up
-
-		}
-		return v;
-	}
-
-	// Count liberties for a group
-	public int GruopAir(Vector group) {
-		int Air = 0;
-		int x, y;
-		Chess_B CH;
-		for (int i = 0; i < group.size(); i++) {
-			CH = (Chess_B) group.elementAt(i);
-			x = CH.getX_Map();
-			y = CH.getY_Map();
-			Air = Air + countAir(x, y);
-		}
-		return Air;
-	}
-
-	// Assign a group to a single stone
-	public void GenerateGruopforsinglechess(int x, int y) {
-		// No stone at current position
-		if (ChessMap[x][y] == 0) {
-			System.out.print("No Chesshere");
-			return;
-		}
-		// Stone already has a group
-		if (ChessPoint[x][y].getvCurrentGroup() != null) {
-			System.out.println("already has gruop" + ChessPoint[x][y].getvCurrentGroup());
-			return;
-		}
-
-		// Check surroundings: if no same-colored neighbors, create a new group
-		Vector samevaround = getSamearound(x, y);
-		if (samevaround.size() == 0) {
-			Vector vnewgroup = new Vector();
-			vnewgroup.addElement(ChessPoint[x][y]);
-			// Set the group reference for the stone
-			ChessPoint[x][y].setvCurrentGroup(vnewgroup);
-			// Add the new group to the list of all groups
-			vAllGroup.addElement(vnewgroup);
-			// System.out.println("Allgroup " + vAllGroup);
-			// System.out.println("new Group" + vnewgroup);
-		}
-		// If there are existing neighbor groups, merge them
-		else if (samevaround.size() != 0) {
-			// Use the first neighbor group as the final group
-			Vector finalneighbergroup = (Vector) samevaround.elementAt(0);
-			// System.out.println("finalneighbergroup " + finalneighbergroup);
-			// System.out.println("group size " + samevaround.size());
-			finalneighbergroup.addElement(ChessPoint[x][y]);
-			ChessPoint[x][y].setvCurrentGroup(finalneighbergroup);
-			// System.out.println("AllgruopBefor" + vAllGroup);
-
-			System.out.println((Chess_B) finalneighbergroup.elementAt(0));
-			for (int i = 1; i < samevaround.size(); i++) {
-				// Get each remaining neighbor group
-				Vector neighbergroup = (Vector) samevaround.elementAt(i);
-				if (neighbergroup == finalneighbergroup)
-					continue;
-				// Add each stone from the neighbor group into the final group
-				for (int j = 0; j < neighbergroup.size(); j++) {
-					Chess_B CP = (Chess_B) neighbergroup.elementAt(j);
-					finalneighbergroup.addElement(CP);
-					// Update group reference
-					CP.setvCurrentGroup(finalneighbergroup);
-				}
-				// Remove merged group from the group list
-
-				vAllGroup.remove(neighbergroup);
-
-			}
-		}
-	}
-
 	// New method: place a move directly using board coordinates (row, col) and turn
 	public int playChessAI(int row, int col, int turn) {
 		// Check if the target location already has a stone/
@@ -658,36 +479,21 @@ public class ChessBoardPanel_B extends JPanel {
 			System.out.println("位置已有棋子: " + row + "," + col);
 			return -1;
 		}
-		// Update board state
-		setChessMap(row, col, turn);
-		// Update groups for all stones (using existing logic)
-		for (int i = 0; i < getROWS(); i++) {
-			for (int j = 0; j < getROWS(); j++) {
-				ChessPoint[i][j].setX_Map(i);
-				ChessPoint[i][j].setY_Map(j);
-				GenerateGruopforsinglechess(i, j);
-			}
-		}
-		step++; // Increase move count
-
-		// If the stone has liberties, the move is valid
-		if (countAir(row, col) != 0) {
-			renewChessMap();
-			AddtoMemery(ChessMap, step, Turnflag);
-			repaint();
-			showChessMap(ChessMap);
-			// Switch turns
-			if (Turnflag == 1)
-				Turnflag = -1;
-			else
-				Turnflag = 1;
-			return 1;
-		} else {
-			// If move has no liberties, treat it as invalid (simplified)
-			setChessMap(row, col, 0);
-			System.out.println("AI 落子无气，不合法: " + row + "," + col);
+		// Play the move by the same rules as MCSTAgent (captures, no suicide, no ko or superko)
+		if (playByRules(row, col, turn) == -1) {
+			System.out.println("AI 落子不合法: " + row + "," + col);
 			return -1;
 		}
+		step++; // Increase move count
+		AddtoMemery(ChessMap, step, Turnflag);
+		repaint();
+		showChessMap(ChessMap);
+		// Switch turns
+		if (Turnflag == 1)
+			Turnflag = -1;
+		else
+			Turnflag = 1;
+		return 1;
 	}
 
 
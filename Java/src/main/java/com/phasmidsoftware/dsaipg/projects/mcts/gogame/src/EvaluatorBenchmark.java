@@ -0,0 +1,65 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.BatchingEvaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Evaluator;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine;
+
+/**
+ * Benchmark which reports how batching leaf evaluations changes the throughput of a Go search with
+ * {@link MCTSEngine}: for each batch size, the number of positions evaluated per second and the mean batch size.
+ * <p>
+ * The evaluator is the CPU reference ({@link Evaluator#rollouts}) with a fixed overhead on every call
+ * ({@link Evaluator#withOverhead}), which stands in for the cost of calling an accelerator.
+ */
+public class EvaluatorBenchmark {
+
+    private final int size;
+    private final int iterations;
+    private final int playouts;
+    private final long overheadMicros;
+
+    /**
+     * Constructor.
+     *
+     * @param size           the board size.
+     * @param iterations     the number of iterations of each search.
+     * @param playouts       the number of rollouts with which the evaluator values a position.
+     * @param overheadMicros the fixed cost of each call to the evaluator, in microseconds.
+     */
+    public EvaluatorBenchmark(int size, int iterations, int playouts, long overheadMicros) {
+        this.size = size;
+        this.iterations = iterations;
+        this.playouts = playouts;
+        this.overheadMicros = overheadMicros;
+    }
+
+    /**
+     * Time a search from the empty board which evaluates in batches of the given size
+     * (with as many evaluations in flight as fill two batches).
+     *
+     * @param batchSize the batch size.
+     */
+    public void report(int batchSize) {
+        Evaluator<GoGame> evaluator = Evaluator.withOverhead(Evaluator.rollouts(GoGame.playouts(3 * size * size), playouts), overheadMicros);
+        try (BatchingEvaluator<GoGame> batching = new BatchingEvaluator<>(evaluator, batchSize, 1000)) {
+            MCTSEngine<GoGame> engine = new MCTSEngine<GoGame>().withEvaluator(batching, 2 * batchSize).withIterations(iterations);
+            GoGame game = new GoGame(size);
+            engine.withIterations(Math.max(1, iterations / 10)).search(game.start()); // Warmup
+            long evaluated = batching.evaluated(), batches = batching.batches();
+            MCTSEngine.Result<GoGame> result = engine.search(game.start());
+            evaluated = batching.evaluated() - evaluated;
+            batches = batching.batches() - batches;
+            System.out.printf("%dx%d, batch size %3d: %,10.0f positions/sec, mean batch %5.1f, best %s%n",
+                    size, size, batchSize, evaluated * 1E9 / result.elapsedNanos(), (double) evaluated / Math.max(1, batches), result.bestMove());
+        }
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int playouts = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        long overheadMicros = args.length > 3 ? Long.parseLong(args[3]) : 200;
+        EvaluatorBenchmark benchmark = new EvaluatorBenchmark(size, iterations, playouts, overheadMicros);
+        for (int batchSize : new int[]{1, 4, 16, 64}) benchmark.report(batchSize);
+    }
+}
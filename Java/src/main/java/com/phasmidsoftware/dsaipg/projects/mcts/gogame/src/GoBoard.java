@@ -0,0 +1,644 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.Arrays;
+
+/**
+ * Compact, mutable Go board for the MCTS agent.
+ * <p>
+ * Points are numbered row-major (<code>point = row * size + col</code>) and every per-point attribute lives in a
+ * primitive array, so copying a board is a handful of <code>System.arraycopy</code> calls rather than a deep clone.
+ * Groups are maintained incrementally with a union-find forest (union by size, path halving):
+ * the root of each group holds its stone count and its pseudo-liberty count
+ * (the number of stone/empty-point adjacencies), which is zero exactly when the group has no liberties.
+ * The stones of a group are also linked in a circular list so that a capture can remove them without a search.
+ * The empty points are kept in an indexed list so that move generation never scans the whole board.
+ * <p>
+ * The board also implements the rules: a move is legal if it is on an empty point, is not suicide and does not
+ * retake a ko (see {@link #isLegal(int, int)}); positional superko can be checked against a {@link PositionHistory}
+ * using the incrementally maintained Zobrist hash. To detect atari without a search, each group root also holds
+ * the sum and the sum of squares of its pseudo-liberty points: all of a group's pseudo-liberties are the same
+ * point exactly when <code>count * sumOfSquares == sum * sum</code>.
+ * Positions are scored by Tromp-Taylor area scoring (see {@link #areaScore(double)}).
+ */
+public class GoBoard {
+
+    public static final int EMPTY = 0;
+    public static final int BLACK = 1;
+    public static final int WHITE = -1;
+
+    /**
+     * Construct an empty board.
+     *
+     * @param size the number of lines in each direction (e.g. 9, 13 or 19).
+     */
+    public GoBoard(int size) {
+        if (size < 2 || size > MAX_SIZE) throw new IllegalArgumentException("unsupported board size: " + size);
+        this.size = size;
+        this.points = size * size;
+        this.neighbours = neighbourTable(size);
+        this.colour = new byte[points];
+        this.parent = new int[points];
+        this.groupSize = new int[points];
+        this.liberties = new int[points];
+        this.libertySum = new int[points];
+        this.libertySumSquares = new int[points];
+        this.nextStone = new int[points];
+        this.empty = new int[points];
+        this.emptyIndex = new int[points];
+        clear();
+    }
+
+    /**
+     * Construct a board from a square matrix of 1 (black), -1 (white) and 0 (empty).
+     *
+     * @param map the matrix, indexed as map[row][col].
+     */
+    public GoBoard(int[][] map) {
+        this(map.length);
+        load(map);
+    }
+
+    /**
+     * Remove all stones.
+     */
+    public void clear() {
+        Arrays.fill(colour, (byte) EMPTY);
+        Arrays.fill(groupSize, 0);
+        Arrays.fill(liberties, 0);
+        Arrays.fill(libertySum, 0);
+        Arrays.fill(libertySumSquares, 0);
+        for (int p = 0; p < points; p++) {
+            parent[p] = p;
+            nextStone[p] = p;
+            empty[p] = p;
+            emptyIndex[p] = p;
+        }
+        emptyCount = points;
+        blackStones = 0;
+        whiteStones = 0;
+        hash = 0;
+        koPoint = -1;
+    }
+
+    /**
+     * Replace the contents of this board with the given matrix.
+     * Stones are set up without any captures, so positions which could not arise in play are preserved as given.
+     *
+     * @param map the matrix, indexed as map[row][col].
+     */
+    public void load(int[][] map) {
+        if (map.length != size) throw new IllegalArgumentException("map size " + map.length + " does not match " + size);
+        clear();
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                if (map[i][j] != EMPTY) place(point(i, j), map[i][j]);
+    }
+
+    /**
+     * Make this board identical to other (which must have the same size).
+     *
+     * @param other the board to copy.
+     */
+    public void copyFrom(GoBoard other) {
+        if (other.size != size) throw new IllegalArgumentException("board sizes differ: " + other.size + ", " + size);
+        System.arraycopy(other.colour, 0, colour, 0, points);
+        System.arraycopy(other.parent, 0, parent, 0, points);
+        System.arraycopy(other.groupSize, 0, groupSize, 0, points);
+        System.arraycopy(other.liberties, 0, liberties, 0, points);
+        System.arraycopy(other.libertySum, 0, libertySum, 0, points);
+        System.arraycopy(other.libertySumSquares, 0, libertySumSquares, 0, points);
+        System.arraycopy(other.nextStone, 0, nextStone, 0, points);
+        System.arraycopy(other.empty, 0, empty, 0, points);
+        System.arraycopy(other.emptyIndex, 0, emptyIndex, 0, points);
+        emptyCount = other.emptyCount;
+        blackStones = other.blackStones;
+        whiteStones = other.whiteStones;
+        hash = other.hash;
+        koPoint = other.koPoint;
+    }
+
+    /**
+     * @return a new board identical to this one.
+     */
+    public GoBoard copy() {
+        GoBoard result = new GoBoard(size);
+        result.copyFrom(this);
+        return result;
+    }
+
+    /**
+     * Play a stone of the given colour at an empty point.
+     * Opponent groups left without liberties are captured; if the new stone's own group is then left without
+     * liberties (which cannot happen if the move is legal), it is removed as well.
+     * If the move captures a single stone and leaves the new stone alone in atari, the captured point becomes
+     * the ko point, which the opponent may not play at immediately.
+     *
+     * @param p      the point.
+     * @param player BLACK or WHITE.
+     * @return the number of opponent stones captured.
+     */
+    public int play(int p, int player) {
+        if (colour[p] != EMPTY) throw new IllegalArgumentException("point " + p + " is occupied");
+        place(p, player);
+        int captured = 0;
+        int lastCaptured = -1;
+        int base = p * 4;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n >= 0 && colour[n] == -player && liberties[find(n)] == 0) {
+                captured += removeGroup(n);
+                lastCaptured = n;
+            }
+        }
+        int root = find(p);
+        if (liberties[root] == 0) removeGroup(p);
+        koPoint = captured == 1 && groupSize[root] == 1 && groupInAtari(root) ? lastCaptured : -1;
+        return captured;
+    }
+
+    /**
+     * Pass: no stone is played, but any ko point is lifted.
+     */
+    public void pass() {
+        koPoint = -1;
+    }
+
+    /**
+     * Determine if the given player may play at p: the point must be empty, must not be the ko point and the move
+     * must not be suicide (a move is suicide if it captures nothing and leaves its own group without liberties).
+     *
+     * @param p      the point.
+     * @param player BLACK or WHITE.
+     * @return true if the move is legal (ignoring superko).
+     */
+    public boolean isLegal(int p, int player) {
+        return colour[p] == EMPTY && p != koPoint && !isSuicide(p, player);
+    }
+
+    /**
+     * Determine if playing at p would repeat an earlier position of the game (positional superko).
+     *
+     * @param p       an empty point.
+     * @param player  BLACK or WHITE.
+     * @param history the positions which have occurred in the game.
+     * @return true if the position after the move is in history.
+     */
+    public boolean repeatsPosition(int p, int player, PositionHistory history) {
+        return history.contains(hashAfter(p, player));
+    }
+
+    /**
+     * Determine if an empty point is an eye of the given player, in the simple sense that all its neighbours are
+     * that player's stones, none of them in atari. Playouts do not fill such points.
+     *
+     * @param p      an empty point.
+     * @param player BLACK or WHITE.
+     * @return true if p is an eye of player.
+     */
+    public boolean isEye(int p, int player) {
+        int base = p * 4;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n >= 0 && (colour[n] != player || groupInAtari(find(n)))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param p an occupied point.
+     * @return true if the group containing p has exactly one liberty.
+     */
+    public boolean inAtari(int p) {
+        return groupInAtari(find(p));
+    }
+
+    /**
+     * @param p an occupied point.
+     * @return the only liberty of the group containing p if it is in atari, otherwise -1.
+     */
+    public int atariLiberty(int p) {
+        int root = find(p);
+        return groupInAtari(root) ? libertySum[root] / liberties[root] : -1;
+    }
+
+    /**
+     * @return the Zobrist hash of the stones on this board (see {@link Zobrist}).
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Compute the Zobrist hash of the position which would result from a move, without playing it.
+     *
+     * @param p      an empty point.
+     * @param player BLACK or WHITE.
+     * @return the hash after player plays at p (including any captures).
+     */
+    public long hashAfter(int p, int player) {
+        long result = hash ^ Zobrist.key(p, player);
+        int base = p * 4;
+        int r0 = -1, r1 = -1, r2 = -1;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n < 0 || colour[n] != -player) continue;
+            int r = find(n);
+            if (r == r0 || r == r1 || r == r2 || !groupInAtari(r)) continue;
+            int s = r;
+            do {
+                result ^= Zobrist.key(s, -player);
+                s = nextStone[s];
+            } while (s != r);
+            if (r0 < 0) r0 = r;
+            else if (r1 < 0) r1 = r;
+            else r2 = r;
+        }
+        return result;
+    }
+
+    /**
+     * @return the point which may not be played because it would retake a ko, or -1 if there is none.
+     */
+    public int koPoint() {
+        return koPoint;
+    }
+
+    /**
+     * Set the ko point, e.g. when a board is reloaded from a matrix which cannot record it.
+     *
+     * @param p the point, or -1 for none.
+     */
+    public void setKoPoint(int p) {
+        koPoint = p;
+    }
+
+    /**
+     * Score this board by Tromp-Taylor area scoring: each player scores their stones plus the empty points which
+     * reach only their stones.
+     *
+     * @param komi the compensation given to white.
+     * @return black's area minus white's area minus komi.
+     */
+    public double areaScore(double komi) {
+        return area(BLACK) - area(WHITE) - komi;
+    }
+
+    /**
+     * @param komi the compensation given to white.
+     * @return 1 if black wins by area scoring, -1 if white wins, 0 for a draw.
+     */
+    public int winner(double komi) {
+        double score = areaScore(komi);
+        return score > 0 ? 1 : score < 0 ? -1 : 0;
+    }
+
+    /**
+     * @param player BLACK or WHITE.
+     * @return the number of player's stones plus the number of empty points which reach only player's stones.
+     */
+    public int area(int player) {
+        if (regionMark == null) {
+            regionMark = new int[points];
+            regionStack = new int[points];
+        }
+        int result = stones(player);
+        regionStamp += 2;
+        if (regionStamp < 0) {
+            Arrays.fill(regionMark, 0);
+            regionStamp = 2;
+        }
+        for (int i = 0; i < emptyCount; i++) {
+            int start = empty[i];
+            if (regionMark[start] >= regionStamp) continue;
+            // Flood-fill the empty region containing start, noting which colours it reaches
+            int top = 0, count = 0;
+            boolean reachesPlayer = false, reachesOpponent = false;
+            regionStack[top++] = start;
+            regionMark[start] = regionStamp;
+            while (top > 0) {
+                int q = regionStack[--top];
+                count++;
+                int base = q * 4;
+                for (int k = 0; k < 4; k++) {
+                    int n = neighbours[base + k];
+                    if (n < 0) continue;
+                    int c = colour[n];
+                    if (c == EMPTY) {
+                        if (regionMark[n] < regionStamp) {
+                            regionMark[n] = regionStamp;
+                            regionStack[top++] = n;
+                        }
+                    } else if (c == player) reachesPlayer = true;
+                    else reachesOpponent = true;
+                }
+            }
+            if (reachesPlayer && !reachesOpponent) result += count;
+        }
+        return result;
+    }
+
+    /**
+     * @param p a point.
+     * @return the colour at p: BLACK, WHITE or EMPTY.
+     */
+    public int colour(int p) {
+        return colour[p];
+    }
+
+    /**
+     * @param row the row.
+     * @param col the column.
+     * @return the colour at (row, col).
+     */
+    public int get(int row, int col) {
+        return colour[point(row, col)];
+    }
+
+    /**
+     * @param p an occupied point.
+     * @return the number of stones in the group containing p.
+     */
+    public int groupSize(int p) {
+        return groupSize[find(p)];
+    }
+
+    /**
+     * @param p an occupied point.
+     * @return the pseudo-liberty count of the group containing p (zero if and only if the group has no liberties).
+     */
+    public int pseudoLiberties(int p) {
+        return liberties[find(p)];
+    }
+
+    /**
+     * @param p an occupied point.
+     * @param q another occupied point.
+     * @return true if p and q belong to the same group.
+     */
+    public boolean sameGroup(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     * @return the number of empty points.
+     */
+    public int emptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * @param i an index less than emptyCount().
+     * @return the i-th empty point (the order is arbitrary and changes as stones are played).
+     */
+    public int emptyPoint(int i) {
+        return empty[i];
+    }
+
+    /**
+     * @param other a board of the same size.
+     * @return true if other has the same stones on the same points as this board.
+     */
+    public boolean sameStones(GoBoard other) {
+        return Arrays.equals(colour, other.colour);
+    }
+
+    /**
+     * @param player BLACK or WHITE.
+     * @return the number of stones of that colour on the board.
+     */
+    public int stones(int player) {
+        return player == BLACK ? blackStones : whiteStones;
+    }
+
+    /**
+     * @param p a point.
+     * @param k a direction, 0 through 3.
+     * @return the neighbouring point in direction k, or -1 if it lies off the board.
+     */
+    public int neighbour(int p, int k) {
+        return neighbours[p * 4 + k];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int points() {
+        return points;
+    }
+
+    public int point(int row, int col) {
+        return row * size + col;
+    }
+
+    public int row(int p) {
+        return p / size;
+    }
+
+    public int col(int p) {
+        return p % size;
+    }
+
+    /**
+     * @return this board as a matrix indexed as [row][col].
+     */
+    public int[][] toArray() {
+        int[][] result = new int[size][size];
+        writeTo(result);
+        return result;
+    }
+
+    /**
+     * Copy this board into an existing matrix.
+     *
+     * @param map a size x size matrix, indexed as map[row][col].
+     */
+    public void writeTo(int[][] map) {
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                map[i][j] = colour[point(i, j)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int c = colour[point(i, j)];
+                sb.append(c == BLACK ? 'X' : c == WHITE ? 'O' : '.');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // True if playing at the empty point p would capture nothing and leave player's group without liberties.
+    private boolean isSuicide(int p, int player) {
+        int base = p * 4;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n < 0) continue;
+            int c = colour[n];
+            if (c == EMPTY) return false;
+            boolean atari = groupInAtari(find(n)); // If so, its only liberty is p
+            if (c == player ? !atari : atari) return false;
+        }
+        return true;
+    }
+
+    private boolean groupInAtari(int root) {
+        int libs = liberties[root];
+        return libs > 0 && (long) libs * libertySumSquares[root] == (long) libertySum[root] * libertySum[root];
+    }
+
+    // Put a stone on the board, merging it with friendly neighbours, without checking for captures.
+    private void place(int p, int player) {
+        colour[p] = (byte) player;
+        parent[p] = p;
+        groupSize[p] = 1;
+        nextStone[p] = p;
+        removeEmpty(p);
+        hash ^= Zobrist.key(p, player);
+        if (player == BLACK) blackStones++;
+        else whiteStones++;
+        int libs = 0, sum = 0, sumSquares = 0;
+        int base = p * 4;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n < 0) continue;
+            if (colour[n] == EMPTY) {
+                libs++;
+                sum += n;
+                sumSquares += n * n;
+            } else {
+                int r = find(n);
+                liberties[r]--;
+                libertySum[r] -= p;
+                libertySumSquares[r] -= p * p;
+            }
+        }
+        liberties[p] = libs;
+        libertySum[p] = sum;
+        libertySumSquares[p] = sumSquares;
+        for (int k = 0; k < 4; k++) {
+            int n = neighbours[base + k];
+            if (n >= 0 && colour[n] == player) union(p, n);
+        }
+    }
+
+    // Remove the whole group containing p, giving back liberties to the adjacent groups. Returns the stone count.
+    private int removeGroup(int p) {
+        int player = colour[p];
+        int removed = 0;
+        int s = p;
+        do {
+            int next = nextStone[s];
+            colour[s] = EMPTY;
+            parent[s] = s;
+            nextStone[s] = s;
+            groupSize[s] = 0;
+            liberties[s] = 0;
+            libertySum[s] = 0;
+            libertySumSquares[s] = 0;
+            addEmpty(s);
+            hash ^= Zobrist.key(s, player);
+            removed++;
+            int base = s * 4;
+            for (int k = 0; k < 4; k++) {
+                int n = neighbours[base + k];
+                if (n >= 0 && colour[n] == -player) {
+                    int r = find(n);
+                    liberties[r]++;
+                    libertySum[r] += s;
+                    libertySumSquares[r] += s * s;
+                }
+            }
+            s = next;
+        } while (s != p);
+        if (player == BLACK) blackStones -= removed;
+        else whiteStones -= removed;
+        return removed;
+    }
+
+    private int find(int p) {
+        while (parent[p] != p) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    private void union(int p, int q) {
+        int i = find(p);
+        int j = find(q);
+        if (i == j) return;
+        if (groupSize[i] < groupSize[j]) {
+            int t = i;
+            i = j;
+            j = t;
+        }
+        parent[j] = i;
+        groupSize[i] += groupSize[j];
+        liberties[i] += liberties[j];
+        libertySum[i] += libertySum[j];
+        libertySumSquares[i] += libertySumSquares[j];
+        // Splice the two circular stone lists together.
+        int t = nextStone[i];
+        nextStone[i] = nextStone[j];
+        nextStone[j] = t;
+    }
+
+    private void removeEmpty(int p) {
+        int i = emptyIndex[p];
+        int last = empty[--emptyCount];
+        empty[i] = last;
+        emptyIndex[last] = i;
+    }
+
+    private void addEmpty(int p) {
+        empty[emptyCount] = p;
+        emptyIndex[p] = emptyCount++;
+    }
+
+    private static synchronized int[] neighbourTable(int size) {
+        int[] result = neighbourTables[size];
+        if (result == null) {
+            result = new int[size * size * 4];
+            for (int i = 0; i < size; i++)
+                for (int j = 0; j < size; j++) {
+                    int base = (i * size + j) * 4;
+                    result[base] = i > 0 ? (i - 1) * size + j : -1;
+                    result[base + 1] = i < size - 1 ? (i + 1) * size + j : -1;
+                    result[base + 2] = j > 0 ? i * size + j - 1 : -1;
+                    result[base + 3] = j < size - 1 ? i * size + j + 1 : -1;
+                }
+            neighbourTables[size] = result;
+        }
+        return result;
+    }
+
+    public static final int MAX_SIZE = 25;
+    private static final int[][] neighbourTables = new int[MAX_SIZE + 1][];
+
+    private final int size;
+    private final int points;
+    private final int[] neighbours;
+    private final byte[] colour;
+    private final int[] parent;
+    private final int[] groupSize;
+    private final int[] liberties;
+    private final int[] libertySum;
+    private final int[] libertySumSquares;
+    private final int[] nextStone;
+    private final int[] empty;
+    private final int[] emptyIndex;
+    private int emptyCount;
+    private int blackStones;
+    private int whiteStones;
+    private long hash;
+    private int koPoint;
+    // Scratch space for area scoring, allocated on first use and never copied
+    private int[] regionMark;
+    private int[] regionStack;
+    private int regionStamp;
+}
@@ -0,0 +1,208 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Game;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Go as a core {@link Game}, so that the generic {@link com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine}
+ * can search it. The rules are those of {@link GoBoard}, as played by {@link MCSTAgent}: the moves of a State are the
+ * legal points which are not the mover's own eyes, a player with no such point passes, and the game ends after two
+ * consecutive passes (or 3 * size * size moves, which stands in for the positional superko rule).
+ * The winner is decided by area scoring with {@link MCSTAgent#KOMI}.
+ * <p>
+ * Players are numbered as the core interfaces expect: {@link #BLACK_PLAYER} (the opener) and {@link #WHITE_PLAYER}.
+ */
+public class GoGame implements Game<GoGame> {
+
+    public static final int BLACK_PLAYER = 0;
+    public static final int WHITE_PLAYER = 1;
+
+    /**
+     * Constructor.
+     *
+     * @param size   the board size.
+     * @param random the random source used to order moves.
+     */
+    public GoGame(int size, Random random) {
+        this.size = size;
+        this.random = random;
+    }
+
+    public GoGame(int size) {
+        this(size, new Random());
+    }
+
+    public GoState start() {
+        return new GoState(new GoBoard(size), GoBoard.BLACK, 0, 0);
+    }
+
+    public int opener() {
+        return BLACK_PLAYER;
+    }
+
+    /**
+     * A RolloutPolicy which plays out with {@link PlayoutEngine} on a scratch board (rather than through
+     * {@link State#next(Move)}, which copies the board on every move).
+     *
+     * @param maxMoves the maximum length of a playout.
+     * @return a RolloutPolicy for GoGame.
+     */
+    public static RolloutPolicy<GoGame> playouts(int maxMoves) {
+        return state -> {
+            GoState go = (GoState) state;
+            int winner = PlayoutEngine.forCurrentThread(go.board.size()).playout(go.board, go.turn, maxMoves);
+            return winner == 0 ? Optional.empty() : Optional.of(player(winner));
+        };
+    }
+
+    static int player(int colour) {
+        return colour == GoBoard.BLACK ? BLACK_PLAYER : WHITE_PLAYER;
+    }
+
+    /**
+     * A move: a point, or a pass.
+     */
+    public static class GoMove implements Move<GoGame> {
+
+        public static final int PASS = -1;
+
+        public GoMove(int player, int point) {
+            this.player = player;
+            this.point = point;
+        }
+
+        public int player() {
+            return player;
+        }
+
+        /**
+         * @return the point (see {@link GoBoard#point(int, int)}), or PASS.
+         */
+        public int point() {
+            return point;
+        }
+
+        @Override
+        public String toString() {
+            return (player == BLACK_PLAYER ? "B" : "W") + (point == PASS ? " pass" : " " + point);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GoMove)) return false;
+            GoMove that = (GoMove) o;
+            return player == that.player && point == that.point;
+        }
+
+        @Override
+        public int hashCode() {
+            return player * 31 + point;
+        }
+
+        private final int player;
+        private final int point;
+    }
+
+    /**
+     * A position with the player to move. The board is never changed: next() plays on a copy.
+     */
+    public class GoState implements State<GoGame> {
+
+        public GoGame game() {
+            return GoGame.this;
+        }
+
+        public boolean isTerminal() {
+            return passes >= 2 || moves >= 3 * size * size;
+        }
+
+        /**
+         * @return the player to move.
+         */
+        public int player() {
+            return GoGame.player(turn);
+        }
+
+        /**
+         * @return the winner by area scoring of the current position, or empty for a draw.
+         */
+        public Optional<Integer> winner() {
+            int winner = board.winner(MCSTAgent.KOMI);
+            return winner == 0 ? Optional.empty() : Optional.of(GoGame.player(winner));
+        }
+
+        public Random random() {
+            return random;
+        }
+
+        public Collection<Move<GoGame>> moves(int player) {
+            if (player != player()) throw new RuntimeException("not the turn of player: " + player);
+            List<Move<GoGame>> result = new ArrayList<>();
+            for (int i = 0; i < board.emptyCount(); i++) {
+                int p = board.emptyPoint(i);
+                if (board.isLegal(p, turn) && !board.isEye(p, turn)) result.add(new GoMove(player, p));
+            }
+            if (result.isEmpty()) result.add(new GoMove(player, GoMove.PASS));
+            return result;
+        }
+
+        public GoState next(Move<GoGame> move) {
+            int point = ((GoMove) move).point();
+            GoBoard next = board.copy();
+            if (point == GoMove.PASS) next.pass();
+            else next.play(point, turn);
+            return new GoState(next, -turn, point == GoMove.PASS ? passes + 1 : 0, moves + 1);
+        }
+
+        /**
+         * @return the board (which must not be changed).
+         */
+        public GoBoard board() {
+            return board;
+        }
+
+        /**
+         * @return the colour to move: BLACK or WHITE.
+         */
+        public int turn() {
+            return turn;
+        }
+
+        @Override
+        public String toString() {
+            return board + (turn == GoBoard.BLACK ? "black" : "white") + " to move";
+        }
+
+        /**
+         * Constructor for a position.
+         *
+         * @param board  the board (which is not copied).
+         * @param turn   the colour to move.
+         * @param passes the number of consecutive passes which led here.
+         * @param moves  the number of moves (and passes) played so far.
+         */
+        public GoState(GoBoard board, int turn, int passes, int moves) {
+            this.board = board;
+            this.turn = turn;
+            this.passes = passes;
+            this.moves = moves;
+        }
+
+        private final GoBoard board;
+        private final int turn;
+        private final int passes;
+        private final int moves;
+    }
+
+    private final int size;
+    private final Random random;
+}
@@ -12,6 +12,8 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 public class GoGameGUI_B implements ActionListener {
 	private ChessBoardPanel_B CBPanel;
@@ -20,6 +22,14 @@ public class GoGameGUI_B implements ActionListener {
 	JButton bt_Win;
 	JLabel jl_Turn1,jl_Turn2,jl_Step1,jl_Step2,jl_Message1,jl_Message2;
 	JLabel jl_AI_ComputationTime, jl_AI_Simulations;
+
+	// The AI searches on a worker thread, so that the window stays responsive; it ponders during the player's turn
+	private final MCSTAgent agent = new MCSTAgent();
+	private final BackgroundSearch search = new BackgroundSearch(agent, SwingUtilities::invokeLater);
+	private final Timer progressTimer = new Timer(200, e -> showProgress()); // Shows the search's progress
+	private boolean thinking; // True while the AI searches for its move
+	private long thinkingSince;
+	private int game; // Changed by undo and new game, so that a search for an abandoned position is ignored
 	
 	GoGameGUI_B() {
 		JFrame jf = new JFrame("Game of GO");
@@ -96,6 +106,11 @@ public class GoGameGUI_B implements ActionListener {
 		// Mouse listener for placing a move
 		CBPanel.addMouseListener(new MouseAdapter() {
 			public void mouseClicked(MouseEvent e) {
+				// The board is frozen while the AI searches for its move
+				if (thinking) {
+					jl_Message2.setText("AI Thinking");
+					return;
+				}
 				// Get mouse coordinates
 				int x = e.getX();
 				int y = e.getY();
@@ -118,40 +133,9 @@ public class GoGameGUI_B implements ActionListener {
 				if (work == -1)
 					jl_Message2.setText("Invalid Move");
 
-				// AI move logic (after player move if AI's turn)
-				if (CBPanel.getTurnflag() == -1) {
-					// Get current board state
-					int[][] currentMap = CBPanel.getChessMap();
-					int currentTurn = CBPanel.getTurnflag();
-
-					long start = System.currentTimeMillis();
-					// Call MCSTAgent to get the best move [row, col]
-					int[] aiMove = MCSTAgent.nextMove(currentMap, currentTurn);
-					long elapsed = System.currentTimeMillis() - start;
-					int sims = MCSTAgent.getIterationLimit();
-
-					updateAIDisplay(elapsed, sims);
-
-					if (aiMove != null) {
-						System.out.println("AI placed a piece at: " + aiMove[0] + "," + aiMove[1]);
-						int aiResult = CBPanel.playChessAI(aiMove[0], aiMove[1], currentTurn);
-						if (aiResult != -1) {
-							// Update UI after a valid AI move
-							int newTurn = CBPanel.getTurnflag();
-							int newStep = CBPanel.getStep();
-							if (newStep % 2 == 0)
-								jl_Turn2.setText("Black");
-							else
-								jl_Turn2.setText("White");
-							jl_Step2.setText(newStep + "");
-							jl_Message2.setText("AI Finished");
-						} else {
-							jl_Message2.setText("AI Invalid Move");
-						}
-					} else {
-						jl_Message2.setText("AI Cannot Move");
-					}
-				}
+				// AI move logic (after player move if AI's turn): search on the worker thread
+				if (CBPanel.getTurnflag() == -1)
+					startAIMove();
 			}
 		});
 
@@ -165,16 +149,94 @@ public class GoGameGUI_B implements ActionListener {
 
 	}
 
+	// Start the AI's search for a move; the move is played (on the EDT) when the search ends
+	private void startAIMove() {
+		thinking = true;
+		thinkingSince = System.currentTimeMillis();
+		jl_Message2.setText("AI Thinking");
+		int currentTurn = CBPanel.getTurnflag();
+		int searchedGame = game;
+		// The search copies the current board state (with the ko point) and the positions played so far
+		search.search(CBPanel.getRulesBoard(), currentTurn, CBPanel.getPositionHistory(), aiMove -> {
+			if (searchedGame == game)
+				playAIMove(aiMove, currentTurn);
+		});
+		progressTimer.start();
+	}
+
+	private void playAIMove(int[] aiMove, int currentTurn) {
+		stopThinking();
+		updateAIDisplay(System.currentTimeMillis() - thinkingSince, agent.getIterations(), agent.getMetrics());
+		if (aiMove != null) {
+			System.out.println("AI placed a piece at: " + aiMove[0] + "," + aiMove[1]);
+			int aiResult = CBPanel.playChessAI(aiMove[0], aiMove[1], currentTurn);
+			if (aiResult != -1) {
+				// Update UI after a valid AI move
+				int newStep = CBPanel.getStep();
+				if (newStep % 2 == 0)
+					jl_Turn2.setText("Black");
+				else
+					jl_Turn2.setText("White");
+				jl_Step2.setText(newStep + "");
+				jl_Message2.setText("AI Finished");
+				// Think about the player's move in the meantime
+				search.ponder(CBPanel.getRulesBoard(), CBPanel.getTurnflag(), CBPanel.getPositionHistory());
+			} else {
+				jl_Message2.setText("AI Invalid Move");
+			}
+		} else {
+			jl_Message2.setText("AI Cannot Move");
+		}
+	}
+
+	// Show the visits of each move and the principal variation of the search in progress
+	private void showProgress() {
+		MCSTAgent.Snapshot snapshot = search.snapshot();
+		if (!thinking || snapshot == null)
+			return;
+		CBPanel.setSearchSnapshot(snapshot);
+		updateAIDisplay(snapshot.elapsedMillis, snapshot.iterations);
+	}
+
+	private void stopThinking() {
+		thinking = false;
+		progressTimer.stop();
+		CBPanel.setSearchSnapshot(null);
+	}
+
+	// Abandon any search (e.g. when the position is changed by undo or a new game)
+	private void abandonSearch() {
+		game++;
+		search.cancel();
+		stopThinking();
+	}
+
 	public void updateAIDisplay(long timeMs, int sims) {
 		jl_AI_ComputationTime.setText("AI Time: " + timeMs + " ms");
 		jl_AI_Simulations.setText("Simulations: " + sims);
 	}
 
+	// As above, with where the time of the finished search went (the full figures are in the tooltips)
+	public void updateAIDisplay(long timeMs, int sims, SearchMetrics metrics) {
+		updateAIDisplay(timeMs, sims);
+		if (metrics == null || metrics.iterations() == 0)
+			return;
+		jl_AI_ComputationTime.setText(String.format("AI Time: %d ms (sim %.0f%%)", timeMs, 100 * metrics.share(SearchMetrics.Phase.SIMULATION)));
+		jl_AI_Simulations.setText(String.format("Simulations: %d, depth %.1f", sims, metrics.depth().mean()));
+		StringBuilder phases = new StringBuilder("<html>");
+		for (SearchMetrics.Phase phase : SearchMetrics.Phase.values())
+			phases.append(String.format("%s: %.0f%%, %s ns<br>", phase, 100 * metrics.share(phase), metrics.histogram(phase)));
+		jl_AI_ComputationTime.setToolTipText(phases.append("</html>").toString());
+		jl_AI_Simulations.setToolTipText(String.format("<html>Depth: %s<br>Branching: %s<br>Nodes: %,d (%,d bytes)<br>Heap allocated: %,d bytes</html>",
+				metrics.depth(), metrics.branching(), metrics.nodesAllocated(), metrics.nodeBytes(), metrics.heapBytesAllocated()));
+	}
+
 	@Override
 	public void actionPerformed(ActionEvent e) {
 		// TODO Auto-generated method stub
 		if (e.getSource() == bt_Back) {
 			System.out.println("ButtonBack");
+			abandonSearch();
 			int work=CBPanel.Back();
 			int turn=0;
 			int step=0;
@@ -195,6 +257,7 @@ public class GoGameGUI_B implements ActionListener {
 		}
 		if(e.getSource()==bt_newGame) {
 			System.out.println("ButtonNewGame");
+			abandonSearch();
 	       	CBPanel.newGame();
 	       	int turn=0;
 			int step=0;
@@ -0,0 +1,95 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+/**
+ * A histogram of non-negative longs in a fixed array of buckets, so that recording a value is a few arithmetic
+ * operations and allocates nothing.
+ * <p>
+ * Values below 16 have a bucket each; above that, each power of two is split into four buckets, so a percentile is
+ * known to within 25% (e.g. nanoseconds), while small values (e.g. tree depths) are exact.
+ * A Histogram is not thread-safe: give each thread its own and {@link #add(Histogram)} them afterwards.
+ */
+public final class Histogram {
+
+    /**
+     * Record a value.
+     *
+     * @param value a non-negative value (negative values are recorded as 0).
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[bucket(value)]++;
+        count++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Add the values recorded by another Histogram to this one.
+     *
+     * @param other the other Histogram.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param fraction a fraction between 0 and 1 (e.g. 0.99).
+     * @return a value at least as great as that fraction of the values recorded, and within 25% of the true
+     * percentile (or the greatest value recorded, if less); 0 if nothing has been recorded.
+     */
+    public long percentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, p50 %d, p99 %d, max %d (n=%d)", mean(), percentile(0.5), percentile(0.99), max, count);
+    }
+
+    static int bucket(long value) {
+        if (value < EXACT) return (int) value;
+        int log = 63 - Long.numberOfLeadingZeros(value); // At least 4
+        int quarter = (int) (value >>> (log - 2)) & 3;
+        return EXACT + (log - 4) * 4 + quarter;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int log = (bucket - EXACT) / 4 + 4;
+        int quarter = (bucket - EXACT) % 4;
+        return (1L << log) + ((quarter + 1L) << (log - 2)) - 1;
+    }
+
+    private static final int EXACT = 16;
+    private static final int BUCKETS = EXACT + (63 - 4 + 1) * 4;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+}
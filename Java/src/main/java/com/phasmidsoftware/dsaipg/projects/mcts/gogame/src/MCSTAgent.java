@@ -1,194 +1,903 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MCSTAgent {
 
     private static final int ITERATION_LIMIT = 4000; // Number of simulation iterations
     private static final int MAX_SIMULATION_DEPTH = 100; // Maximum depth of each simulation
+    private static final int MAX_TREE_DEPTH = 400; // Maximum depth of the selection phase
     private static final double UCT_CONSTANT = 1.41; // UCT exploration constant
+    private static final double UNVISITED = 1E9; // The value of an unvisited child, so that each child is tried once
+    static final double KOMI = 0; // Area scoring with no komi, as in ChessBoardPanel_B.Winner()
 
-    // Represents a game state: the board and the current player (1 for black, -1 for white)
+    // Represents a game state: the board and the current player (1 for black, -1 for white).
+    // The board applies the rules of Go: captures, no suicide and simple ko (positional superko is checked
+    // against the game record when the move is chosen; see chooseMove).
     public static class State {
-        int[][] board;
-        int turn;
+        final GoBoard board;
+        final int turn;
+        final long key; // Identifies the state for the transposition table (see Zobrist.stateKey)
+        private volatile int[] moves; // The legal moves, computed on first use
 
         public State(int[][] board, int turn) {
-            this.board = cloneBoard(board);
-            this.turn = turn;
+            this(new GoBoard(board), turn);
         }
 
-        private int[][] cloneBoard(int[][] board) {
-            int rows = board.length;
-            int cols = board[0].length;
-            int[][] newBoard = new int[rows][cols];
-            for (int i = 0; i < rows; i++) {
-                System.arraycopy(board[i], 0, newBoard[i], 0, cols);
-            }
-            return newBoard;
+        State(GoBoard board, int turn) {
+            this.board = board;
+            this.turn = turn;
+            this.key = Zobrist.stateKey(board, turn);
         }
 
-        // Get all legal moves: positions with 0 (empty)
+        // Get all legal moves: empty points which are neither suicide nor a ko recapture.
+        // Filling one of our own eyes is never considered, as in the playouts.
         public List<int[]> getLegalMoves() {
-            List<int[]> moves = new ArrayList<>();
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[i].length; j++) {
-                    if (board[i][j] == 0) {
-                        moves.add(new int[]{i, j});
-                    }
-                }
-            }
-            return moves;
+            int[] points = moves();
+            List<int[]> result = new ArrayList<>(points.length);
+            for (int p : points) result.add(new int[]{board.row(p), board.col(p)});
+            return result;
         }
 
-        // Check if the game has ended (no legal moves)
+        // Number of legal moves
+        public int legalMoveCount() {
+            return moves().length;
+        }
+
+        // The i-th legal move as a point index (see GoBoard)
+        public int legalMove(int i) {
+            return moves()[i];
+        }
+
+        // Check if the game has ended (no legal moves: both players would pass)
         public boolean isTerminal() {
-            return getLegalMoves().isEmpty();
+            return moves().length == 0;
+        }
+
+        private int[] moves() {
+            int[] result = moves;
+            if (result == null) {
+                int[] buffer = new int[board.emptyCount()];
+                int count = 0;
+                for (int i = 0; i < board.emptyCount(); i++) {
+                    int p = board.emptyPoint(i);
+                    if (board.isLegal(p, turn) && !board.isEye(p, turn)) buffer[count++] = p;
+                }
+                result = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+                moves = result;
+            }
+            return result;
         }
 
         // Apply a move and return the new state (switch player)
         public State applyMove(int[] move) {
-            int[][] newBoard = cloneBoard(board);
-            newBoard[move[0]][move[1]] = turn;
+            return applyMove(board.point(move[0], move[1]));
+        }
+
+        // Apply a move given as a point index and return the new state (switch player)
+        public State applyMove(int point) {
+            GoBoard newBoard = board.copy();
+            newBoard.play(point, turn);
             return new State(newBoard, -turn);
         }
 
-        // Simple evaluation: return 1 if black wins, -1 if white wins, 0 for draw
+        // Tromp-Taylor area scoring: return 1 if black wins, -1 if white wins, 0 for draw
         public int evaluate() {
-            int black = 0, white = 0;
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[i].length; j++) {
-                    if (board[i][j] == 1) black++;
-                    else if (board[i][j] == -1) white++;
-                }
-            }
-            if (black > white) return 1;
-            else if (white > black) return -1;
-            else return 0;
+            return board.winner(KOMI);
+        }
+
+        public GoBoard getBoard() {
+            return board;
+        }
+
+        public int getTurn() {
+            return turn;
         }
     }
 
-    // Represents a node in the MCTS tree
-    public static class TreeNode {
-        State state;
-        TreeNode parent;
-        List<TreeNode> children;
-        int visits;
-        double wins;
-        List<int[]> untriedMoves;
-        int[] move; // Move from parent state to current state
+    // A search tree: the root node in a pool, the state it represents and the transposition table, if any.
+    // The tree's nodes hold no boards: the search replays the moves from rootState as it descends.
+    static final class Tree {
+        final NodePool pool;
+        final int root;
+        final State rootState;
+        final TranspositionTable table;
 
-        public TreeNode(State state, TreeNode parent, int[] move) {
-            this.state = state;
-            this.parent = parent;
-            this.move = move;
-            this.children = new ArrayList<>();
-            this.visits = 0;
-            this.wins = 0.0;
-            this.untriedMoves = state.getLegalMoves();
+        Tree(NodePool pool, int root, State rootState, TranspositionTable table) {
+            this.pool = pool;
+            this.root = root;
+            this.rootState = rootState;
+            this.table = table;
         }
 
-        public boolean isFullyExpanded() {
-            return untriedMoves.isEmpty();
+        // The visit count of each root move, indexed by point
+        int[] rootVisits() {
+            int[] visits = new int[rootState.board.points()];
+            addRootVisits(visits);
+            return visits;
         }
 
-        // Calculate UCT value for node selection
-        public double getUCTValue() {
-            if (visits == 0) return Double.MAX_VALUE;
-            return (wins / visits) + UCT_CONSTANT * Math.sqrt(Math.log(parent.visits) / visits);
+        void addRootVisits(int[] visits) {
+            int first = pool.firstChild(root);
+            for (int i = 0; i < (first < 0 ? 0 : pool.childCount(root)); i++)
+                visits[pool.move(first + i)] += pool.visits(first + i);
         }
 
-        // Select the child with the best UCT value
-        public TreeNode selectChild() {
-            TreeNode best = null;
-            double bestValue = -Double.MAX_VALUE;
-            for (TreeNode child : children) {
-                double uct = child.getUCTValue();
-                if (uct > bestValue) {
-                    bestValue = uct;
-                    best = child;
-                }
-            }
-            return best;
+        // The child of node reached by move, or -1 if node has not been expanded
+        int child(int node, int move) {
+            int first = pool.firstChild(node);
+            if (first < 0) return -1;
+            for (int i = 0; i < pool.childCount(node); i++)
+                if (pool.move(first + i) == move) return first + i;
+            return -1;
         }
     }
 
     // Simulate a random game from state `s` until terminal state or depth limit.
     // Returns 1 if favorable to black, -1 if favorable to white, or 0 for draw.
+    public static int simulate(State s) {
+        return simulate(s, 0);
+    }
+
+    // Simulate a random game from state `s`, which is already `depth` moves into the simulation.
+    // The playout runs in place on the current thread's PlayoutEngine, so it allocates nothing.
     public static int simulate(State s, int depth) {
-        if (depth >= MAX_SIMULATION_DEPTH || s.isTerminal()) {
-            return s.evaluate();
-        }
-        List<int[]> legalMoves = s.getLegalMoves();
-        if (legalMoves.isEmpty()) return s.evaluate();
-        Random rand = new Random();
-        int[] move = legalMoves.get(rand.nextInt(legalMoves.size()));
-        State nextState = s.applyMove(move);
-        // Reverse result since turns alternate
-        return -simulate(nextState, depth + 1);
+        return PlayoutEngine.forCurrentThread(s.board.size()).playout(s.board, s.turn, MAX_SIMULATION_DEPTH - depth);
     }
 
-    // Run MCTS to determine the best move from the current game state.
+    // Run MCTS to determine the best move from the current game state, using the default settings.
+    // The search tree is kept between calls, so when the position follows on from the previous call
+    // (see chooseMove), the statistics already gathered for it are reused.
     // @param currentMap the current board
     // @param turn the current player (1 for black, -1 for white)
     // @return best move as [row, col]
     public static int[] nextMove(int[][] currentmap, int turn) {
-        State rootState = new State(currentmap, turn);
-        TreeNode root = new TreeNode(rootState, null, null);
-        Random rand = new Random();
-
-        for (int i = 0; i < ITERATION_LIMIT; i++) {
-            TreeNode node = root;
-            State state = rootState;
-
-            // Selection: follow the fully expanded path
-            while (node.isFullyExpanded() && !state.isTerminal()) {
-                node = node.selectChild();
-                state = state.applyMove(node.move);
-            }
-
-            // Expansion: if node not fully expanded and not terminal, expand one move
-            if (!node.untriedMoves.isEmpty() && !state.isTerminal()) {
-                int index = rand.nextInt(node.untriedMoves.size());
-                int[] move = node.untriedMoves.remove(index);
-                state = state.applyMove(move);
-                TreeNode child = new TreeNode(state, node, move);
-                node.children.add(child);
+        return SHARED.chooseMove(currentmap, turn);
+    }
+
+    // Run MCTS for (at most) the given wall-clock time and return the best move found so far.
+    // @param currentMap the current board
+    // @param turn the current player (1 for black, -1 for white)
+    // @param budgetMillis the time allowed for the search, in milliseconds
+    // @return best move as [row, col], or null if there is no legal move
+    public static int[] nextMove(int[][] currentmap, int turn, long budgetMillis) {
+        return nextMove(currentmap, turn, SearchConfig.DEFAULT.withTimeBudget(budgetMillis));
+    }
+
+    // Run MCTS to determine the best move from the current game state.
+    // @param currentMap the current board
+    // @param turn the current player (1 for black, -1 for white)
+    // @param config the iteration and/or time budget and the parallel search mode
+    // @return best move as [row, col], or null if there is no legal move
+    public static int[] nextMove(int[][] currentmap, int turn, SearchConfig config) {
+        return SHARED.chooseMove(currentmap, turn, config);
+    }
+
+    // Run MCTS on a board which carries the ko point, avoiding any move which repeats a position of the game.
+    // @param board the current board (which is not changed)
+    // @param turn the current player (1 for black, -1 for white)
+    // @param history the positions which have occurred in the game, or null to check simple ko only
+    // @return best move as [row, col], or null if there is no legal move
+    public static int[] nextMove(GoBoard board, int turn, PositionHistory history) {
+        return SHARED.chooseMove(board, turn, history, SHARED.config);
+    }
+
+    // Answer the positions in the book (see OpeningBook) from the book, without searching, from now on.
+    // @param book the book for the board size in play, or null to search every position.
+    public static void useOpeningBook(OpeningBook book) {
+        SHARED.setOpeningBook(book);
+    }
+
+    // Create an agent with its own settings and its own retained search tree.
+    // Callers which run several games at once should use one agent per game.
+    public MCSTAgent(SearchConfig config) {
+        this.config = config;
+    }
+
+    public MCSTAgent() {
+        this(SearchConfig.DEFAULT);
+    }
+
+    // Choose a move with this agent's settings.
+    public int[] chooseMove(int[][] currentmap, int turn) {
+        return chooseMove(currentmap, turn, config);
+    }
+
+    // Choose a move with the given settings.
+    // If the position is the one searched last time, or follows from it by one or two moves (typically our move
+    // and the opponent's reply), the matching subtree of the last search becomes the root of this one.
+    // @return best move as [row, col], or null if there is no legal move
+    public int[] chooseMove(int[][] currentmap, int turn, SearchConfig config) {
+        return chooseMove(new GoBoard(currentmap), turn, null, config);
+    }
+
+    // Choose a move from the given board (which is not changed) with the given settings.
+    // Moves which would repeat a position in history (positional superko) are never chosen.
+    // @return best move as [row, col], or null if there is no legal move
+    public int[] chooseMove(GoBoard board, int turn, PositionHistory history, SearchConfig config) {
+        return chooseMove(board, turn, history, config, null);
+    }
+
+    // As above, but the search stops as soon as cancel (if not null) is set, and the best move found so far is chosen.
+    // The tree is kept for the next search either way, so a search which is cancelled (e.g. pondering on the
+    // opponent's time) still helps the next one. While the search runs, snapshot() shows its progress.
+    public synchronized int[] chooseMove(GoBoard board, int turn, PositionHistory history, SearchConfig config, AtomicBoolean cancel) {
+        State rootState = new State(board.copy(), turn);
+        reusedVisits = 0;
+        iterations = 0;
+        if (rootState.isTerminal()) {
+            retained = null;
+            return null;
+        }
+        OpeningBook book = this.book;
+        if (book != null) {
+            int p = book.lookup(board, turn);
+            if (p >= 0 && board.isLegal(p, turn) && (history == null || !board.repeatsPosition(p, turn, history)))
+                return new int[]{board.row(p), board.col(p)};
+        }
+        int[] visits;
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        SearchMetrics metrics = new SearchMetrics();
+        if (config.parallelism() == SearchConfig.Parallelism.ROOT) {
+            // Root parallelism grows a separate tree on each thread, so there is no single tree to keep
+            // (but the pool and table of each thread are kept, to be cleared and reused by the next search)
+            retained = null;
+            if (rootPools == null || rootPools.length != config.threads()) {
+                rootPools = new NodePool[config.threads()];
+                rootTables = new TranspositionTable[config.threads()];
+            }
+            visits = search(rootState, config, cancel, metrics, rootPools, rootTables, executor(config.threads()));
+            for (int v : visits) iterations += v;
+        } else {
+            Tree tree = reuse(rootState, config);
+            reusedVisits = tree.pool.visits(tree.root);
+            running = new Running(tree, reusedVisits);
+            try {
+                search(tree, config, cancel, metrics, config.parallelism() == SearchConfig.Parallelism.TREE ? executor(config.threads()) : null);
+            } finally {
+                running = null;
+            }
+            iterations = tree.pool.visits(tree.root) - reusedVisits;
+            visits = tree.rootVisits();
+            retained = tree;
+        }
+        metrics.setElapsedNanos(System.nanoTime() - start);
+        this.metrics = metrics;
+        event.end();
+        event.commit(board.size(), metrics);
+        return bestMove(rootState, visits, history);
+    }
+
+    // Play from the book (if not null) in the positions it covers: chooseMove then returns the book move
+    // in microseconds, with no search (and getIterations() is 0).
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return book;
+    }
+
+    // The settings used by chooseMove(int[][], int).
+    public SearchConfig getConfig() {
+        return config;
+    }
+
+    // The number of root visits inherited from the previous search by the last call to chooseMove.
+    public int getReusedVisits() {
+        return reusedVisits;
+    }
+
+    // A view of the search in progress, or null if there is none (or it uses root parallelism, with a tree per thread).
+    // This may be called from any thread while chooseMove runs; the statistics it reads are updated as it reads them,
+    // so the snapshot is approximate.
+    public Snapshot snapshot() {
+        Running current = running;
+        if (current == null) return null;
+        Tree tree = current.tree;
+        NodePool pool = tree.pool;
+        GoBoard board = tree.rootState.board;
+        int[] visits = tree.rootVisits();
+        // The principal variation: follow the most visited child
+        int[] variation = new int[Snapshot.MAX_VARIATION];
+        int length = 0;
+        int node = tree.root;
+        while (length < variation.length) {
+            int first = pool.firstChild(node);
+            if (first < 0) break;
+            int best = -1;
+            for (int child = first; child < first + pool.childCount(node); child++)
+                if (pool.visits(child) > 0 && (best < 0 || pool.visits(child) > pool.visits(best))) best = child;
+            if (best < 0) break;
+            variation[length++] = pool.move(best);
+            node = best;
+        }
+        return new Snapshot(board.size(), tree.rootState.turn, visits, Arrays.copyOf(variation, length),
+                pool.visits(tree.root) - current.reused, (System.nanoTime() - current.start) / 1_000_000);
+    }
+
+    // The progress of a search, for the GUI: the visits of each root move and the principal variation
+    // (the most visited line), as points (see GoBoard.point), with the iterations and milliseconds so far.
+    public static final class Snapshot {
+        static final int MAX_VARIATION = 12;
+
+        public final int size;
+        public final int turn; // The player to move at the root
+        public final int[] visits;
+        public final int[] principalVariation;
+        public final int iterations;
+        public final long elapsedMillis;
+
+        Snapshot(int size, int turn, int[] visits, int[] principalVariation, int iterations, long elapsedMillis) {
+            this.size = size;
+            this.turn = turn;
+            this.visits = visits;
+            this.principalVariation = principalVariation;
+            this.iterations = iterations;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int maxVisits() {
+            int result = 0;
+            for (int v : visits) result = Math.max(result, v);
+            return result;
+        }
+    }
+
+    // The search chooseMove is running, for snapshot()
+    private static final class Running {
+        final Tree tree;
+        final int reused;
+        final long start = System.nanoTime();
+
+        Running(Tree tree, int reused) {
+            this.tree = tree;
+            this.reused = reused;
+        }
+    }
+
+    // Where the time of the last search went and the shape of its tree (see SearchMetrics), or null if
+    // chooseMove has not searched yet.
+    public synchronized SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // The number of iterations (i.e. playouts) run by the last call to chooseMove.
+    public synchronized int getIterations() {
+        return iterations;
+    }
+
+    // The transposition table of the last search (whose counters run from the last time the tree was discarded),
+    // or null if there is none. Use it to report the hit rate and memory footprint.
+    public synchronized TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    // The node pool of the last search (which is kept for the next one), or null if there is none.
+    public synchronized NodePool getNodePool() {
+        return pool;
+    }
+
+    // Forget the retained tree (e.g. when a new game starts).
+    public synchronized void reset() {
+        retained = null;
+        table = null;
+    }
+
+    // Find the node of the retained tree which represents the given state and return a tree with that node as root.
+    // Only positions reached from the retained root by adding one or two stones are followed; otherwise,
+    // or if those moves were never expanded, the node pool and the transposition table are cleared for a fresh tree.
+    private Tree reuse(State state, SearchConfig config) {
+        int node = find(state, config);
+        int entries = config.transpositionTableSize();
+        if (entries == 0) table = null;
+        else if (table == null || table.capacity() != TranspositionTable.capacityFor(entries)) table = new TranspositionTable(entries);
+        else if (node < 0) table.clear();
+        if (node < 0) {
+            if (pool == null || pool.capacity() != config.nodePoolSize() || pool.rave() != config.rave())
+                pool = new NodePool(config.nodePoolSize(), config.rave());
+            else pool.clear();
+            node = pool.allocateRoot();
+        }
+        return new Tree(pool, node, state, table);
+    }
+
+    // The node of the retained tree which represents the given state, or -1.
+    // The retained tree is not used if the settings of the pool have changed, or if it is more than three-quarters full
+    // (the nodes outside the new root's subtree are only reclaimed when the pool is cleared).
+    private int find(State state, SearchConfig config) {
+        Tree tree = retained;
+        retained = null;
+        if (tree == null || tree.pool != pool || pool.capacity() != config.nodePoolSize() || pool.rave() != config.rave()
+                || pool.size() > pool.capacity() / 4 * 3 || tree.rootState.board.size() != state.board.size())
+            return -1;
+        GoBoard before = tree.rootState.board, after = state.board;
+        int[] added = new int[2];
+        int count = 0;
+        for (int p = 0; p < before.points(); p++)
+            if (before.colour(p) == GoBoard.EMPTY && after.colour(p) != GoBoard.EMPTY) {
+                if (count == added.length) return -1;
+                added[count++] = p;
+            }
+        // Replay the new stones in turn order
+        GoBoard replay = before.copy();
+        int node = tree.root;
+        int mover = tree.rootState.turn;
+        for (int played = 0; played < count; played++) {
+            int move = -1;
+            for (int i = 0; i < count; i++)
+                if (added[i] >= 0 && after.colour(added[i]) == mover) {
+                    move = added[i];
+                    added[i] = -1;
+                    break;
+                }
+            node = move < 0 ? -1 : tree.child(node, move);
+            if (node < 0) return -1;
+            replay.play(move, mover);
+            mover = -mover;
+        }
+        if (mover != state.turn || !replay.sameStones(after) || replay.koPoint() != after.koPoint()) return -1;
+        return node;
+    }
+
+    // Select the move with the most visits which does not repeat a position in history
+    private static int[] bestMove(State rootState, int[] visits, PositionHistory history) {
+        GoBoard board = rootState.board;
+        int best = -1;
+        int maxVisits = 0;
+        for (int p = 0; p < visits.length; p++) {
+            if (visits[p] > maxVisits && (history == null || !board.repeatsPosition(p, rootState.turn, history))) {
+                maxVisits = visits[p];
+                best = p;
+            }
+        }
+        if (best < 0) {
+            // Fallback: random move if MCTS failed
+            int count = rootState.legalMoveCount();
+            int start = ThreadLocalRandom.current().nextInt(count);
+            for (int i = 0; i < count && best < 0; i++) {
+                int p = rootState.legalMove((start + i) % count);
+                if (history == null || !board.repeatsPosition(p, rootState.turn, history)) best = p;
+            }
+            if (best < 0) return null;
+        }
+        return new int[]{board.row(best), board.col(best)};
+    }
+
+    // Run a search from a fresh tree and return the visit count of each root move, indexed by point.
+    // The threads of a parallel search are started for this search only.
+    static int[] search(State rootState, SearchConfig config) {
+        ThreadPoolExecutor executor = newExecutor(config.threads());
+        try {
+            return search(rootState, config, null, new SearchMetrics(), new NodePool[config.threads()], new TranspositionTable[config.threads()], executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // With root parallelism, thread t grows its tree in pools[t] and tables[t], which are reused if they suit config
+    private static int[] search(State rootState, SearchConfig config, AtomicBoolean cancel, SearchMetrics metrics, NodePool[] pools, TranspositionTable[] tables, ExecutorService executor) {
+        if (config.parallelism() != SearchConfig.Parallelism.ROOT) {
+            Tree tree = newTree(rootState, config);
+            search(tree, config, cancel, metrics, executor);
+            return tree.rootVisits();
+        }
+        int threads = config.threads();
+        long deadline = deadline(config);
+        int[] visits = new int[rootState.board.points()];
+        Tree[] trees = new Tree[threads];
+        AtomicInteger next = new AtomicInteger();
+        runInParallel(executor, threads, () -> {
+            int t = next.getAndIncrement();
+            int share = config.iterations() / threads + (t < config.iterations() % threads ? 1 : 0);
+            trees[t] = newTree(rootState, config, pools, tables, t);
+            runIterations(trees[t], new Budget(share, deadline, config.earlyStop(), cancel), 0, config, metrics);
+        });
+        for (Tree tree : trees) tree.addRootVisits(visits);
+        return visits;
+    }
+
+    // A tree with a pool and a table of its own, holding only the root
+    static Tree newTree(State rootState, SearchConfig config) {
+        NodePool pool = new NodePool(config.nodePoolSize(), config.rave());
+        TranspositionTable table = config.transpositionTableSize() > 0 ? new TranspositionTable(config.transpositionTableSize()) : null;
+        return new Tree(pool, pool.allocateRoot(), rootState, table);
+    }
+
+    // As above, but in the pool and table of slot t, which are cleared if they suit config (and replaced if not)
+    private static Tree newTree(State rootState, SearchConfig config, NodePool[] pools, TranspositionTable[] tables, int t) {
+        NodePool pool = pools[t];
+        if (pool == null || pool.capacity() != config.nodePoolSize() || pool.rave() != config.rave())
+            pools[t] = pool = new NodePool(config.nodePoolSize(), config.rave());
+        else pool.clear();
+        int entries = config.transpositionTableSize();
+        TranspositionTable table = entries > 0 ? tables[t] : null;
+        if (entries > 0) {
+            if (table == null || table.capacity() != TranspositionTable.capacityFor(entries))
+                tables[t] = table = new TranspositionTable(entries);
+            else table.clear();
+        }
+        return new Tree(pool, pool.allocateRoot(), rootState, table);
+    }
+
+    // Run a search on the (possibly already populated) tree, on one thread or on several sharing the tree.
+    // The threads of a parallel search are started for this search only.
+    static void search(Tree tree, SearchConfig config) {
+        ThreadPoolExecutor executor = newExecutor(config.threads());
+        try {
+            search(tree, config, null, new SearchMetrics(), executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // With tree parallelism, the threads run in executor (which is not used otherwise, and may then be null)
+    private static void search(Tree tree, SearchConfig config, AtomicBoolean cancel, SearchMetrics metrics, ExecutorService executor) {
+        Budget budget = new Budget(config.iterations(), deadline(config), config.earlyStop(), cancel);
+        if (config.parallelism() == SearchConfig.Parallelism.TREE)
+            runInParallel(executor, config.threads(), () -> runIterations(tree, budget, config.virtualLoss(), config, metrics));
+        else
+            runIterations(tree, budget, 0, config, metrics);
+    }
+
+    private static long deadline(SearchConfig config) {
+        return config.timeBudgetMillis() > 0 ? System.nanoTime() + config.timeBudgetMillis() * 1_000_000L : Long.MAX_VALUE;
+    }
+
+    // Run iterations on the tree until the shared budget is used up, adding this thread's figures to metrics.
+    private static void runIterations(Tree tree, Budget budget, int virtualLoss, SearchConfig config, SearchMetrics metrics) {
+        SearchMetrics local = new SearchMetrics(); // This thread's figures, so that recording needs no synchronization
+        long allocated = SearchMetrics.threadAllocatedBytes();
+        NodePool pool = tree.pool;
+        GoBoard rootBoard = tree.rootState.board;
+        int points = rootBoard.points();
+        Random rand = ThreadLocalRandom.current();
+        PlayoutEngine engine = PlayoutEngine.forCurrentThread(rootBoard.size());
+        GoBoard board = new GoBoard(rootBoard.size()); // The position of the node reached so far
+        int[] moves = new int[points]; // Scratch space for expansion
+        // The rank of each move by prior (with progressive widening), then the start of each rank: ditto
+        int[] ranks = config.progressiveWidening() ? new int[points + PRIOR_LEVELS + 1] : null;
+        boolean rave = config.rave() && pool.rave();
+        int[] colourAt = rave ? new int[points] : null; // The colour which first plays at each point (see amaf)
+        int[] seen = rave ? new int[points] : null; // Stamps which mark the entries of colourAt in use
+        int stamp = 0;
+        int[] path = new int[64];
+        while (budget.tryStart()) {
+            long start = System.nanoTime();
+            long expansion = 0;
+            board.copyFrom(rootBoard);
+            int turn = tree.rootState.turn;
+            int node = tree.root;
+            path[0] = node;
+            int length = 1;
+
+            // Selection and expansion: descend through visited nodes, expanding each one when it is reached for the
+            // second time, until an unvisited node (or a terminal node) is reached.
+            // The depth limit guards against cycles, which transpositions can create after captures.
+            while (length <= MAX_TREE_DEPTH) {
+                int first = pool.firstChild(node);
+                if (first == NodePool.UNEXPANDED) {
+                    if (node != tree.root && pool.visits(node) <= virtualLoss) break; // First visit: simulate from here
+                    long expanding = System.nanoTime();
+                    int previous = length > 1 ? pool.move(path[length - 2]) : -1;
+                    first = expand(tree, node, board, turn, rand, moves, ranks, pool.move(node), previous, local);
+                    expansion = System.nanoTime() - expanding;
+                    local.recordExpansionTime(expansion);
+                }
+                if (first < 0) break; // Terminal, or the pool is full
+                int child = select(pool, node, first, config, rave);
+                board.play(pool.move(child), turn);
+                turn = -turn;
+                pool.addVirtualLoss(child, virtualLoss);
+                if (length == path.length) path = Arrays.copyOf(path, length * 2);
+                path[length++] = child;
                 node = child;
             }
 
             // Simulation: simulate random playout
-            int simulationResult = simulate(state, 0);
+            long simulating = System.nanoTime();
+            int simulationResult = engine.playout(board, turn, MAX_SIMULATION_DEPTH, config.playoutPolicy());
+            long backpropagating = System.nanoTime();
 
-            // Backpropagation: update visit/win stats up the tree
-            while (node != null) {
-                node.visits++;
-                node.wins += simulationResult;
-                simulationResult = -simulationResult;
-                node = node.parent;
+            if (rave) {
+                if (++stamp == 0) {
+                    Arrays.fill(seen, 0);
+                    stamp = 1;
+                }
+                amaf(tree, path, length, engine, simulationResult, colourAt, seen, stamp);
             }
+
+            // Backpropagation: update visit/win stats along the path, crediting the player who moved into each node
+            for (int i = length - 1; i >= 0; i--) {
+                turn = -turn;
+                pool.update(path[i], simulationResult * turn, i == 0 ? 0 : virtualLoss);
+            }
+            long end = System.nanoTime();
+            local.recordIteration(simulating - start - expansion, backpropagating - simulating, end - backpropagating, length - 1);
+            budget.completed(tree);
         }
+        local.recordHeapBytes(allocated < 0 ? -1 : SearchMetrics.threadAllocatedBytes() - allocated);
+        metrics.add(local);
+    }
 
-        // Select child with the most visits
-        TreeNode bestChild = null;
-        int maxVisits = -1;
-        for (TreeNode child : root.children) {
-            if (child.visits > maxVisits) {
-                maxVisits = child.visits;
-                bestChild = child;
+    // Expand node, whose position is on board with turn to move: give it a block of children, one for each legal move
+    // in random order, or share the children of a node with the same position found in the transposition table.
+    // If ranks is not null (progressive widening), the children are ordered by their prior (see prior), highest first,
+    // given the last two moves (-1 if not known); ties stay in random order. Ranks is scratch space for the sort.
+    // Returns the first child, NodePool.TERMINAL if there are no legal moves, or NodePool.UNEXPANDED if the pool is full.
+    private static int expand(Tree tree, int node, GoBoard board, int turn, Random rand, int[] moves, int[] ranks, int last, int previous, SearchMetrics metrics) {
+        NodePool pool = tree.pool;
+        synchronized (pool.lock(node)) {
+            int first = pool.firstChild(node);
+            if (first != NodePool.UNEXPANDED) return first; // Another thread got here first
+            long key = 0;
+            if (tree.table != null) {
+                key = Zobrist.stateKey(board, turn);
+                int other = tree.table.get(key);
+                if (other >= 0 && (first = pool.firstChild(other)) != NodePool.UNEXPANDED) {
+                    pool.publishChildren(node, first, first < 0 ? 0 : pool.childCount(other));
+                    metrics.recordBranching(first < 0 ? 0 : pool.childCount(other), 0, 0);
+                    return first;
+                }
+            }
+            int count = 0;
+            for (int i = 0; i < board.emptyCount(); i++) {
+                int p = board.emptyPoint(i);
+                if (board.isLegal(p, turn) && !board.isEye(p, turn)) {
+                    // Inside-out shuffle
+                    int j = rand.nextInt(count + 1);
+                    moves[count++] = moves[j];
+                    moves[j] = p;
+                }
             }
+            if (count == 0) first = NodePool.TERMINAL;
+            else {
+                first = pool.allocate(count);
+                if (first < 0) return NodePool.UNEXPANDED;
+                if (ranks == null) for (int i = 0; i < count; i++) pool.setMove(first + i, moves[i]);
+                else {
+                    // Counting sort by rank (the highest prior has rank 0), which keeps the random order within a rank.
+                    // The start of each rank in the block of children is kept after the ranks of the moves.
+                    int start = ranks.length - PRIOR_LEVELS - 1;
+                    Arrays.fill(ranks, start, ranks.length, 0);
+                    int capture = last >= 0 && board.colour(last) != GoBoard.EMPTY ? board.atariLiberty(last) : -1;
+                    for (int i = 0; i < count; i++) {
+                        ranks[i] = PRIOR_LEVELS - 1 - prior(board, moves[i], last, previous, capture);
+                        ranks[start + ranks[i] + 1]++;
+                    }
+                    for (int rank = 1; rank <= PRIOR_LEVELS; rank++) ranks[start + rank] += ranks[start + rank - 1];
+                    for (int i = 0; i < count; i++) pool.setMove(first + ranks[start + ranks[i]]++, moves[i]);
+                }
+            }
+            pool.publishChildren(node, first, count);
+            metrics.recordBranching(count, count, pool.rave() ? NodePool.RAVE_NODE_BYTES : NodePool.NODE_BYTES);
+            if (tree.table != null) tree.table.putIfAbsent(key, node, pool);
+            return first;
         }
-        if (bestChild == null) {
-            // Fallback: random move if MCTS failed
-            List<int[]> legal = rootState.getLegalMoves();
-            return legal.get(rand.nextInt(legal.size()));
+    }
+
+    // The prior of move p, given the last move and the one before it (-1 if not known) and the point which captures
+    // the last move's group (-1 if none), from 0 to PRIOR_LEVELS - 1. The capture, moves near the last two moves and
+    // moves next to the last move which match a 3x3 shape (see Patterns) score higher; moves on the first line lower.
+    // Only the points next to the last move cost more than a little arithmetic.
+    static int prior(GoBoard board, int p, int last, int previous, int capture) {
+        int result = p == capture ? 5 : 2;
+        int size = board.size(), row = board.row(p), col = board.col(p);
+        if (last >= 0) {
+            int distance = Math.max(Math.abs(row - board.row(last)), Math.abs(col - board.col(last)));
+            if (distance == 1 && Patterns.matches(board, p)) result++;
+            if (distance <= 2) result += distance == 1 ? 3 : 2;
+        }
+        if (previous >= 0 && Math.max(Math.abs(row - board.row(previous)), Math.abs(col - board.col(previous))) <= 2) result++;
+        if (size >= 9 && (row == 0 || col == 0 || row == size - 1 || col == size - 1)) result -= 2;
+        return Math.max(0, Math.min(PRIOR_LEVELS - 1, result));
+    }
+
+    // Select the child with the best value: UCT, with the mean value blended with the AMAF value according to the
+    // RAVE schedule if rave is true. Unvisited children come first, in their order (or best AMAF value first).
+    // With progressive widening, only the first config.activeChildren children are considered.
+    // The exploration term is sqrt(log N) for the parent, computed once, times a table lookup of 1/sqrt(n) for each child.
+    private static int select(NodePool pool, int node, int first, SearchConfig config, boolean rave) {
+        int parentVisits = pool.visits(node);
+        int count = config.activeChildren(parentVisits, pool.childCount(node));
+        double exploration = UCT_CONSTANT * Math.sqrt(Math.log(Math.max(1, parentVisits)));
+        int best = first;
+        double bestValue = -Double.MAX_VALUE;
+        for (int child = first; child < first + count; child++) {
+            int n = pool.visits(child);
+            double value;
+            if (n == 0) value = UNVISITED + (rave ? amafValue(pool, child) : 0);
+            else {
+                double mean = (double) pool.wins(child) / n;
+                value = mean + exploration * (n < INVERSE_SQRT.length ? INVERSE_SQRT[n] : 1 / Math.sqrt(n));
+                if (rave) value += config.raveWeight(n, pool.amafVisits(child)) * (amafValue(pool, child) - mean);
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    static final int PRIOR_LEVELS = 11; // The priors run from 0 to 10
+    private static final double[] INVERSE_SQRT = new double[4096]; // 1/sqrt(n), for the exploration term
+
+    static {
+        for (int n = 1; n < INVERSE_SQRT.length; n++) INVERSE_SQRT[n] = 1 / Math.sqrt(n);
+    }
+
+    private static double amafValue(NodePool pool, int node) {
+        int m = pool.amafVisits(node);
+        return m == 0 ? 0 : (double) pool.amafWins(node) / m;
+    }
+
+    // Update the AMAF statistics of the children of each node on the path: a child is credited if its move was made
+    // later in the iteration (in the tree or in the playout) by the player to move at the node, where it first occurs.
+    // Working back from the end of the playout, colourAt holds the colour which first played at each point.
+    private static void amaf(Tree tree, int[] path, int length, PlayoutEngine engine, int result, int[] colourAt, int[] seen, int stamp) {
+        NodePool pool = tree.pool;
+        for (int j = engine.recordedMoves() - 1; j >= 0; j--) {
+            int encoded = engine.recordedMove(j);
+            int p = encoded >= 0 ? encoded : ~encoded;
+            seen[p] = stamp;
+            colourAt[p] = encoded >= 0 ? GoBoard.BLACK : GoBoard.WHITE;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            int turn = (i & 1) == 0 ? tree.rootState.turn : -tree.rootState.turn; // The player to move at path[i]
+            if (i + 1 < length) {
+                int p = pool.move(path[i + 1]);
+                seen[p] = stamp;
+                colourAt[p] = turn;
+            }
+            int first = pool.firstChild(path[i]);
+            if (first < 0) continue;
+            for (int child = first; child < first + pool.childCount(path[i]); child++) {
+                int p = pool.move(child);
+                if (seen[p] == stamp && colourAt[p] == turn) pool.updateAmaf(child, result * turn);
+            }
+        }
+    }
+
+    // The stopping rule shared by all the threads searching one tree: an iteration count, an optional deadline
+    // and, optionally, stopping as soon as the most visited root child can no longer be overtaken.
+    static class Budget {
+        private final AtomicInteger remaining;
+        private final long deadline; // A System.nanoTime() value, or Long.MAX_VALUE for no deadline
+        private final boolean earlyStop;
+        private final AtomicBoolean cancel; // Set by another thread to stop the search, or null
+        private final long start = System.nanoTime();
+        private final AtomicInteger completed = new AtomicInteger();
+        private volatile boolean stopped;
+
+        Budget(int iterations, long deadline, boolean earlyStop, AtomicBoolean cancel) {
+            this.remaining = new AtomicInteger(iterations);
+            this.deadline = deadline;
+            this.earlyStop = earlyStop;
+            this.cancel = cancel;
+        }
+
+        // Claim the next iteration, if the budget allows it
+        boolean tryStart() {
+            if (stopped) return false;
+            if ((cancel != null && cancel.get()) || (deadline != Long.MAX_VALUE && System.nanoTime() >= deadline) || remaining.getAndDecrement() <= 0) {
+                stopped = true;
+                return false;
+            }
+            return true;
+        }
+
+        // Record a completed iteration and check (every 64 iterations) whether the decision is already made
+        void completed(Tree tree) {
+            int n = completed.incrementAndGet();
+            if (earlyStop && (n & 63) == 0 && decided(tree, n)) stopped = true;
+        }
+
+        int iterations() {
+            return completed.get();
+        }
+
+        // True if the runner-up cannot catch the most visited root child with the iterations that remain
+        private boolean decided(Tree tree, int done) {
+            NodePool pool = tree.pool;
+            int start = pool.firstChild(tree.root);
+            int first = 0, second = 0;
+            for (int i = 0; i < (start < 0 ? 0 : pool.childCount(tree.root)); i++) {
+                int v = pool.visits(start + i);
+                if (v > first) {
+                    second = first;
+                    first = v;
+                } else if (v > second) second = v;
+            }
+            return first - second > remainingEstimate(done);
+        }
+
+        private long remainingEstimate(int done) {
+            long result = Math.max(0, remaining.get());
+            if (deadline != Long.MAX_VALUE) {
+                long now = System.nanoTime();
+                double rate = (double) done / Math.max(1, now - start);
+                result = Math.min(result, (long) Math.ceil(rate * (deadline - now)));
+            }
+            return result;
         }
-        return bestChild.move;
+    }
+
+    // Run task on each of the given number of threads of executor (which has at least that many) and wait for them all
+    private static void runInParallel(ExecutorService executor, int threads, Runnable task) {
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) futures.add(executor.submit(task));
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("search failed", e.getCause());
+        } finally {
+            // NOTE: the executor outlives the search, so the threads of a search which failed are stopped here.
+            for (Future<?> future : futures) future.cancel(true);
+        }
+    }
+
+    // The executor of this agent's parallel searches, which is kept for the next search (and replaced only when the
+    // number of threads changes), so that its threads are not started afresh for every move.
+    private ThreadPoolExecutor executor(int threads) {
+        if (executor == null || executor.getCorePoolSize() != threads) {
+            if (executor != null) executor.shutdown();
+            executor = newExecutor(threads);
+        }
+        return executor;
+    }
+
+    // An executor of the given number of threads, which are daemons and stop when they have been idle for a while:
+    // so an agent which is no longer used needs no closing.
+    private static ThreadPoolExecutor newExecutor(int threads) {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads, EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "MCSTAgent-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    // The executor of the last parallel search, or null if there has been none.
+    synchronized ThreadPoolExecutor getExecutor() {
+        return executor;
     }
 
     public static int getIterationLimit() {
         return ITERATION_LIMIT;
     }
+
+    private static final MCSTAgent SHARED = new MCSTAgent(); // Used by the static nextMove methods
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 30; // How long an idle search thread is kept
+
+    private final SearchConfig config;
+    private Tree retained; // The tree of the last search, kept for reuse
+    private NodePool pool; // The nodes of the retained tree, reused by the next search
+    private int reusedVisits;
+    private int iterations;
+    private volatile Running running; // The search in progress, if any
+    private TranspositionTable table; // Shared by the nodes of the retained tree, or null
+    private NodePool[] rootPools; // One per thread of root parallelism, reused by the next search
+    private TranspositionTable[] rootTables; // Likewise (an element is null if there is no table)
+    private ThreadPoolExecutor executor; // Runs the threads of parallel searches, reused by the next search
+    private volatile OpeningBook book; // Consulted before searching, or null
+    private SearchMetrics metrics; // Of the last search
 }
@@ -0,0 +1,204 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import com.phasmidsoftware.dsaipg.util.benchmark.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Benchmark which reports playout throughput, the transposition table's hit rate and footprint, node pool usage,
+ * and how MCSTAgent's parallel search modes scale from one thread to all available cores.
+ */
+public class MCSTAgentBenchmark {
+
+    private final int iterations;
+    private final int runs;
+
+    /**
+     * Constructor.
+     *
+     * @param iterations the number of iterations of each search.
+     * @param runs       the number of searches timed for each configuration.
+     */
+    public MCSTAgentBenchmark(int iterations, int runs) {
+        this.iterations = iterations;
+        this.runs = runs;
+    }
+
+    /**
+     * Time searches from the empty 19x19 board with the given settings.
+     *
+     * @param config the search settings (the iteration count is overridden).
+     * @return the number of iterations per second.
+     */
+    public double iterationsPerSecond(SearchConfig config) {
+        SearchConfig target = config.withIterations(iterations);
+        MCSTAgent.State state = new MCSTAgent.State(new int[19][19], GoBoard.BLACK);
+        MCSTAgent.search(state, target); // Warmup
+        long elapsed;
+        try (Stopwatch stopwatch = new Stopwatch()) {
+            for (int i = 0; i < runs; i++) MCSTAgent.search(state, target);
+            elapsed = Math.max(1, stopwatch.lap());
+        }
+        return 1000.0 * iterations * runs / elapsed;
+    }
+
+    /**
+     * Report iterations per second and speedup for each parallel mode, for 1, 2, 4, ... up to maxThreads threads.
+     *
+     * @param maxThreads the largest number of threads.
+     */
+    public void reportScaling(int maxThreads) {
+        for (SearchConfig.Parallelism parallelism : new SearchConfig.Parallelism[]{SearchConfig.Parallelism.ROOT, SearchConfig.Parallelism.TREE}) {
+            double base = 0;
+            for (int threads : threadCounts(maxThreads)) {
+                double rate = iterationsPerSecond(SearchConfig.DEFAULT.withParallelism(parallelism).withThreads(threads));
+                if (threads == 1) base = rate;
+                System.out.printf("%s parallelism, %2d threads: %,10.0f iterations/sec, speedup %.2f%n", parallelism, threads, rate, rate / base);
+            }
+        }
+    }
+
+    /**
+     * Report the transposition table's hit rate and memory footprint after one search from the empty board.
+     *
+     * @param size    the board size.
+     * @param entries the capacity of the table.
+     */
+    public void reportTranspositions(int size, int entries) {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(iterations).withTranspositionTable(entries));
+        agent.chooseMove(new int[size][size], GoBoard.BLACK);
+        TranspositionTable table = agent.getTranspositionTable();
+        System.out.printf("%dx%d, %d iterations: %d of %d expansions were transpositions (hit rate %.1f%%), %d nodes stored, %d replaced, table footprint %,d bytes%n",
+                size, size, iterations, table.hits(), table.lookups(), 100 * table.hitRate(), table.size(), table.replacements(), table.footprintBytes());
+    }
+
+    /**
+     * Report how many nodes one timed search from the empty board allocates in a node pool of the given capacity,
+     * the pool's footprint and the heap in use afterwards.
+     *
+     * @param size   the board size.
+     * @param nodes  the capacity of the pool.
+     * @param millis the time budget of the search.
+     */
+    public static void reportNodePool(int size, int nodes, long millis) {
+        SearchConfig config = SearchConfig.DEFAULT.withTimeBudget(millis).withNodePool(nodes);
+        MCSTAgent agent = new MCSTAgent(config);
+        agent.chooseMove(new int[size][size], GoBoard.BLACK);
+        NodePool pool = agent.getNodePool();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("%dx%d, %d ms: %,d iterations, %,d of %,d nodes allocated, pool footprint %,d bytes, heap in use %,d bytes%n",
+                size, size, millis, pool.visits(0), pool.size(), pool.capacity(), pool.footprintBytes(), runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Play games between two agents, alternating colours, and return the first agent's score.
+     * Each agent searches with its own settings (typically the same time budget) and keeps its own tree.
+     * A game ends after two consecutive passes (an agent passes when it has no legal move) or after
+     * 3 * size * size moves, and is scored by area.
+     *
+     * @param first  the settings of the first agent.
+     * @param second the settings of the second agent.
+     * @param size   the board size.
+     * @param games  the number of games.
+     * @return the first agent's wins (counting draws as half) divided by games.
+     */
+    public static double selfPlay(SearchConfig first, SearchConfig second, int size, int games) {
+        double score = 0;
+        for (int game = 0; game < games; game++) {
+            MCSTAgent a = new MCSTAgent(first), b = new MCSTAgent(second);
+            boolean firstIsBlack = game % 2 == 0;
+            int winner = playGame(firstIsBlack ? a : b, firstIsBlack ? b : a, size);
+            int firstColour = firstIsBlack ? GoBoard.BLACK : GoBoard.WHITE;
+            score += winner == 0 ? 0.5 : winner == firstColour ? 1 : 0;
+        }
+        return score / games;
+    }
+
+    /**
+     * Play one game.
+     *
+     * @param black the agent playing black.
+     * @param white the agent playing white.
+     * @param size  the board size.
+     * @return 1 if black wins, -1 if white wins, 0 for a draw.
+     */
+    public static int playGame(MCSTAgent black, MCSTAgent white, int size) {
+        return Arena.playGame(black, white, size, true).winner();
+    }
+
+    static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> result = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) result.add(threads);
+        result.add(maxThreads);
+        return result;
+    }
+
+    /**
+     * Play a feature against plain UCT at equal time per move and report the feature's score.
+     * The metrics of one search from the empty board with each are reported first.
+     * The board size, the number of games and the time per move are taken from args[2], args[3] and args[4].
+     *
+     * @param args          the command-line arguments.
+     * @param feature       the name of the feature.
+     * @param defaultSize   the board size if args[2] is absent.
+     * @param defaultGames  the number of games if args[3] is absent.
+     * @param defaultMillis the time per move if args[4] is absent.
+     * @param withFeature   the function which adds the feature to the settings of plain UCT.
+     */
+    static void compareWithPlain(String[] args, String feature, int defaultSize, int defaultGames, long defaultMillis, UnaryOperator<SearchConfig> withFeature) {
+        int size = intArg(args, 2, defaultSize);
+        int games = intArg(args, 3, defaultGames);
+        long millis = longArg(args, 4, defaultMillis);
+        SearchConfig plain = SearchConfig.DEFAULT.withTimeBudget(millis);
+        SearchConfig featured = withFeature.apply(plain);
+        for (SearchConfig config : new SearchConfig[]{plain, featured}) {
+            MCSTAgent agent = new MCSTAgent(config);
+            agent.chooseMove(new int[size][size], GoBoard.BLACK); // Warmup
+            agent.reset();
+            agent.chooseMove(new int[size][size], GoBoard.BLACK);
+            System.out.printf("%s: %s%n", config == plain ? "plain" : feature, agent.getMetrics());
+        }
+        System.out.printf("%dx%d, %d ms per move: %s scores %.2f against plain UCT over %d games%n",
+                size, size, millis, feature, selfPlay(featured, plain, size, games), games);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private static long longArg(String[] args, int index, long defaultValue) {
+        return args.length > index ? Long.parseLong(args[index]) : defaultValue;
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = intArg(args, 0, Runtime.getRuntime().availableProcessors());
+        switch (args.length > 1 ? args[1] : "") {
+            // Each feature against plain UCT at equal time per move, e.g. "1 rave 9 20 100"
+            case "rave" -> {
+                compareWithPlain(args, "RAVE (EQUIVALENCE)", 9, 20, 100, plain -> plain.withRave(SearchConfig.RaveSchedule.EQUIVALENCE, 1000));
+                compareWithPlain(args, "RAVE (MINIMUM_MSE)", 9, 20, 100, plain -> plain.withRave(SearchConfig.RaveSchedule.MINIMUM_MSE, 0.1));
+            }
+            case "heavy" -> {
+                int size = intArg(args, 2, 9);
+                for (SearchConfig.PlayoutPolicy policy : SearchConfig.PlayoutPolicy.values()) {
+                    PlayoutEngine.playoutsPerSecond(size, 100, 500, policy); // Warmup
+                    System.out.printf("%s playouts (%dx%d): %,.0f playouts/sec%n", policy, size, size, PlayoutEngine.playoutsPerSecond(size, 100, 2000, policy));
+                }
+                compareWithPlain(args, "HEAVY playouts", 9, 20, 100, plain -> plain.withPlayoutPolicy(SearchConfig.PlayoutPolicy.HEAVY));
+            }
+            case "widening" -> compareWithPlain(args, "widening", 19, 10, 50, plain -> plain.withProgressiveWidening(2, 0.5));
+            // The number of nodes a long search fills, e.g. "1 pool 19 10000000 60000"
+            case "pool" -> reportNodePool(intArg(args, 2, 19), intArg(args, 3, 10_000_000), longArg(args, 4, 10_000));
+            default -> {
+                PlayoutEngine.playoutsPerSecond(19, 100, 500); // Warmup
+                System.out.printf("Playouts (19x19, one thread): %,.0f playouts/sec%n", PlayoutEngine.playoutsPerSecond(19, 100, 2000));
+                MCSTAgentBenchmark benchmark = new MCSTAgentBenchmark(16000, 3);
+                for (int size : new int[]{9, 19}) benchmark.reportTranspositions(size, 1 << 16);
+                benchmark.reportScaling(maxThreads);
+            }
+        }
+    }
+}
@@ -7,18 +7,19 @@ public class Memeryunit_B {
    
 	private final int ROWS = 19;// Board size (19x19)
 	private int M_Turnflag ;// Turn flag (1 for Black, -1 for White)
-	private int[][] M_ChessMap=new int[ROWS][ROWS];// Board state
+	private int[][] M_ChessMap;// Board state
 	private int M_step=0 ;// Number of steps/moves
 
 	// Default constructor
 	Memeryunit_B() {
-		
+		M_ChessMap=new int[ROWS][ROWS];
 	}
 
-	// Constructor with state copy
+	// Constructor with state copy (the board may be of any size)
 	Memeryunit_B(int[][] m_ChessMap,int m_step,int m_Turnflag){
-		for(int i=0;i<ROWS;i++) {
-			for(int j=0;j<ROWS;j++) {
+		M_ChessMap=new int[m_ChessMap.length][m_ChessMap.length];
+		for(int i=0;i<m_ChessMap.length;i++) {
+			for(int j=0;j<m_ChessMap.length;j++) {
 				M_ChessMap[i][j]=m_ChessMap[i][j];
 			}			
 		}
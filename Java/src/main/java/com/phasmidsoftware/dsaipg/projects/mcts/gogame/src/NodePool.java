@@ -0,0 +1,240 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The nodes of {@link MCSTAgent}'s search tree, held as a struct of parallel primitive arrays rather than as objects.
+ * <p>
+ * A node is an index into the arrays. It records the move which leads to it, its visits and net wins (from the
+ * point of view of the player who made that move) and where its children are: the children of a node occupy a
+ * contiguous block of indices, allocated all at once when the node is expanded. Nodes hold no board; the search
+ * replays the moves from the root as it descends.
+ * <p>
+ * A node takes 16 bytes (24 with RAVE statistics), so that ten million nodes fit in 160 MB.
+ * Allocation bumps a counter and {@link #clear()} simply resets it, so one pool serves search after search.
+ * <p>
+ * Statistics are updated atomically and children are published with release/acquire semantics, so several threads
+ * may search the same tree. Expansion takes one of a fixed set of locks, chosen by node index.
+ */
+public class NodePool {
+
+    /**
+     * The value of {@link #firstChild(int)} for a node which has not been expanded.
+     */
+    public static final int UNEXPANDED = -1;
+
+    /**
+     * The value of {@link #firstChild(int)} for a node which has been expanded and has no legal moves.
+     */
+    public static final int TERMINAL = -2;
+
+    /**
+     * The number of bytes taken by each node.
+     */
+    public static final int NODE_BYTES = Short.BYTES + 3 * Integer.BYTES + Short.BYTES;
+
+    /**
+     * The number of bytes taken by each node with RAVE statistics.
+     */
+    public static final int RAVE_NODE_BYTES = NODE_BYTES + 2 * Integer.BYTES;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the maximum number of nodes.
+     * @param rave     true if nodes should also keep AMAF statistics for RAVE.
+     */
+    public NodePool(int capacity, boolean rave) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.move = new short[capacity];
+        this.visits = new int[capacity];
+        this.wins = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.childCount = new short[capacity];
+        this.amafVisits = rave ? new int[capacity] : null;
+        this.amafWins = rave ? new int[capacity] : null;
+    }
+
+    /**
+     * Discard all nodes. The arrays are kept, and each node is reset when it is allocated again.
+     */
+    public void clear() {
+        size.set(0);
+    }
+
+    /**
+     * Allocate a root node.
+     *
+     * @return the index of the node, or -1 if the pool is full.
+     */
+    public int allocateRoot() {
+        int result = allocate(1);
+        if (result >= 0) move[result] = -1;
+        return result;
+    }
+
+    /**
+     * Allocate a block of nodes, all unexpanded and unvisited.
+     *
+     * @param count the number of nodes.
+     * @return the index of the first node, or -1 if the pool is full.
+     */
+    int allocate(int count) {
+        if (size.get() > capacity - count) return -1;
+        int first = size.getAndAdd(count);
+        if (first > capacity - count) return -1; // Once the pool is full, it stays full until it is cleared
+        int end = first + count;
+        Arrays.fill(visits, first, end, 0);
+        Arrays.fill(wins, first, end, 0);
+        Arrays.fill(firstChild, first, end, UNEXPANDED);
+        Arrays.fill(childCount, first, end, (short) 0);
+        if (amafVisits != null) {
+            Arrays.fill(amafVisits, first, end, 0);
+            Arrays.fill(amafWins, first, end, 0);
+        }
+        return first;
+    }
+
+    /**
+     * Make a block of nodes (whose moves have been set) the children of a node, or mark the node terminal.
+     * Other threads see the children only once this has been called.
+     *
+     * @param node  the parent.
+     * @param first the first child, or TERMINAL.
+     * @param count the number of children.
+     */
+    void publishChildren(int node, int first, int count) {
+        childCount[node] = (short) count;
+        INT.setRelease(firstChild, node, first);
+    }
+
+    /**
+     * @param node a node.
+     * @return the index of its first child, UNEXPANDED or TERMINAL.
+     */
+    public int firstChild(int node) {
+        return (int) INT.getAcquire(firstChild, node);
+    }
+
+    /**
+     * @param node an expanded node.
+     * @return the number of its children.
+     */
+    public int childCount(int node) {
+        return childCount[node];
+    }
+
+    /**
+     * @param node a node.
+     * @return the move (point index) which leads to it, or -1 for a root.
+     */
+    public int move(int node) {
+        return move[node];
+    }
+
+    void setMove(int node, int point) {
+        move[node] = (short) point;
+    }
+
+    /**
+     * @param node a node.
+     * @return its visits (including any virtual losses in flight).
+     */
+    public int visits(int node) {
+        return (int) INT.getOpaque(visits, node);
+    }
+
+    /**
+     * @param node a node.
+     * @return its net wins, from the point of view of the player who moved into it.
+     */
+    public int wins(int node) {
+        return (int) INT.getOpaque(wins, node);
+    }
+
+    /**
+     * @return true if nodes keep AMAF statistics.
+     */
+    public boolean rave() {
+        return amafVisits != null;
+    }
+
+    /**
+     * @param node a node.
+     * @return the number of playouts through its parent in which the parent's player made this node's move later on.
+     */
+    public int amafVisits(int node) {
+        return (int) INT.getOpaque(amafVisits, node);
+    }
+
+    /**
+     * @param node a node.
+     * @return the net wins of those playouts, for the player who makes this node's move.
+     */
+    public int amafWins(int node) {
+        return (int) INT.getOpaque(amafWins, node);
+    }
+
+    // Charge a virtual loss to a node while an iteration through it is in flight
+    void addVirtualLoss(int node, int virtualLoss) {
+        if (virtualLoss == 0) return;
+        INT.getAndAdd(visits, node, virtualLoss);
+        INT.getAndAdd(wins, node, -virtualLoss);
+    }
+
+    // Record a result (from the point of view of the player who moved into the node), undoing any virtual loss
+    void update(int node, int result, int virtualLoss) {
+        INT.getAndAdd(visits, node, 1 - virtualLoss);
+        INT.getAndAdd(wins, node, result + virtualLoss);
+    }
+
+    // Record an AMAF result for a node's move
+    void updateAmaf(int node, int result) {
+        INT.getAndAdd(amafVisits, node, 1);
+        INT.getAndAdd(amafWins, node, result);
+    }
+
+    // The lock which guards the expansion of a node
+    Object lock(int node) {
+        return locks[node & (locks.length - 1)];
+    }
+
+    /**
+     * @return the number of nodes allocated.
+     */
+    public int size() {
+        return Math.min(size.get(), capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the memory taken by the pool's arrays, in bytes.
+     */
+    public long footprintBytes() {
+        return (long) capacity * (rave() ? RAVE_NODE_BYTES : NODE_BYTES);
+    }
+
+    private static final VarHandle INT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int capacity;
+    private final short[] move;
+    private final int[] visits;
+    private final int[] wins;
+    private final int[] firstChild;
+    private final short[] childCount;
+    private final int[] amafVisits;
+    private final int[] amafWins;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object[] locks = new Object[64];
+
+    {
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+    }
+}
@@ -0,0 +1,258 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A book of opening moves for one board size, built offline by deep MCTS searches and read from a memory-mapped file.
+ * <p>
+ * Positions are keyed by their symmetry-canonical Zobrist key (see {@link Zobrist#canonicalSymmetry(GoBoard, int)}),
+ * so one entry serves all eight orientations of a position, and each move is stored in the canonical orientation.
+ * The file is a header followed by three sorted columns, which are searched in place:
+ * <pre>
+ *     int magic, int version, int size, int count
+ *     long key[count]    (ascending)
+ *     short move[count]  (a point in the canonical orientation)
+ *     int visits[count]  (the visits of the move in the search which chose it)
+ * </pre>
+ * A lookup costs the canonical key (eight passes over the board) and a binary search: a few microseconds.
+ */
+public final class OpeningBook {
+
+    /**
+     * Open a book file.
+     *
+     * @param path the file written by {@link #build} or {@link #write}.
+     * @return the OpeningBook.
+     * @throws IOException if the file cannot be read or is not a book.
+     */
+    public static OpeningBook load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("not an opening book: " + path);
+            int count = buffer.getInt(12);
+            if (count < 0 || channel.size() != HEADER_BYTES + (long) count * ENTRY_BYTES)
+                throw new IOException("truncated opening book: " + path);
+            return new OpeningBook(buffer, buffer.getInt(8), count);
+        }
+    }
+
+    /**
+     * @return the board size of the positions in this book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of positions in this book.
+     */
+    public int entries() {
+        return count;
+    }
+
+    /**
+     * Find the book move for a position.
+     *
+     * @param board the board.
+     * @param turn  the player to move: BLACK or WHITE.
+     * @return the book move as a point (see {@link GoBoard#point(int, int)}), or -1 if the position is not in the book.
+     */
+    public int lookup(GoBoard board, int turn) {
+        if (board.size() != size) return -1;
+        int symmetry = Zobrist.canonicalSymmetry(board, turn);
+        int index = indexOf(Zobrist.stateKey(board, turn, symmetry));
+        if (index < 0) return -1;
+        return Zobrist.transform(buffer.getShort(movesOffset + 2 * index), size, Zobrist.inverse(symmetry));
+    }
+
+    /**
+     * @param board the board.
+     * @param turn  the player to move.
+     * @return the visits of the book move in the search which chose it, or 0 if the position is not in the book.
+     */
+    public int visits(GoBoard board, int turn) {
+        if (board.size() != size) return 0;
+        int index = indexOf(Zobrist.stateKey(board, turn, Zobrist.canonicalSymmetry(board, turn)));
+        return index < 0 ? 0 : buffer.getInt(visitsOffset + 4 * index);
+    }
+
+    /**
+     * Write a book file.
+     *
+     * @param path    the file.
+     * @param size    the board size.
+     * @param entries the entries by canonical key.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, int size, Map<Long, Entry> entries) throws IOException {
+        long[] keys = new long[entries.size()];
+        int i = 0;
+        for (long key : entries.keySet()) keys[i++] = key;
+        Arrays.sort(keys);
+        try (OutputStream stream = Files.newOutputStream(path); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(keys.length);
+            for (long key : keys) out.writeLong(key);
+            for (long key : keys) out.writeShort(entries.get(key).move);
+            for (long key : keys) out.writeInt(entries.get(key).visits);
+        }
+    }
+
+    /**
+     * Build a book by searching every position reached from the empty board in up to plies moves, where each
+     * move is one of the width most visited moves of the search of the position before it.
+     * Positions which are symmetric to one already searched are not searched again. The positions of each ply
+     * are searched in parallel, each with its own agent and the given settings.
+     *
+     * @param path    the file to write.
+     * @param size    the board size.
+     * @param plies   the number of moves covered by the book.
+     * @param width   the number of moves followed from each position.
+     * @param config  the settings of each search (deep: many more iterations than in play).
+     * @param threads the number of positions searched at once.
+     * @return the number of positions in the book.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int build(Path path, int size, int plies, int width, SearchConfig config, int threads) throws IOException {
+        Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        List<MCSTAgent.State> frontier = List.of(new MCSTAgent.State(new GoBoard(size), GoBoard.BLACK));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int ply = 0; ply < plies && !frontier.isEmpty(); ply++) {
+                List<Future<List<MCSTAgent.State>>> futures = new ArrayList<>();
+                for (MCSTAgent.State state : frontier)
+                    futures.add(executor.submit(() -> searchPosition(state, width, config, entries)));
+                Map<Long, MCSTAgent.State> next = new TreeMap<>(); // Deduplicated by canonical key, in a stable order
+                for (Future<List<MCSTAgent.State>> future : futures)
+                    for (MCSTAgent.State child : future.get()) {
+                        long key = canonicalKey(child);
+                        if (!entries.containsKey(key)) next.putIfAbsent(key, child);
+                    }
+                frontier = new ArrayList<>(next.values());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("book building interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("book search failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        write(path, size, entries);
+        return entries.size();
+    }
+
+    /**
+     * The book move of a position, in the canonical orientation.
+     */
+    public static final class Entry {
+        public final short move;
+        public final int visits;
+
+        public Entry(int move, int visits) {
+            this.move = (short) move;
+            this.visits = visits;
+        }
+    }
+
+    // Search a position, record its best move in entries and return the positions after its width best moves.
+    private static List<MCSTAgent.State> searchPosition(MCSTAgent.State state, int width, SearchConfig config, Map<Long, Entry> entries) {
+        List<MCSTAgent.State> result = new ArrayList<>();
+        if (state.isTerminal()) return result;
+        int[] visits = MCSTAgent.search(state, config);
+        Integer[] points = new Integer[visits.length];
+        for (int p = 0; p < points.length; p++) points[p] = p;
+        Arrays.sort(points, (a, b) -> Integer.compare(visits[b], visits[a]));
+        if (visits[points[0]] == 0) return result;
+        int symmetry = Zobrist.canonicalSymmetry(state.board, state.turn);
+        long key = Zobrist.stateKey(state.board, state.turn, symmetry);
+        entries.put(key, new Entry(Zobrist.transform(points[0], state.board.size(), symmetry), visits[points[0]]));
+        for (int i = 0; i < width && i < points.length && visits[points[i]] > 0; i++) result.add(state.applyMove(points[i]));
+        return result;
+    }
+
+    private static long canonicalKey(MCSTAgent.State state) {
+        return Zobrist.stateKey(state.board, state.turn, Zobrist.canonicalSymmetry(state.board, state.turn));
+    }
+
+    // The index of key in the key column, or -1
+    private int indexOf(long key) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = buffer.getLong(HEADER_BYTES + 8 * mid);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Build a book, e.g. "9 10 2 100000 4 book9.bin": size, plies, width, iterations per search, threads and file.
+     *
+     * @param args the arguments.
+     * @throws IOException if the book cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        Path path = Paths.get(args.length > 5 ? args[5] : "book" + size + ".bin");
+        long start = System.nanoTime();
+        int entries = build(path, size, plies, width, SearchConfig.DEFAULT.withIterations(iterations), threads);
+        System.out.printf("%dx%d book of %d plies, width %d, %,d iterations per position: %,d positions, %,d bytes, built in %.1f s%n",
+                size, size, plies, width, iterations, entries, Files.size(path), (System.nanoTime() - start) / 1E9);
+        OpeningBook book = load(path);
+        GoBoard empty = new GoBoard(size);
+        int lookups = 100_000;
+        int move = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) move = book.lookup(empty, GoBoard.BLACK);
+        System.out.printf("Opening move %d: %.2f microseconds per lookup%n", move, (System.nanoTime() - start) / 1E3 / lookups);
+    }
+
+    private OpeningBook(ByteBuffer buffer, int size, int count) {
+        this.buffer = buffer;
+        this.size = size;
+        this.count = count;
+        this.movesOffset = HEADER_BYTES + 8 * count;
+        this.visitsOffset = movesOffset + 2 * count;
+    }
+
+    private static final int MAGIC = 0x474F424B; // "GOBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 8 + 2 + 4;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int count;
+    private final int movesOffset;
+    private final int visitsOffset;
+}
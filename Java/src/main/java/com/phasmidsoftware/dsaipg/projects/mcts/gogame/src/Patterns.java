@@ -0,0 +1,125 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+/**
+ * The 3x3 shapes which the heavy playouts (see {@link PlayoutEngine}) prefer to play.
+ * <p>
+ * The eight points around an empty point are encoded in 2 bits each (empty, black, white or off the board) as a
+ * 16-bit index into a table, which is filled once from a few shapes in the style of MoGo (hane, cuts and edge moves),
+ * in all eight orientations and with the colours either way round. Matching a point is then a handful of lookups.
+ */
+public final class Patterns {
+
+    /**
+     * @param board a board.
+     * @param p     an empty point.
+     * @return true if the neighbourhood of p matches one of the shapes.
+     */
+    public static boolean matches(GoBoard board, int p) {
+        return TABLE[index(board, p)];
+    }
+
+    /**
+     * @param board a board.
+     * @param p     a point.
+     * @return the 16-bit code of the eight points around p, in the order NW, N, NE, W, E, SW, S, SE.
+     */
+    public static int index(GoBoard board, int p) {
+        int up = board.neighbour(p, 0), down = board.neighbour(p, 1), left = board.neighbour(p, 2), right = board.neighbour(p, 3);
+        int result = code(board, up >= 0 ? board.neighbour(up, 2) : -1);
+        result = result << 2 | code(board, up);
+        result = result << 2 | code(board, up >= 0 ? board.neighbour(up, 3) : -1);
+        result = result << 2 | code(board, left);
+        result = result << 2 | code(board, right);
+        result = result << 2 | code(board, down >= 0 ? board.neighbour(down, 2) : -1);
+        result = result << 2 | code(board, down);
+        return result << 2 | code(board, down >= 0 ? board.neighbour(down, 3) : -1);
+    }
+
+    /**
+     * @return the number of neighbourhoods which match a shape.
+     */
+    public static int count() {
+        int result = 0;
+        for (boolean match : TABLE) if (match) result++;
+        return result;
+    }
+
+    private static int code(GoBoard board, int p) {
+        if (p < 0) return OFF;
+        int colour = board.colour(p);
+        return colour == GoBoard.EMPTY ? EMPTY : colour == GoBoard.BLACK ? BLACK : WHITE;
+    }
+
+    // Mark every neighbourhood which the shape (nine characters, row by row, with the move in the middle) matches.
+    // X and O are stones, '.' is empty, '#' is off the board, 'x' is anything but X on the board, 'o' is anything
+    // but O on the board, and '?' is anything at all.
+    private static void add(String shape, boolean swap) {
+        char[] cells = new char[8];
+        for (int i = 0, j = 0; i < 9; i++) if (i != 4) cells[j++] = shape.charAt(i);
+        expand(cells, 0, 0, swap);
+    }
+
+    private static void expand(char[] cells, int i, int index, boolean swap) {
+        if (i == cells.length) {
+            TABLE[index] = true;
+            return;
+        }
+        for (int code = 0; code < 4; code++)
+            if (allows(cells[i], code, swap)) expand(cells, i + 1, index << 2 | code, swap);
+    }
+
+    private static boolean allows(char cell, int code, boolean swap) {
+        int x = swap ? WHITE : BLACK, o = swap ? BLACK : WHITE;
+        switch (cell) {
+            case 'X':
+                return code == x;
+            case 'O':
+                return code == o;
+            case '.':
+                return code == EMPTY;
+            case '#':
+                return code == OFF;
+            case 'x':
+                return code != x && code != OFF;
+            case 'o':
+                return code != o && code != OFF;
+            case '?':
+                return true;
+            default:
+                throw new IllegalArgumentException("bad shape character: " + cell);
+        }
+    }
+
+    // The image of a shape (nine characters, row by row) under one of the eight symmetries (see Zobrist.transform).
+    private static String transform(String shape, int symmetry) {
+        char[] result = new char[9];
+        for (int p = 0; p < 9; p++) result[Zobrist.transform(p, 3, symmetry)] = shape.charAt(p);
+        return new String(result);
+    }
+
+    private static final int EMPTY = 0, BLACK = 1, WHITE = 2, OFF = 3;
+
+    private static final String[] SHAPES = {
+            "XOX" + "..." + "???", // Hane enclosing a stone
+            "XO." + "..." + "?.?", // Hane which cannot be cut
+            "XO?" + "X.." + "?.?", // Bending hane
+            "XOO" + "..." + "?.?", // Thrusting hane
+            "XO?" + "O.o" + "?o?", // Cut
+            "?X?" + "O.O" + "xxx", // Cut between two stones
+            "X.?" + "O.?" + "###", // Edge: block
+            "?X?" + "o.O" + "###", // Edge: hane under
+            "?XO" + "O.x" + "###", // Edge: cut
+            "?OX" + "X.O" + "###", // Edge: atari from below
+    };
+
+    private static final boolean[] TABLE = new boolean[1 << 16];
+
+    static {
+        for (String shape : SHAPES)
+            for (int s = 0; s < Zobrist.SYMMETRIES; s++)
+                for (boolean swap : new boolean[]{false, true}) add(transform(shape, s), swap);
+    }
+
+    private Patterns() {
+    }
+}
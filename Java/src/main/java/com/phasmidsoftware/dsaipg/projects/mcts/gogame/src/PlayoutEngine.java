@@ -0,0 +1,253 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.Arrays;
+
+/**
+ * Iterative random playouts for the MCTS agent.
+ * <p>
+ * A PlayoutEngine owns a scratch {@link GoBoard} into which the starting position is copied, so that a playout
+ * is played in place: moves are drawn from the board's incrementally maintained list of empty points using an
+ * xorshift generator private to the engine, and nothing is allocated once the engine exists.
+ * The moves are uniformly random, or (with the HEAVY {@link SearchConfig.PlayoutPolicy}) guided by a few
+ * rules about the last move: capture it if it is in atari, save a group it has put in atari, or answer it with a
+ * good 3x3 shape (see {@link Patterns}).
+ * Engines are not thread-safe; {@link #forCurrentThread(int)} gives each thread its own engine.
+ */
+public class PlayoutEngine {
+
+    /**
+     * Get the engine belonging to the current thread, creating it if necessary.
+     *
+     * @param size the board size.
+     * @return a PlayoutEngine for boards of the given size.
+     */
+    public static PlayoutEngine forCurrentThread(int size) {
+        PlayoutEngine engine = engines.get();
+        if (engine == null || engine.scratch.size() != size) {
+            engine = new PlayoutEngine(size, System.nanoTime() ^ Thread.currentThread().hashCode());
+            engines.set(engine);
+        }
+        return engine;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param size the board size.
+     * @param seed the seed of the random source.
+     */
+    public PlayoutEngine(int size, long seed) {
+        this.scratch = new GoBoard(size);
+        this.record = new int[size * size];
+        this.seed = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * Play random moves from the given position until both players pass or maxMoves moves have been played,
+     * and score the final position by area.
+     * Each move is a random legal point which is not one of the mover's own eyes; a player with no such point passes.
+     *
+     * @param start    the starting position (which is not changed).
+     * @param turn     the player to move: BLACK or WHITE.
+     * @param maxMoves the maximum number of moves.
+     * @return 1 if black wins by area scoring, -1 if white wins, or 0 for a draw.
+     */
+    public int playout(GoBoard start, int turn, int maxMoves) {
+        return playout(start, turn, maxMoves, SearchConfig.PlayoutPolicy.UNIFORM);
+    }
+
+    /**
+     * Play out from the given position with the given policy, as above.
+     *
+     * @param start    the starting position (which is not changed).
+     * @param turn     the player to move: BLACK or WHITE.
+     * @param maxMoves the maximum number of moves.
+     * @param policy   how the moves are chosen.
+     * @return 1 if black wins by area scoring, -1 if white wins, or 0 for a draw.
+     */
+    public int playout(GoBoard start, int turn, int maxMoves, SearchConfig.PlayoutPolicy policy) {
+        boolean heavy = policy == SearchConfig.PlayoutPolicy.HEAVY;
+        GoBoard board = scratch;
+        board.copyFrom(start);
+        int player = turn;
+        int played = 0;
+        int passes = 0;
+        int last = -1; // The previous move, or -1 after a pass
+        recorded = 0;
+        while (played < maxMoves && passes < 2) {
+            int p = heavy ? heavyMove(board, player, last) : randomMove(board, player);
+            if (p < 0) {
+                board.pass();
+                passes++;
+            } else {
+                board.play(p, player);
+                if (recorded == record.length) record = Arrays.copyOf(record, recorded * 2);
+                record[recorded++] = player == GoBoard.BLACK ? p : ~p;
+                passes = 0;
+            }
+            last = p;
+            player = -player;
+            played++;
+        }
+        playouts++;
+        moves += played;
+        return board.winner(MCSTAgent.KOMI);
+    }
+
+    // A random legal move for player which does not fill one of its own eyes, or -1 if there is none.
+    // Probes the empty points linearly from a random start, so that no candidate list has to be built.
+    private int randomMove(GoBoard board, int player) {
+        int n = board.emptyCount();
+        if (n == 0) return -1;
+        int start = nextInt(n);
+        for (int i = 0, j = start; i < n; i++, j = j + 1 == n ? 0 : j + 1) {
+            int p = board.emptyPoint(j);
+            if (board.isLegal(p, player) && !board.isEye(p, player)) return p;
+        }
+        return -1;
+    }
+
+    // The move of the heavy policy, in order of preference: capture the last move's group if it is in atari;
+    // save one of player's groups which the last move has put in atari by extending (if the extension has two
+    // liberties of its own); play a point next to the last move which matches a shape; otherwise a random move.
+    // No move fills one of player's own eyes.
+    int heavyMove(GoBoard board, int player, int last) {
+        if (last < 0) return randomMove(board, player);
+        int p = board.atariLiberty(last);
+        if (p >= 0 && acceptable(board, p, player)) return p;
+        for (int k = 0; k < 4; k++) {
+            int n = board.neighbour(last, k);
+            if (n < 0 || board.colour(n) != player) continue;
+            p = board.atariLiberty(n);
+            if (p >= 0 && acceptable(board, p, player) && emptyNeighbours(board, p) >= 2) return p;
+        }
+        int count = 0;
+        for (int k = 0; k < 4; k++) {
+            int n = board.neighbour(last, k);
+            if (n < 0) continue;
+            count = addShapeMove(board, player, n, count);
+            // The diagonal neighbours: turn left or right from the orthogonal ones (each diagonal is reached once)
+            if (k < 2) {
+                count = addShapeMove(board, player, board.neighbour(n, 2), count);
+                count = addShapeMove(board, player, board.neighbour(n, 3), count);
+            }
+        }
+        if (count > 0) return candidates[nextInt(count)];
+        return randomMove(board, player);
+    }
+
+    // Add p to the candidates if it is an empty point matching a shape where player may play.
+    private int addShapeMove(GoBoard board, int player, int p, int count) {
+        if (p >= 0 && board.colour(p) == GoBoard.EMPTY && Patterns.matches(board, p) && acceptable(board, p, player))
+            candidates[count++] = p;
+        return count;
+    }
+
+    private static boolean acceptable(GoBoard board, int p, int player) {
+        return board.isLegal(p, player) && !board.isEye(p, player);
+    }
+
+    private static int emptyNeighbours(GoBoard board, int p) {
+        int result = 0;
+        for (int k = 0; k < 4; k++) {
+            int n = board.neighbour(p, k);
+            if (n >= 0 && board.colour(n) == GoBoard.EMPTY) result++;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of stones played in the last playout (passes are not recorded).
+     */
+    public int recordedMoves() {
+        return recorded;
+    }
+
+    /**
+     * The i-th stone played in the last playout, encoded as the point for black or its complement (~point)
+     * for white, for all-moves-as-first (AMAF) statistics.
+     *
+     * @param i the index of the stone, less than recordedMoves().
+     * @return p if black played at p, ~p if white did.
+     */
+    public int recordedMove(int i) {
+        return record[i];
+    }
+
+    /**
+     * @return the number of playouts run by this engine.
+     */
+    public long playouts() {
+        return playouts;
+    }
+
+    /**
+     * @return the number of moves played by this engine in all its playouts.
+     */
+    public long moves() {
+        return moves;
+    }
+
+    /**
+     * Measure playout throughput from the empty board, on the current thread.
+     * This is the figure to track for regressions in the playout code.
+     *
+     * @param size     the board size.
+     * @param maxMoves the maximum number of moves in each playout.
+     * @param millis   how long to run for.
+     * @return the number of playouts per second.
+     */
+    public static double playoutsPerSecond(int size, int maxMoves, long millis) {
+        return playoutsPerSecond(size, maxMoves, millis, SearchConfig.PlayoutPolicy.UNIFORM);
+    }
+
+    /**
+     * Measure playout throughput from the empty board with the given policy, on the current thread.
+     *
+     * @param size     the board size.
+     * @param maxMoves the maximum number of moves in each playout.
+     * @param millis   how long to run for.
+     * @param policy   how the moves are chosen.
+     * @return the number of playouts per second.
+     */
+    public static double playoutsPerSecond(int size, int maxMoves, long millis, SearchConfig.PlayoutPolicy policy) {
+        PlayoutEngine engine = new PlayoutEngine(size, System.nanoTime());
+        GoBoard empty = new GoBoard(size);
+        long start = System.nanoTime();
+        long end = start + millis * 1_000_000L;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) engine.playout(empty, GoBoard.BLACK, maxMoves, policy);
+            now = System.nanoTime();
+        } while (now < end);
+        return engine.playouts * 1e9 / (now - start);
+    }
+
+    // A uniformly distributed value in [0, bound), from an xorshift64* generator.
+    int nextInt(int bound) {
+        long x = seed;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed = x;
+        return (int) (((x * 0x2545F4914F6CDD1DL >>> 32) * bound) >>> 32);
+    }
+
+    public static void main(String[] args) {
+        for (SearchConfig.PlayoutPolicy policy : SearchConfig.PlayoutPolicy.values())
+            for (int size : new int[]{9, 13, 19}) {
+                PlayoutEngine.playoutsPerSecond(size, 100, 500, policy); // Warmup
+                System.out.printf("%s, %dx%d: %,.0f playouts/sec%n", policy, size, size, playoutsPerSecond(size, 100, 2000, policy));
+            }
+    }
+
+    private static final ThreadLocal<PlayoutEngine> engines = new ThreadLocal<>();
+
+    private final GoBoard scratch;
+    private final int[] candidates = new int[8]; // The shape moves around the last move (heavy policy)
+    private int[] record; // The stones played in the last playout
+    private int recorded;
+    private long seed;
+    private long playouts;
+    private long moves;
+}
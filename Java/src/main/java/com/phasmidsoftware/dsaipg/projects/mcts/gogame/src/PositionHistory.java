@@ -0,0 +1,107 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.Arrays;
+
+/**
+ * The set of positions (as Zobrist hashes, see {@link GoBoard#hash()}) which have occurred in a game,
+ * for the positional superko rule: a move may not recreate any earlier position.
+ * <p>
+ * The hashes are held in an open-addressing table of longs, so that recording and checking a position
+ * allocate nothing until the table has to grow.
+ * Zero is the hash of the empty board and is recorded separately, as it marks a free slot in the table.
+ */
+public class PositionHistory {
+
+    /**
+     * Constructor.
+     *
+     * @param expected the expected number of positions.
+     */
+    public PositionHistory(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) capacity <<= 1;
+        this.table = new long[capacity];
+    }
+
+    public PositionHistory() {
+        this(256);
+    }
+
+    /**
+     * Record a position.
+     *
+     * @param hash the hash of the position.
+     * @return true if the position had not been recorded before.
+     */
+    public boolean add(long hash) {
+        if (hash == 0) {
+            boolean result = !containsEmpty;
+            containsEmpty = true;
+            return result;
+        }
+        int i = slot(hash);
+        while (table[i] != 0) {
+            if (table[i] == hash) return false;
+            i = (i + 1) & (table.length - 1);
+        }
+        table[i] = hash;
+        if (++count * 2 > table.length) grow();
+        return true;
+    }
+
+    /**
+     * @param hash the hash of a position.
+     * @return true if the position has been recorded.
+     */
+    public boolean contains(long hash) {
+        if (hash == 0) return containsEmpty;
+        int i = slot(hash);
+        while (table[i] != 0) {
+            if (table[i] == hash) return true;
+            i = (i + 1) & (table.length - 1);
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of positions recorded.
+     */
+    public int size() {
+        return count + (containsEmpty ? 1 : 0);
+    }
+
+    /**
+     * @return a PositionHistory with the same positions, which may then change independently of this one.
+     */
+    public PositionHistory copy() {
+        PositionHistory result = new PositionHistory();
+        result.table = table.clone();
+        result.count = count;
+        result.containsEmpty = containsEmpty;
+        return result;
+    }
+
+    /**
+     * Forget all positions.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        count = 0;
+        containsEmpty = false;
+    }
+
+    private int slot(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (table.length - 1);
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        count = 0;
+        for (long hash : old) if (hash != 0) add(hash);
+    }
+
+    private long[] table;
+    private int count;
+    private boolean containsEmpty;
+}
@@ -0,0 +1,375 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+/**
+ * Immutable settings for a search by {@link MCSTAgent}.
+ * Each <code>with</code> method yields a copy of this SearchConfig with one setting changed, for example:
+ * <pre>
+ *     SearchConfig.DEFAULT.withParallelism(SearchConfig.Parallelism.TREE).withThreads(8)
+ * </pre>
+ */
+public class SearchConfig {
+
+    /**
+     * How the iterations of a search are spread over threads.
+     */
+    public enum Parallelism {
+        /**
+         * All iterations run on the calling thread.
+         */
+        NONE,
+        /**
+         * Each thread grows its own tree from the root; the root visit counts are summed at the end.
+         */
+        ROOT,
+        /**
+         * All threads share one tree, using virtual loss to keep them apart.
+         */
+        TREE
+    }
+
+    /**
+     * How a node's all-moves-as-first (AMAF) value is blended with its own mean value when RAVE is used.
+     * The weight given to the AMAF value, beta, falls from 1 towards 0 as the node's own visits, n, grow.
+     */
+    public enum RaveSchedule {
+        /**
+         * No RAVE: plain UCT.
+         */
+        NONE,
+        /**
+         * beta = sqrt(k / (3n + k)), where the parameter k is the number of visits at which both values
+         * get equal weight.
+         */
+        EQUIVALENCE,
+        /**
+         * beta = m / (n + m + 4 b<sup>2</sup> n m), where m is the number of AMAF samples and the parameter b is
+         * the assumed bias of the AMAF value: the weight which minimizes the mean squared error of the blend.
+         */
+        MINIMUM_MSE
+    }
+
+    /**
+     * How the moves of a playout are chosen (see {@link PlayoutEngine}).
+     */
+    public enum PlayoutPolicy {
+        /**
+         * A uniformly random legal move which does not fill one of the mover's own eyes.
+         */
+        UNIFORM,
+        /**
+         * Captures, atari escapes and 3x3 shapes (see {@link Patterns}) around the last move are preferred to a
+         * uniformly random move; no move fills one of the mover's own eyes.
+         */
+        HEAVY
+    }
+
+    /**
+     * The settings used by {@link MCSTAgent#nextMove(int[][], int)}: 4000 iterations on one thread,
+     * with a transposition table of 65536 entries.
+     */
+    public static final SearchConfig DEFAULT = new SearchConfig();
+
+    /**
+     * @param iterations the total number of iterations (over all threads) of a search.
+     * @return a copy of this SearchConfig with the given iteration count.
+     */
+    public SearchConfig withIterations(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        SearchConfig result = copy();
+        result.iterations = iterations;
+        return result;
+    }
+
+    /**
+     * @param parallelism the parallel search mode.
+     * @return a copy of this SearchConfig with the given parallel search mode.
+     */
+    public SearchConfig withParallelism(Parallelism parallelism) {
+        SearchConfig result = copy();
+        result.parallelism = parallelism;
+        return result;
+    }
+
+    /**
+     * @param threads the number of search threads (ignored when parallelism is NONE).
+     * @return a copy of this SearchConfig with the given thread count.
+     */
+    public SearchConfig withThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+        SearchConfig result = copy();
+        result.threads = threads;
+        return result;
+    }
+
+    /**
+     * @param virtualLoss the number of lost visits temporarily charged to each node on the path of an
+     *                    in-flight iteration (only used when parallelism is TREE).
+     * @return a copy of this SearchConfig with the given virtual loss.
+     */
+    public SearchConfig withVirtualLoss(int virtualLoss) {
+        if (virtualLoss < 0) throw new IllegalArgumentException("virtualLoss must be non-negative: " + virtualLoss);
+        SearchConfig result = copy();
+        result.virtualLoss = virtualLoss;
+        return result;
+    }
+
+    /**
+     * Limit a search by wall-clock time rather than by iterations: the best move found so far is returned when the
+     * time runs out. The iteration limit is lifted, but may be imposed again with withIterations.
+     *
+     * @param millis the time allowed for each search, in milliseconds.
+     * @return a copy of this SearchConfig with the given time budget and no iteration limit.
+     */
+    public SearchConfig withTimeBudget(long millis) {
+        if (millis < 1) throw new IllegalArgumentException("time budget must be positive: " + millis);
+        SearchConfig result = copy();
+        result.iterations = Integer.MAX_VALUE;
+        result.timeBudgetMillis = millis;
+        return result;
+    }
+
+    /**
+     * @param earlyStop if true, a search stops as soon as the most visited move can no longer be overtaken
+     *                  within the remaining iterations (or the remaining time, at the current rate).
+     * @return a copy of this SearchConfig with the given early-stop setting.
+     */
+    public SearchConfig withEarlyStop(boolean earlyStop) {
+        SearchConfig result = copy();
+        result.earlyStop = earlyStop;
+        return result;
+    }
+
+    /**
+     * @param schedule  the blending schedule for RAVE, or NONE.
+     * @param parameter the parameter of the schedule: k for EQUIVALENCE (e.g. 1000), b for MINIMUM_MSE (e.g. 0.1).
+     * @return a copy of this SearchConfig which uses RAVE with the given schedule.
+     */
+    public SearchConfig withRave(RaveSchedule schedule, double parameter) {
+        if (parameter <= 0) throw new IllegalArgumentException("RAVE parameter must be positive: " + parameter);
+        SearchConfig result = copy();
+        result.raveSchedule = schedule;
+        result.raveParameter = parameter;
+        return result;
+    }
+
+    /**
+     * @param entries the capacity of the transposition table which lets positions reached by different move orders
+     *                share one node (rounded up to a power of two), or 0 to search a plain tree.
+     * @return a copy of this SearchConfig with the given transposition table size.
+     */
+    public SearchConfig withTranspositionTable(int entries) {
+        if (entries < 0) throw new IllegalArgumentException("entries must be non-negative: " + entries);
+        SearchConfig result = copy();
+        result.transpositionTableSize = entries;
+        return result;
+    }
+
+    /**
+     * @param nodes the capacity of the node pool which holds the search tree. Once it is full, the tree stops growing
+     *              but the search goes on, simulating from the leaves.
+     * @return a copy of this SearchConfig with the given node pool size.
+     */
+    public SearchConfig withNodePool(int nodes) {
+        if (nodes < 1) throw new IllegalArgumentException("nodes must be positive: " + nodes);
+        SearchConfig result = copy();
+        result.nodePoolSize = nodes;
+        return result;
+    }
+
+    /**
+     * @param policy how the moves of a playout are chosen.
+     * @return a copy of this SearchConfig with the given playout policy.
+     */
+    public SearchConfig withPlayoutPolicy(PlayoutPolicy policy) {
+        SearchConfig result = copy();
+        result.playoutPolicy = policy;
+        return result;
+    }
+
+    /**
+     * Progressive widening: a node with n visits offers only its first k(n) = ceil(coefficient * n<sup>exponent</sup>)
+     * children to selection, and its children are ordered by a cheap prior (nearness to the last two moves, captures
+     * and 3x3 shapes) rather than at random, so that the search stays focused on a large board.
+     *
+     * @param coefficient the coefficient (e.g. 2), or 0 to offer every child.
+     * @param exponent    the exponent, between 0 and 1 (e.g. 0.5).
+     * @return a copy of this SearchConfig with the given progressive widening.
+     */
+    public SearchConfig withProgressiveWidening(double coefficient, double exponent) {
+        if (coefficient < 0) throw new IllegalArgumentException("coefficient must be non-negative: " + coefficient);
+        if (exponent < 0 || exponent > 1) throw new IllegalArgumentException("exponent must be between 0 and 1: " + exponent);
+        SearchConfig result = copy();
+        result.wideningCoefficient = coefficient;
+        result.wideningExponent = exponent;
+        result.widths = null;
+        if (coefficient > 0) {
+            result.widths = new short[WIDTHS];
+            for (int n = 0; n < WIDTHS; n++) result.widths[n] = (short) result.width(n);
+        }
+        return result;
+    }
+
+    public int iterations() {
+        return iterations;
+    }
+
+    public Parallelism parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the number of threads which will actually be used.
+     */
+    public int threads() {
+        return parallelism == Parallelism.NONE ? 1 : threads;
+    }
+
+    public int virtualLoss() {
+        return virtualLoss;
+    }
+
+    /**
+     * @return the time budget of a search in milliseconds, or 0 if there is none.
+     */
+    public long timeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public boolean earlyStop() {
+        return earlyStop;
+    }
+
+    public RaveSchedule raveSchedule() {
+        return raveSchedule;
+    }
+
+    public double raveParameter() {
+        return raveParameter;
+    }
+
+    /**
+     * @return true if nodes keep AMAF statistics.
+     */
+    public boolean rave() {
+        return raveSchedule != RaveSchedule.NONE;
+    }
+
+    /**
+     * The weight of the AMAF value for a child of a node.
+     *
+     * @param visits     the child's own visits.
+     * @param amafVisits the child's AMAF visits.
+     * @return beta, between 0 and 1.
+     */
+    public double raveWeight(int visits, int amafVisits) {
+        switch (raveSchedule) {
+            case EQUIVALENCE:
+                return Math.sqrt(raveParameter / (3.0 * visits + raveParameter));
+            case MINIMUM_MSE:
+                double m = amafVisits;
+                return m == 0 ? 0 : m / (visits + m + 4 * raveParameter * raveParameter * visits * m);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return the capacity of the transposition table, or 0 if there is none.
+     */
+    public int transpositionTableSize() {
+        return transpositionTableSize;
+    }
+
+    /**
+     * @return the capacity of the node pool.
+     */
+    public int nodePoolSize() {
+        return nodePoolSize;
+    }
+
+    public PlayoutPolicy playoutPolicy() {
+        return playoutPolicy;
+    }
+
+    /**
+     * @return true if progressive widening is used.
+     */
+    public boolean progressiveWidening() {
+        return widths != null;
+    }
+
+    /**
+     * The number of children of a node which selection considers.
+     *
+     * @param visits   the node's visits.
+     * @param children the number of its children.
+     * @return k(visits) (see {@link #withProgressiveWidening(double, double)}), at most children; children if
+     * progressive widening is not used.
+     */
+    public int activeChildren(int visits, int children) {
+        if (widths == null) return children;
+        return Math.min(children, visits < WIDTHS ? widths[Math.max(0, visits)] : width(visits));
+    }
+
+    private int width(int visits) {
+        return (int) Math.min(Short.MAX_VALUE, Math.max(1, Math.ceil(wideningCoefficient * Math.pow(visits, wideningExponent))));
+    }
+
+    @Override
+    public String toString() {
+        return "SearchConfig{" +
+                "iterations=" + iterations +
+                ", parallelism=" + parallelism +
+                ", threads=" + threads() +
+                ", virtualLoss=" + virtualLoss +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                ", earlyStop=" + earlyStop +
+                ", transpositionTableSize=" + transpositionTableSize +
+                ", nodePoolSize=" + nodePoolSize +
+                ", raveSchedule=" + raveSchedule +
+                (rave() ? ", raveParameter=" + raveParameter : "") +
+                ", playoutPolicy=" + playoutPolicy +
+                (progressiveWidening() ? ", wideningCoefficient=" + wideningCoefficient + ", wideningExponent=" + wideningExponent : "") +
+                '}';
+    }
+
+    // Each with method changes one field of a copy, so a SearchConfig never changes once it has been published.
+    private SearchConfig copy() {
+        SearchConfig result = new SearchConfig();
+        result.iterations = iterations;
+        result.parallelism = parallelism;
+        result.threads = threads;
+        result.virtualLoss = virtualLoss;
+        result.timeBudgetMillis = timeBudgetMillis;
+        result.earlyStop = earlyStop;
+        result.transpositionTableSize = transpositionTableSize;
+        result.nodePoolSize = nodePoolSize;
+        result.raveSchedule = raveSchedule;
+        result.raveParameter = raveParameter;
+        result.playoutPolicy = playoutPolicy;
+        result.wideningCoefficient = wideningCoefficient;
+        result.wideningExponent = wideningExponent;
+        result.widths = widths;
+        return result;
+    }
+
+    private SearchConfig() {
+    }
+
+    private int iterations = MCSTAgent.getIterationLimit();
+    private Parallelism parallelism = Parallelism.NONE;
+    private int threads = 1;
+    private int virtualLoss = 1;
+    private long timeBudgetMillis;
+    private boolean earlyStop;
+    private int transpositionTableSize = 1 << 16;
+    private int nodePoolSize = 1 << 20;
+    private RaveSchedule raveSchedule = RaveSchedule.NONE;
+    private double raveParameter = 1000;
+    private PlayoutPolicy playoutPolicy = PlayoutPolicy.UNIFORM;
+    private double wideningCoefficient;
+    private double wideningExponent;
+    private short[] widths; // k(n) for n < WIDTHS, so that selection need not call Math.pow; null without widening
+
+    private static final int WIDTHS = 4096;
+}
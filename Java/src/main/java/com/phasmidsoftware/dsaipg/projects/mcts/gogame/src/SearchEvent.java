@@ -0,0 +1,85 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event for each search by {@link MCSTAgent}, carrying its {@link SearchMetrics}, so that searches can be
+ * profiled in production by starting a recording (e.g. with <code>jcmd &lt;pid&gt; JFR.start</code>).
+ * When no recording is running, the event costs next to nothing.
+ */
+@Name("com.phasmidsoftware.mcts.Search")
+@Label("MCTS Search")
+@Category({"MCTS", "Go"})
+@Description("A search by MCSTAgent: where its time went and the shape of the tree")
+class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Board Size")
+    int size;
+
+    @Label("Iterations")
+    long iterations;
+
+    @Label("Selection")
+    @Timespan(Timespan.NANOSECONDS)
+    long selection;
+
+    @Label("Expansion")
+    @Timespan(Timespan.NANOSECONDS)
+    long expansion;
+
+    @Label("Simulation")
+    @Timespan(Timespan.NANOSECONDS)
+    long simulation;
+
+    @Label("Backpropagation")
+    @Timespan(Timespan.NANOSECONDS)
+    long backpropagation;
+
+    @Label("Mean Depth")
+    double meanDepth;
+
+    @Label("Max Depth")
+    long maxDepth;
+
+    @Label("Mean Branching Factor")
+    double branching;
+
+    @Label("Nodes Allocated")
+    long nodes;
+
+    @Label("Node Bytes")
+    @DataAmount
+    long nodeBytes;
+
+    @Label("Heap Bytes Allocated")
+    @DataAmount
+    long heapBytes;
+
+    /**
+     * Copy the metrics of a search into this event and commit it, if a recording wants it.
+     *
+     * @param size    the board size.
+     * @param metrics the metrics of the search.
+     */
+    void commit(int size, SearchMetrics metrics) {
+        if (!shouldCommit()) return;
+        this.size = size;
+        iterations = metrics.iterations();
+        selection = metrics.nanos(SearchMetrics.Phase.SELECTION);
+        expansion = metrics.nanos(SearchMetrics.Phase.EXPANSION);
+        simulation = metrics.nanos(SearchMetrics.Phase.SIMULATION);
+        backpropagation = metrics.nanos(SearchMetrics.Phase.BACKPROPAGATION);
+        meanDepth = metrics.depth().mean();
+        maxDepth = metrics.depth().max();
+        branching = metrics.branching().mean();
+        nodes = metrics.nodesAllocated();
+        nodeBytes = metrics.nodeBytes();
+        heapBytes = metrics.heapBytesAllocated();
+        commit();
+    }
+}
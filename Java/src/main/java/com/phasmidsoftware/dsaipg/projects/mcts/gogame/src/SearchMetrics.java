@@ -0,0 +1,164 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Where the time of a search by {@link MCSTAgent} went, and the shape of the tree it grew.
+ * <p>
+ * Each search thread records into its own SearchMetrics (four calls of System.nanoTime() per iteration, six when it
+ * expands, and no allocation), which are added together when the threads finish: see {@link MCSTAgent#getMetrics()}.
+ * The same figures are also committed as a JFR event at the end of each search (see {@link SearchEvent}).
+ */
+public final class SearchMetrics {
+
+    /**
+     * The phases of an iteration.
+     */
+    public enum Phase {
+        SELECTION, EXPANSION, SIMULATION, BACKPROPAGATION
+    }
+
+    /**
+     * @return the number of iterations recorded.
+     */
+    public long iterations() {
+        return depth.count();
+    }
+
+    /**
+     * @param phase a phase.
+     * @return the time spent in that phase by all threads, in nanoseconds.
+     */
+    public long nanos(Phase phase) {
+        return phases[phase.ordinal()].sum();
+    }
+
+    /**
+     * @param phase a phase.
+     * @return the time spent in that phase by each iteration (each expansion, for EXPANSION), in nanoseconds.
+     */
+    public Histogram histogram(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * @param phase a phase.
+     * @return the fraction of the time of all phases which was spent in this one.
+     */
+    public double share(Phase phase) {
+        long total = 0;
+        for (Histogram histogram : phases) total += histogram.sum();
+        return total == 0 ? 0 : (double) nanos(phase) / total;
+    }
+
+    /**
+     * @return the depth (below the root) at which each simulation started.
+     */
+    public Histogram depth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of children of each node expanded (including nodes which share children found in the
+     * transposition table).
+     */
+    public Histogram branching() {
+        return branching;
+    }
+
+    /**
+     * @return the number of nodes allocated in the node pool.
+     */
+    public long nodesAllocated() {
+        return nodes;
+    }
+
+    /**
+     * @return the bytes of node pool taken by the nodes allocated.
+     */
+    public long nodeBytes() {
+        return nodeBytes;
+    }
+
+    /**
+     * @return the bytes of heap allocated by the search threads while iterating, or -1 if the JVM cannot tell.
+     */
+    public long heapBytesAllocated() {
+        return heapBytes;
+    }
+
+    /**
+     * @return the wall-clock time of the search, in nanoseconds.
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d iterations in %.1f ms: selection %.0f%%, expansion %.0f%%, simulation %.0f%%, backpropagation %.0f%%; " +
+                        "depth %.1f (max %d), branching %.1f, %,d nodes (%,d bytes), %,d heap bytes",
+                iterations(), elapsedNanos / 1E6, 100 * share(Phase.SELECTION), 100 * share(Phase.EXPANSION),
+                100 * share(Phase.SIMULATION), 100 * share(Phase.BACKPROPAGATION), depth.mean(), depth.max(),
+                branching.mean(), nodes, nodeBytes, heapBytes);
+    }
+
+    // Recording, by the search thread which owns this SearchMetrics
+
+    void recordIteration(long selection, long simulation, long backpropagation, int depth) {
+        phases[Phase.SELECTION.ordinal()].record(selection);
+        phases[Phase.SIMULATION.ordinal()].record(simulation);
+        phases[Phase.BACKPROPAGATION.ordinal()].record(backpropagation);
+        this.depth.record(depth);
+    }
+
+    void recordExpansionTime(long nanos) {
+        phases[Phase.EXPANSION.ordinal()].record(nanos);
+    }
+
+    void recordBranching(int children, int allocated, int bytesPerNode) {
+        branching.record(children);
+        nodes += allocated;
+        nodeBytes += (long) allocated * bytesPerNode;
+    }
+
+    void recordHeapBytes(long bytes) {
+        heapBytes = heapBytes < 0 || bytes < 0 ? -1 : heapBytes + bytes;
+    }
+
+    // Add the figures of a thread's SearchMetrics to this one
+    synchronized void add(SearchMetrics other) {
+        for (int i = 0; i < phases.length; i++) phases[i].add(other.phases[i]);
+        depth.add(other.depth);
+        branching.add(other.branching);
+        nodes += other.nodes;
+        nodeBytes += other.nodeBytes;
+        recordHeapBytes(other.heapBytes);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the JVM cannot tell.
+     */
+    static long threadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+                return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private final Histogram[] phases = {new Histogram(), new Histogram(), new Histogram(), new Histogram()};
+    private final Histogram depth = new Histogram();
+    private final Histogram branching = new Histogram();
+    private long nodes;
+    private long nodeBytes;
+    private long heapBytes;
+    private long elapsedNanos;
+}
@@ -0,0 +1,160 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Game;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SearchService;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Load generator for {@link SearchService}: many games at once, each playing against itself as fast as the service
+ * answers (a new game starts as soon as one ends), while the number of games grows.
+ * For each number of games, it reports the moves answered per second and the latency of a move (the time from the
+ * request to the answer): with the workers saturated, throughput should hold steady while latency grows with the
+ * number of games, evenly for all of them.
+ *
+ * @param <G> the type of the Game.
+ */
+public class SearchServiceBenchmark<G extends Game> {
+
+    private final SearchService<G> service;
+    private final Supplier<State<G>> start;
+    private final int iterations;
+
+    /**
+     * Constructor.
+     *
+     * @param service    the service under load.
+     * @param start      the starting State of each game.
+     * @param iterations the iterations of each move's search.
+     */
+    public SearchServiceBenchmark(SearchService<G> service, Supplier<State<G>> start, int iterations) {
+        this.service = service;
+        this.start = start;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Play the given number of games at once for a while and report throughput and latency.
+     *
+     * @param games  the number of concurrent games.
+     * @param millis the duration of the run.
+     * @throws InterruptedException if interrupted while waiting for the games to stop.
+     * @throws IllegalStateException if a search failed (its game having stopped at once).
+     */
+    public void report(int games, long millis) throws InterruptedException {
+        Histogram latency = new Histogram(); // Microseconds
+        AtomicLong moves = new AtomicLong();
+        AtomicLong peak = new AtomicLong(); // The most nodes held at once
+        CountDownLatch stopped = new CountDownLatch(games);
+        AtomicReference<Throwable> failure = new AtomicReference<>(); // The first search to fail
+        long pruned = service.prunedNodes();
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000L;
+        for (int i = 0; i < games; i++) new Player(latency, moves, peak, stopped, failure, deadline).next();
+        stopped.await();
+        if (failure.get() != null) throw new IllegalStateException("search failed with " + games + " games", failure.get());
+        double seconds = (System.nanoTime() - start) / 1E9; // Including the moves still in flight at the deadline
+        synchronized (latency) {
+            System.out.printf("%4d games: %,9.0f moves/sec, latency p50 %7.1f ms, p99 %7.1f ms, max %7.1f ms; peak %,d nodes, %,d pruned%n",
+                    games, moves.get() / seconds, latency.percentile(0.5) / 1E3, latency.percentile(0.99) / 1E3, latency.max() / 1E3,
+                    peak.get(), service.prunedNodes() - pruned);
+        }
+    }
+
+    // One game after another in a session of its own, each move requested as soon as the last one has been played
+    private class Player {
+        Player(Histogram latency, AtomicLong moves, AtomicLong peak, CountDownLatch stopped, AtomicReference<Throwable> failure, long deadline) {
+            this.latency = latency;
+            this.moves = moves;
+            this.peak = peak;
+            this.stopped = stopped;
+            this.failure = failure;
+            this.deadline = deadline;
+            this.session = service.open(start.get());
+        }
+
+        void next() {
+            if (System.nanoTime() >= deadline) {
+                session.close();
+                stopped.countDown();
+                return;
+            }
+            long requested = System.nanoTime();
+            session.search(iterations).whenComplete((move, e) -> {
+                if (e != null) {
+                    failure.compareAndSet(null, e);
+                    session.close();
+                    stopped.countDown();
+                    return;
+                }
+                synchronized (latency) {
+                    latency.record((System.nanoTime() - requested) / 1000);
+                }
+                moves.incrementAndGet();
+                peak.accumulateAndGet(service.nodes(), Math::max);
+                if (move == null) {
+                    session.close();
+                    session = service.open(start.get());
+                } else played(move);
+                next();
+            });
+        }
+
+        private void played(Move<G> move) {
+            session.play(move);
+            if (session.state().isTerminal()) {
+                session.close();
+                session = service.open(start.get());
+            }
+        }
+
+        private final Histogram latency;
+        private final AtomicLong moves;
+        private final AtomicLong peak;
+        private final CountDownLatch stopped;
+        private final AtomicReference<Throwable> failure;
+        private final long deadline;
+        private SearchService<G>.Session session;
+    }
+
+    /**
+     * Run the load, e.g. "go 9 200 5000 4" or "tictactoe 3 200 5000 4": the game, the board size (ignored for
+     * TicTacToe), the iterations per move, the duration of each run in milliseconds and the number of workers.
+     *
+     * @param args the arguments.
+     * @throws InterruptedException if interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String game = args.length > 0 ? args[0] : "go";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long millis = args.length > 3 ? Long.parseLong(args[3]) : 5000;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int quantum = 32;
+        long maxNodes = 1_000_000;
+        System.out.printf("%s, %d iterations per move, %d workers, quantum %d, cap %,d nodes%n", game, iterations, workers, quantum, maxNodes);
+        if (game.equals("tictactoe")) {
+            try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<TicTacToe>().withSolver(true), workers, quantum, maxNodes)) {
+                run(new SearchServiceBenchmark<>(service, () -> new TicTacToe().start(), iterations), millis);
+            }
+        } else {
+            GoGame go = new GoGame(size);
+            MCTSEngine<GoGame> engine = new MCTSEngine<GoGame>().withRollout(GoGame.playouts(3 * size * size));
+            try (SearchService<GoGame> service = new SearchService<>(engine, workers, quantum, maxNodes)) {
+                run(new SearchServiceBenchmark<>(service, go::start, iterations), millis);
+            }
+        }
+    }
+
+    private static void run(SearchServiceBenchmark<?> benchmark, long millis) throws InterruptedException {
+        benchmark.report(4, millis / 2); // Warmup
+        for (int games : new int[]{1, 4, 16, 64, 256}) benchmark.report(games, millis);
+    }
+}
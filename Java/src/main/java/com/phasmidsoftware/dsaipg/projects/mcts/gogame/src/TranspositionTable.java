@@ -0,0 +1,153 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.Arrays;
+
+/**
+ * A bounded table of search nodes (indices into a {@link NodePool}) keyed by {@link Zobrist#stateKey(GoBoard, int)},
+ * through which {@link MCSTAgent} lets a position reached by different move orders share one block of children
+ * (and so their statistics), turning the search tree into a directed acyclic graph.
+ * <p>
+ * The table is two-way set-associative: a key may be stored in either slot of its bucket. A new node takes an
+ * empty slot if there is one; otherwise it replaces the less visited of the two nodes in the bucket. A node which
+ * is replaced stays in the search graph, but can no longer be found by a transposition.
+ * <p>
+ * Lookups only happen when a node is expanded, so the table is simply synchronized.
+ */
+public class TranspositionTable {
+
+    /**
+     * Constructor.
+     *
+     * @param entries the capacity (rounded up to a power of two, at least 2).
+     */
+    public TranspositionTable(int entries) {
+        int capacity = capacityFor(entries);
+        this.keys = new long[capacity];
+        this.nodes = new int[capacity];
+        Arrays.fill(nodes, EMPTY);
+    }
+
+    /**
+     * @param entries a requested capacity.
+     * @return the capacity of a table constructed with entries.
+     */
+    public static int capacityFor(int entries) {
+        int capacity = 2;
+        while (capacity < entries) capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Find the node stored for a key, if any.
+     *
+     * @param key the key of a state.
+     * @return the node, or -1.
+     */
+    public synchronized int get(long key) {
+        lookups++;
+        int i = bucket(key);
+        int result = nodes[i] != EMPTY && keys[i] == key ? nodes[i] : nodes[i + 1] != EMPTY && keys[i + 1] == key ? nodes[i + 1] : EMPTY;
+        if (result != EMPTY) hits++;
+        return result;
+    }
+
+    /**
+     * Store a node, unless another thread has stored one for the same key meanwhile.
+     *
+     * @param key  the key of the node's state.
+     * @param node the node.
+     * @param pool the pool which holds the nodes, to find the less visited one if the bucket is full.
+     * @return the node now stored for key: either node, or the one stored before.
+     */
+    public synchronized int putIfAbsent(long key, int node, NodePool pool) {
+        int i = bucket(key);
+        for (int j = i; j < i + 2; j++)
+            if (nodes[j] != EMPTY && keys[j] == key) return nodes[j];
+        int slot = nodes[i] == EMPTY ? i : nodes[i + 1] == EMPTY ? i + 1 : pool.visits(nodes[i]) <= pool.visits(nodes[i + 1]) ? i : i + 1;
+        if (nodes[slot] == EMPTY) size++;
+        else replacements++;
+        keys[slot] = key;
+        nodes[slot] = node;
+        return node;
+    }
+
+    /**
+     * Remove all nodes and reset the counters.
+     */
+    public synchronized void clear() {
+        Arrays.fill(nodes, EMPTY);
+        size = 0;
+        lookups = 0;
+        hits = 0;
+        replacements = 0;
+    }
+
+    /**
+     * @return the number of slots.
+     */
+    public int capacity() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the number of nodes stored.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of lookups (one for each expansion).
+     */
+    public synchronized long lookups() {
+        return lookups;
+    }
+
+    /**
+     * @return the number of lookups which found a node, i.e. the number of transpositions.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of stored nodes which displaced another.
+     */
+    public synchronized long replacements() {
+        return replacements;
+    }
+
+    /**
+     * @return the fraction of lookups which found a node.
+     */
+    public synchronized double hitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the memory taken by the table itself (its key and node arrays), in bytes. The nodes are not included.
+     */
+    public long footprintBytes() {
+        return 2L * ARRAY_HEADER + (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TranspositionTable{capacity=%d, size=%d, lookups=%d, hitRate=%.3f, replacements=%d, footprint=%,d bytes}",
+                capacity(), size, lookups, hitRate(), replacements, footprintBytes());
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & (keys.length - 2);
+    }
+
+    private static final int ARRAY_HEADER = 16;
+    private static final int EMPTY = -1;
+
+    private final long[] keys;
+    private final int[] nodes;
+    private int size;
+    private long lookups;
+    private long hits;
+    private long replacements;
+}
@@ -0,0 +1,122 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for Go positions.
+ * <p>
+ * The hash of a position is the exclusive-or of one 64-bit key per stone, so it can be updated incrementally
+ * as stones are played and captured. The keys are generated from a fixed seed, so that hashes are stable
+ * from one run to the next (and may be stored, e.g. in files).
+ */
+public final class Zobrist {
+
+    /**
+     * @param p      a point (row * size + col) on a board of at most {@link GoBoard#MAX_SIZE} lines.
+     * @param player BLACK or WHITE.
+     * @return the key of a stone of that colour at p.
+     */
+    public static long key(int p, int player) {
+        return keys[p * 2 + (player == GoBoard.BLACK ? 0 : 1)];
+    }
+
+    /**
+     * The key of a search state: the stones, the player to move and the ko point, if any.
+     * Two states with the same key have the same legal moves and the same future.
+     *
+     * @param board the board.
+     * @param turn  the player to move: BLACK or WHITE.
+     * @return the key of the state.
+     */
+    public static long stateKey(GoBoard board, int turn) {
+        long result = board.hash();
+        if (turn == GoBoard.WHITE) result ^= WHITE_TO_MOVE;
+        int ko = board.koPoint();
+        if (ko >= 0) result ^= Long.rotateLeft(keys[ko * 2], 17);
+        return result;
+    }
+
+    /**
+     * The number of symmetries of a square board: four rotations, each with or without a reflection.
+     */
+    public static final int SYMMETRIES = 8;
+
+    /**
+     * @param p        a point on a board of the given size.
+     * @param size     the board size.
+     * @param symmetry a symmetry, from 0 (the identity) to 7: symmetry % 4 quarter turns, then for 4 and above,
+     *                 a reflection about the middle column.
+     * @return the image of p under the symmetry.
+     */
+    public static int transform(int p, int size, int symmetry) {
+        int row = p / size, col = p % size;
+        for (int r = 0; r < (symmetry & 3); r++) {
+            int t = row;
+            row = col;
+            col = size - 1 - t;
+        }
+        if (symmetry >= 4) col = size - 1 - col;
+        return row * size + col;
+    }
+
+    /**
+     * @param symmetry a symmetry.
+     * @return the symmetry which undoes it.
+     */
+    public static int inverse(int symmetry) {
+        return symmetry >= 4 ? symmetry : (4 - symmetry) & 3; // A rotation followed by a reflection is a reflection
+    }
+
+    /**
+     * The key of the image of a search state under a symmetry (for symmetry 0, the same as
+     * {@link #stateKey(GoBoard, int)}). This is computed stone by stone, so it takes time in proportion to the
+     * size of the board.
+     *
+     * @param board    the board.
+     * @param turn     the player to move: BLACK or WHITE.
+     * @param symmetry a symmetry.
+     * @return the key of the transformed state.
+     */
+    public static long stateKey(GoBoard board, int turn, int symmetry) {
+        int size = board.size();
+        long result = turn == GoBoard.WHITE ? WHITE_TO_MOVE : 0;
+        for (int p = 0; p < board.points(); p++) {
+            int colour = board.colour(p);
+            if (colour != GoBoard.EMPTY) result ^= key(transform(p, size, symmetry), colour);
+        }
+        int ko = board.koPoint();
+        if (ko >= 0) result ^= Long.rotateLeft(keys[transform(ko, size, symmetry) * 2], 17);
+        return result;
+    }
+
+    /**
+     * @param board the board.
+     * @param turn  the player to move.
+     * @return the symmetry under which the state has the least key, so that symmetric states share
+     * one canonical key: stateKey(board, turn, canonicalSymmetry(board, turn)).
+     */
+    public static int canonicalSymmetry(GoBoard board, int turn) {
+        int result = 0;
+        long least = stateKey(board, turn, 0);
+        for (int s = 1; s < SYMMETRIES; s++) {
+            long key = stateKey(board, turn, s);
+            if (key < least) {
+                least = key;
+                result = s;
+            }
+        }
+        return result;
+    }
+
+    private Zobrist() {
+    }
+
+    private static final long[] keys = new long[GoBoard.MAX_SIZE * GoBoard.MAX_SIZE * 2];
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_0F_60L);
+        for (int i = 0; i < keys.length; i++) keys[i] = random.nextLong();
+        WHITE_TO_MOVE = random.nextLong();
+    }
+}
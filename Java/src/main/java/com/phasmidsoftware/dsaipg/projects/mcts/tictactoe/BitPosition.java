@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+/**
+ * TicTacToe positions encoded in 18 bits: bit i is set if X occupies cell i, and bit 9 + i if O does,
+ * where cell i is at row i / 3 and column i % 3.
+ * <p>
+ * Every operation is bit arithmetic or a table lookup, so nothing is allocated. In particular the empty cells
+ * (the moves) are a 9-bit mask, to be iterated with {@link Integer#numberOfTrailingZeros(int)}.
+ * <p>
+ * The board has eight symmetries (four rotations, each with or without a reflection). The canonical code of a
+ * position is the least of the codes of its eight images, so that symmetric positions share one canonical code.
+ * X is assumed to open (as in {@link TicTacToe}), so the player to move follows from the number of stones.
+ */
+public final class BitPosition {
+
+    public static final int CELLS = 9;
+    public static final int MASK = (1 << CELLS) - 1;
+    public static final int SYMMETRIES = 8;
+
+    /**
+     * @param code a code.
+     * @return the mask of the cells occupied by player (X or O).
+     */
+    public static int stones(int code, int player) {
+        return player == TicTacToe.X ? code & MASK : code >>> CELLS;
+    }
+
+    /**
+     * @param code a code.
+     * @return the mask of the empty cells.
+     */
+    public static int empty(int code) {
+        return ~(code | code >>> CELLS) & MASK;
+    }
+
+    /**
+     * @param code a code.
+     * @return the player to move: X if both players have the same number of stones, otherwise O.
+     */
+    public static int toMove(int code) {
+        return Integer.bitCount(code & MASK) == Integer.bitCount(code >>> CELLS) ? TicTacToe.X : TicTacToe.O;
+    }
+
+    /**
+     * @param code   a code.
+     * @param player the player (X or O).
+     * @param cell   an empty cell.
+     * @return the code after player occupies cell.
+     */
+    public static int play(int code, int player, int cell) {
+        return code | 1 << (player == TicTacToe.X ? cell : cell + CELLS);
+    }
+
+    /**
+     * @param code a code.
+     * @return X or O if that player has three in a row, otherwise blank.
+     */
+    public static int winner(int code) {
+        if (WINS[code & MASK]) return TicTacToe.X;
+        if (WINS[code >>> CELLS]) return TicTacToe.O;
+        return TicTacToe.blank;
+    }
+
+    /**
+     * @param code a code.
+     * @return true if a player has three in a row or the board is full.
+     */
+    public static boolean isTerminal(int code) {
+        return empty(code) == 0 || winner(code) != TicTacToe.blank;
+    }
+
+    /**
+     * @param code     a code.
+     * @param symmetry a symmetry, from 0 (the identity) to 7.
+     * @return the code of the image of the position under the symmetry.
+     */
+    public static int transform(int code, int symmetry) {
+        short[] map = MAPS[symmetry];
+        return map[code & MASK] | map[code >>> CELLS] << CELLS;
+    }
+
+    /**
+     * @param code a code.
+     * @return the least code among the images of the position under the eight symmetries.
+     */
+    public static int canonical(int code) {
+        int result = code;
+        for (int s = 1; s < SYMMETRIES; s++) result = Math.min(result, transform(code, s));
+        return result;
+    }
+
+    /**
+     * @param code a code.
+     * @return the Position with this code (whose last player is the one not to move).
+     */
+    public static Position toPosition(int code) {
+        int[][] grid = new int[3][3];
+        for (int cell = 0; cell < CELLS; cell++)
+            grid[cell / 3][cell % 3] = (code >>> cell & 1) != 0 ? TicTacToe.X : (code >>> (cell + CELLS) & 1) != 0 ? TicTacToe.O : TicTacToe.blank;
+        return new Position(grid, Integer.bitCount(code), 1 - toMove(code));
+    }
+
+    // The cell to which each cell is moved by one of the symmetries
+    private static int image(int cell, int symmetry) {
+        int row = cell / 3, col = cell % 3;
+        for (int r = 0; r < (symmetry & 3); r++) { // Rotate by 90 degrees
+            int t = row;
+            row = col;
+            col = 2 - t;
+        }
+        if (symmetry >= 4) col = 2 - col; // Reflect about the middle column
+        return 3 * row + col;
+    }
+
+    private static final int[] LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // Rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // Columns
+            0b100_010_001, 0b001_010_100 // Diagonals
+    };
+
+    private static final boolean[] WINS = new boolean[1 << CELLS]; // Whether a 9-bit mask contains a line
+    private static final short[][] MAPS = new short[SYMMETRIES][1 << CELLS]; // The image of each 9-bit mask
+
+    static {
+        for (int mask = 0; mask <= MASK; mask++) {
+            for (int line : LINES) if ((mask & line) == line) WINS[mask] = true;
+            for (int s = 0; s < SYMMETRIES; s++) {
+                int image = 0;
+                for (int cell = 0; cell < CELLS; cell++) if ((mask >>> cell & 1) != 0) image |= 1 << image(cell, s);
+                MAPS[s][mask] = (short) image;
+            }
+        }
+    }
+
+    private BitPosition() {
+    }
+}
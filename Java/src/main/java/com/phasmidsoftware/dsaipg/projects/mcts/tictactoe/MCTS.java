@@ -4,6 +4,7 @@
 
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
 
 /**
@@ -13,14 +14,8 @@ public class MCTS {
 
     public static void main(String[] args) {
         MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe().new TicTacToeState()));
-        Node<TicTacToe> root = mcts.root;
-
-        int iterations = 1000;
-
-        for (int i = 0; i < iterations; i++) {
-            simulate(root);
-        }
-
+        MCTSEngine.Result<TicTacToe> result = mcts.search(1000);
+        Node<TicTacToe> root = result.root();
 
         for (Node<TicTacToe> child : root.children()) {
             System.out.println("Move:\n" + child.state());
@@ -30,11 +25,9 @@ public class MCTS {
         }
 
 
-        Node<TicTacToe> best = root.children().stream()
-                .max((a, b) -> Double.compare(
-                        (double) a.wins() / a.playouts(),
-                        (double) b.wins() / b.playouts()))
-                .orElse(null);
+        // A proven win, or else the most visited move which is not a proven loss: the most visited move is more robust
+        // than the best win rate, which may rest on a few playouts.
+        Node<TicTacToe> best = result.root().best();
 
         if (best != null) {
             System.out.println("Best move chosen:");
@@ -60,6 +53,17 @@ public class MCTS {
         }
     }
 
+    /**
+     * Search from the root's State with the generic MCTSEngine, proving nodes as it goes (so that the search stops
+     * early once the position is solved).
+     *
+     * @param iterations the maximum number of iterations.
+     * @return the Result, whose root holds the statistics (and any proof) of each move.
+     */
+    public MCTSEngine.Result<TicTacToe> search(int iterations) {
+        return new MCTSEngine<TicTacToe>().withSolver(true).withIterations(iterations).search(root.state());
+    }
+
     public Node<TicTacToe> getRoot() {
         return root;
     }
@@ -87,6 +87,25 @@ public class Position {
         return result;
     }
 
+    /**
+     * @return this Position as an 18-bit code (see {@link BitPosition}).
+     */
+    public int code() {
+        int result = 0;
+        for (int i = 0; i < gridSize; i++)
+            for (int j = 0; j < gridSize; j++)
+                if (grid[i][j] >= 0)
+                    result |= 1 << (gridSize * i + j + (grid[i][j] == TicTacToe.X ? 0 : BitPosition.CELLS));
+        return result;
+    }
+
+    /**
+     * @return the code shared by this Position and all its reflections and rotations.
+     */
+    public int canonicalCode() {
+        return BitPosition.canonical(code());
+    }
+
     /**
      * Method to yield a copy of this Position but reflected.
      * <p>
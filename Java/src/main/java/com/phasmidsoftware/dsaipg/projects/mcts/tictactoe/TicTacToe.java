@@ -131,6 +131,19 @@ public class TicTacToe implements Game<TicTacToe> {
             return new int[]{i, j};
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TicTacToeMove)) return false;
+            TicTacToeMove that = (TicTacToeMove) o;
+            return player == that.player && i == that.i && j == that.j;
+        }
+
+        @Override
+        public int hashCode() {
+            return (player * 31 + i) * 31 + j;
+        }
+
         private final int player;
         private final int i;
         private final int j;
@@ -5,6 +5,7 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
 import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
 import com.phasmidsoftware.dsaipg.projects.mcts.core.State;
 
 import java.util.ArrayList;
@@ -46,16 +47,24 @@ public class TicTacToeNode implements Node<TicTacToe> {
     }
 
     /**
-     * Method to add a child to this Node.
+     * Method to add a child to this Node, unless it is a reflection or rotation of a child already added
+     * (symmetric positions have the same value, so there is no need to explore both).
      *
      * @param state the State for the new chile.
      */
     public void addChild(State<TicTacToe> state) {
+        if (state instanceof TicTacToe.TicTacToeState) {
+            int code = ((TicTacToe.TicTacToeState) state).position().canonicalCode();
+            for (int i = 0; i < children.size(); i++)
+                if (childCodes[i] == code) return;
+            childCodes[children.size()] = code;
+        }
         children.add(new TicTacToeNode(state));
     }
 
     /**
-     * This method sets the number of wins and playouts according to the children states.
+     * This method sets the number of wins and playouts according to the children states,
+     * and proves this node if its children allow it (see {@link Proof#ofChildren}).
      */
     public void backPropagate() {
         playouts = 0;
@@ -64,6 +73,15 @@ public class TicTacToeNode implements Node<TicTacToe> {
             wins += child.wins();
             playouts += child.playouts();
         }
+        if (!isLeaf()) proof = Proof.ofChildren(children);
+    }
+
+    /**
+     * @return WIN or DRAW for a terminal node (the player who moved into it made the last move),
+     * otherwise the Proof given by its children when they were last back-propagated.
+     */
+    public Proof proof() {
+        return proof;
     }
 
     /**
@@ -90,16 +108,21 @@ public class TicTacToeNode implements Node<TicTacToe> {
         if (isLeaf()) {
             playouts = 1;
             Optional<Integer> winner = state.winner();
-            if (winner.isPresent())
+            if (winner.isPresent()) {
                 wins = 2; // CONSIDER check that the winner is the correct player. We shouldn't need to.
-            else
+                proof = Proof.WIN;
+            } else {
                 wins = 1; // a draw.
+                proof = Proof.DRAW;
+            }
         }
     }
 
     private final State<TicTacToe> state;
     private final ArrayList<Node<TicTacToe>> children;
+    private final int[] childCodes = new int[BitPosition.CELLS]; // The canonical codes of the children
 
     private int wins;
     private int playouts;
+    private Proof proof = Proof.UNPROVEN;
 }
\ No newline at end of file
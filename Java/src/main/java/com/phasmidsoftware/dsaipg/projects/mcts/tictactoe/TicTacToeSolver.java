@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024. Robin Hillyard
+ */
+
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+
+import java.util.Optional;
+
+/**
+ * A memoized negamax solver for TicTacToe.
+ * <p>
+ * Values are cached by canonical code (see {@link BitPosition#canonical(int)}), so each essentially different
+ * position is solved at most once, and the moves are generated from bit masks, so solving allocates nothing.
+ * The cache also serves the MCTS: {@link #rollout()} replaces a random playout with the exact result.
+ */
+public class TicTacToeSolver {
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+
+    /**
+     * @param code the code of a position.
+     * @return its value for the player to move: WIN, DRAW or LOSS.
+     */
+    public int value(int code) {
+        if (BitPosition.winner(code) != TicTacToe.blank) return LOSS; // The player who has just moved has won
+        int empty = BitPosition.empty(code);
+        if (empty == 0) return DRAW;
+        int key = BitPosition.canonical(code);
+        if (cache[key] != UNKNOWN) return cache[key] - OFFSET;
+        int player = BitPosition.toMove(code);
+        int best = LOSS;
+        for (int moves = empty; moves != 0 && best != WIN; moves &= moves - 1) {
+            int value = -value(BitPosition.play(code, player, Integer.numberOfTrailingZeros(moves)));
+            if (value > best) best = value;
+        }
+        cache[key] = (byte) (best + OFFSET);
+        solved++;
+        return best;
+    }
+
+    /**
+     * @param position a Position (with X to move if both players have the same number of stones).
+     * @return its value for the player to move.
+     */
+    public int value(Position position) {
+        return value(position.code());
+    }
+
+    /**
+     * @param code the code of a position which is not terminal.
+     * @return the first cell (in order) whose move achieves the position's value.
+     */
+    public int bestMove(int code) {
+        int target = value(code);
+        int player = BitPosition.toMove(code);
+        for (int moves = BitPosition.empty(code); moves != 0; moves &= moves - 1) {
+            int cell = Integer.numberOfTrailingZeros(moves);
+            if (-value(BitPosition.play(code, player, cell)) == target) return cell;
+        }
+        throw new IllegalArgumentException("no moves: " + Integer.toBinaryString(code));
+    }
+
+    /**
+     * @param position a Position which is not terminal.
+     * @return the best move as {row, column}.
+     */
+    public int[] bestMove(Position position) {
+        int cell = bestMove(position.code());
+        return new int[]{cell / 3, cell % 3};
+    }
+
+    /**
+     * A RolloutPolicy which returns the result of perfect play from the state, for MCTSEngine.
+     *
+     * @return a RolloutPolicy.
+     */
+    public RolloutPolicy<TicTacToe> rollout() {
+        return state -> {
+            int code = ((TicTacToe.TicTacToeState) state).position().code();
+            int value = value(code);
+            int player = BitPosition.toMove(code);
+            return value == DRAW ? Optional.empty() : Optional.of(value == WIN ? player : 1 - player);
+        };
+    }
+
+    /**
+     * @return the number of positions solved (and cached) so far.
+     */
+    public int solved() {
+        return solved;
+    }
+
+    /**
+     * Time the solution of the whole game from an empty cache.
+     *
+     * @param args unused.
+     */
+    public static void main(String[] args) {
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            TicTacToeSolver solver = new TicTacToeSolver();
+            int value = solver.value(0);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Empty board: value %d, %d positions solved in %.1f microseconds%n", value, solver.solved(), elapsed / 1E3);
+        }
+    }
+
+    private static final byte UNKNOWN = 0;
+    private static final int OFFSET = 2; // Cached values are stored as value + OFFSET, so that 0 means unknown
+
+    private final byte[] cache = new byte[1 << 2 * BitPosition.CELLS];
+    private int solved;
+}
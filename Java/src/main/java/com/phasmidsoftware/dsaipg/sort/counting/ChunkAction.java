@@ -0,0 +1,30 @@
+package com.phasmidsoftware.dsaipg.sort.counting;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Applies an action to each of the chunks [lo, hi) of a parallel counting sort (see {@link ParallelRadixSort} and
+ * {@link ParMSDStringSort}), splitting the range in two until only one chunk remains.
+ */
+final class ChunkAction extends RecursiveAction {
+    ChunkAction(IntConsumer action, int lo, int hi) {
+        this.action = action;
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+        if (hi - lo == 1) {
+            action.accept(lo);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new ChunkAction(action, lo, mid), new ChunkAction(action, mid, hi));
+    }
+
+    private final IntConsumer action;
+    private final int lo;
+    private final int hi;
+}
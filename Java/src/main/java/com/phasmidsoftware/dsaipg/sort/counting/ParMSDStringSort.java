@@ -0,0 +1,273 @@
+package com.phasmidsoftware.dsaipg.sort.counting;
+
+import com.phasmidsoftware.dsaipg.sort.generic.SortWithHelper;
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import com.phasmidsoftware.dsaipg.util.config.Config_Benchmark;
+import com.phasmidsoftware.dsaipg.util.general.CodePointMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+
+/**
+ * A parallel version of the MSD (Most-Significant-Digit) String Sort, run as {@link RecursiveAction}s in a
+ * {@link ForkJoinPool}.
+ * <p>
+ * Each bucket which is at least as large as the (parallel) cutoff is sorted as a task of its own;
+ * smaller buckets are sorted on the thread which distributed them.
+ * A range which is at least twice as large as the cutoff is itself distributed in parallel: it is divided into
+ * chunks, each of which is counted (and then distributed) by its own task, much as in {@link ParallelRadixSort}.
+ * Buckets of no more than 16 Strings are finished by insertion sort on the remaining characters.
+ * <p>
+ * Two caches cut the cost of looking at characters:
+ * the bucket of each String at the current position is computed once (into an int array which runs parallel to the
+ * range being sorted) and used by both the count and the distribution;
+ * and the bucket of every char is computed by the mapper once, when the sort is constructed, so that looking one up
+ * is only a read of a table.
+ * The auxiliary array and the bucket array are the size of the range being sorted, and are allocated once for the
+ * whole sort.
+ * <p>
+ * A String which has no character at the current position goes into bucket 0, before all the others.
+ * This refines the order of the mapper's comparator (which treats a missing character as 0), so the result is
+ * sorted according to that comparator.
+ * <p>
+ * The cutoff and the number of threads are taken from the [parallel] section of the configuration
+ * (see {@link Config_Benchmark#createPool(int)}).
+ * NOTE: the Helper is used for its configuration only; this sort is not instrumented.
+ */
+public class ParMSDStringSort extends SortWithHelper<String> {
+
+    public static final String DESCRIPTION = "MSD string sort (parallel) ";
+
+    /**
+     * Primary constructor.
+     *
+     * @param mapper      the required CodePointMapper.
+     * @param helper      the appropriate Helper.
+     * @param cutoff      the size of bucket below which sorting continues on one thread.
+     * @param parallelism the number of threads of the pool (see {@link Config_Benchmark#createPool(int)}).
+     */
+    public ParMSDStringSort(CodePointMapper mapper, Helper<String> helper, int cutoff, int parallelism) {
+        super(helper);
+        this.mapper = mapper;
+        this.cutoff = Math.max(cutoff, 2);
+        this.pool = createPool(parallelism);
+        this.buckets = buckets(mapper);
+    }
+
+    /**
+     * Constructs a ParMSDStringSort object for sorting strings using parallel MSD radix sort.
+     *
+     * @param mapper the CodePointMapper used to interpret and map the characters of the strings.
+     * @param N      the number of elements we expect to sort.
+     * @param nRuns  the expected number of runs.
+     * @param config the configuration.
+     */
+    public ParMSDStringSort(CodePointMapper mapper, int N, int nRuns, Config config) {
+        this(mapper, HelperFactory.createGeneric(DESCRIPTION + mapper, mapper.comparator, N, nRuns, config), getParallelCutoff(config), getParallelism(config));
+        closeHelper = true;
+    }
+
+    /**
+     * Generic, mutating sort method which operates on a sub-array.
+     *
+     * @param xs   sort the array xs from "from" until "to" (exclusive of to).
+     * @param from the index of the first element to sort.
+     * @param to   the index of the first element not to sort.
+     */
+    public void sort(String[] xs, int from, int to) {
+        if (to - from < 2) return;
+        Workspace workspace = new Workspace(xs, from, to);
+        if (to - from < cutoff) workspace.sort(from, to, 0);
+        else pool.invoke(new SortTask(workspace, from, to, 0));
+    }
+
+    /**
+     * Shut down the pool (see {@link Config_Benchmark#closePool(ForkJoinPool)}) and close the Helper.
+     */
+    public void close() {
+        closePool(pool);
+        super.close();
+    }
+
+    /**
+     * @return the pool in which the sort runs.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * The arrays shared by all the tasks of one sort.
+     * Each task works on its own range, the same in all three arrays (aux and keys being indexed from base).
+     */
+    private class Workspace {
+        Workspace(String[] xs, int from, int to) {
+            this.xs = xs;
+            this.base = from;
+            this.aux = new String[to - from];
+            this.keys = new int[to - from];
+        }
+
+        /**
+         * Sort the range [from, to), ignoring the first d characters, on this thread.
+         */
+        void sort(int from, int to, int d) {
+            if (to - from <= INSERTION_CUTOFF) {
+                insertionSort(from, to, d);
+                return;
+            }
+            int[] starts = distribute(from, to, d, 1);
+            for (int b = 1; b <= mapper.range; b++)
+                if (starts[b + 1] - starts[b] > 1) sort(starts[b], starts[b + 1], d + 1);
+        }
+
+        /**
+         * Distribute the range [from, to) into buckets according to the character at position d
+         * (counting, distributing and copying back in parallel if chunks &gt; 1).
+         *
+         * @return the start of each bucket (indexed from 0 through range + 1, the last being to).
+         */
+        int[] distribute(int from, int to, int d, int chunks) {
+            int n = to - from;
+            int nBuckets = mapper.range + 1;
+            int[][] counts = new int[chunks][nBuckets];
+            forEachChunk(chunks, c -> {
+                int[] count = counts[c];
+                for (int i = chunkStart(from, n, chunks, c), hi = chunkStart(from, n, chunks, c + 1); i < hi; i++)
+                    count[keys[i - base] = key(xs[i], d)]++;
+            });
+            // Turn the counts into the offsets at which each chunk starts writing each bucket.
+            int[] starts = new int[nBuckets + 1];
+            int total = from;
+            for (int b = 0; b < nBuckets; b++) {
+                starts[b] = total;
+                for (int[] count : counts) {
+                    int k = count[b];
+                    count[b] = total;
+                    total += k;
+                }
+            }
+            starts[nBuckets] = to;
+            forEachChunk(chunks, c -> {
+                int[] offset = counts[c];
+                for (int i = chunkStart(from, n, chunks, c), hi = chunkStart(from, n, chunks, c + 1); i < hi; i++)
+                    aux[offset[keys[i - base]]++ - base] = xs[i];
+            });
+            forEachChunk(chunks, c -> {
+                int lo = chunkStart(from, n, chunks, c);
+                System.arraycopy(aux, lo - base, xs, lo, chunkStart(from, n, chunks, c + 1) - lo);
+            });
+            return starts;
+        }
+
+        void insertionSort(int from, int to, int d) {
+            for (int i = from + 1; i < to; i++) {
+                String x = xs[i];
+                int j = i;
+                for (; j > from && less(x, xs[j - 1], d); j--) xs[j] = xs[j - 1];
+                xs[j] = x;
+            }
+        }
+
+        final String[] xs;
+        final int base;
+        final String[] aux;
+        final int[] keys;
+    }
+
+    /**
+     * The sorting of one range: distribute it and sort the large buckets as tasks of their own.
+     */
+    private class SortTask extends RecursiveAction {
+        SortTask(Workspace workspace, int from, int to, int d) {
+            this.workspace = workspace;
+            this.from = from;
+            this.to = to;
+            this.d = d;
+        }
+
+        @Override
+        protected void compute() {
+            int n = to - from;
+            if (n < cutoff) {
+                workspace.sort(from, to, d);
+                return;
+            }
+            int chunks = Math.max(1, Math.min(pool.getParallelism(), n / cutoff));
+            int[] starts = workspace.distribute(from, to, d, chunks);
+            List<SortTask> tasks = new ArrayList<>();
+            for (int b = 1; b <= mapper.range; b++) {
+                int lo = starts[b], hi = starts[b + 1];
+                if (hi - lo >= cutoff) tasks.add(new SortTask(workspace, lo, hi, d + 1));
+                else if (hi - lo > 1) workspace.sort(lo, hi, d + 1);
+            }
+            invokeAll(tasks);
+        }
+
+        private final Workspace workspace;
+        private final int from;
+        private final int to;
+        private final int d;
+    }
+
+    /**
+     * Method to yield the bucket of x at position d: 0 if x has no such character, otherwise one more than the
+     * mapping of that character.
+     */
+    private int key(String x, int d) {
+        if (d >= x.length()) return 0;
+        char c = x.charAt(d);
+        int result = buckets[c];
+        // NOTE: a char which the mapper rejects is mapped again here, so that the mapper's exception is thrown.
+        return result > 0 ? result : mapper.map(c) + 1;
+    }
+
+    /**
+     * Method to determine if x precedes y, considering only the characters from position d onwards.
+     */
+    private boolean less(String x, String y, int d) {
+        for (int i = d; ; i++) {
+            int kx = key(x, i), ky = key(y, i);
+            if (kx != ky) return kx < ky;
+            if (kx == 0) return false;
+        }
+    }
+
+    /**
+     * Method to yield the bucket of every char: one more than its mapping, or -1 if the mapper rejects it.
+     */
+    private static int[] buckets(CodePointMapper mapper) {
+        int[] result = new int[Character.MAX_VALUE + 1];
+        for (int c = 0; c < result.length; c++)
+            try {
+                result[c] = mapper.map(c) + 1;
+            } catch (RuntimeException e) {
+                result[c] = -1;
+            }
+        return result;
+    }
+
+    // NOTE: chunks greater than 1 only arise within a SortTask, i.e. in the pool.
+    private static void forEachChunk(int chunks, IntConsumer action) {
+        if (chunks == 1) action.accept(0);
+        else new ChunkAction(action, 0, chunks).invoke();
+    }
+
+    private static int chunkStart(int from, int n, int chunks, int c) {
+        return from + (int) ((long) n * c / chunks);
+    }
+
+    private final CodePointMapper mapper;
+    private final int cutoff;
+    private final ForkJoinPool pool;
+    private final int[] buckets;
+
+    private static final int INSERTION_CUTOFF = 16;
+}
@@ -0,0 +1,292 @@
+package com.phasmidsoftware.dsaipg.sort.counting;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel LSD Radix Sort for int[] and long[].
+ * <p>
+ * Unlike {@link RadixSort}, which sorts non-negative ints one decimal digit at a time, this sort works one byte
+ * (radix 256) at a time and sorts negative values too (the sign bit of the most significant byte is flipped so that
+ * the signed values come out in their natural order).
+ * <p>
+ * The range to be sorted is divided into one chunk per thread (but no chunk smaller than the cutoff).
+ * A first read of the range builds, for each chunk in parallel, the histograms of all the bytes at once.
+ * A pass whose byte is the same for every element is skipped.
+ * Otherwise, the per-chunk histograms of that byte (rebuilt in parallel for every pass but the first, since the
+ * chunks then hold other elements) are turned into per-chunk starting offsets (prefix sums in bucket order, then
+ * chunk order, which keeps the sort stable) and each chunk scatters its elements into the other array in parallel.
+ * The input and the auxiliary array alternate as source and destination from one pass to the next,
+ * and the result is copied back only if it ends up in the auxiliary array.
+ * <p>
+ * Ranges smaller than the cutoff are sorted in the same way, but on the calling thread only.
+ */
+public class ParallelRadixSort {
+
+    public static final int CUTOFF_DEFAULT = 1 << 16;
+
+    /**
+     * Constructor for ParallelRadixSort.
+     *
+     * @param pool   the pool whose threads do the sorting.
+     * @param cutoff the smallest number of elements for each chunk (there is only one chunk for fewer elements).
+     */
+    public ParallelRadixSort(ForkJoinPool pool, int cutoff) {
+        if (cutoff < 1) throw new IllegalArgumentException("cutoff must be positive: " + cutoff);
+        this.pool = pool;
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Constructor for ParallelRadixSort which runs in the common pool with the default cutoff.
+     */
+    public ParallelRadixSort() {
+        this(ForkJoinPool.commonPool(), CUTOFF_DEFAULT);
+    }
+
+    /**
+     * Sorts the given array.
+     *
+     * @param xs the array to be sorted.
+     */
+    public void sort(int[] xs) {
+        sort(xs, 0, xs.length);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array.
+     *
+     * @param xs   the array to be sorted.
+     * @param from the index of the first element to be sorted.
+     * @param to   the index of the first element not to be sorted.
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; xs.length.
+     * @throws IllegalArgumentException       if from &gt; to.
+     */
+    public void sort(int[] xs, int from, int to) {
+        sort(xs, from, to, INTS);
+    }
+
+    /**
+     * Sorts the given array.
+     *
+     * @param xs the array to be sorted.
+     */
+    public void sort(long[] xs) {
+        sort(xs, 0, xs.length);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array.
+     *
+     * @param xs   the array to be sorted.
+     * @param from the index of the first element to be sorted.
+     * @param to   the index of the first element not to be sorted.
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; xs.length.
+     * @throws IllegalArgumentException       if from &gt; to.
+     */
+    public void sort(long[] xs, int from, int to) {
+        sort(xs, from, to, LONGS);
+    }
+
+    /**
+     * @return the pool in which the sort runs.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sorts the range [from, to) of xs, one byte at a time, using the given Keys for the element type.
+     */
+    private <A> void sort(A xs, int from, int to, Keys<A> keys) {
+        checkRange(keys.length(xs), from, to);
+        int n = to - from;
+        if (n < 2) return;
+        int chunks = chunks(n);
+        int[][] counts = new int[chunks][keys.bytes * RADIX];
+        forEachChunk(chunks, c -> keys.histogram(xs, chunkStart(from, n, chunks, c), chunkStart(from, n, chunks, c + 1), counts[c]));
+        A src = xs, dst = keys.allocate(n);
+        int srcBase = from, dstBase = 0;
+        boolean first = true;
+        for (int d = 0; d < keys.bytes; d++) {
+            if (isUniform(counts, d, n)) continue;
+            final A s = src, t = dst;
+            final int sBase = srcBase, tBase = dstBase, digit = d;
+            if (!first) forEachChunk(chunks, c -> {
+                int[] count = counts[c];
+                Arrays.fill(count, digit * RADIX, (digit + 1) * RADIX, 0);
+                keys.count(s, sBase + chunkStart(0, n, chunks, c), sBase + chunkStart(0, n, chunks, c + 1), count, digit);
+            });
+            first = false;
+            int[][] offsets = offsets(counts, d);
+            forEachChunk(chunks, c -> keys.scatter(s, sBase + chunkStart(0, n, chunks, c), sBase + chunkStart(0, n, chunks, c + 1), t, tBase, offsets[c], digit));
+            src = t;
+            dst = s;
+            srcBase = tBase;
+            dstBase = sBase;
+        }
+        if (src != xs) System.arraycopy(src, srcBase, xs, from, n);
+    }
+
+    /**
+     * Method to determine whether byte d is the same for every element, in which case its pass can be skipped.
+     * NOTE: the total for each bucket does not depend on the order of the elements, so the histograms of any
+     * earlier read will do.
+     *
+     * @param counts the per-chunk histograms.
+     * @param d      the byte (0 is the least significant).
+     * @param n      the number of elements being sorted.
+     * @return true if all n elements fall into one bucket.
+     */
+    private static boolean isUniform(int[][] counts, int d, int n) {
+        int base = d * RADIX;
+        for (int b = 0; b < RADIX; b++) {
+            int bucket = 0;
+            for (int[] count : counts) bucket += count[base + b];
+            if (bucket == n) return true;
+            if (bucket > 0) return false;
+        }
+        return false;
+    }
+
+    /**
+     * Method to yield the starting offset of each bucket for each chunk, for the pass on byte d.
+     * The buckets are laid out in order and, within each bucket, the chunks are laid out in order.
+     *
+     * @param counts the per-chunk histograms, which must be those of the current source of the pass.
+     * @param d      the byte (0 is the least significant).
+     * @return the offsets, indexed by chunk then bucket.
+     */
+    private static int[][] offsets(int[][] counts, int d) {
+        int base = d * RADIX;
+        int[][] result = new int[counts.length][RADIX];
+        int total = 0;
+        for (int b = 0; b < RADIX; b++)
+            for (int t = 0; t < counts.length; t++) {
+                result[t][b] = total;
+                total += counts[t][base + b];
+            }
+        return result;
+    }
+
+    private int chunks(int n) {
+        return Math.max(1, Math.min(pool.getParallelism(), n / cutoff));
+    }
+
+    // NOTE: the chunks differ in size by at most one element.
+    private static int chunkStart(int from, int n, int chunks, int t) {
+        return from + (int) ((long) n * t / chunks);
+    }
+
+    private void forEachChunk(int chunks, IntConsumer action) {
+        if (chunks == 1) action.accept(0);
+        else pool.invoke(new ChunkAction(action, 0, chunks));
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from > to) throw new IllegalArgumentException("from (" + from + ") must not be greater than to (" + to + ")");
+        if (from < 0) throw new ArrayIndexOutOfBoundsException(from);
+        if (to > length) throw new ArrayIndexOutOfBoundsException(to);
+    }
+
+    /**
+     * The operations on an array of one element type which the sort needs.
+     * The loops over the elements are here, so that each is compiled for its own type.
+     * The key of an element is its value with the sign bit flipped, so that unsigned order is signed order.
+     *
+     * @param <A> the type of the array (int[] or long[]).
+     */
+    private static abstract class Keys<A> {
+        Keys(int bytes) {
+            this.bytes = bytes;
+        }
+
+        abstract int length(A xs);
+
+        abstract A allocate(int n);
+
+        /**
+         * Add the elements of xs[lo, hi) to the histograms of all the bytes (that of byte d starts at d * RADIX).
+         */
+        abstract void histogram(A xs, int lo, int hi, int[] count);
+
+        /**
+         * Add the elements of xs[lo, hi) to the histogram of byte d.
+         */
+        abstract void count(A xs, int lo, int hi, int[] count, int d);
+
+        /**
+         * Move each element of src[lo, hi) to dst[dstBase + offset of its bucket for byte d], incrementing the offset.
+         */
+        abstract void scatter(A src, int lo, int hi, A dst, int dstBase, int[] offset, int d);
+
+        final int bytes;
+    }
+
+    private static final Keys<int[]> INTS = new Keys<>(Integer.BYTES) {
+        int length(int[] xs) {
+            return xs.length;
+        }
+
+        int[] allocate(int n) {
+            return new int[n];
+        }
+
+        void histogram(int[] xs, int lo, int hi, int[] count) {
+            for (int i = lo; i < hi; i++) {
+                int key = xs[i] ^ Integer.MIN_VALUE;
+                for (int d = 0; d < Integer.BYTES; d++) count[d * RADIX + ((key >>> (d * 8)) & MASK)]++;
+            }
+        }
+
+        void count(int[] xs, int lo, int hi, int[] count, int d) {
+            int base = d * RADIX, shift = d * 8;
+            for (int i = lo; i < hi; i++) count[base + (((xs[i] ^ Integer.MIN_VALUE) >>> shift) & MASK)]++;
+        }
+
+        void scatter(int[] src, int lo, int hi, int[] dst, int dstBase, int[] offset, int d) {
+            int shift = d * 8;
+            for (int i = lo; i < hi; i++) {
+                int x = src[i];
+                dst[dstBase + offset[((x ^ Integer.MIN_VALUE) >>> shift) & MASK]++] = x;
+            }
+        }
+    };
+
+    private static final Keys<long[]> LONGS = new Keys<>(Long.BYTES) {
+        int length(long[] xs) {
+            return xs.length;
+        }
+
+        long[] allocate(int n) {
+            return new long[n];
+        }
+
+        void histogram(long[] xs, int lo, int hi, int[] count) {
+            for (int i = lo; i < hi; i++) {
+                long key = xs[i] ^ Long.MIN_VALUE;
+                for (int d = 0; d < Long.BYTES; d++) count[d * RADIX + (int) ((key >>> (d * 8)) & MASK)]++;
+            }
+        }
+
+        void count(long[] xs, int lo, int hi, int[] count, int d) {
+            int base = d * RADIX, shift = d * 8;
+            for (int i = lo; i < hi; i++) count[base + (int) (((xs[i] ^ Long.MIN_VALUE) >>> shift) & MASK)]++;
+        }
+
+        void scatter(long[] src, int lo, int hi, long[] dst, int dstBase, int[] offset, int d) {
+            int shift = d * 8;
+            for (int i = lo; i < hi; i++) {
+                long x = src[i];
+                dst[dstBase + offset[(int) (((x ^ Long.MIN_VALUE) >>> shift) & MASK)]++] = x;
+            }
+        }
+    };
+
+    private static final int RADIX = 256;
+    private static final int MASK = RADIX - 1;
+
+    private final ForkJoinPool pool;
+    private final int cutoff;
+}
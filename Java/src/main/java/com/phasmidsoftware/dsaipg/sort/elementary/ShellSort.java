@@ -53,6 +53,21 @@ public class ShellSort<X extends Comparable<X>> extends SortWithComparableHelper
         }
     }
 
+    /**
+     * Method to yield the gap (h) sequence of the given mode for N elements, largest first.
+     * This is the sequence which sort follows (the last gap being 1 unless N is too small to need sorting).
+     *
+     * @param N the number of elements to be sorted.
+     * @param m the mode (see the constructors).
+     * @return the gaps, in the order in which they are to be used.
+     */
+    public static int[] gaps(int N, int m) {
+        H h = new H(N, m);
+        List<Integer> result = new ArrayList<>();
+        for (int gap = h.first(); gap > 0; gap = h.next()) result.add(gap);
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /**
      * Set the "shell" function which is invoked on the helper after each shell (i.e., each value of h).
      * Yes, I do realize that shell was the name of the inventor, Donald Shell.
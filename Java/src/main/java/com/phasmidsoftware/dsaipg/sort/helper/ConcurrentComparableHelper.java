@@ -0,0 +1,61 @@
+package com.phasmidsoftware.dsaipg.sort.helper;
+
+import com.phasmidsoftware.dsaipg.util.config.Config;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * An InstrumentedComparableHelper which may be used by many threads at once, as it is by the parallel sorts.
+ * It should be given a {@link ConcurrentInstrumenter} (see {@link HelperFactory#createConcurrent}), and it tracks
+ * the maximum depth with a {@link LongAccumulator}, so that no depth registered by any thread is lost.
+ *
+ * @param <X> the underlying type (must be Comparable).
+ */
+public class ConcurrentComparableHelper<X extends Comparable<X>> extends InstrumentedComparableHelper<X> {
+
+    /**
+     * Constructor for ConcurrentComparableHelper.
+     *
+     * @param description  the description of this Helper (for humans).
+     * @param n            the number of elements expected to be sorted.
+     * @param random       a random number generator.
+     * @param nRuns        an (explicit) number of runs (for statistics).
+     * @param instrumenter a thread-safe implementer of Instrument.
+     * @param config       the configuration (note that the seed value is ignored).
+     */
+    public ConcurrentComparableHelper(String description, int n, Random random, int nRuns, Instrument instrumenter, Config config) {
+        super(description, n, random, nRuns, instrumenter, config);
+    }
+
+    /**
+     * Creates a duplicate of the current Helper instance configured with the specified description and number of elements.
+     *
+     * @param description the description of the cloned Helper (for humans).
+     * @param N           the number of elements expected to be handled by the cloned Helper.
+     * @return a new ConcurrentComparableHelper which shares the instrumenter of this one.
+     */
+    public Helper<X> clone(String description, int N) {
+        return new ConcurrentComparableHelper<>(description, N, random, nRuns, instrumenter, config);
+    }
+
+    /**
+     * Registers a depth value, which may be done by any thread.
+     *
+     * @param depth the depth value to be registered
+     */
+    public void registerDepth(int depth) {
+        depths.accumulate(depth);
+    }
+
+    /**
+     * Returns the maximum depth registered by any thread.
+     *
+     * @return the maximum depth as an integer
+     */
+    public int maxDepth() {
+        return (int) depths.get();
+    }
+
+    private final LongAccumulator depths = new LongAccumulator(Math::max, 0);
+}
@@ -0,0 +1,146 @@
+package com.phasmidsoftware.dsaipg.sort.helper;
+
+import com.phasmidsoftware.dsaipg.util.config.Config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An Instrumenter whose counters may be incremented by many threads at once, as they are by the parallel sorts.
+ * Each counter is a {@link LongAdder}, so that threads rarely contend on the same memory.
+ * The counts are read (and gathered into the StatPack) only once the sort is complete.
+ */
+public class ConcurrentInstrumenter extends Instrumenter {
+
+    /**
+     * Retrieves the current value of the hits counter.
+     *
+     * @return the number of hits recorded as a long.
+     */
+    public long getHits() {
+        return hitsAdder.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups counted by the instrumenter.
+     *
+     * @return the total number of lookups recorded.
+     */
+    public long getLookups() {
+        return lookupsAdder.sum();
+    }
+
+    /**
+     * Retrieves the current count of copy operations recorded by the instrumenter.
+     *
+     * @return the number of copies performed as a long value.
+     */
+    public long getCopies() {
+        return copiesAdder.sum();
+    }
+
+    /**
+     * Retrieves the current count of comparisons made during instrumentation.
+     *
+     * @return the total number of comparisons made.
+     */
+    public long getCompares() {
+        return comparesAdder.sum();
+    }
+
+    /**
+     * Retrieves the total number of swaps that have been recorded by the instrumenter.
+     *
+     * @return the number of swaps performed as a long value.
+     */
+    public long getSwaps() {
+        return swapsAdder.sum();
+    }
+
+    /**
+     * Retrieves the count of fixes recorded by the instrumenter.
+     *
+     * @return the total number of fixes tracked during the instrumentation process.
+     */
+    public long getFixes() {
+        return fixesAdder.sum();
+    }
+
+    /**
+     * If instrumenting, increment the number of copies by n.
+     *
+     * @param n the number of copies made.
+     */
+    public void incrementCopies(int n) {
+        if (countCopies) copiesAdder.add(n);
+    }
+
+    /**
+     * If instrumenting, increment the number of hits by n.
+     *
+     * @param n the number of hits.
+     */
+    public void incrementHits(long n) {
+        if (countHits) hitsAdder.add(n);
+    }
+
+    /**
+     * If instrumenting, increment the number of lookups.
+     */
+    public void incrementLookups() {
+        if (countLookups) lookupsAdder.increment();
+    }
+
+    /**
+     * If instrumenting, increment the number of fixes by n.
+     *
+     * @param n the number of fixes.
+     */
+    public void incrementFixes(int n) {
+        if (countFixes) fixesAdder.add(n);
+    }
+
+    /**
+     * If instrumenting, increment the number of comparisons.
+     */
+    public void incrementCompares() {
+        if (countCompares) comparesAdder.increment();
+    }
+
+    /**
+     * If instrumenting, increment the number of swaps by n.
+     *
+     * @param n the number of swaps.
+     */
+    public void incrementSwaps(int n) {
+        if (countSwaps) swapsAdder.add(n);
+    }
+
+    /**
+     * Constructs a ConcurrentInstrumenter configured using the provided Config object.
+     *
+     * @param config the Config object containing settings for toggling specific instrumentation features.
+     */
+    public ConcurrentInstrumenter(Config config) {
+        super(config);
+    }
+
+    /**
+     * Resets all the counters to zero.
+     */
+    protected void resetCounters() {
+        super.resetCounters();
+        comparesAdder.reset();
+        swapsAdder.reset();
+        copiesAdder.reset();
+        fixesAdder.reset();
+        hitsAdder.reset();
+        lookupsAdder.reset();
+    }
+
+    private final LongAdder comparesAdder = new LongAdder();
+    private final LongAdder swapsAdder = new LongAdder();
+    private final LongAdder copiesAdder = new LongAdder();
+    private final LongAdder fixesAdder = new LongAdder();
+    private final LongAdder hitsAdder = new LongAdder();
+    private final LongAdder lookupsAdder = new LongAdder();
+}
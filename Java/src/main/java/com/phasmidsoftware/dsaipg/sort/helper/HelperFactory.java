@@ -71,6 +71,22 @@ public class HelperFactory {
         return instrumented ? new InstrumentedComparableHelper<>(description, nElements, seed, nRuns, config) : new NonInstrumentingComparableHelper<>(description, nElements, seed, config);
     }
 
+    /**
+     * Factory method to create a Helper for a sort which runs on many threads at once.
+     * If instrumenting, the Helper is a {@link ConcurrentComparableHelper} which counts with a {@link ConcurrentInstrumenter}, so it is thread-safe.
+     *
+     * @param <X>         the underlying type.
+     * @param description the description of the Helper.
+     * @param nElements   the number of elements to be sorted.
+     * @param seed        an explicit seed.
+     * @param nRuns       the number of runs expected.
+     * @param config      the configuration.
+     * @return a Helper&lt;X&gt;
+     */
+    public static <X extends Comparable<X>> NonComparableHelper<X> createConcurrent(String description, int nElements, long seed, int nRuns, Config config) {
+        return isInstrumented(config) ? new ConcurrentComparableHelper<>(description, nElements, new Random(seed), nRuns, new ConcurrentInstrumenter(config), config) : new NonInstrumentingComparableHelper<>(description, nElements, seed, config);
+    }
+
     /**
      * Factory method to create a Helper.
      * At present, the only concrete extender of Helper is ClassicHelper.
@@ -219,7 +219,10 @@ public class Instrumenter implements Instrument {
         this(config.getBoolean(INSTRUMENTING, COPIES), config.getBoolean(INSTRUMENTING, SWAPS), config.getBoolean(INSTRUMENTING, COMPARES), config.getBoolean(INSTRUMENTING, FIXES), config.getBoolean(INSTRUMENTING, HITS), config.getBoolean(INSTRUMENTING, LOOKUPS), config.getBoolean(INSTRUMENTING, SHOW_STATS));
     }
 
-    private void resetCounters() {
+    /**
+     * Resets all the counters to zero.
+     */
+    protected void resetCounters() {
         compares = 0;
         swaps = 0;
         copies = 0;
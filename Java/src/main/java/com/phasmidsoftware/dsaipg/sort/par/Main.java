@@ -49,7 +49,7 @@ public class Main {
                         for (int i = 0; i < array.length; i++) array[i] = random.nextInt(10000000);
 
                         long startTime = System.currentTimeMillis();
-                        customPool.submit(() -> ParSort.sort(array, 0, array.length)).join();
+                        ParSort.sort(array, 0, array.length, customPool);
                         long endTime = System.currentTimeMillis();
 
                         totalTime += (endTime - startTime);
@@ -60,6 +60,7 @@ public class Main {
                     System.out.println("Array Size: " + arraySize + ", Cutoff: " + cutoff + ", Threads: " + threadCount + ", Avg Time: " + avgTime + " ms" + String.format("Cutoff/Size: %.5f", rate));
                     results.add(arraySize + "," + cutoff + "," + threadCount + "," + avgTime + "," + String.format("%.5f", rate));
                 }
+                customPool.shutdown();
             }
         }
 
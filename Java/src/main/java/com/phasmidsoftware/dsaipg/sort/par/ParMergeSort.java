@@ -0,0 +1,248 @@
+package com.phasmidsoftware.dsaipg.sort.par;
+
+import com.phasmidsoftware.dsaipg.sort.elementary.InsertionSort;
+import com.phasmidsoftware.dsaipg.sort.generic.SortWithComparableHelper;
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import com.phasmidsoftware.dsaipg.util.config.Config_Benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort.INSURANCE;
+import static com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort.MERGESORT;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+
+/**
+ * A parallel version of MergeSort for elements of type X, run as {@link RecursiveAction}s in a {@link ForkJoinPool}.
+ * <p>
+ * As in MergeSort (with nocopy), the array and one auxiliary copy of it take turns as source and destination from
+ * one level of recursion to the next, so that nothing is copied but the initial array.
+ * Each half is sorted in a task of its own; the halves are then merged, also in parallel: a large merge is split
+ * in two by taking the middle element of the longer run and finding its place in the shorter run by binary search.
+ * Ranges (and merges) smaller than the cutoff are sorted (merged) on one thread; ranges no larger than the
+ * Helper's cutoff are sorted by insertion sort.
+ * <p>
+ * The cutoff and the number of threads are taken from the [parallel] section of the configuration
+ * (see {@link Config_Benchmark#createPool(int)}).
+ * The Helper is created by {@link HelperFactory#createConcurrent}, so that it can be instrumented.
+ *
+ * @param <X> The type of elements to be sorted, which must implement the Comparable interface.
+ */
+public class ParMergeSort<X extends Comparable<X>> extends SortWithComparableHelper<X> {
+
+    public static final String DESCRIPTION = "MergeSort (parallel)";
+
+    /**
+     * Constructor for ParMergeSort
+     *
+     * @param N      the number elements we expect to sort.
+     * @param nRuns  the expected number of runs.
+     * @param config the configuration.
+     */
+    public ParMergeSort(int N, int nRuns, Config config) {
+        this(HelperFactory.createConcurrent(DESCRIPTION, N, getSeed(config), nRuns, config), getParallelCutoff(config), getParallelism(config));
+        closeHelper = true;
+    }
+
+    /**
+     * Constructor for ParMergeSort
+     *
+     * @param helper      an explicit instance of Helper to be used (which must be thread-safe).
+     * @param cutoff      the size of range (or merge) below which work continues on one thread.
+     * @param parallelism the number of threads of the pool (see {@link Config_Benchmark#createPool(int)}).
+     */
+    public ParMergeSort(Helper<X> helper, int cutoff, int parallelism) {
+        super(helper);
+        this.cutoff = cutoff;
+        this.pool = createPool(parallelism);
+        this.insurance = helper.getConfig().getBoolean(MERGESORT, INSURANCE);
+        this.insertionSort = new InsertionSort<>(helper.clone("ParMergeSort: insertion sort"));
+    }
+
+    /**
+     * Sorts the given array in-place or by creating a copy, depending on the parameter makeCopy.
+     *
+     * @param xs       the array to be sorted
+     * @param makeCopy if true, the array will be copied before sorting. Otherwise, sorting is done in-place.
+     * @return the sorted array; either the modified original array (if makeCopy is false) or a new sorted array (if makeCopy is true)
+     */
+    public X[] sort(X[] xs, boolean makeCopy) {
+        getHelper().init(xs.length);
+        X[] result = makeCopy ? Arrays.copyOf(xs, xs.length) : xs;
+        sort(result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Sorts the specified portion of the array.
+     *
+     * @param a    the array to be sorted
+     * @param from the starting index of the range to sort, inclusive
+     * @param to   the ending index of the range to sort, exclusive
+     */
+    public void sort(X[] a, int from, int to) {
+        if (to - from < 2) return;
+        X[] aux = helper.copyArray(a);
+        pool.invoke(new SortTask(a, aux, from, to));
+    }
+
+    /**
+     * Shut down the pool (see {@link Config_Benchmark#closePool(ForkJoinPool)}) and close the Helper.
+     */
+    public void close() {
+        closePool(pool);
+        super.close();
+    }
+
+    /**
+     * @return the pool in which the sort runs.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sorts the range [from, to) into a, using aux (which holds the same elements in that range) as the source of
+     * the merge.
+     */
+    private class SortTask extends RecursiveAction {
+        SortTask(X[] a, X[] aux, int from, int to) {
+            this.a = a;
+            this.aux = aux;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            sort(a, aux, from, to);
+        }
+
+        private void sort(X[] a, X[] aux, int from, int to) {
+            if (to <= from + helper.cutoff()) {
+                insertionSort.sort(a, from, to);
+                return;
+            }
+            int mid = from + (to - from) / 2;
+            if (to - from < cutoff) {
+                sort(aux, a, from, mid);
+                sort(aux, a, mid, to);
+            } else invokeAll(new SortTask(aux, a, from, mid), new SortTask(aux, a, mid, to));
+            if (insurance && !helper.less(aux[mid], aux[mid - 1])) {
+                helper.copyBlock(aux, from, a, from, to - from);
+                return;
+            }
+            new MergeTask(aux, a, from, mid, mid, to, from).compute();
+        }
+
+        private final X[] a;
+        private final X[] aux;
+        private final int from;
+        private final int to;
+    }
+
+    /**
+     * Merges the sorted runs [lo1, hi1) and [lo2, hi2) of sorted into result starting at k.
+     */
+    private class MergeTask extends RecursiveAction {
+        MergeTask(X[] sorted, X[] result, int lo1, int hi1, int lo2, int hi2, int k) {
+            this.sorted = sorted;
+            this.result = result;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.k = k;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1, n2 = hi2 - lo2;
+            // NOTE: a split must leave both merges smaller, hence the minimum of 4.
+            if (n1 + n2 < Math.max(cutoff, 4)) {
+                merge(sorted, result, lo1, hi1, lo2, hi2, k);
+                return;
+            }
+            int split1, split2;
+            if (n1 >= n2) {
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = lowerBound(sorted, lo2, hi2, helper.get(sorted, split1));
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = upperBound(sorted, lo1, hi1, helper.get(sorted, split2));
+            }
+            // Each element of the second run which goes into the first merge is less than all the elements of the
+            // first run which go into the second merge.
+            if (helper.countFixes()) incrementFixes((long) (split2 - lo2) * (hi1 - split1));
+            invokeAll(new MergeTask(sorted, result, lo1, split1, lo2, split2, k),
+                    new MergeTask(sorted, result, split1, hi1, split2, hi2, k + (split1 - lo1) + (split2 - lo2)));
+        }
+
+        private final X[] sorted;
+        private final X[] result;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int k;
+    }
+
+    /**
+     * Merges the sorted runs [lo1, hi1) and [lo2, hi2) of sorted into result starting at k, on this thread.
+     * Equal elements of the first run precede those of the second.
+     */
+    private void merge(X[] sorted, X[] result, int lo1, int hi1, int lo2, int hi2, int k) {
+        int i = lo1;
+        int j = lo2;
+        if (i < hi1 && j < hi2) {
+            X v = helper.get(sorted, i);
+            X w = helper.get(sorted, j);
+            while (true)
+                if (helper.less(w, v)) {
+                    helper.incrementFixes(hi1 - i);
+                    helper.copy(w, result, k++);
+                    if (++j == hi2) break;
+                    w = helper.get(sorted, j);
+                } else {
+                    helper.copy(v, result, k++);
+                    if (++i == hi1) break;
+                    v = helper.get(sorted, i);
+                }
+        }
+        if (i < hi1) helper.copyBlock(sorted, i, result, k, hi1 - i);
+        else if (j < hi2) helper.copyBlock(sorted, j, result, k, hi2 - j);
+    }
+
+    // The first index in [lo, hi) whose element is not less than x
+    private int lowerBound(X[] xs, int lo, int hi, X x) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (helper.less(helper.get(xs, mid), x)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // The first index in [lo, hi) whose element is greater than x
+    private int upperBound(X[] xs, int lo, int hi, X x) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (helper.less(x, helper.get(xs, mid))) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    // NOTE: the Helper counts fixes as an int.
+    private void incrementFixes(long n) {
+        for (; n > 0; n -= Integer.MAX_VALUE) helper.incrementFixes((int) Math.min(n, Integer.MAX_VALUE));
+    }
+
+    private final int cutoff;
+    private final ForkJoinPool pool;
+    private final boolean insurance;
+    private final InsertionSort<X> insertionSort;
+}
@@ -0,0 +1,133 @@
+package com.phasmidsoftware.dsaipg.sort.par;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.sort.linearithmic.Partition;
+import com.phasmidsoftware.dsaipg.sort.linearithmic.QuickSort_DualPivot;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import com.phasmidsoftware.dsaipg.util.config.Config_Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.phasmidsoftware.dsaipg.sort.helper.InstrumentedComparatorHelper.getRunsConfig;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+
+/**
+ * Class ParQuickSort_DualPivot which extends QuickSort_DualPivot by sorting the three partitions of each
+ * partitioning step as parallel tasks in a {@link ForkJoinPool}.
+ * Partitions smaller than the (parallel) cutoff are sorted exactly as QuickSort_DualPivot sorts them, on one thread.
+ * <p>
+ * The cutoff and the number of threads are taken from the [parallel] section of the configuration
+ * (see {@link Config_Benchmark#createPool(int)}).
+ * The Helper is created by {@link HelperFactory#createConcurrent}, so that it can be instrumented.
+ *
+ * @param <X> the underlying comparable type.
+ */
+public class ParQuickSort_DualPivot<X extends Comparable<X>> extends QuickSort_DualPivot<X> {
+
+    public static final String DESCRIPTION = "QuickSort dual pivot (parallel)";
+
+    /**
+     * Constructor for ParQuickSort_DualPivot.
+     *
+     * @param N      the number elements we expect to sort.
+     * @param nRuns  the number of runs.
+     * @param config the configuration.
+     */
+    public ParQuickSort_DualPivot(int N, int nRuns, Config config) {
+        this(HelperFactory.createConcurrent(DESCRIPTION, N, getSeed(config), nRuns, config), getParallelCutoff(config), getParallelism(config));
+        closeHelper = true;
+    }
+
+    /**
+     * Constructor for ParQuickSort_DualPivot.
+     *
+     * @param N      the number elements we expect to sort.
+     * @param config the configuration.
+     */
+    public ParQuickSort_DualPivot(int N, Config config) {
+        this(N, getRunsConfig(config), config);
+    }
+
+    /**
+     * Constructor for ParQuickSort_DualPivot.
+     *
+     * @param helper      an explicit instance of Helper to be used (which must be thread-safe).
+     * @param cutoff      the size of partition below which sorting continues on one thread.
+     * @param parallelism the number of threads of the pool (see {@link Config_Benchmark#createPool(int)}).
+     */
+    public ParQuickSort_DualPivot(Helper<X> helper, int cutoff, int parallelism) {
+        super(helper);
+        this.cutoff = cutoff;
+        this.pool = createPool(parallelism);
+    }
+
+    /**
+     * Sort the sub-array xs[from] ... xs[to-1], in parallel if it is at least as large as the cutoff.
+     *
+     * @param xs    the complete array from which this sub-array derives.
+     * @param from  the index of the first element to sort.
+     * @param to    the index of the first element not to sort.
+     * @param depth the depth of the recursion.
+     */
+    public void sort(X[] xs, int from, int to, int depth) {
+        if (isSequential(to - from)) super.sort(xs, from, to, depth);
+        else pool.invoke(new SortTask(xs, from, to, depth));
+    }
+
+    /**
+     * Shut down the pool (see {@link Config_Benchmark#closePool(ForkJoinPool)}) and close the Helper.
+     */
+    public void close() {
+        closePool(pool);
+        super.close();
+    }
+
+    /**
+     * @return the pool in which the sort runs.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    // NOTE: partitions of three or fewer elements cannot be partitioned by dual pivot, whatever the cutoff.
+    private boolean isSequential(int n) {
+        return n < cutoff || n <= 3;
+    }
+
+    /**
+     * The sorting of one partition: partition it (on this thread) and sort the resulting partitions in parallel.
+     */
+    private class SortTask extends RecursiveAction {
+        SortTask(X[] xs, int from, int to, int depth) {
+            this.xs = xs;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (isSequential(to - from)) {
+                ParQuickSort_DualPivot.super.sort(xs, from, to, depth);
+                return;
+            }
+            getHelper().registerDepth(depth);
+            List<SortTask> tasks = new ArrayList<>();
+            for (Partition<X> p : partitioner.partition(createPartition(xs, from, to)))
+                tasks.add(new SortTask(p.xs, p.from, p.to, depth + 1));
+            invokeAll(tasks);
+        }
+
+        private final X[] xs;
+        private final int from;
+        private final int to;
+        private final int depth;
+    }
+
+    private final int cutoff;
+    private final ForkJoinPool pool;
+}
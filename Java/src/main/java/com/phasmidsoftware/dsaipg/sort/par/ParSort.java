@@ -1,14 +1,21 @@
 package com.phasmidsoftware.dsaipg.sort.par;
 
 import java.util.Arrays;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * ParSort is a class implementing a parallel sorting algorithm.
  * The sorting is executed using a fork-and-join approach,
  * where large arrays are divided into smaller portions and sorted concurrently.
  * Designed to optimize performance for sorting large integer arrays.
+ * <p>
+ * The sort is a merge sort of {@link RecursiveAction}s run in a given {@link ForkJoinPool}.
+ * One auxiliary array, the size of the range, is allocated per call and the levels of the recursion alternate
+ * ("ping-pong") between it and the input: each half is sorted into the other array, from which the halves are merged
+ * back, so nothing is copied apart from the leaves which must end up in the auxiliary array.
+ * The merges themselves are parallel: a large merge is split in two independent merges by taking the middle of the
+ * longer run and finding its place in the shorter run by binary search.
  * This code has been fleshed out by...
  * @author Ziyao Qiao. Thanks very much.
  */
@@ -19,99 +26,170 @@ final class ParSort {
      * to single-threaded sorting. If the size of the range to be sorted is smaller than
      * this value, {@link Arrays#sort} is used for single-threaded sorting. Otherwise,
      * the range is divided into smaller subarrays, which are sorted in parallel.
+     * Merges of fewer elements than the cutoff are likewise done by a single thread.
      * A larger cutoff value reduces the overhead of thread management but may limit
      * the advantages of parallelism.
      */
     public static int cutoff = 2048;
 
     /**
-     * Sorts the specified portion of the input array using a parallel sorting algorithm.
-     * If the range to be sorted is smaller than a predefined cutoff value, the method
-     * utilizes a single-threaded sorting based on {@link Arrays#sort}. For larger ranges,
-     * the array is divided into subarrays which are recursively sorted concurrently,
-     * and the results are merged into a single sorted array.
+     * Sorts the specified portion of the input array in the common pool.
      *
      * @param array the array to be sorted
      * @param from  the starting index (inclusive) of the portion of the array to be sorted
      * @param to    the ending index (exclusive) of the portion of the array to be sorted
      */
     public static void sort(int[] array, int from, int to) {
-        if (to - from >= cutoff) {
-            int mid = (from + to) / 2;
-
-            CompletableFuture<int[]> completableFuture1 = CompletableFuture.supplyAsync(() -> {
-                sort(array, from, mid);
-                return Arrays.copyOfRange(array, from, mid);
-            });
-
-            CompletableFuture<int[]> completableFuture2 = CompletableFuture.supplyAsync(() -> {
-                sort(array, mid, to);
-                return Arrays.copyOfRange(array, mid, to);
-            });
-            // TO BE IMPLEMENTED 
-            // END SOLUTION
-            CompletableFuture<int[]> completableFuture = completableFuture1.thenCombine(completableFuture2, ParSort::doMerge);
-            completableFuture.whenComplete((result, throwable) -> System.arraycopy(result, 0, array, from, result.length));
-            completableFuture.join();
-        } else
-            Arrays.sort(array, from, to);
+        sort(array, from, to, ForkJoinPool.commonPool());
     }
 
     /**
-     * Recursively sorts a specified portion of the input array and returns a new sorted array.
-     * This method extracts the specified range, sorts it using a defined sorting mechanism,
-     * and provides the sorted result as a new array, leaving the input array unchanged.
+     * Sorts the specified portion of the input array using a parallel sorting algorithm in the given pool.
+     * If the range to be sorted is smaller than a predefined cutoff value, the method
+     * utilizes a single-threaded sorting based on {@link Arrays#sort}. For larger ranges,
+     * the range is divided into halves which are recursively sorted concurrently,
+     * and the results are merged (also concurrently).
      *
-     * @param array the input array from which a portion will be sorted
+     * @param array the array to be sorted
      * @param from  the starting index (inclusive) of the portion of the array to be sorted
      * @param to    the ending index (exclusive) of the portion of the array to be sorted
-     * @return a new sorted array containing the elements from the specified range of the input array
+     * @param pool  the pool whose threads do the sorting
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; array.length
+     * @throws IllegalArgumentException       if from &gt; to
      */
-    static int[] sortRecursive(int[] array, int from, int to) {
-        int[] result = new int[to - from];
-        // TO BE IMPLEMENTED 
-         // NOTE you need to do something here so that result is the sorted version of array.
-        System.arraycopy(array, from, result, 0, result.length);
-        sort(result, 0, result.length);
-        // END SOLUTION
-        return result;
+    public static void sort(int[] array, int from, int to, ForkJoinPool pool) {
+        if (to - from < threshold()) {
+            Arrays.sort(array, from, to);
+            return;
+        }
+        if (from < 0) throw new ArrayIndexOutOfBoundsException(from);
+        if (to > array.length) throw new ArrayIndexOutOfBoundsException(to);
+        int[] aux = new int[to - from];
+        pool.invoke(new SortTask(array, from, aux, 0, 0, to - from, false));
     }
 
     /**
-     * Merges two sorted arrays into a single sorted array.
-     * The method assumes that both input arrays are already sorted in ascending order,
-     * and combines them into a new sorted array.
-     *
-     * @param xs1 the first sorted input array
-     * @param xs2 the second sorted input array
-     * @return a new sorted array containing all elements from both input arrays
+     * Sorts the logical range [lo, hi) of a pair of arrays: a (in which position i is a[aBase + i]) and
+     * b (in which position i is b[bBase + i]).
+     * The unsorted elements are in a; the sorted elements end up in b if toB is true, otherwise in a.
+     * The contents of the range of b are overwritten in either case.
      */
-    static int[] doMerge(int[] xs1, int[] xs2) {
-        int[] result = new int[xs1.length + xs2.length];
-        int i = 0;
-        int j = 0;
-        for (int k = 0; k < result.length; k++) {
-            if (i >= xs1.length) result[k] = xs2[j++];
-            else if (j >= xs2.length) result[k] = xs1[i++];
-            else if (xs2[j] < xs1[i]) result[k] = xs2[j++];
-            else result[k] = xs1[i++];
+    static final class SortTask extends RecursiveAction {
+        SortTask(int[] a, int aBase, int[] b, int bBase, int lo, int hi, boolean toB) {
+            this.a = a;
+            this.aBase = aBase;
+            this.b = b;
+            this.bBase = bBase;
+            this.lo = lo;
+            this.hi = hi;
+            this.toB = toB;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < threshold()) {
+                Arrays.sort(a, aBase + lo, aBase + hi);
+                if (toB) System.arraycopy(a, aBase + lo, b, bBase + lo, hi - lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            // Sort each half into the array which is not the destination, then merge them into the destination
+            invokeAll(new SortTask(a, aBase, b, bBase, lo, mid, !toB), new SortTask(a, aBase, b, bBase, mid, hi, !toB));
+            if (toB) new MergeTask(a, aBase, b, bBase, lo, mid, mid, hi, lo).compute();
+            else new MergeTask(b, bBase, a, aBase, lo, mid, mid, hi, lo).compute();
         }
-        return result;
+
+        private final int[] a;
+        private final int aBase;
+        private final int[] b;
+        private final int bBase;
+        private final int lo;
+        private final int hi;
+        private final boolean toB;
     }
 
     /**
-     * Asynchronously sorts the specified portion of the input array using a parallel sorting algorithm.
-     * This method extracts a subsection of the given array, sorts it, and returns a CompletableFuture
-     * containing the sorted portion of the array.
-     *
-     * @param array the input array to extract and sort
-     * @param from  the starting index (inclusive) of the portion of the array to be sorted
-     * @param to    the ending index (exclusive) of the portion of the array to be sorted
-     * @return a CompletableFuture containing the sorted section of the array
+     * Merges the sorted runs [lo1, hi1) and [lo2, hi2) of src (offset by srcBase) into dst (offset by dstBase)
+     * starting at position k.
+     * Large merges are split in two: the middle element of the longer run is located in the shorter run by binary
+     * search, so that everything before the split in both runs precedes everything after it.
+     * Equal elements of the first run precede those of the second.
      */
-    static CompletableFuture<int[]> asyncSort(int[] array, int from, int to) {
-        return CompletableFuture.supplyAsync(
-                () -> sortRecursive(array, from, to)
-        );
+    static final class MergeTask extends RecursiveAction {
+        MergeTask(int[] src, int srcBase, int[] dst, int dstBase, int lo1, int hi1, int lo2, int hi2, int k) {
+            this.src = src;
+            this.srcBase = srcBase;
+            this.dst = dst;
+            this.dstBase = dstBase;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.k = k;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1, n2 = hi2 - lo2;
+            if (n1 + n2 < threshold()) {
+                merge(src, srcBase + lo1, srcBase + hi1, srcBase + lo2, srcBase + hi2, dst, dstBase + k);
+                return;
+            }
+            int split1, split2;
+            if (n1 >= n2) {
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = lowerBound(src, srcBase, lo2, hi2, src[srcBase + split1]);
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = upperBound(src, srcBase, lo1, hi1, src[srcBase + split2]);
+            }
+            int k2 = k + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask(src, srcBase, dst, dstBase, lo1, split1, lo2, split2, k),
+                    new MergeTask(src, srcBase, dst, dstBase, split1, hi1, split2, hi2, k2));
+        }
+
+        private final int[] src;
+        private final int srcBase;
+        private final int[] dst;
+        private final int dstBase;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int k;
+    }
+
+    // The cutoff, but at least 4 so that a split always makes both parts smaller
+    private static int threshold() {
+        return Math.max(cutoff, 4);
+    }
+
+    /**
+     * Merges the sorted ranges xs[i, iEnd) and xs[j, jEnd) into ys starting at k.
+     */
+    static void merge(int[] xs, int i, int iEnd, int j, int jEnd, int[] ys, int k) {
+        while (i < iEnd && j < jEnd) ys[k++] = xs[j] < xs[i] ? xs[j++] : xs[i++];
+        if (i < iEnd) System.arraycopy(xs, i, ys, k, iEnd - i);
+        else if (j < jEnd) System.arraycopy(xs, j, ys, k, jEnd - j);
+    }
+
+    // The first position in [lo, hi) whose element is not less than x
+    private static int lowerBound(int[] xs, int base, int lo, int hi, int x) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[base + mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // The first position in [lo, hi) whose element is greater than x
+    private static int upperBound(int[] xs, int base, int lo, int hi, int x) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xs[base + mid] <= x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
     }
-}
\ No newline at end of file
+}
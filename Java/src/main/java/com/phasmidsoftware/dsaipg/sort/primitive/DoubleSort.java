@@ -0,0 +1,115 @@
+package com.phasmidsoftware.dsaipg.sort.primitive;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Instrument;
+
+import java.util.Arrays;
+
+/**
+ * Sorts of double[] which avoid boxing (see {@link PrimitiveSort}).
+ * <p>
+ * The order is that of {@link Double#compare}: -0.0 precedes 0.0 and NaN follows everything else.
+ */
+public class DoubleSort extends PrimitiveSort<double[]> {
+
+    /**
+     * Constructor for DoubleSort.
+     *
+     * @param algorithm  the algorithm.
+     * @param shellMode  the gap sequence for shell sort (see ShellSort); ignored by the other algorithms.
+     * @param instrument the Instrument to which the counts are reported, or null if there is to be no counting.
+     */
+    public DoubleSort(Algorithm algorithm, int shellMode, Instrument instrument) {
+        super(algorithm, shellMode, instrument);
+    }
+
+    /**
+     * Constructor for DoubleSort with the default gap sequence for shell sort.
+     *
+     * @param algorithm  the algorithm.
+     * @param instrument the Instrument to which the counts are reported, or null if there is to be no counting.
+     */
+    public DoubleSort(Algorithm algorithm, Instrument instrument) {
+        this(algorithm, SHELL_MODE_DEFAULT, instrument);
+    }
+
+    /**
+     * Constructor for an uninstrumented DoubleSort.
+     *
+     * @param algorithm the algorithm.
+     */
+    public DoubleSort(Algorithm algorithm) {
+        this(algorithm, null);
+    }
+
+    protected int length(double[] xs) {
+        return xs.length;
+    }
+
+    protected double[] copyOf(double[] xs, int length) {
+        return Arrays.copyOf(xs, length);
+    }
+
+    protected void hSort(double[] xs, int from, int to, int gap) {
+        for (int i = from + gap; i < to; i++) {
+            double x = xs[i];
+            int j = i;
+            for (; j >= from + gap && less(x, xs[j - gap]); j -= gap) xs[j] = xs[j - gap];
+            xs[j] = x;
+            if (j != i) swapped((i - j) / gap);
+        }
+    }
+
+    protected void merge(double[] sorted, double[] result, int from, int mid, int to) {
+        int i = from, j = mid;
+        for (int k = from; k < to; k++)
+            if (i >= mid) result[k] = sorted[j++];
+            else if (j >= to) result[k] = sorted[i++];
+            else if (less(sorted[j], sorted[i])) result[k] = sorted[j++];
+            else result[k] = sorted[i++];
+    }
+
+    protected long partition(double[] xs, int from, int to) {
+        double p = xs[from], q = xs[to - 1];
+        int lt = from + 1, gt = to - 2, i = from + 1;
+        while (i <= gt) {
+            double x = xs[i];
+            if (less(x, p)) swap(xs, lt++, i++);
+            else if (less(q, x)) swap(xs, i, gt--);
+            else i++;
+        }
+        swap(xs, from, --lt);
+        swap(xs, to - 1, ++gt);
+        return (long) lt << 32 | gt;
+    }
+
+    protected void sink(double[] xs, int from, int k, int n) {
+        double x = xs[from + k - 1];
+        while (2 * k <= n) {
+            int child = 2 * k;
+            if (child < n && less(xs[from + child - 1], xs[from + child])) child++;
+            if (!less(x, xs[from + child - 1])) break;
+            xs[from + k - 1] = xs[from + child - 1];
+            k = child;
+        }
+        xs[from + k - 1] = x;
+    }
+
+    protected void swap(double[] xs, int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        swapped(1);
+    }
+
+    protected boolean less(double[] xs, int i, int j) {
+        return less(xs[i], xs[j]);
+    }
+
+    // NOTE: the order is that of Double.compare, but without its cost unless x and y are equal (or NaN).
+    private boolean less(double x, double y) {
+        compared();
+        if (x < y) return true;
+        if (x > y) return false;
+        return Double.compare(x, y) < 0;
+    }
+}
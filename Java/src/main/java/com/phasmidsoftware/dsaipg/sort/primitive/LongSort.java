@@ -0,0 +1,110 @@
+package com.phasmidsoftware.dsaipg.sort.primitive;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Instrument;
+
+import java.util.Arrays;
+
+/**
+ * Sorts of long[] which avoid boxing (see {@link PrimitiveSort}).
+ */
+public class LongSort extends PrimitiveSort<long[]> {
+
+    /**
+     * Constructor for LongSort.
+     *
+     * @param algorithm  the algorithm.
+     * @param shellMode  the gap sequence for shell sort (see ShellSort); ignored by the other algorithms.
+     * @param instrument the Instrument to which the counts are reported, or null if there is to be no counting.
+     */
+    public LongSort(Algorithm algorithm, int shellMode, Instrument instrument) {
+        super(algorithm, shellMode, instrument);
+    }
+
+    /**
+     * Constructor for LongSort with the default gap sequence for shell sort.
+     *
+     * @param algorithm  the algorithm.
+     * @param instrument the Instrument to which the counts are reported, or null if there is to be no counting.
+     */
+    public LongSort(Algorithm algorithm, Instrument instrument) {
+        this(algorithm, SHELL_MODE_DEFAULT, instrument);
+    }
+
+    /**
+     * Constructor for an uninstrumented LongSort.
+     *
+     * @param algorithm the algorithm.
+     */
+    public LongSort(Algorithm algorithm) {
+        this(algorithm, null);
+    }
+
+    protected int length(long[] xs) {
+        return xs.length;
+    }
+
+    protected long[] copyOf(long[] xs, int length) {
+        return Arrays.copyOf(xs, length);
+    }
+
+    protected void hSort(long[] xs, int from, int to, int gap) {
+        for (int i = from + gap; i < to; i++) {
+            long x = xs[i];
+            int j = i;
+            for (; j >= from + gap && less(x, xs[j - gap]); j -= gap) xs[j] = xs[j - gap];
+            xs[j] = x;
+            if (j != i) swapped((i - j) / gap);
+        }
+    }
+
+    protected void merge(long[] sorted, long[] result, int from, int mid, int to) {
+        int i = from, j = mid;
+        for (int k = from; k < to; k++)
+            if (i >= mid) result[k] = sorted[j++];
+            else if (j >= to) result[k] = sorted[i++];
+            else if (less(sorted[j], sorted[i])) result[k] = sorted[j++];
+            else result[k] = sorted[i++];
+    }
+
+    protected long partition(long[] xs, int from, int to) {
+        long p = xs[from], q = xs[to - 1];
+        int lt = from + 1, gt = to - 2, i = from + 1;
+        while (i <= gt) {
+            long x = xs[i];
+            if (less(x, p)) swap(xs, lt++, i++);
+            else if (less(q, x)) swap(xs, i, gt--);
+            else i++;
+        }
+        swap(xs, from, --lt);
+        swap(xs, to - 1, ++gt);
+        return (long) lt << 32 | gt;
+    }
+
+    protected void sink(long[] xs, int from, int k, int n) {
+        long x = xs[from + k - 1];
+        while (2 * k <= n) {
+            int child = 2 * k;
+            if (child < n && less(xs[from + child - 1], xs[from + child])) child++;
+            if (!less(x, xs[from + child - 1])) break;
+            xs[from + k - 1] = xs[from + child - 1];
+            k = child;
+        }
+        xs[from + k - 1] = x;
+    }
+
+    protected void swap(long[] xs, int i, int j) {
+        long x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        swapped(1);
+    }
+
+    protected boolean less(long[] xs, int i, int j) {
+        return less(xs[i], xs[j]);
+    }
+
+    private boolean less(long x, long y) {
+        compared();
+        return x < y;
+    }
+}
@@ -0,0 +1,274 @@
+package com.phasmidsoftware.dsaipg.sort.primitive;
+
+import com.phasmidsoftware.dsaipg.sort.elementary.ShellSort;
+import com.phasmidsoftware.dsaipg.sort.helper.Instrument;
+
+/**
+ * Base class of the sorts of primitive arrays: {@link IntSort}, {@link LongSort} and {@link DoubleSort}.
+ * <p>
+ * These sorts work directly on int[], long[] and double[], so that numbers can be sorted without boxing them and
+ * without going through a Helper and Comparable.
+ * Each offers the same algorithms (see {@link Algorithm}), which follow those of sort.elementary and
+ * sort.linearithmic.
+ * <p>
+ * The algorithms themselves (the choice of gaps, the recursion of merge sort and quicksort, the depth limit and the
+ * heap) are here, once for all three types.
+ * They work on ranges of the array through a handful of abstract methods (h-sort, merge, partition, sink, ...),
+ * which hold the loops over the elements: those loops are written out for each type so that the elements are never
+ * boxed, and so that each is compiled for its own type.
+ * <p>
+ * Instrumentation is optional: if an {@link Instrument} (for example, an Instrumenter) is given, the sort reports
+ * to it the number of compares, swaps and copies (each move of an element by insertion sort or shell sort counts
+ * as one swap, as it does when those sorts work by swapping).
+ * Otherwise, the sort does no counting at all.
+ *
+ * @param <A> the type of the array (int[], long[] or double[]).
+ */
+public abstract class PrimitiveSort<A> {
+
+    /**
+     * The algorithms available to the primitive sorts.
+     */
+    public enum Algorithm {
+        INSERTION, SHELL, MERGE, QUICK_DUAL_PIVOT, HEAP, INTRO
+    }
+
+    /**
+     * The gap sequence used by shell sort unless another is specified (see ShellSort).
+     */
+    public static final int SHELL_MODE_DEFAULT = 3;
+
+    /**
+     * Constructor for PrimitiveSort.
+     *
+     * @param algorithm  the algorithm.
+     * @param shellMode  the gap sequence for shell sort (see ShellSort); ignored by the other algorithms.
+     * @param instrument the Instrument to which the counts are reported, or null if there is to be no counting.
+     */
+    protected PrimitiveSort(Algorithm algorithm, int shellMode, Instrument instrument) {
+        this.algorithm = algorithm;
+        this.shellMode = shellMode;
+        this.instrument = instrument;
+        this.instrumenting = instrument != null;
+    }
+
+    /**
+     * Sorts the given array.
+     *
+     * @param xs the array to be sorted.
+     */
+    public void sort(A xs) {
+        sort(xs, 0, length(xs));
+    }
+
+    /**
+     * Sorts the given array, either in place or in a copy.
+     *
+     * @param xs       the array to be sorted.
+     * @param makeCopy if true, xs is left as it is and a sorted copy is returned.
+     * @return the sorted array.
+     */
+    public A sort(A xs, boolean makeCopy) {
+        A result = makeCopy ? copyOf(xs, length(xs)) : xs;
+        sort(result);
+        return result;
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array.
+     *
+     * @param xs   the array to be sorted.
+     * @param from the index of the first element to be sorted.
+     * @param to   the index of the first element not to be sorted.
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; the length of xs.
+     * @throws IllegalArgumentException       if from &gt; to.
+     */
+    public void sort(A xs, int from, int to) {
+        checkRange(length(xs), from, to);
+        if (to - from < 2) return;
+        switch (algorithm) {
+            case INSERTION -> hSort(xs, from, to, 1);
+            case SHELL -> shellSort(xs, from, to);
+            case MERGE -> mergeSort(xs, from, to);
+            case QUICK_DUAL_PIVOT -> quickSort(xs, from, to, Integer.MAX_VALUE);
+            case HEAP -> heapSort(xs, from, to);
+            case INTRO -> quickSort(xs, from, to, depthLimit(to - from));
+        }
+    }
+
+    /**
+     * @return the algorithm of this sort.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the Instrument to which this sort reports its counts (or null).
+     */
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * @return a description of this sort.
+     */
+    public String toString() {
+        return getClass().getSimpleName() + ": " + algorithm + (instrumenting ? " (instrumented)" : "");
+    }
+
+    /**
+     * @return the length of xs.
+     */
+    protected abstract int length(A xs);
+
+    /**
+     * @return a copy of the first length elements of xs.
+     */
+    protected abstract A copyOf(A xs, int length);
+
+    /**
+     * Insertion sort of each of the gap-separated subsequences of [from, to), moving rather than swapping elements.
+     */
+    protected abstract void hSort(A xs, int from, int to, int gap);
+
+    /**
+     * Merge the sorted ranges [from, mid) and [mid, to) of sorted into the same range of result (stably).
+     */
+    protected abstract void merge(A sorted, A result, int from, int mid, int to);
+
+    /**
+     * Dual-pivot partition of [from, to), the pivots being at from and at to - 1 (the first no greater than the
+     * second).
+     * When it is done, the pivots are in their final places, lt and gt: the elements of [from, lt) are less than the
+     * first, those of (gt, to) are greater than the second, and those of (lt, gt) lie between them.
+     *
+     * @return lt in the high half and gt in the low half (so that partitioning need not allocate).
+     */
+    protected abstract long partition(A xs, int from, int to);
+
+    /**
+     * Sink element k of the heap of n elements which starts at from (the heap being indexed from 1).
+     */
+    protected abstract void sink(A xs, int from, int k, int n);
+
+    protected abstract void swap(A xs, int i, int j);
+
+    /**
+     * @return true if xs[i] precedes xs[j].
+     */
+    protected abstract boolean less(A xs, int i, int j);
+
+    /**
+     * Checks that [from, to) is a valid range of an array of the given length.
+     *
+     * @param length the length of the array.
+     * @param from   the index of the first element to be sorted.
+     * @param to     the index of the first element not to be sorted.
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; length.
+     * @throws IllegalArgumentException       if from &gt; to.
+     */
+    protected static void checkRange(int length, int from, int to) {
+        if (from > to) throw new IllegalArgumentException("from (" + from + ") must not be greater than to (" + to + ")");
+        if (from < 0) throw new ArrayIndexOutOfBoundsException(from);
+        if (to > length) throw new ArrayIndexOutOfBoundsException(to);
+    }
+
+    /**
+     * The depth of partitioning beyond which intro sort switches to heap sort (as in IntroSort).
+     *
+     * @param n the number of elements to be sorted.
+     * @return twice the floor of lg n.
+     */
+    protected static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(n));
+    }
+
+    protected void compared() {
+        if (instrumenting) instrument.incrementCompares();
+    }
+
+    protected void swapped(int n) {
+        if (instrumenting) instrument.incrementSwaps(n);
+    }
+
+    protected void copied(int n) {
+        if (instrumenting) instrument.incrementCopies(n);
+    }
+
+    private void shellSort(A xs, int from, int to) {
+        for (int gap : ShellSort.gaps(to - from, shellMode)) hSort(xs, from, to, gap);
+    }
+
+    private void mergeSort(A xs, int from, int to) {
+        A aux = copyOf(xs, to);
+        copied(to - from);
+        mergeSort(xs, aux, from, to);
+    }
+
+    /**
+     * Sorts [from, to) into a, using aux (which holds the same elements in that range) as the source of the merge.
+     * As in MergeSort (with nocopy), a and aux take turns as source and destination.
+     */
+    private void mergeSort(A a, A aux, int from, int to) {
+        if (to - from <= INSERTION_CUTOFF) {
+            hSort(a, from, to, 1);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(aux, a, from, mid);
+        mergeSort(aux, a, mid, to);
+        // NOTE: the "insurance" of MergeSort: there is nothing to merge if the halves are already in order.
+        if (!less(aux, mid, mid - 1)) System.arraycopy(aux, from, a, from, to - from);
+        else merge(aux, a, from, mid, to);
+        copied(to - from);
+    }
+
+    /**
+     * Dual-pivot quicksort of [from, to), which switches to heap sort once depth reaches zero.
+     * The pivots are taken from the thirds of the range, so that ordered input does not degrade.
+     */
+    private void quickSort(A xs, int from, int to, int depth) {
+        int n = to - from;
+        if (n <= INSERTION_CUTOFF) {
+            hSort(xs, from, to, 1);
+            return;
+        }
+        if (depth == 0) {
+            heapSort(xs, from, to);
+            return;
+        }
+        swap(xs, from, from + n / 3);
+        swap(xs, to - 1, to - 1 - n / 3);
+        if (less(xs, to - 1, from)) swap(xs, from, to - 1);
+        long partition = partition(xs, from, to);
+        int lt = (int) (partition >>> 32), gt = (int) partition;
+        quickSort(xs, from, lt, depth - 1);
+        // NOTE: if the pivots are equal, so is everything between them.
+        if (less(xs, lt, gt)) quickSort(xs, lt + 1, gt, depth - 1);
+        quickSort(xs, gt + 1, to, depth - 1);
+    }
+
+    /**
+     * Heap sort of [from, to), in which the heap is indexed from 1 (as in IntroSort).
+     */
+    private void heapSort(A xs, int from, int to) {
+        int n = to - from;
+        for (int k = n / 2; k >= 1; k--) sink(xs, from, k, n);
+        for (int k = n; k > 1; k--) {
+            swap(xs, from, from + k - 1);
+            sink(xs, from, 1, k - 1);
+        }
+    }
+
+    /**
+     * Ranges of no more than this number of elements are finished by insertion sort
+     * (by merge sort, dual-pivot quicksort and intro sort).
+     */
+    protected static final int INSERTION_CUTOFF = 16;
+
+    protected final Algorithm algorithm;
+    protected final int shellMode;
+    private final Instrument instrument;
+    private final boolean instrumenting;
+}
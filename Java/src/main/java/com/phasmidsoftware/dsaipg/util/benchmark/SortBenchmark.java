@@ -6,15 +6,22 @@ package com.phasmidsoftware.dsaipg.util.benchmark;
 import com.phasmidsoftware.dsaipg.sort.classic.BucketSort;
 import com.phasmidsoftware.dsaipg.sort.counting.LSDStringSort;
 import com.phasmidsoftware.dsaipg.sort.counting.MSDStringSort;
+import com.phasmidsoftware.dsaipg.sort.counting.ParMSDStringSort;
+import com.phasmidsoftware.dsaipg.sort.counting.ParallelRadixSort;
 import com.phasmidsoftware.dsaipg.sort.elementary.*;
 import com.phasmidsoftware.dsaipg.sort.generic.Sort;
 import com.phasmidsoftware.dsaipg.sort.generic.SortException;
 import com.phasmidsoftware.dsaipg.sort.generic.SortWithComparableHelper;
 import com.phasmidsoftware.dsaipg.sort.generic.SortWithHelper;
 import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.Instrumenter;
 import com.phasmidsoftware.dsaipg.sort.helper.NonInstrumentingComparableHelper;
 import com.phasmidsoftware.dsaipg.sort.linearithmic.TimSort;
 import com.phasmidsoftware.dsaipg.sort.linearithmic.*;
+import com.phasmidsoftware.dsaipg.sort.par.ParMergeSort;
+import com.phasmidsoftware.dsaipg.sort.par.ParQuickSort_DualPivot;
+import com.phasmidsoftware.dsaipg.sort.primitive.IntSort;
+import com.phasmidsoftware.dsaipg.sort.primitive.PrimitiveSort;
 import com.phasmidsoftware.dsaipg.util.config.Config;
 import com.phasmidsoftware.dsaipg.util.general.CodePointMapper;
 import com.phasmidsoftware.dsaipg.util.general.Utilities;
@@ -25,6 +32,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.chrono.ChronoLocalDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -33,6 +41,10 @@ import java.util.stream.Stream;
 import static com.phasmidsoftware.dsaipg.sort.helper.InstrumentedComparatorHelper.AT;
 import static com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort.MERGESORT;
 import static com.phasmidsoftware.dsaipg.util.benchmark.SortBenchmarkHelper.*;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.closePool;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.createPool;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.getParallelism;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.getSeed;
 import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.isInstrumented;
 import static com.phasmidsoftware.dsaipg.util.general.Utilities.formatWhole;
 
@@ -119,6 +131,10 @@ public class SortBenchmark {
             runIntegerBucketSort((int) N, estimateRuns(totalWork * 2, N));
         if (isConfigBenchmarkIntegerSorter("quicksort"))
             runIntegerQuickSort((int) N, 10 * estimateRuns(totalWork, Math.log(N) * N));
+        if (isConfigBenchmarkIntegerSorter("parquicksort"))
+            runIntegerParQuickSort((int) N, 10 * estimateRuns(totalWork, Math.log(N) * N));
+        if (isConfigBenchmarkIntegerSorter("radixsort"))
+            runIntegerRadixSort((int) N, estimateRuns(totalWork, N));
     }
 
     /**
@@ -196,6 +212,13 @@ public class SortBenchmark {
 //            }
         }
 
+        if (isConfigBenchmarkStringSorter("MSDparallel") && nRunsLinear > 0) {
+            int nRuns = nRunsLinear * 5;
+            try (SortWithHelper<String> sorter = new ParMSDStringSort(CodePointMapper.ASCIIExt, nWords, nRuns, config)) {
+                runStringSortBenchmark(words, nWords, nRuns, sorter, timeLoggersLinear);
+            }
+        }
+
         // Linearithmic sorts
         if (isConfigBenchmarkStringSorter("timsort") && nRunsLinearithmic > 0)
             try (SortWithHelper<String> sorter = TimSort.CaseInsensitiveSort(nWords, config)) {
@@ -205,6 +228,11 @@ public class SortBenchmark {
         if (isConfigBenchmarkStringSorter(MERGESORT))
             runMergeSortBenchmark(words, nWords, nRunsLinearithmic * 4, config);
 
+        if (isConfigBenchmarkStringSorter("parmergesort") && nRunsLinearithmic > 0)
+            try (SortWithHelper<String> sorter = new ParMergeSort<>(nWords, nRunsLinearithmic, config)) {
+                runStringSortBenchmark(words, nWords, nRunsLinearithmic * 4, sorter, timeLoggersLinearithmic);
+            }
+
         if (isConfigBenchmarkStringSorter("quicksort3way") && nRunsLinearithmic > 0)
             try (SortWithHelper<String> sorter = new QuickSort_3way<>(nWords, nRunsLinearithmic, config)) {
                 runStringSortBenchmark(words, nWords, nRunsLinearithmic * 3, sorter, timeLoggersLinearithmic);
@@ -215,6 +243,11 @@ public class SortBenchmark {
                 runStringSortBenchmark(words, nWords, nRunsLinearithmic * 4, sorter, timeLoggersLinearithmic);
             }
 
+        if (isConfigBenchmarkStringSorter("parquicksortDualPivot") && nRunsLinearithmic > 0)
+            try (SortWithHelper<String> sorter = new ParQuickSort_DualPivot<>(nWords, nRunsLinearithmic, config)) {
+                runStringSortBenchmark(words, nWords, nRunsLinearithmic * 4, sorter, timeLoggersLinearithmic);
+            }
+
         if (isConfigBenchmarkStringSorter("quicksort") && nRunsLinearithmic > 0)
             try (SortWithHelper<String> sorter = new QuickSort_Basic<>(nWords, nRunsLinearithmic, config)) {
                 runStringSortBenchmark(words, nWords, nRunsLinearithmic * 3, sorter, timeLoggersLinearithmic);
@@ -369,6 +402,7 @@ public class SortBenchmark {
         SortWithHelper<Integer> sorter = new ShellSort<>(m, N, runs, config);
         Integer[] numbers = sorter.getHelper().random(Integer.class, Random::nextInt);
         runIntegerSortBenchmark(numbers, N, runs, sorter, sorter::preProcess, timeLoggersSubQuadratic);
+        runIntSortBenchmark(numbers, N, runs, PrimitiveSort.Algorithm.SHELL, m, timeLoggersSubQuadratic);
     }
 
     /**
@@ -383,6 +417,80 @@ public class SortBenchmark {
         SortWithHelper<Integer> sorter = new QuickSort_DualPivot<>(N, runs, config);
         Integer[] numbers = sorter.getHelper().random(Integer.class, Random::nextInt);
         runIntegerSortBenchmark(numbers, N, runs, sorter, sorter::preProcess, timeLoggersLinearithmic);
+        runIntSortBenchmark(numbers, N, runs, PrimitiveSort.Algorithm.QUICK_DUAL_PIVOT, PrimitiveSort.SHELL_MODE_DEFAULT, timeLoggersLinearithmic);
+    }
+
+    /**
+     * Executes a benchmark for sorting the same integers as an int[], using an {@link IntSort} (i.e. without boxing),
+     * so that the result can be compared directly with that of the corresponding generic sort.
+     * If the configuration is instrumented, the counts are gathered by an {@link Instrumenter} and logged.
+     *
+     * @param numbers     the integers from which each run's array is drawn at random (as by SorterBenchmark).
+     * @param N           the number of integers.
+     * @param runs        the number of runs.
+     * @param algorithm   the algorithm of the IntSort.
+     * @param shellMode   the gap sequence for shell sort (ignored by the other algorithms).
+     * @param timeLoggers the TimeLoggers.
+     */
+    private void runIntSortBenchmark(Integer[] numbers, int N, int runs, PrimitiveSort.Algorithm algorithm, int shellMode, TimeLogger[] timeLoggers) {
+        int[] xs = Arrays.stream(numbers).mapToInt(Integer::intValue).toArray();
+        Instrumenter instrumenter = isInstrumented(config) ? new Instrumenter(config) : null;
+        IntSort sorter = new IntSort(algorithm, shellMode, instrumenter);
+        String description = sorter.toString();
+        logger.info("****************************** Integer sort: " + runs + " runs of " + N + " " + description + " ******************************");
+        Random random = new Random(getSeed(config));
+        UnaryOperator<int[]> preProcessor = ys -> {
+            // NOTE: init resets the counts (including those of the warmup runs).
+            if (instrumenter != null) instrumenter.init(N, runs);
+            return ys;
+        };
+        Consumer<int[]> postProcessor = instrumenter != null ? ys -> instrumenter.gatherStatistic() : null;
+        double time = new Benchmark_Timer<>(description, preProcessor, sorter::sort, postProcessor).runFromSupplier(() -> random.ints(N, 0, xs.length).map(i -> xs[i]).toArray(), runs);
+        for (TimeLogger timeLogger : timeLoggers) timeLogger.log(description, time, N);
+        if (instrumenter != null && instrumenter.isShowStats()) logger.info(N + AT + description + ": " + instrumenter.getStatPack());
+    }
+
+    /**
+     * Executes a benchmark for sorting an array of integers using the parallel QuickSort with dual pivot,
+     * for comparison with {@link #runIntegerQuickSort(int, int)}.
+     *
+     * @param N    the size of the dataset to be sorted, representing the number of integers in the array.
+     * @param runs the number of sorting operations to be performed for benchmarking purposes.
+     */
+    private void runIntegerParQuickSort(int N, final int runs) {
+        try (SortWithHelper<Integer> sorter = new ParQuickSort_DualPivot<>(N, runs, config)) {
+            Integer[] numbers = sorter.getHelper().random(Integer.class, Random::nextInt);
+            runIntegerSortBenchmark(numbers, N, runs, sorter, sorter::preProcess, timeLoggersLinearithmic);
+        }
+    }
+
+    /**
+     * Executes a benchmark for sorting an int[] using the parallel (byte-wise) LSD radix sort,
+     * together with the same benchmark for {@link Arrays#parallelSort(int[])} for comparison.
+     * Both run in the common pool (Arrays.parallelSort cannot run anywhere else), so that they compare like for like.
+     * If the [parallel] section of the configuration sets a parallelism, the radix sort is also run in a pool of that
+     * many threads.
+     *
+     * @param N    the size of the dataset to be sorted, representing the number of integers in the array.
+     * @param runs the number of sorting operations to be performed for benchmarking purposes.
+     */
+    private void runIntegerRadixSort(int N, final int runs) {
+        Random random = new Random(getSeed(config));
+        Supplier<int[]> supplier = () -> random.ints(N).toArray();
+        logger.info("****************************** Integer sort: " + runs + " runs of " + N + " RadixSort (parallel) ******************************");
+        runIntegerArraySort("RadixSort (parallel)", new ParallelRadixSort()::sort, supplier, N, runs);
+        runIntegerArraySort("Arrays.parallelSort", Arrays::parallelSort, supplier, N, runs);
+        int parallelism = getParallelism(config);
+        if (parallelism > 0) {
+            ForkJoinPool pool = createPool(parallelism);
+            runIntegerArraySort("RadixSort (parallel, " + parallelism + " threads)", new ParallelRadixSort(pool, ParallelRadixSort.CUTOFF_DEFAULT)::sort, supplier, N, runs);
+            closePool(pool);
+        }
+    }
+
+    private void runIntegerArraySort(String description, Consumer<int[]> sort, Supplier<int[]> supplier, int N, int runs) {
+        double time = new Benchmark_Timer<>(description, sort).runFromSupplier(supplier, runs);
+        for (TimeLogger timeLogger : timeLoggersLinear) timeLogger.log(description, time, N);
     }
 
     /**
@@ -4,6 +4,8 @@ import com.phasmidsoftware.dsaipg.sort.helper.BaseHelper;
 import com.phasmidsoftware.dsaipg.sort.helper.Instrumenter;
 import org.ini4j.Ini;
 
+import java.util.concurrent.ForkJoinPool;
+
 import static com.phasmidsoftware.dsaipg.sort.helper.InstrumentedComparableHelper.*;
 import static com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort.INSURANCE;
 import static com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort.NOCOPY;
@@ -22,6 +24,9 @@ public class Config_Benchmark {
     public static final String CUTOFF = "cutoff";
     public static final String MSDCUTOFF = "msdcutoff";
     public static final int CUTOFF_DEFAULT = 20;
+    public static final String PARALLEL = "parallel";
+    public static final String PARALLELISM = "parallelism";
+    public static final int PARALLEL_CUTOFF_DEFAULT = 8192;
 
     /**
      * Retrieves the seed value from the configuration.
@@ -34,6 +39,45 @@ public class Config_Benchmark {
         return config.getLong(HELPER, SEED, System.currentTimeMillis());
     }
 
+    /**
+     * Retrieves the size of partition (or merge) below which the parallel sorts continue on one thread.
+     *
+     * @return the cutoff value from the [parallel] section, or PARALLEL_CUTOFF_DEFAULT if not specified.
+     */
+    public static int getParallelCutoff(Config config) {
+        return config.getInt(PARALLEL, CUTOFF, PARALLEL_CUTOFF_DEFAULT);
+    }
+
+    /**
+     * Retrieves the number of threads of the pool used by the parallel sorts.
+     *
+     * @return the parallelism value from the [parallel] section, or 0 (meaning the common pool) if not specified.
+     */
+    public static int getParallelism(Config config) {
+        return config.getInt(PARALLEL, PARALLELISM, 0);
+    }
+
+    /**
+     * Creates the pool in which a parallel sort runs.
+     * A parallelism of 0 means the common pool, which is shared by the whole JVM (including Arrays.parallelSort and
+     * parallel streams): so a sort in the common pool competes with them for threads, and must never shut it down.
+     *
+     * @param parallelism the number of threads of the pool (for example, from {@link #getParallelism(Config)}), or 0.
+     * @return a new pool with the given number of threads, or the common pool if parallelism is 0.
+     */
+    public static ForkJoinPool createPool(int parallelism) {
+        return parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Shuts down a pool created by {@link #createPool(int)}, unless it is the common pool.
+     *
+     * @param pool the pool.
+     */
+    public static void closePool(ForkJoinPool pool) {
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+
     /**
      * Method to determine if this configuration has an instrumented helper.
      * NOTE: we would prefer to place this logic in the Helper class but we put it here for now.
@@ -0,0 +1,115 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class BatchingEvaluatorTest {
+
+    @Test
+    public void testFullBatches() {
+        List<Integer> sizes = new ArrayList<>();
+        Evaluator<TicTacToe> evaluator = states -> {
+            sizes.add(states.size());
+            return new double[states.size()];
+        };
+        try (BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(evaluator, 4, 1_000_000)) {
+            List<CompletableFuture<Double>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) futures.add(target.submit(new TicTacToe().start()));
+            for (CompletableFuture<Double> future : futures) assertEquals(0.0, future.join(), 0);
+            assertEquals(2, target.batches());
+            assertEquals(8, target.evaluated());
+            assertEquals(4.0, target.meanBatchSize(), 0);
+            assertEquals(List.of(4, 4), sizes);
+        }
+    }
+
+    @Test
+    public void testPartialBatch() {
+        Evaluator<TicTacToe> evaluator = states -> new double[]{0.25};
+        try (BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(evaluator, 64, 1000)) {
+            assertEquals(0.25, target.submit(new TicTacToe().start()).join(), 0);
+            assertEquals(1, target.batches());
+        }
+    }
+
+    @Test
+    public void testEvaluatorFails() {
+        Evaluator<TicTacToe> evaluator = states -> new double[0];
+        try (BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(evaluator, 1, 1000)) {
+            assertTrue(target.submit(new TicTacToe().start()).handle((value, e) -> e != null).join());
+        }
+    }
+
+    @Test
+    public void testEvaluatorThrowsError() {
+        // The futures of the batch are completed exceptionally, and the evaluating thread goes on
+        boolean[] fail = {true};
+        Evaluator<TicTacToe> evaluator = states -> {
+            if (fail[0]) {
+                fail[0] = false;
+                throw new AssertionError("evaluator");
+            }
+            return new double[states.size()];
+        };
+        try (BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(evaluator, 1, 1000)) {
+            assertTrue(target.submit(new TicTacToe().start()).handle((value, e) -> e instanceof AssertionError).join());
+            assertEquals(0.0, target.submit(new TicTacToe().start()).join(), 0);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(states -> new double[states.size()], 1, 1000);
+        target.close();
+        target.submit(new TicTacToe().start());
+    }
+
+    @Test
+    public void testCloseWhileSubmitting() throws InterruptedException {
+        // Every State accepted before the close is either evaluated or cancelled
+        BatchingEvaluator<TicTacToe> target = new BatchingEvaluator<>(states -> new double[states.size()], 8, 1000);
+        List<CompletableFuture<Double>> futures = new ArrayList<>();
+        Thread[] submitters = new Thread[4];
+        for (int i = 0; i < submitters.length; i++) {
+            submitters[i] = new Thread(() -> {
+                try {
+                    while (true) {
+                        CompletableFuture<Double> future = target.submit(new TicTacToe().start());
+                        synchronized (futures) {
+                            futures.add(future);
+                        }
+                    }
+                } catch (IllegalStateException e) {
+                    // Closed
+                }
+            });
+            submitters[i].start();
+        }
+        Thread.sleep(20);
+        target.close();
+        for (Thread submitter : submitters) submitter.join();
+        for (CompletableFuture<Double> future : futures) assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testRollouts() {
+        State<TicTacToe> state = new TicTacToe().start();
+        double[] values = Evaluator.rollouts(RolloutPolicy.<TicTacToe>random(), 2000).evaluate(List.of(state, state));
+        assertEquals(2, values.length);
+        for (double value : values) assertTrue(value > 0.5); // The opener wins most random games
+    }
+
+    @Test
+    public void testWithOverhead() {
+        Evaluator<TicTacToe> evaluator = Evaluator.withOverhead(states -> new double[states.size()], 20_000);
+        long start = System.nanoTime();
+        evaluator.evaluate(List.of(new TicTacToe().start()));
+        assertTrue(System.nanoTime() - start >= 20_000_000);
+    }
+}
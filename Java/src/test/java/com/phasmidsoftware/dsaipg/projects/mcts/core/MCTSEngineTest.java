@@ -0,0 +1,219 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class MCTSEngineTest {
+
+    @Test
+    public void testTakesWin() {
+        State<TicTacToe> state = state("X X .\nO O .\n. . .", TicTacToe.O);
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withIterations(2000).search(state);
+        assertEquals(Optional.of(TicTacToe.X), result.root().mostVisited().state().winner());
+    }
+
+    @Test
+    public void testBlocks() {
+        State<TicTacToe> state = state("O O .\nX . .\n. . X", TicTacToe.O);
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withIterations(3000).search(state);
+        assertEquals(state("O O X\nX . .\n. . X", TicTacToe.X).toString(), result.root().mostVisited().state().toString());
+    }
+
+    @Test
+    public void testPuctBlocks() {
+        State<TicTacToe> state = state("O O .\nX . .\n. . X", TicTacToe.O);
+        MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withSelection(SelectionPolicy.puct(1.5)).withIterations(3000);
+        MCTSEngine.Result<TicTacToe> result = engine.search(state);
+        assertEquals(state("O O X\nX . .\n. . X", TicTacToe.X).toString(), result.root().mostVisited().state().toString());
+    }
+
+    @Test
+    public void testStatistics() {
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withIterations(500).search(new TicTacToe().start());
+        SearchNode<TicTacToe> root = result.root();
+        assertEquals(500, result.iterations());
+        assertEquals(500, root.playouts());
+        assertEquals(9, root.children().size());
+        int sum = 0;
+        for (Node<TicTacToe> child : root.children()) sum += child.playouts();
+        assertEquals(500, sum);
+        assertTrue(result.nodes() >= 9);
+        assertTrue(result.maxDepth() >= 2);
+        assertTrue(result.meanDepth() <= result.maxDepth());
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    public void testTimeBudget() {
+        MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withIterations(Integer.MAX_VALUE).withTimeBudget(50);
+        MCTSEngine.Result<TicTacToe> result = engine.search(new TicTacToe().start());
+        assertTrue(result.iterations() > 0);
+        assertTrue(result.elapsedNanos() < 1_000_000_000L);
+    }
+
+    @Test
+    public void testContinueSearch() {
+        MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withIterations(300);
+        SearchNode<TicTacToe> root = engine.search(new TicTacToe().start()).root();
+        engine.search(root);
+        assertEquals(600, root.playouts());
+    }
+
+    @Test
+    public void testBackPropagate() {
+        SearchNode<TicTacToe> root = new SearchNode<>(new TicTacToe().start());
+        root.explore();
+        assertEquals(9, root.children().size());
+        assertEquals(0, root.playouts());
+    }
+
+    @Test
+    public void testEvaluatorTakesWin() {
+        State<TicTacToe> state = state("X X .\nO O .\n. . .", TicTacToe.O);
+        try (BatchingEvaluator<TicTacToe> evaluator = new BatchingEvaluator<>(Evaluator.rollouts(RolloutPolicy.random(), 4), 8, 1000)) {
+            MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withEvaluator(evaluator, 8).withIterations(1000);
+            MCTSEngine.Result<TicTacToe> result = engine.search(state);
+            assertEquals(Optional.of(TicTacToe.X), result.root().mostVisited().state().winner());
+            assertTrue(evaluator.evaluated() > 0);
+            assertTrue(evaluator.meanBatchSize() > 1);
+        }
+    }
+
+    @Test
+    public void testEvaluatorStatistics() {
+        try (BatchingEvaluator<TicTacToe> evaluator = new BatchingEvaluator<>(Evaluator.rollouts(RolloutPolicy.random(), 1), 4, 1000)) {
+            MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withEvaluator(evaluator, 4).withIterations(300);
+            SearchNode<TicTacToe> root = engine.search(new TicTacToe().start()).root();
+            assertEquals(300, root.playouts());
+            assertEquals(0, root.virtualLosses());
+            for (SearchNode<TicTacToe> child : root.searchChildren()) assertEquals(0, child.virtualLosses());
+        }
+    }
+
+    @Test
+    public void testEvaluatorClosedDuringSearch() throws InterruptedException {
+        // The search ends early, with the virtual losses of its cancelled evaluations withdrawn
+        BatchingEvaluator<TicTacToe> evaluator = new BatchingEvaluator<>(Evaluator.withOverhead(states -> new double[states.size()], 2000), 4, 1000);
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            evaluator.close();
+        });
+        closer.start();
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withEvaluator(evaluator, 4).withIterations(1_000_000).search(new TicTacToe().start());
+        closer.join();
+        assertTrue(result.iterations() < 1_000_000);
+        assertEquals(0, result.root().virtualLosses());
+        for (SearchNode<TicTacToe> child : result.root().searchChildren()) assertEquals(0, child.virtualLosses());
+    }
+
+    @Test
+    public void testEvaluatorThrows() {
+        try (BatchingEvaluator<TicTacToe> evaluator = new BatchingEvaluator<>(states -> {
+            throw new Error("evaluator");
+        }, 4, 1000)) {
+            MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withEvaluator(evaluator, 4).withIterations(100);
+            SearchNode<TicTacToe> root = new SearchNode<>(new TicTacToe().start());
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> engine.search(root));
+            assertEquals("evaluator", e.getCause().getMessage());
+            assertEquals(0, root.virtualLosses());
+        }
+    }
+
+    @Test
+    public void testVirtualLoss() {
+        SearchNode<TicTacToe> root = new SearchNode<>(new TicTacToe().start());
+        root.addVirtualLoss();
+        assertEquals(1, root.playouts());
+        assertEquals(0.0, root.value(), 0);
+        root.removeVirtualLoss();
+        root.update(0.75);
+        assertEquals(1, root.playouts());
+        assertEquals(0.75, root.value(), 1E-9);
+        assertEquals(2, root.wins());
+        assertThrows(IllegalStateException.class, root::removeVirtualLoss);
+    }
+
+    @Test
+    public void testProof() {
+        assertEquals(Proof.LOSS, Proof.WIN.negate());
+        assertEquals(Proof.DRAW, Proof.DRAW.negate());
+        assertEquals(Proof.UNPROVEN, Proof.UNPROVEN.negate());
+        assertEquals(Proof.WIN, Proof.of(Optional.of(1), 1));
+        assertEquals(Proof.LOSS, Proof.of(Optional.of(0), 1));
+        assertEquals(Proof.DRAW, Proof.of(Optional.empty(), 1));
+        assertEquals(Optional.of(0), Proof.LOSS.winner(1, 0));
+        assertFalse(Proof.UNPROVEN.isProven());
+    }
+
+    @Test
+    public void testSolverTakesWin() {
+        State<TicTacToe> state = state("X X .\nO O .\n. . .", TicTacToe.O);
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withSolver(true).withIterations(2000).search(state);
+        assertTrue(result.solved());
+        assertEquals(Proof.LOSS, result.root().proof()); // For O, who moved into the root
+        assertTrue(result.iterations() < 50);
+        assertEquals(Optional.of(TicTacToe.X), result.root().best().state().winner());
+        assertEquals(Proof.WIN, result.root().best().proof());
+    }
+
+    @Test
+    public void testSolverBlocks() {
+        State<TicTacToe> state = state("O O .\nX . .\n. . X", TicTacToe.O);
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withSolver(true).withIterations(100_000).search(state);
+        assertTrue(result.solved());
+        assertEquals(state("O O X\nX . .\n. . X", TicTacToe.X).toString(), result.root().best().state().toString());
+        assertNotEquals(Proof.LOSS, result.root().best().proof());
+    }
+
+    @Test
+    public void testSolverSolvesTicTacToe() {
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withSolver(true).withIterations(1_000_000).search(new TicTacToe().start());
+        assertTrue(result.solved());
+        assertEquals(Proof.DRAW, result.root().proof());
+        for (SearchNode<TicTacToe> child : result.root().searchChildren()) assertEquals(Proof.DRAW, child.proof());
+        // Far fewer iterations than the 255,168 games of TicTacToe, and many of them needed no rollout
+        assertTrue(result.iterations() < 100_000);
+        assertTrue(result.provenNodes() > 0);
+        assertTrue(result.provenPlayouts() > 0);
+        assertEquals(result.iterations(), result.root().playouts());
+    }
+
+    @Test
+    public void testBestPrefersDraw() {
+        // A proven DRAW is no longer visited, so the most visited move may be one which is likely lost
+        State<TicTacToe> state = new TicTacToe().start();
+        SearchNode<TicTacToe> root = new SearchNode<>(state);
+        Iterator<Move<TicTacToe>> moves = state.moves(state.player()).iterator();
+        SearchNode<TicTacToe> draw = root.addChild(moves.next(), 1), likelyLoss = root.addChild(moves.next(), 1);
+        draw.setProof(Proof.DRAW);
+        for (int i = 0; i < 10; i++) draw.update(Optional.empty());
+        for (int i = 0; i < 100; i++) likelyLoss.update(0.2);
+        assertSame(draw, root.best());
+        // But an unproven move which is likely to do better than a draw is preferred
+        for (int i = 0; i < 100; i++) likelyLoss.update(1.0);
+        assertSame(likelyLoss, root.best());
+    }
+
+    @Test
+    public void testWithoutSolver() {
+        State<TicTacToe> state = state("X X .\nO O .\n. . .", TicTacToe.O);
+        MCTSEngine.Result<TicTacToe> result = new MCTSEngine<TicTacToe>().withIterations(200).search(state);
+        assertFalse(result.solved());
+        assertEquals(200, result.iterations());
+        assertEquals(0, result.provenNodes());
+    }
+
+    private static State<TicTacToe> state(String grid, int last) {
+        return new TicTacToe().new TicTacToeState(Position.parsePosition(grid, last));
+    }
+}
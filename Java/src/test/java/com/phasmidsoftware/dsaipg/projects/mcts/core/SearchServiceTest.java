@@ -0,0 +1,159 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.core;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.Position;
+import com.phasmidsoftware.dsaipg.projects.mcts.tictactoe.TicTacToe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchServiceTest {
+
+    @Test
+    public void testSearchAndPlay() {
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 2, 32, 1_000_000)) {
+            SearchService<TicTacToe>.Session session = service.open(new TicTacToe().start());
+            assertEquals(1, service.sessions());
+            Move<TicTacToe> move = session.search(500).join();
+            assertNotNull(move);
+            assertEquals(500, session.root().playouts());
+            long before = session.size();
+            assertTrue(before > 9);
+            assertEquals(before, service.nodes());
+            session.play(move);
+            // The subtree below the move is kept
+            assertTrue(session.size() > 1);
+            assertTrue(session.size() < before);
+            assertEquals(session.size(), session.root().size());
+            assertEquals(session.size(), service.nodes());
+            assertNull(session.root().parent());
+            assertEquals(TicTacToe.O, session.state().player());
+            session.close();
+            assertEquals(0, service.sessions());
+            assertEquals(0, service.nodes());
+        }
+    }
+
+    @Test
+    public void testTakesWin() {
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<TicTacToe>().withSolver(true), 1, 16, 1_000_000)) {
+            SearchService<TicTacToe>.Session session = service.open(state("X X .\nO O .\n. . .", TicTacToe.O));
+            session.play(session.search(100_000).join());
+            assertEquals(Optional.of(TicTacToe.X), session.state().winner());
+            assertTrue(session.state().isTerminal());
+            assertNull(session.search(10).join()); // Nothing left to search
+        }
+    }
+
+    @Test
+    public void testOneSearchAtATime() {
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 1, 32, 1_000_000)) {
+            SearchService<TicTacToe>.Session session = service.open(new TicTacToe().start());
+            Move<TicTacToe> move = session.state().chooseMove(TicTacToe.X);
+            CompletableFuture<Move<TicTacToe>> future = session.search(10_000_000);
+            assertThrows(IllegalStateException.class, () -> session.search(10));
+            assertThrows(IllegalStateException.class, () -> session.play(move));
+            session.close();
+            assertTrue(future.isCancelled());
+            assertThrows(IllegalStateException.class, () -> session.search(10));
+        }
+    }
+
+    @Test
+    public void testCloseDuringSearch() throws Exception {
+        // Closing the service while the workers are in the middle of their quanta still completes every future
+        SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 2, 10_000, 1_000_000);
+        List<CompletableFuture<Move<TicTacToe>>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) futures.add(service.open(new TicTacToe().start()).search(100_000_000));
+        while (service.quanta() == 0) Thread.sleep(1);
+        service.close();
+        for (CompletableFuture<Move<TicTacToe>> future : futures)
+            assertThrows(CancellationException.class, () -> future.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFairness() {
+        // With one worker, a short search requested after a long one is answered first
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 1, 16, 1_000_000)) {
+            CompletableFuture<Move<TicTacToe>> slow = service.open(new TicTacToe().start()).search(200_000);
+            CompletableFuture<Move<TicTacToe>> fast = service.open(new TicTacToe().start()).search(64);
+            assertNotNull(fast.join());
+            assertFalse(slow.isDone());
+            assertNotNull(slow.join());
+            assertTrue(service.quanta() >= 200_000 / 16);
+        }
+    }
+
+    @Test
+    public void testTimeBudget() throws Exception {
+        // The time budget applies to the request, over all its quanta, not to each quantum
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<TicTacToe>().withTimeBudget(100), 1, 16, 1_000_000)) {
+            long start = System.nanoTime();
+            assertNotNull(service.open(new TicTacToe().start()).search(Integer.MAX_VALUE).get(10, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= 100_000_000);
+            assertTrue(service.quanta() > 1);
+        }
+    }
+
+    @Test
+    public void testSharedPool() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (SearchService<TicTacToe> first = new SearchService<>(new MCTSEngine<>(), pool, 16, 1_000_000);
+             SearchService<TicTacToe> second = new SearchService<>(new MCTSEngine<>(), pool, 16, 1_000_000)) {
+            CompletableFuture<Move<TicTacToe>> a = first.open(new TicTacToe().start()).search(1000);
+            CompletableFuture<Move<TicTacToe>> b = second.open(new TicTacToe().start()).search(1000);
+            assertNotNull(a.join());
+            assertNotNull(b.join());
+            assertSame(pool, first.getPool());
+        }
+        assertFalse(pool.isShutdown()); // The pool is not the services' to shut down
+        pool.shutdown();
+    }
+
+    @Test
+    public void testManySessions() {
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 4, 8, 1_000_000)) {
+            List<CompletableFuture<Move<TicTacToe>>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) futures.add(service.open(new TicTacToe().start()).search(100));
+            for (CompletableFuture<Move<TicTacToe>> future : futures) assertNotNull(future.join());
+            assertEquals(50, service.sessions());
+        }
+    }
+
+    @Test
+    public void testMemoryCap() {
+        try (SearchService<TicTacToe> service = new SearchService<>(new MCTSEngine<>(), 1, 50, 1000)) {
+            SearchService<TicTacToe>.Session session = service.open(new TicTacToe().start());
+            assertNotNull(session.search(5000).join());
+            assertTrue(service.prunedNodes() > 0);
+            assertTrue(service.nodes() <= 1000);
+            assertEquals(session.size(), session.root().size());
+            assertEquals(5000, session.root().playouts()); // Pruning keeps the statistics of the nodes it keeps
+        }
+    }
+
+    @Test
+    public void testPrune() {
+        SearchNode<TicTacToe> root = new MCTSEngine<TicTacToe>().withIterations(2000).search(new TicTacToe().start()).root();
+        int size = root.size();
+        int removed = root.prune(100);
+        assertTrue(removed > 0);
+        assertEquals(size - removed, root.size());
+        for (SearchNode<TicTacToe> child : root.searchChildren())
+            if (child.playouts() < 100) {
+                assertTrue(child.searchChildren().isEmpty());
+                assertFalse(child.isExpanded());
+            }
+    }
+
+    private static State<TicTacToe> state(String grid, int last) {
+        return new TicTacToe().new TicTacToeState(Position.parsePosition(grid, last));
+    }
+}
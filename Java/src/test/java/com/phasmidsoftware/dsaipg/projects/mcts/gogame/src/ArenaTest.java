@@ -0,0 +1,72 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ArenaTest {
+
+    @Test
+    public void testPlayGame() {
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(50);
+        Arena.Game game = Arena.playGame(new MCSTAgent(config), new MCSTAgent(config), 5, true);
+        assertEquals(game.moves() + 1, game.history().size());
+        Memeryunit_B last = game.history().get(game.moves());
+        assertEquals(5, last.getM_ChessMap().length);
+        assertEquals(game.moves(), last.getM_step());
+        assertEquals(new GoBoard(last.getM_ChessMap()).winner(MCSTAgent.KOMI), game.winner());
+    }
+
+    @Test
+    public void testSgf() {
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(50);
+        Arena.Game game = Arena.playGame(new MCSTAgent(config), new MCSTAgent(config), 5, false);
+        String sgf = game.toSgf();
+        assertTrue(sgf.startsWith("(;FF[4]GM[1]"));
+        assertTrue(sgf.contains("SZ[5]"));
+        assertTrue(sgf.contains("PB[second]"));
+        assertTrue(sgf.contains(";B["));
+        // One node for each move or pass
+        assertEquals(game.moves(), sgf.split(";[BW]\\[").length - 1);
+    }
+
+    @Test
+    public void testMatch() throws IOException {
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(30);
+        Path folder = Files.createTempDirectory("arena");
+        Arena.Report report = new Arena(config, config, 5, 2).play(4, folder);
+        assertEquals(4, report.games().size());
+        assertTrue(Files.exists(folder.resolve("game-003.sgf")));
+        double[] ci = report.confidenceInterval(1.96);
+        assertTrue(ci[0] <= report.winRate() && report.winRate() <= ci[1]);
+        assertTrue(report.movesPerSecond() > 0);
+        assertTrue(report.playoutsPerSecond() > 0);
+        assertTrue(report.latencyMillis(true, 50) <= report.latencyMillis(true, 99));
+        // The first agent plays black in even-numbered games
+        assertTrue(report.games().get(0).firstIsBlack());
+        assertFalse(report.games().get(1).firstIsBlack());
+    }
+
+    @Test
+    public void testWilson() {
+        double[] ci = Arena.wilson(50, 100, 1.96);
+        assertEquals(0.404, ci[0], 1E-3);
+        assertEquals(0.596, ci[1], 1E-3);
+        ci = Arena.wilson(10, 10, 1.96);
+        assertEquals(0.722, ci[0], 1E-3);
+        assertEquals(1, ci[1], 1E-9);
+    }
+
+    @Test
+    public void testPercentile() {
+        long[] xs = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(5, Arena.percentile(xs, 50));
+        assertEquals(10, Arena.percentile(xs, 99));
+        assertEquals(1, Arena.percentile(xs, 0));
+        assertEquals(0, Arena.percentile(new long[0], 50));
+    }
+}
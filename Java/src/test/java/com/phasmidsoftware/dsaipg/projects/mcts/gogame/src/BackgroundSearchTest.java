@@ -0,0 +1,84 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BackgroundSearchTest {
+
+    @Test
+    public void testSearch() throws Exception {
+        BackgroundSearch search = new BackgroundSearch(new MCSTAgent(SearchConfig.DEFAULT.withIterations(500)), Runnable::run);
+        AtomicReference<int[]> received = new AtomicReference<>();
+        Future<int[]> future = search.search(new GoBoard(5), GoBoard.BLACK, null, received::set);
+        int[] move = future.get(10, TimeUnit.SECONDS);
+        assertNotNull(move);
+        assertSame(move, received.get());
+        search.shutdown();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(Integer.MAX_VALUE));
+        BackgroundSearch search = new BackgroundSearch(agent, Runnable::run);
+        AtomicBoolean called = new AtomicBoolean();
+        Future<int[]> future = search.search(new GoBoard(9), GoBoard.BLACK, null, move -> called.set(true));
+        MCSTAgent.Snapshot snapshot = awaitSnapshot(search);
+        assertEquals(9, snapshot.size);
+        assertEquals(GoBoard.BLACK, snapshot.turn);
+        search.cancel();
+        // The cancelled search still returns its best move so far, but does not call back
+        assertNotNull(future.get(10, TimeUnit.SECONDS));
+        assertFalse(called.get());
+        assertNull(search.snapshot());
+        search.shutdown();
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(Integer.MAX_VALUE));
+        BackgroundSearch search = new BackgroundSearch(agent, Runnable::run);
+        Future<int[]> future = search.search(new GoBoard(5), GoBoard.BLACK, null, move -> {
+        });
+        MCSTAgent.Snapshot snapshot = awaitSnapshot(search);
+        while (snapshot.iterations < 2000) snapshot = awaitSnapshot(search);
+        search.cancel();
+        future.get(10, TimeUnit.SECONDS);
+        int sum = 0;
+        for (int v : snapshot.visits) sum += v;
+        assertTrue(sum > 0);
+        assertTrue(snapshot.principalVariation.length > 1);
+        assertEquals(snapshot.maxVisits(), snapshot.visits[snapshot.principalVariation[0]]);
+        search.shutdown();
+    }
+
+    @Test
+    public void testPonderHelpsNextSearch() throws Exception {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(300));
+        BackgroundSearch search = new BackgroundSearch(agent, Runnable::run);
+        GoBoard board = new GoBoard(5);
+        // Ponder on black's move, then search for white's reply to the move black actually plays
+        search.ponder(board, GoBoard.BLACK, null);
+        awaitSnapshot(search);
+        Thread.sleep(100);
+        board.play(board.point(2, 2), GoBoard.BLACK);
+        search.search(board, GoBoard.WHITE, null, move -> {
+        }).get(10, TimeUnit.SECONDS);
+        assertTrue(agent.getReusedVisits() > 0);
+        search.shutdown();
+    }
+
+    private static MCSTAgent.Snapshot awaitSnapshot(BackgroundSearch search) throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            MCSTAgent.Snapshot snapshot = search.snapshot();
+            if (snapshot != null && snapshot.iterations > 0) return snapshot;
+            Thread.sleep(5);
+        }
+        throw new AssertionError("no search in progress");
+    }
+}
@@ -0,0 +1,189 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GoBoardTest {
+
+    @Test
+    public void testEmptyBoard() {
+        GoBoard board = new GoBoard(9);
+        assertEquals(81, board.emptyCount());
+        assertEquals(0, board.stones(GoBoard.BLACK));
+        assertEquals(0, board.stones(GoBoard.WHITE));
+    }
+
+    @Test
+    public void testPlayAndMerge() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(4, 4), GoBoard.BLACK);
+        assertEquals(4, board.pseudoLiberties(board.point(4, 4)));
+        board.play(board.point(4, 5), GoBoard.BLACK);
+        assertTrue(board.sameGroup(board.point(4, 4), board.point(4, 5)));
+        assertEquals(2, board.groupSize(board.point(4, 4)));
+        assertEquals(6, board.pseudoLiberties(board.point(4, 5)));
+        assertEquals(79, board.emptyCount());
+    }
+
+    @Test
+    public void testCornerCapture() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(0, 0), GoBoard.WHITE);
+        board.play(board.point(0, 1), GoBoard.BLACK);
+        assertEquals(1, board.pseudoLiberties(board.point(0, 0)));
+        int captured = board.play(board.point(1, 0), GoBoard.BLACK);
+        assertEquals(1, captured);
+        assertEquals(GoBoard.EMPTY, board.get(0, 0));
+        assertEquals(0, board.stones(GoBoard.WHITE));
+        assertEquals(79, board.emptyCount());
+        // The capturing stones get their liberty back.
+        assertEquals(3, board.pseudoLiberties(board.point(0, 1)));
+    }
+
+    @Test
+    public void testGroupCapture() {
+        int[][] map = new int[5][5];
+        map[1][1] = -1;
+        map[1][2] = -1;
+        map[0][1] = 1;
+        map[0][2] = 1;
+        map[1][0] = 1;
+        map[1][3] = 1;
+        map[2][1] = 1;
+        GoBoard board = new GoBoard(map);
+        assertEquals(2, board.groupSize(board.point(1, 1)));
+        assertEquals(2, board.play(board.point(2, 2), GoBoard.BLACK));
+        assertEquals(GoBoard.EMPTY, board.get(1, 1));
+        assertEquals(GoBoard.EMPTY, board.get(1, 2));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(2, 2), GoBoard.BLACK);
+        GoBoard copy = board.copy();
+        copy.play(board.point(3, 3), GoBoard.WHITE);
+        assertEquals(GoBoard.EMPTY, board.get(3, 3));
+        assertEquals(GoBoard.WHITE, copy.get(3, 3));
+        assertEquals(80, board.emptyCount());
+        assertEquals(79, copy.emptyCount());
+    }
+
+    @Test
+    public void testToArray() {
+        int[][] map = new int[19][19];
+        map[3][15] = 1;
+        map[15][3] = -1;
+        assertArrayEquals(map, new GoBoard(map).toArray());
+    }
+
+    @Test
+    public void testSuicideIsIllegal() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(0, 1), GoBoard.BLACK);
+        board.play(board.point(1, 0), GoBoard.BLACK);
+        assertFalse(board.isLegal(board.point(0, 0), GoBoard.WHITE));
+        assertTrue(board.isLegal(board.point(0, 0), GoBoard.BLACK));
+        assertFalse(board.isLegal(board.point(0, 1), GoBoard.WHITE));
+        // Filling one's own last liberty is suicide too.
+        board.play(board.point(0, 0), GoBoard.WHITE);
+        assertEquals(GoBoard.EMPTY, board.get(0, 0));
+    }
+
+    @Test
+    public void testCaptureIsNotSuicide() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(0, 0), GoBoard.WHITE);
+        board.play(board.point(1, 0), GoBoard.BLACK);
+        board.play(board.point(0, 2), GoBoard.WHITE);
+        board.play(board.point(1, 1), GoBoard.WHITE);
+        // Black at (0, 1) has no liberty of its own, but captures the white stone at (0, 0).
+        assertTrue(board.isLegal(board.point(0, 1), GoBoard.BLACK));
+        assertEquals(1, board.play(board.point(0, 1), GoBoard.BLACK));
+    }
+
+    @Test
+    public void testKo() {
+        GoBoard board = ko();
+        assertTrue(board.isLegal(board.point(2, 1), GoBoard.WHITE));
+        assertEquals(1, board.play(board.point(2, 1), GoBoard.WHITE));
+        assertEquals(board.point(2, 2), board.koPoint());
+        assertFalse(board.isLegal(board.point(2, 2), GoBoard.BLACK));
+        board.play(board.point(8, 8), GoBoard.BLACK);
+        assertEquals(-1, board.koPoint());
+        assertTrue(board.isLegal(board.point(2, 2), GoBoard.BLACK));
+        board.setKoPoint(board.point(2, 2));
+        board.pass();
+        assertTrue(board.isLegal(board.point(2, 2), GoBoard.BLACK));
+    }
+
+    @Test
+    public void testSuperko() {
+        GoBoard board = ko();
+        PositionHistory history = new PositionHistory();
+        history.add(board.hash());
+        board.play(board.point(2, 1), GoBoard.WHITE);
+        history.add(board.hash());
+        board.pass();
+        // Retaking the ko would recreate the first position.
+        assertTrue(board.isLegal(board.point(2, 2), GoBoard.BLACK));
+        assertTrue(board.repeatsPosition(board.point(2, 2), GoBoard.BLACK, history));
+        assertFalse(board.repeatsPosition(board.point(8, 8), GoBoard.BLACK, history));
+    }
+
+    @Test
+    public void testHash() {
+        GoBoard board = ko();
+        long expected = board.hashAfter(board.point(2, 1), GoBoard.WHITE);
+        board.play(board.point(2, 1), GoBoard.WHITE);
+        assertEquals(expected, board.hash());
+        assertEquals(new GoBoard(board.toArray()).hash(), board.hash());
+        assertEquals(0, new GoBoard(9).hash());
+    }
+
+    @Test
+    public void testEye() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(0, 1), GoBoard.BLACK);
+        board.play(board.point(1, 0), GoBoard.BLACK);
+        assertTrue(board.isEye(board.point(0, 0), GoBoard.BLACK));
+        assertFalse(board.isEye(board.point(0, 0), GoBoard.WHITE));
+        assertFalse(board.isEye(board.point(4, 4), GoBoard.BLACK));
+    }
+
+    @Test
+    public void testAreaScore() {
+        int[][] map = new int[5][5];
+        for (int i = 0; i < 5; i++) {
+            map[i][1] = 1;
+            map[i][3] = -1;
+        }
+        GoBoard board = new GoBoard(map);
+        // Black owns column 0, white owns column 4, column 2 is neutral.
+        assertEquals(10, board.area(GoBoard.BLACK));
+        assertEquals(10, board.area(GoBoard.WHITE));
+        assertEquals(0, board.winner(0));
+        assertEquals(-0.5, board.areaScore(0.5), 0);
+        board.play(board.point(0, 2), GoBoard.BLACK);
+        assertEquals(1, board.winner(0.5));
+        // An empty board belongs to nobody.
+        assertEquals(0, new GoBoard(5).area(GoBoard.BLACK));
+    }
+
+    // White to play at (2, 1) captures the black stone at (2, 2), which black may not retake at once:
+    //   . B W .
+    //   B . B W
+    //   . B W .
+    private static GoBoard ko() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(1, 1), GoBoard.BLACK);
+        board.play(board.point(2, 0), GoBoard.BLACK);
+        board.play(board.point(3, 1), GoBoard.BLACK);
+        board.play(board.point(2, 2), GoBoard.BLACK);
+        board.play(board.point(1, 2), GoBoard.WHITE);
+        board.play(board.point(3, 2), GoBoard.WHITE);
+        board.play(board.point(2, 3), GoBoard.WHITE);
+        return board;
+    }
+}
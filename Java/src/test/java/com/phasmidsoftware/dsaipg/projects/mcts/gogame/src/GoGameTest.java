@@ -0,0 +1,74 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Move;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.SelectionPolicy;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class GoGameTest {
+
+    @Test
+    public void testStart() {
+        GoGame.GoState state = new GoGame(5).start();
+        assertEquals(GoGame.BLACK_PLAYER, state.player());
+        assertFalse(state.isTerminal());
+        assertEquals(25, state.moves(GoGame.BLACK_PLAYER).size());
+    }
+
+    @Test
+    public void testPasses() {
+        GoGame game = new GoGame(3);
+        GoGame.GoState state = game.start();
+        state = state.next(new GoGame.GoMove(GoGame.BLACK_PLAYER, GoGame.GoMove.PASS));
+        assertFalse(state.isTerminal());
+        assertEquals(GoGame.WHITE_PLAYER, state.player());
+        state = state.next(new GoGame.GoMove(GoGame.WHITE_PLAYER, GoGame.GoMove.PASS));
+        assertTrue(state.isTerminal());
+        assertFalse(state.winner().isPresent());
+    }
+
+    @Test
+    public void testOnlyPassWhenNoMoves() {
+        int[][] map = new int[3][3];
+        for (int i = 0; i < 3; i++) for (int j = 0; j < 3; j++) map[i][j] = GoBoard.BLACK;
+        map[0][0] = map[2][2] = GoBoard.EMPTY;
+        GoGame game = new GoGame(3);
+        GoGame.GoState state = game.new GoState(new GoBoard(map), GoBoard.BLACK, 0, 0);
+        Collection<Move<GoGame>> moves = state.moves(GoGame.BLACK_PLAYER);
+        assertEquals(1, moves.size());
+        assertEquals(GoGame.GoMove.PASS, ((GoGame.GoMove) moves.iterator().next()).point());
+        assertEquals(Optional.of(GoGame.BLACK_PLAYER), state.winner());
+    }
+
+    @Test
+    public void testEngineSearch() {
+        GoGame game = new GoGame(5);
+        MCTSEngine<GoGame> engine = new MCTSEngine<GoGame>().withRollout(GoGame.playouts(100)).withIterations(500);
+        MCTSEngine.Result<GoGame> result = engine.search(game.start());
+        assertEquals(500, result.iterations());
+        GoGame.GoMove move = (GoGame.GoMove) result.bestMove();
+        assertEquals(GoGame.BLACK_PLAYER, move.player());
+        assertTrue(game.start().board().isLegal(move.point(), GoBoard.BLACK));
+        MCTSEngine.Result<GoGame> puct = engine.withSelection(SelectionPolicy.puct(1.5)).search(game.start());
+        assertNotNull(puct.bestMove());
+    }
+
+    @Test
+    public void testSolverEndgame() {
+        // Black to move cannot save the corner stones
+        int[][] map = {{1, 1, 0}, {1, -1, -1}, {0, -1, 0}};
+        GoGame game = new GoGame(3);
+        GoGame.GoState state = game.new GoState(new GoBoard(map), GoBoard.BLACK, 0, 0);
+        MCTSEngine<GoGame> engine = new MCTSEngine<GoGame>().withSolver(true).withRollout(GoGame.playouts(100)).withIterations(100_000);
+        MCTSEngine.Result<GoGame> result = engine.search(state);
+        assertTrue(result.solved());
+        assertEquals(Proof.WIN, result.root().proof()); // For white, who moved into the root
+        assertTrue(result.iterations() < 100_000);
+    }
+}
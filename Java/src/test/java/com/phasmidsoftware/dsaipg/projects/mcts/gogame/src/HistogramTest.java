@@ -0,0 +1,57 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) histogram.record(i);
+        assertEquals(10, histogram.count());
+        assertEquals(55, histogram.sum());
+        assertEquals(5.5, histogram.mean(), 0);
+        assertEquals(10, histogram.max());
+        assertEquals(5, histogram.percentile(0.5));
+        assertEquals(10, histogram.percentile(1));
+    }
+
+    @Test
+    public void testLargeValuesWithinAQuarter() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value < 1_000_000_000; value = value * 3 + 1) {
+            Histogram single = new Histogram();
+            single.record(value);
+            single.record(Long.MAX_VALUE / 2);
+            long p = single.percentile(0.5);
+            assertTrue(p >= value && p <= value + value / 4);
+            histogram.record(value);
+        }
+        assertTrue(histogram.percentile(0.99) <= histogram.max());
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(value <= Histogram.upperBound(bucket));
+            if (bucket > 0) assertTrue(value > Histogram.upperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testAdd() {
+        Histogram a = new Histogram(), b = new Histogram();
+        a.record(3);
+        b.record(100);
+        b.record(-5);
+        a.add(b);
+        assertEquals(3, a.count());
+        assertEquals(103, a.sum());
+        assertEquals(100, a.max());
+        assertEquals(0, a.percentile(0));
+        assertEquals(0, new Histogram().percentile(0.99));
+    }
+}
@@ -0,0 +1,338 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+public class MCSTAgentTest {
+
+    @Test
+    public void testNextMoveIsEmptyPoint() {
+        int[][] map = new int[9][9];
+        map[4][4] = 1;
+        int[] move = MCSTAgent.nextMove(map, -1, SearchConfig.DEFAULT.withIterations(200));
+        assertNotNull(move);
+        assertEquals(0, map[move[0]][move[1]]);
+    }
+
+    @Test
+    public void testNoMoveOnFullBoard() {
+        int[][] map = new int[3][3];
+        for (int[] row : map) Arrays.fill(row, 1);
+        assertNull(MCSTAgent.nextMove(map, -1));
+    }
+
+    @Test
+    public void testSearchVisitsSequential() {
+        MCSTAgent.State state = new MCSTAgent.State(new int[9][9], 1);
+        int[] visits = MCSTAgent.search(state, SearchConfig.DEFAULT.withIterations(500));
+        assertEquals(500, sum(visits));
+    }
+
+    @Test
+    public void testSearchVisitsRootParallel() {
+        MCSTAgent.State state = new MCSTAgent.State(new int[9][9], 1);
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(501).withParallelism(SearchConfig.Parallelism.ROOT).withThreads(4);
+        assertEquals(501, sum(MCSTAgent.search(state, config)));
+    }
+
+    @Test
+    public void testSearchVisitsTreeParallel() {
+        MCSTAgent.State state = new MCSTAgent.State(new int[9][9], 1);
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(1000).withParallelism(SearchConfig.Parallelism.TREE).withThreads(4);
+        // Every iteration passes through exactly one root child, and all virtual losses have been undone.
+        assertEquals(1000, sum(MCSTAgent.search(state, config)));
+    }
+
+    @Test
+    public void testTimeBudget() {
+        long start = System.currentTimeMillis();
+        int[] move = MCSTAgent.nextMove(new int[19][19], 1, 50L);
+        long elapsed = System.currentTimeMillis() - start;
+        assertNotNull(move);
+        assertTrue("search took " + elapsed + " ms", elapsed < 1000);
+    }
+
+    @Test
+    public void testEarlyStop() {
+        int[][] map = new int[3][3];
+        for (int[] row : map) Arrays.fill(row, 1);
+        map[0][0] = 0;
+        MCSTAgent.State state = new MCSTAgent.State(map, -1);
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(10000);
+        assertEquals(10000, sum(MCSTAgent.search(state, config)));
+        // With only one legal move, the decision is made once more than half the iterations are done.
+        int iterations = sum(MCSTAgent.search(state, config.withEarlyStop(true)));
+        assertTrue(iterations > 5000);
+        assertTrue(iterations < 10000);
+    }
+
+    @Test
+    public void testTreeReuseSamePosition() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(300));
+        int[][] map = new int[9][9];
+        agent.chooseMove(map, 1);
+        assertEquals(0, agent.getReusedVisits());
+        agent.chooseMove(map, 1);
+        assertEquals(300, agent.getReusedVisits());
+    }
+
+    @Test
+    public void testTreeReuseAfterReply() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(2000));
+        int[][] map = new int[4][4];
+        int[] move = agent.chooseMove(map, 1);
+        map[move[0]][move[1]] = 1;
+        int[] reply = move[0] == 0 && move[1] == 0 ? new int[]{3, 3} : new int[]{0, 0};
+        map[reply[0]][reply[1]] = -1;
+        agent.chooseMove(map, 1);
+        assertTrue(agent.getReusedVisits() > 0);
+        // An unrelated position starts from scratch.
+        agent.chooseMove(new int[4][4], -1);
+        assertEquals(0, agent.getReusedVisits());
+    }
+
+    @Test
+    public void testSearchConfig() {
+        SearchConfig config = SearchConfig.DEFAULT.withThreads(8);
+        assertEquals(1, config.threads());
+        assertEquals(8, config.withParallelism(SearchConfig.Parallelism.TREE).threads());
+        assertEquals(MCSTAgent.getIterationLimit(), config.iterations());
+        assertEquals(0, config.timeBudgetMillis());
+        SearchConfig timed = config.withTimeBudget(200);
+        assertEquals(200, timed.timeBudgetMillis());
+        assertEquals(Integer.MAX_VALUE, timed.iterations());
+        assertEquals(1000, timed.withIterations(1000).iterations());
+    }
+
+    @Test
+    public void testEvaluateMatchesWinner() {
+        ChessBoardPanel_B panel = new ChessBoardPanel_B();
+        int[][] map = panel.getChessMap();
+        assertEquals(panel.Winner(), new MCSTAgent.State(map, 1).evaluate());
+        // Black walls off the left-hand side, white the rest: white has more area but fewer stones.
+        for (int i = 0; i < 19; i++) {
+            map[i][3] = 1;
+            map[i][4] = -1;
+        }
+        map[0][0] = 1;
+        map[5][10] = -1;
+        assertEquals(-1, panel.Winner());
+        assertEquals(panel.Winner(), new MCSTAgent.State(map, 1).evaluate());
+        for (int i = 0; i < 19; i++) map[i][10] = 1;
+        assertEquals(panel.Winner(), new MCSTAgent.State(map, -1).evaluate());
+    }
+
+    @Test
+    public void testNoSuicideOrKoMoves() {
+        int[][] map = new int[3][3];
+        map[0][1] = 1;
+        map[1][0] = 1;
+        MCSTAgent.State state = new MCSTAgent.State(map, -1);
+        for (int i = 0; i < state.legalMoveCount(); i++) assertNotEquals(0, state.legalMove(i));
+        assertTrue(state.legalMoveCount() > 0);
+        // Black does not fill its own eye.
+        MCSTAgent.State black = new MCSTAgent.State(map, 1);
+        for (int[] move : black.getLegalMoves()) assertFalse(move[0] == 0 && move[1] == 0);
+    }
+
+    @Test
+    public void testSuperkoMoveNotChosen() {
+        // Black's only move is to retake the ko at (1, 1), which would repeat the previous position.
+        int[][] map = {{0, -1, 1, 1}, {-1, 0, -1, 1}, {1, -1, 1, 1}, {1, 1, 1, 0}};
+        GoBoard board = new GoBoard(map);
+        PositionHistory history = new PositionHistory();
+        history.add(board.hashAfter(board.point(1, 1), GoBoard.BLACK));
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(100));
+        int[] move = agent.chooseMove(board, 1, history, SearchConfig.DEFAULT.withIterations(100));
+        assertFalse(move != null && move[0] == 1 && move[1] == 1);
+    }
+
+    @Test
+    public void testRaveWeight() {
+        SearchConfig config = SearchConfig.DEFAULT.withRave(SearchConfig.RaveSchedule.EQUIVALENCE, 300);
+        assertTrue(config.rave());
+        assertEquals(1, config.raveWeight(0, 0), 1E-9);
+        assertEquals(0.5, config.raveWeight(300, 50), 1E-9);
+        SearchConfig mse = config.withRave(SearchConfig.RaveSchedule.MINIMUM_MSE, 0.5);
+        assertEquals(0, mse.raveWeight(10, 0), 0);
+        assertEquals(10.0 / 120, mse.raveWeight(10, 10), 1E-9);
+        assertFalse(SearchConfig.DEFAULT.rave());
+        assertEquals(0, SearchConfig.DEFAULT.raveWeight(10, 10), 0);
+    }
+
+    @Test
+    public void testRaveSearch() {
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(1000).withRave(SearchConfig.RaveSchedule.EQUIVALENCE, 1000);
+        MCSTAgent.Tree tree = MCSTAgent.newTree(new MCSTAgent.State(new int[5][5], 1), config);
+        MCSTAgent.search(tree, config);
+        NodePool pool = tree.pool;
+        assertEquals(1000, pool.visits(tree.root));
+        // Every playout gives AMAF samples to many of black's moves at the root.
+        int samples = 0;
+        int first = pool.firstChild(tree.root);
+        for (int i = 0; i < pool.childCount(tree.root); i++) samples += pool.amafVisits(first + i);
+        assertTrue(samples > 1000);
+        int[] move = new MCSTAgent(config.withIterations(200)).chooseMove(new int[9][9], -1);
+        assertNotNull(move);
+    }
+
+    @Test
+    public void testMetrics() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(500));
+        assertNull(agent.getMetrics());
+        agent.chooseMove(new int[9][9], GoBoard.BLACK);
+        SearchMetrics metrics = agent.getMetrics();
+        assertEquals(500, metrics.iterations());
+        for (SearchMetrics.Phase phase : SearchMetrics.Phase.values()) assertTrue(metrics.nanos(phase) > 0);
+        assertTrue(metrics.share(SearchMetrics.Phase.SIMULATION) > 0.5);
+        assertEquals(500, metrics.histogram(SearchMetrics.Phase.SIMULATION).count());
+        assertTrue(metrics.depth().max() >= 2);
+        assertEquals(81, metrics.branching().max()); // The root
+        assertEquals(agent.getNodePool().size() - 1, metrics.nodesAllocated()); // All but the root
+        assertEquals(metrics.nodesAllocated() * NodePool.NODE_BYTES, metrics.nodeBytes());
+        assertTrue(metrics.heapBytesAllocated() != 0);
+        assertTrue(metrics.elapsedNanos() > 0);
+    }
+
+    @Test
+    public void testMetricsInParallel() {
+        for (SearchConfig.Parallelism parallelism : new SearchConfig.Parallelism[]{SearchConfig.Parallelism.ROOT, SearchConfig.Parallelism.TREE}) {
+            MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(400).withParallelism(parallelism).withThreads(2));
+            agent.chooseMove(new int[9][9], GoBoard.BLACK);
+            assertEquals(400, agent.getMetrics().iterations());
+        }
+    }
+
+    @Test
+    public void testRootParallelReusesPools() {
+        // Each thread's pool (and table) is cleared for the next move, so a small pool does not fill up over a game
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(300).withParallelism(SearchConfig.Parallelism.ROOT).withThreads(2)
+                .withNodePool(10_000).withTranspositionTable(1 << 12);
+        MCSTAgent agent = new MCSTAgent(config);
+        GoBoard board = new GoBoard(9);
+        int turn = GoBoard.BLACK;
+        for (int i = 0; i < 6; i++) {
+            int[] move = agent.chooseMove(board, turn, null, config);
+            assertNotNull(move);
+            assertEquals(300, agent.getMetrics().iterations());
+            assertTrue(agent.getMetrics().nodesAllocated() > 1000); // None could be allocated from a full pool
+            board.play(board.point(move[0], move[1]), turn);
+            turn = -turn;
+        }
+    }
+
+    @Test
+    public void testParallelSearchReusesThreads() {
+        // The threads of a parallel search are kept for the next move, and replaced only when their number changes
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(300).withParallelism(SearchConfig.Parallelism.TREE).withThreads(2);
+        MCSTAgent agent = new MCSTAgent(config);
+        GoBoard board = new GoBoard(9);
+        int turn = GoBoard.BLACK;
+        agent.chooseMove(board, turn, null, config);
+        ThreadPoolExecutor executor = agent.getExecutor();
+        for (int i = 0; i < 4; i++) {
+            int[] move = agent.chooseMove(board, turn, null, i % 2 == 0 ? config : config.withParallelism(SearchConfig.Parallelism.ROOT));
+            board.play(board.point(move[0], move[1]), turn);
+            turn = -turn;
+        }
+        assertSame(executor, agent.getExecutor());
+        assertEquals(2, executor.getLargestPoolSize());
+        agent.chooseMove(board, turn, null, config.withThreads(3));
+        assertTrue(executor.isShutdown());
+        assertEquals(3, agent.getExecutor().getCorePoolSize());
+    }
+
+    @Test
+    public void testSearchEvent() throws Exception {
+        java.nio.file.Path path = java.nio.file.Files.createTempFile("search", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("com.phasmidsoftware.mcts.Search");
+            recording.start();
+            new MCSTAgent(SearchConfig.DEFAULT.withIterations(300)).chooseMove(new int[9][9], GoBoard.BLACK);
+            recording.stop();
+            recording.dump(path);
+            java.util.List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(path);
+            assertEquals(1, events.size());
+            assertEquals(300, events.get(0).getLong("iterations"));
+            assertEquals(9, events.get(0).getInt("size"));
+        } finally {
+            java.nio.file.Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testProgressiveWideningConfig() {
+        assertFalse(SearchConfig.DEFAULT.progressiveWidening());
+        assertEquals(81, SearchConfig.DEFAULT.activeChildren(100, 81));
+        SearchConfig config = SearchConfig.DEFAULT.withProgressiveWidening(2, 0.5);
+        assertTrue(config.progressiveWidening());
+        assertEquals(1, config.activeChildren(0, 81));
+        assertEquals(2, config.activeChildren(1, 81));
+        assertEquals(20, config.activeChildren(100, 81));
+        assertEquals(81, config.activeChildren(10000, 81));
+        assertEquals(200, config.activeChildren(10000, 361)); // Beyond the table
+        assertFalse(config.withProgressiveWidening(0, 0.5).progressiveWidening());
+    }
+
+    @Test
+    public void testPrior() {
+        GoBoard board = new GoBoard(9);
+        board.play(board.point(3, 4), GoBoard.BLACK);
+        board.play(board.point(5, 4), GoBoard.BLACK);
+        board.play(board.point(4, 3), GoBoard.BLACK);
+        board.play(board.point(4, 4), GoBoard.WHITE);
+        int last = board.point(4, 4), capture = board.atariLiberty(last);
+        assertEquals(board.point(4, 5), capture);
+        int captures = MCSTAgent.prior(board, capture, last, -1, capture);
+        int near = MCSTAgent.prior(board, board.point(3, 3), last, -1, capture);
+        int far = MCSTAgent.prior(board, board.point(1, 7), last, -1, capture);
+        int edge = MCSTAgent.prior(board, board.point(0, 7), last, -1, capture);
+        assertTrue(captures > near);
+        assertTrue(near > far);
+        assertTrue(far > edge);
+        assertTrue(captures < MCSTAgent.PRIOR_LEVELS);
+        assertTrue(edge >= 0);
+        assertTrue(MCSTAgent.prior(board, board.point(1, 7), last, board.point(2, 6), capture) > far);
+    }
+
+    @Test
+    public void testProgressiveWidening() {
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(2000).withProgressiveWidening(2, 0.5);
+        int[] visits = MCSTAgent.search(new MCSTAgent.State(new int[19][19], GoBoard.BLACK), config);
+        int tried = 0;
+        for (int v : visits) if (v > 0) tried++;
+        assertEquals(2000, sum(visits));
+        assertTrue(tried <= config.activeChildren(2000, 361));
+        // Without widening, every root move is tried
+        visits = MCSTAgent.search(new MCSTAgent.State(new int[19][19], GoBoard.BLACK), SearchConfig.DEFAULT.withIterations(2000));
+        tried = 0;
+        for (int v : visits) if (v > 0) tried++;
+        assertEquals(361, tried);
+    }
+
+    @Test
+    public void testProgressiveWideningOrder() {
+        // After the root's move, the capture of the stone it puts in atari has the highest prior, so it is the first child
+        int[][] map = new int[9][9];
+        map[3][4] = 1;
+        map[5][4] = 1;
+        map[4][3] = 1;
+        MCSTAgent.State state = new MCSTAgent.State(map, -1);
+        SearchConfig config = SearchConfig.DEFAULT.withIterations(2000).withProgressiveWidening(100, 0.5); // Every root move is tried
+        MCSTAgent.Tree tree = MCSTAgent.newTree(state, config);
+        MCSTAgent.search(tree, config);
+        int node = tree.child(tree.root, state.getBoard().point(4, 4));
+        assertTrue(tree.pool.firstChild(node) >= 0);
+        assertEquals(state.getBoard().point(4, 5), tree.pool.move(tree.pool.firstChild(node)));
+    }
+
+    private static int sum(int[] xs) {
+        int result = 0;
+        for (int x : xs) result += x;
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodePoolTest {
+
+    @Test
+    public void testAllocate() {
+        NodePool pool = new NodePool(10, false);
+        int root = pool.allocateRoot();
+        assertEquals(0, root);
+        assertEquals(-1, pool.move(root));
+        assertEquals(NodePool.UNEXPANDED, pool.firstChild(root));
+        int first = pool.allocate(3);
+        for (int i = 0; i < 3; i++) pool.setMove(first + i, 7 + i);
+        pool.publishChildren(root, first, 3);
+        assertEquals(first, pool.firstChild(root));
+        assertEquals(3, pool.childCount(root));
+        assertEquals(8, pool.move(first + 1));
+        assertEquals(4, pool.size());
+    }
+
+    @Test
+    public void testUpdate() {
+        NodePool pool = new NodePool(4, true);
+        int node = pool.allocateRoot();
+        pool.addVirtualLoss(node, 3);
+        assertEquals(3, pool.visits(node));
+        assertEquals(-3, pool.wins(node));
+        pool.update(node, 1, 3);
+        assertEquals(1, pool.visits(node));
+        assertEquals(1, pool.wins(node));
+        pool.updateAmaf(node, -1);
+        assertEquals(1, pool.amafVisits(node));
+        assertEquals(-1, pool.amafWins(node));
+    }
+
+    @Test
+    public void testFull() {
+        NodePool pool = new NodePool(4, false);
+        pool.allocateRoot();
+        assertEquals(1, pool.allocate(3));
+        assertEquals(-1, pool.allocate(1));
+        assertEquals(-1, pool.allocateRoot());
+        assertEquals(4, pool.size());
+    }
+
+    @Test
+    public void testClearResetsNodes() {
+        NodePool pool = new NodePool(4, false);
+        int node = pool.allocateRoot();
+        pool.update(node, 1, 0);
+        pool.publishChildren(node, NodePool.TERMINAL, 0);
+        pool.clear();
+        assertEquals(0, pool.size());
+        node = pool.allocateRoot();
+        assertEquals(0, pool.visits(node));
+        assertEquals(NodePool.UNEXPANDED, pool.firstChild(node));
+    }
+
+    @Test
+    public void testFootprint() {
+        assertEquals(160_000_000L, new NodePool(10_000_000, false).footprintBytes());
+        assertEquals(240L, new NodePool(10, true).footprintBytes());
+    }
+
+    @Test
+    public void testSearchReusesPool() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(500).withNodePool(1 << 14));
+        agent.chooseMove(new int[5][5], GoBoard.BLACK);
+        NodePool pool = agent.getNodePool();
+        assertTrue(pool.size() > 1);
+        agent.reset();
+        agent.chooseMove(new int[5][5], GoBoard.BLACK);
+        assertSame(pool, agent.getNodePool());
+    }
+
+    @Test
+    public void testSearchWithFullPool() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(2000).withNodePool(100));
+        assertNotNull(agent.chooseMove(new int[9][9], GoBoard.BLACK));
+        assertTrue(agent.getNodePool().size() <= 100);
+    }
+}
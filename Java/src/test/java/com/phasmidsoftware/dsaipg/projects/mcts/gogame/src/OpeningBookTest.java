@@ -0,0 +1,115 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+
+    @Test
+    public void testTransform() {
+        int size = 5;
+        for (int s = 0; s < Zobrist.SYMMETRIES; s++)
+            for (int p = 0; p < size * size; p++)
+                assertEquals(p, Zobrist.transform(Zobrist.transform(p, size, s), size, Zobrist.inverse(s)));
+        assertEquals(4, Zobrist.transform(0, size, 1)); // A quarter turn takes the top left corner to the top right
+        assertEquals(4, Zobrist.transform(0, size, 4)); // So does the reflection
+    }
+
+    @Test
+    public void testSymmetricKeys() {
+        GoBoard board = new GoBoard(map());
+        assertEquals(Zobrist.stateKey(board, GoBoard.WHITE), Zobrist.stateKey(board, GoBoard.WHITE, 0));
+        long canonical = Zobrist.stateKey(board, GoBoard.WHITE, Zobrist.canonicalSymmetry(board, GoBoard.WHITE));
+        for (int s = 0; s < Zobrist.SYMMETRIES; s++) {
+            GoBoard image = transform(board, s);
+            assertEquals(Zobrist.stateKey(board, GoBoard.WHITE, s), Zobrist.stateKey(image, GoBoard.WHITE));
+            assertEquals(canonical, Zobrist.stateKey(image, GoBoard.WHITE, Zobrist.canonicalSymmetry(image, GoBoard.WHITE)));
+        }
+        assertNotEquals(canonical, Zobrist.stateKey(board, GoBoard.BLACK, Zobrist.canonicalSymmetry(board, GoBoard.BLACK)));
+    }
+
+    @Test
+    public void testWriteAndLookup() throws IOException {
+        GoBoard board = new GoBoard(map());
+        int symmetry = Zobrist.canonicalSymmetry(board, GoBoard.WHITE);
+        int move = board.point(3, 1);
+        Map<Long, OpeningBook.Entry> entries = new HashMap<>();
+        entries.put(Zobrist.stateKey(board, GoBoard.WHITE, symmetry), new OpeningBook.Entry(Zobrist.transform(move, 5, symmetry), 77));
+        entries.put(1L, new OpeningBook.Entry(0, 1));
+        entries.put(-1L, new OpeningBook.Entry(0, 1));
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook.write(path, 5, entries);
+            OpeningBook book = OpeningBook.load(path);
+            assertEquals(5, book.size());
+            assertEquals(3, book.entries());
+            assertEquals(move, book.lookup(board, GoBoard.WHITE));
+            assertEquals(77, book.visits(board, GoBoard.WHITE));
+            assertEquals(-1, book.lookup(board, GoBoard.BLACK));
+            assertEquals(-1, book.lookup(new GoBoard(9), GoBoard.BLACK));
+            // Each orientation of the position gets the corresponding orientation of the move
+            for (int s = 0; s < Zobrist.SYMMETRIES; s++)
+                assertEquals(Zobrist.transform(move, 5, s), book.lookup(transform(board, s), GoBoard.WHITE));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotABook() throws IOException {
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            Files.write(path, new byte[20]);
+            OpeningBook.load(path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testBuildAndPlay() throws IOException {
+        Path path = Files.createTempFile("book", ".bin");
+        try {
+            int entries = OpeningBook.build(path, 5, 3, 2, SearchConfig.DEFAULT.withIterations(500), 2);
+            OpeningBook book = OpeningBook.load(path);
+            assertEquals(entries, book.entries());
+            assertTrue(entries >= 3 && entries <= 1 + 2 + 4);
+            GoBoard empty = new GoBoard(5);
+            int opening = book.lookup(empty, GoBoard.BLACK);
+            assertTrue(empty.isLegal(opening, GoBoard.BLACK));
+            MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(500));
+            agent.setOpeningBook(book);
+            assertArrayEquals(new int[]{empty.row(opening), empty.col(opening)}, agent.chooseMove(new int[5][5], GoBoard.BLACK));
+            assertEquals(0, agent.getIterations());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static int[][] map() {
+        int[][] map = new int[5][5];
+        map[0][1] = GoBoard.BLACK;
+        map[1][3] = GoBoard.BLACK;
+        map[2][2] = GoBoard.WHITE;
+        map[4][0] = GoBoard.WHITE;
+        map[4][4] = GoBoard.BLACK;
+        return map;
+    }
+
+    private static GoBoard transform(GoBoard board, int symmetry) {
+        int size = board.size();
+        int[][] map = new int[size][size];
+        for (int p = 0; p < board.points(); p++) {
+            int q = Zobrist.transform(p, size, symmetry);
+            map[q / size][q % size] = board.colour(p);
+        }
+        return new GoBoard(map);
+    }
+}
@@ -0,0 +1,53 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PatternsTest {
+
+    @Test
+    public void testEmptyBoard() {
+        GoBoard board = new GoBoard(9);
+        for (int p = 0; p < board.points(); p++) assertFalse(Patterns.matches(board, p));
+    }
+
+    @Test
+    public void testIndex() {
+        GoBoard board = new GoBoard(9);
+        assertEquals(0, Patterns.index(board, board.point(4, 4)));
+        // In the corner, NW, N, NE, W and SW are off the board
+        assertEquals(0b11_11_11_11_00_11_00_00, Patterns.index(board, board.point(0, 0)));
+        board.play(board.point(3, 3), GoBoard.BLACK);
+        assertEquals(0b01 << 14, Patterns.index(board, board.point(4, 4)));
+    }
+
+    @Test
+    public void testHane() {
+        // X O . / . . . / ? . ?  with the move in the middle, in every orientation and colour
+        for (int s = 0; s < Zobrist.SYMMETRIES; s++)
+            for (int colour : new int[]{GoBoard.BLACK, GoBoard.WHITE}) {
+                int[][] map = new int[9][9];
+                place(map, 3, 3, s, colour);
+                place(map, 3, 4, s, -colour);
+                GoBoard board = new GoBoard(map);
+                assertTrue(Patterns.matches(board, image(board, 4, 4, s)));
+                assertFalse(Patterns.matches(board, image(board, 5, 4, s)));
+            }
+    }
+
+    @Test
+    public void testCount() {
+        assertTrue(Patterns.count() > 0);
+        assertTrue(Patterns.count() < 1 << 16);
+    }
+
+    private static void place(int[][] map, int row, int col, int symmetry, int colour) {
+        int p = Zobrist.transform(row * 9 + col, 9, symmetry);
+        map[p / 9][p % 9] = colour;
+    }
+
+    private static int image(GoBoard board, int row, int col, int symmetry) {
+        return Zobrist.transform(board.point(row, col), 9, symmetry);
+    }
+}
@@ -0,0 +1,103 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PlayoutEngineTest {
+
+    @Test
+    public void testPlayoutLeavesStartUnchanged() {
+        GoBoard start = new GoBoard(9);
+        start.play(start.point(4, 4), GoBoard.BLACK);
+        PlayoutEngine engine = new PlayoutEngine(9, 42L);
+        int result = engine.playout(start, GoBoard.WHITE, 50);
+        assertTrue(result >= -1 && result <= 1);
+        assertEquals(80, start.emptyCount());
+        assertEquals(1, engine.playouts());
+        assertEquals(50, engine.moves());
+    }
+
+    @Test
+    public void testPlayoutIsDeterministicForSeed() {
+        GoBoard start = new GoBoard(9);
+        for (int seed = 1; seed < 20; seed++)
+            assertEquals(new PlayoutEngine(9, seed).playout(start, GoBoard.BLACK, 100), new PlayoutEngine(9, seed).playout(start, GoBoard.BLACK, 100));
+    }
+
+    @Test
+    public void testRecordedMoves() {
+        GoBoard start = new GoBoard(9);
+        PlayoutEngine engine = new PlayoutEngine(9, 7L);
+        engine.playout(start, GoBoard.WHITE, 40);
+        assertTrue(engine.recordedMoves() > 0 && engine.recordedMoves() <= 40);
+        // White moved first, and the players alternate until someone passes.
+        assertTrue(engine.recordedMove(0) < 0);
+        assertTrue(engine.recordedMove(1) >= 0);
+    }
+
+    @Test
+    public void testNextIntInRange() {
+        PlayoutEngine engine = new PlayoutEngine(9, 0L);
+        int[] counts = new int[7];
+        for (int i = 0; i < 7000; i++) counts[engine.nextInt(7)]++;
+        for (int count : counts) assertTrue(count > 800 && count < 1200);
+    }
+
+    @Test
+    public void testForCurrentThread() {
+        PlayoutEngine engine = PlayoutEngine.forCurrentThread(9);
+        assertSame(engine, PlayoutEngine.forCurrentThread(9));
+        assertNotSame(engine, PlayoutEngine.forCurrentThread(13));
+    }
+
+    @Test
+    public void testHeavyPlayout() {
+        GoBoard start = new GoBoard(9);
+        PlayoutEngine engine = new PlayoutEngine(9, 3L);
+        int result = engine.playout(start, GoBoard.BLACK, 100, SearchConfig.PlayoutPolicy.HEAVY);
+        assertTrue(result >= -1 && result <= 1);
+        assertEquals(81, start.emptyCount());
+        assertTrue(engine.moves() > 0 && engine.moves() <= 100);
+    }
+
+    @Test
+    public void testHeavyCaptures() {
+        // White's last move at (2, 2) is in atari: black takes it
+        int[][] map = new int[5][5];
+        map[1][2] = map[2][1] = map[2][3] = GoBoard.BLACK;
+        map[2][2] = GoBoard.WHITE;
+        GoBoard board = new GoBoard(map);
+        for (int seed = 1; seed < 10; seed++)
+            assertEquals(board.point(3, 2), new PlayoutEngine(5, seed).heavyMove(board, GoBoard.BLACK, board.point(2, 2)));
+    }
+
+    @Test
+    public void testHeavyEscapes() {
+        // White's last move at (2, 3) puts the black stone at (2, 2) in atari: black extends to (3, 2)
+        int[][] map = new int[5][5];
+        map[1][2] = map[2][1] = map[2][3] = GoBoard.WHITE;
+        map[2][2] = GoBoard.BLACK;
+        map[0][2] = map[1][1] = map[1][3] = GoBoard.BLACK;
+        GoBoard board = new GoBoard(map);
+        for (int seed = 1; seed < 10; seed++)
+            assertEquals(board.point(3, 2), new PlayoutEngine(5, seed).heavyMove(board, GoBoard.BLACK, board.point(2, 3)));
+    }
+
+    @Test
+    public void testHeavyAnswersWithShape() {
+        // White's contact move at (2, 3) against black's stone at (3, 3) is answered by a hane next to it
+        int[][] map = new int[7][7];
+        map[3][3] = GoBoard.BLACK;
+        map[2][3] = GoBoard.WHITE;
+        GoBoard board = new GoBoard(map);
+        int move = new PlayoutEngine(7, 5L).heavyMove(board, GoBoard.BLACK, board.point(2, 3));
+        assertTrue(Patterns.matches(board, move));
+        assertTrue(Math.abs(board.row(move) - 2) <= 1 && Math.abs(board.col(move) - 3) <= 1);
+    }
+
+    @Test
+    public void testPlayoutsPerSecond() {
+        assertTrue(PlayoutEngine.playoutsPerSecond(9, 50, 20) > 0);
+    }
+}
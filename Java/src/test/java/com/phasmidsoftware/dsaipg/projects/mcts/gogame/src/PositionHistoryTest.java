@@ -0,0 +1,37 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PositionHistoryTest {
+
+    @Test
+    public void testAddAndContains() {
+        PositionHistory history = new PositionHistory(4);
+        assertFalse(history.contains(0));
+        assertTrue(history.add(0));
+        assertFalse(history.add(0));
+        for (long hash = 1; hash <= 1000; hash++) assertTrue(history.add(hash * 0x9E3779B97F4A7C15L));
+        assertEquals(1001, history.size());
+        for (long hash = 1; hash <= 1000; hash++) assertTrue(history.contains(hash * 0x9E3779B97F4A7C15L));
+        assertFalse(history.contains(-1));
+        history.clear();
+        assertEquals(0, history.size());
+        assertFalse(history.contains(0x9E3779B97F4A7C15L));
+    }
+
+    @Test
+    public void testCopy() {
+        PositionHistory history = new PositionHistory();
+        history.add(0);
+        history.add(42);
+        PositionHistory copy = history.copy();
+        copy.add(43);
+        assertTrue(copy.contains(0));
+        assertTrue(copy.contains(42));
+        assertFalse(history.contains(43));
+        assertEquals(2, history.size());
+        assertEquals(3, copy.size());
+    }
+}
@@ -0,0 +1,59 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.gogame.src;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testGetAndPut() {
+        TranspositionTable table = new TranspositionTable(16);
+        NodePool pool = new NodePool(8, false);
+        int node = pool.allocateRoot();
+        assertEquals(-1, table.get(42));
+        assertEquals(node, table.putIfAbsent(42, node, pool));
+        assertEquals(node, table.putIfAbsent(42, pool.allocateRoot(), pool));
+        assertEquals(node, table.get(42));
+        assertEquals(1, table.size());
+        assertEquals(2, table.lookups());
+        assertEquals(0.5, table.hitRate(), 0);
+    }
+
+    @Test
+    public void testReplacesLessVisited() {
+        TranspositionTable table = new TranspositionTable(2);
+        NodePool pool = new NodePool(8, false);
+        int busy = pool.allocateRoot(), idle = pool.allocateRoot(), fresh = pool.allocateRoot();
+        for (int i = 0; i < 10; i++) pool.update(busy, 1, 0);
+        pool.update(idle, 1, 0);
+        // With a capacity of 2, every key falls into the same bucket.
+        table.putIfAbsent(1, busy, pool);
+        table.putIfAbsent(2, idle, pool);
+        table.putIfAbsent(3, fresh, pool);
+        assertEquals(busy, table.get(1));
+        assertEquals(-1, table.get(2));
+        assertEquals(fresh, table.get(3));
+        assertEquals(1, table.replacements());
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testFootprint() {
+        assertEquals(1024, TranspositionTable.capacityFor(1000));
+        assertEquals(32 + 1024 * 12, new TranspositionTable(1000).footprintBytes());
+    }
+
+    @Test
+    public void testSearchSharesTranspositions() {
+        MCSTAgent agent = new MCSTAgent(SearchConfig.DEFAULT.withIterations(3000));
+        agent.chooseMove(new int[4][4], GoBoard.BLACK);
+        TranspositionTable table = agent.getTranspositionTable();
+        assertTrue(table.hits() > 0);
+        assertTrue(table.size() <= table.capacity());
+        // The next search from the same position keeps the table.
+        agent.chooseMove(new int[4][4], GoBoard.BLACK);
+        assertSame(table, agent.getTranspositionTable());
+        assertNull(new MCSTAgent(SearchConfig.DEFAULT.withTranspositionTable(0).withIterations(10)).getTranspositionTable());
+    }
+}
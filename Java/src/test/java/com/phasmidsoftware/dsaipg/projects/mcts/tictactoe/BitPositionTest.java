@@ -0,0 +1,64 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BitPositionTest {
+
+    @Test
+    public void testPlay() {
+        int code = BitPosition.play(0, TicTacToe.X, 4);
+        assertEquals(1 << 4, BitPosition.stones(code, TicTacToe.X));
+        assertEquals(0, BitPosition.stones(code, TicTacToe.O));
+        assertEquals(TicTacToe.O, BitPosition.toMove(code));
+        code = BitPosition.play(code, TicTacToe.O, 0);
+        assertEquals(1, BitPosition.stones(code, TicTacToe.O));
+        assertEquals(BitPosition.MASK & ~(1 | 1 << 4), BitPosition.empty(code));
+        assertEquals(TicTacToe.X, BitPosition.toMove(code));
+    }
+
+    @Test
+    public void testWinner() {
+        assertEquals(TicTacToe.blank, BitPosition.winner(0));
+        assertFalse(BitPosition.isTerminal(0));
+        int diagonal = new Position(new int[][]{{1, 0, -1}, {-1, 1, 0}, {-1, -1, 1}}, 5, 1).code();
+        assertEquals(TicTacToe.X, BitPosition.winner(diagonal));
+        assertTrue(BitPosition.isTerminal(diagonal));
+        int column = new Position(new int[][]{{1, 0, 1}, {-1, 0, -1}, {1, 0, -1}}, 6, 0).code();
+        assertEquals(TicTacToe.O, BitPosition.winner(column));
+    }
+
+    @Test
+    public void testTransform() {
+        int code = Position.parsePosition("X X .\n. O .\n. . .", 1).code();
+        assertEquals(code, BitPosition.transform(code, 0));
+        Set<Integer> images = new HashSet<>();
+        for (int s = 0; s < BitPosition.SYMMETRIES; s++) images.add(BitPosition.transform(code, s));
+        assertEquals(BitPosition.SYMMETRIES, images.size());
+    }
+
+    @Test
+    public void testCanonical() {
+        Position position = Position.parsePosition("X X .\n. O .\n. . .", 1);
+        int canonical = position.canonicalCode();
+        for (int r = 0; r < 4; r++) {
+            assertEquals(canonical, position.canonicalCode());
+            assertEquals(canonical, position.reflect(0).canonicalCode());
+            assertEquals(canonical, position.reflect(1).canonicalCode());
+            position = position.rotate();
+        }
+        assertNotEquals(canonical, Position.parsePosition("X . X\n. O .\n. . .", 1).canonicalCode());
+    }
+
+    @Test
+    public void testOpenings() {
+        Set<Integer> openings = new HashSet<>();
+        for (int cell = 0; cell < BitPosition.CELLS; cell++)
+            openings.add(BitPosition.canonical(BitPosition.play(0, TicTacToe.X, cell)));
+        assertEquals(3, openings.size());
+    }
+}
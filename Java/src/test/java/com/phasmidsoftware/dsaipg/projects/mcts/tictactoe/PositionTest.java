@@ -55,10 +55,27 @@ public class PositionTest {
 
     @Test
     public void testReflect() {
+        Position target = Position.parsePosition("X . .\n. O .\nX . .", 1);
+        Position reflected = target.reflect(1);
+        assertEquals(". . X\n. O .\n. . X", reflected.render());
+        assertEquals(target.canonicalCode(), reflected.canonicalCode());
+        assertEquals(target.code(), reflected.reflect(1).code());
     }
 
     @Test
     public void testRotate() {
+        Position target = Position.parsePosition("X X .\n. O .\n. . .", 1);
+        Position rotated = target.rotate();
+        assertNotEquals(target.code(), rotated.code());
+        assertEquals(target.canonicalCode(), rotated.canonicalCode());
+        assertEquals(target.code(), rotated.rotate().rotate().rotate().code());
+    }
+
+    @Test
+    public void testCode() {
+        Position target = Position.parsePosition("X . .\n. O .\n. . X", 1);
+        assertEquals(1 | 1 << 8 | 1 << 13, target.code());
+        assertEquals(target.render(), BitPosition.toPosition(target.code()).render());
     }
 
     @Test
@@ -1,5 +1,7 @@
 package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
 
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Node;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.Proof;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -37,11 +39,32 @@ public class TicTacToeNodeTest {
 
     @Test
     public void addChild() {
-        // no tests yet
+        TicTacToeNode node = new TicTacToeNode(new TicTacToe().new TicTacToeState());
+        node.explore();
+        assertEquals(3, node.children().size()); // corner, edge and centre: the other openings are symmetric
     }
 
     @Test
     public void backPropagate() {
-        // no tests yet
+        // X to move can win at once, so the position is lost for O, who moved into it
+        TicTacToeNode node = new TicTacToeNode(new TicTacToe().new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O)));
+        assertEquals(Proof.UNPROVEN, node.proof());
+        node.explore();
+        assertEquals(Proof.LOSS, node.proof());
+        int sum = 0;
+        for (Node<TicTacToe> child : node.children()) sum += child.playouts();
+        assertEquals(sum, node.playouts());
+    }
+
+    @Test
+    public void proof() {
+        TicTacToeNode win = new TicTacToeNode(new TicTacToe().new TicTacToeState(Position.parsePosition("X . 0\nX O .\nX . 0", TicTacToe.X)));
+        assertEquals(Proof.WIN, win.proof());
+        TicTacToeNode draw = new TicTacToeNode(new TicTacToe().new TicTacToeState(Position.parsePosition("X O X\nX O O\nO X X", TicTacToe.X)));
+        assertEquals(Proof.DRAW, draw.proof());
+        // Every child of the last move is a draw
+        TicTacToeNode last = new TicTacToeNode(new TicTacToe().new TicTacToeState(Position.parsePosition("X O X\nX O O\nO X .", TicTacToe.O)));
+        last.explore();
+        assertEquals(Proof.DRAW, last.proof());
     }
 }
\ No newline at end of file
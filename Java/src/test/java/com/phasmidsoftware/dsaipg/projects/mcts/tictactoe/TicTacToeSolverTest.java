@@ -0,0 +1,62 @@
+package com.phasmidsoftware.dsaipg.projects.mcts.tictactoe;
+
+import com.phasmidsoftware.dsaipg.projects.mcts.core.MCTSEngine;
+import com.phasmidsoftware.dsaipg.projects.mcts.core.RolloutPolicy;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class TicTacToeSolverTest {
+
+    @Test
+    public void testEmptyBoard() {
+        TicTacToeSolver solver = new TicTacToeSolver();
+        assertEquals(TicTacToeSolver.DRAW, solver.value(0));
+        assertTrue(solver.solved() > 0);
+        assertTrue(solver.solved() < 765); // Fewer than the number of essentially different positions
+        int solved = solver.solved();
+        assertEquals(TicTacToeSolver.DRAW, solver.value(0));
+        assertEquals(solved, solver.solved());
+    }
+
+    @Test
+    public void testWinInOne() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", 0);
+        TicTacToeSolver solver = new TicTacToeSolver();
+        assertEquals(TicTacToeSolver.WIN, solver.value(position));
+        assertArrayEquals(new int[]{0, 2}, solver.bestMove(position));
+    }
+
+    @Test
+    public void testLoss() {
+        // O to move cannot block both of X's threats.
+        Position position = Position.parsePosition("X . X\n. O .\nO . X", 1);
+        assertEquals(TicTacToeSolver.LOSS, new TicTacToeSolver().value(position));
+    }
+
+    @Test
+    public void testSymmetricPositions() {
+        TicTacToeSolver solver = new TicTacToeSolver();
+        Position position = Position.parsePosition("X . .\n. . .\n. . .", 1);
+        int value = solver.value(position);
+        int solved = solver.solved();
+        assertEquals(value, solver.value(position.rotate()));
+        assertEquals(value, solver.value(position.reflect(0)));
+        assertEquals(solved, solver.solved());
+    }
+
+    @Test
+    public void testRollout() {
+        TicTacToe game = new TicTacToe(0L);
+        RolloutPolicy<TicTacToe> rollout = new TicTacToeSolver().rollout();
+        assertEquals(Optional.empty(), rollout.rollout(game.start()));
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", 0);
+        assertEquals(Optional.of(TicTacToe.X), rollout.rollout(game.new TicTacToeState(position)));
+        MCTSEngine<TicTacToe> engine = new MCTSEngine<TicTacToe>().withRollout(rollout).withIterations(200);
+        MCTSEngine.Result<TicTacToe> result = engine.search(game.start());
+        assertEquals(200, result.iterations());
+        assertNotNull(result.bestMove());
+    }
+}
@@ -0,0 +1,75 @@
+package com.phasmidsoftware.dsaipg.sort.counting;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import com.phasmidsoftware.dsaipg.util.general.CodePointMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+import static org.junit.Assert.*;
+
+public class ParMSDStringSortTest {
+
+    final String[] input = "she sells seashells by the seashore the shells she sells are surely seashells".split(" ");
+    final String[] expected = "are by seashells seashells seashore sells sells she she shells surely the the".split(" ");
+
+    @Test
+    public void sort0() throws IOException {
+        try (ParMSDStringSort sorter = new ParMSDStringSort(CodePointMapper.English, input.length, 1, Config.load(ParMSDStringSortTest.class))) {
+            assertArrayEquals(expected, sorter.sort(input));
+        }
+    }
+
+    @Test
+    public void sort1() throws IOException {
+        // A cutoff of 2 makes every bucket a task of its own
+        Helper<String> helper = HelperFactory.createGeneric("test", CodePointMapper.ASCIIExt.comparator, input.length, 1, Config.load(ParMSDStringSortTest.class));
+        try (ParMSDStringSort sorter = new ParMSDStringSort(CodePointMapper.ASCIIExt, helper, 2, 4)) {
+            assertArrayEquals(expected, sorter.sort(input));
+        }
+    }
+
+    @Test
+    public void sortWords() throws IOException {
+        int n = 100_000;
+        String[] words = MSDStringSortTest.getWords("3000-common-words.txt", MSDStringSortTest::lineAsList);
+        Config config = Config.load(ParMSDStringSortTest.class).copy(PARALLEL, CUTOFF, "1000").copy(PARALLEL, PARALLELISM, "4");
+        try (ParMSDStringSort sorter = new ParMSDStringSort(CodePointMapper.English, n, 1, config)) {
+            assertEquals(4, sorter.getPool().getParallelism());
+            Helper<String> helper = sorter.getHelper();
+            String[] xs = helper.random(String.class, r -> words[r.nextInt(words.length)]);
+            String[] ys = sorter.sort(xs);
+            assertTrue(helper.isSorted(ys));
+            Arrays.sort(xs);
+            Arrays.sort(ys);
+            assertArrayEquals(xs, ys);
+        }
+    }
+
+    @Test
+    public void sortRange() throws IOException {
+        // Only [2, 12) is sorted (in place), so the auxiliary arrays are offset from the start of xs
+        String[] xs = input.clone();
+        Helper<String> helper = HelperFactory.createGeneric("test", CodePointMapper.English.comparator, xs.length, 1, Config.load(ParMSDStringSortTest.class));
+        try (ParMSDStringSort sorter = new ParMSDStringSort(CodePointMapper.English, helper, 2, 2)) {
+            sorter.sort(xs, 2, 12);
+            String[] expected = input.clone();
+            Arrays.sort(expected, 2, 12);
+            assertArrayEquals(expected, xs);
+        }
+    }
+
+    @Test
+    public void sortPrefixes() throws IOException {
+        // Strings which end go before all those which continue, including those which continue with a non-letter
+        String[] xs = {"ab", "a", "a-b", "", "abc", "a", "b"};
+        Helper<String> helper = HelperFactory.createGeneric("test", CodePointMapper.English.comparator, xs.length, 1, Config.load(ParMSDStringSortTest.class));
+        try (ParMSDStringSort sorter = new ParMSDStringSort(CodePointMapper.English, helper, 2, 2)) {
+            assertArrayEquals(new String[]{"", "a", "a", "a-b", "ab", "abc", "b"}, sorter.sort(xs));
+        }
+    }
+}
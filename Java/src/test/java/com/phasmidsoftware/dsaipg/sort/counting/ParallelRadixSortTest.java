@@ -0,0 +1,92 @@
+package com.phasmidsoftware.dsaipg.sort.counting;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ParallelRadixSortTest {
+
+    @Test
+    public void testSortInts() {
+        int[] xs = {3, -4, 2, Integer.MIN_VALUE, 1, 0, Integer.MAX_VALUE, -1};
+        new ParallelRadixSort().sort(xs);
+        assertArrayEquals(new int[]{Integer.MIN_VALUE, -4, -1, 0, 1, 2, 3, Integer.MAX_VALUE}, xs);
+    }
+
+    @Test
+    public void testSortLongs() {
+        long[] xs = {3, -4, 2, Long.MIN_VALUE, 1L << 40, 0, Long.MAX_VALUE, -(1L << 40)};
+        new ParallelRadixSort().sort(xs);
+        assertArrayEquals(new long[]{Long.MIN_VALUE, -(1L << 40), -4, 0, 2, 3, 1L << 40, Long.MAX_VALUE}, xs);
+    }
+
+    @Test
+    public void testSortIntsParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelRadixSort sorter = new ParallelRadixSort(pool, 1000);
+        Random random = new Random(0L);
+        for (int n : new int[]{0, 1, 2, 999, 1000, 3999, 4000, 100_001}) {
+            int[] xs = random.ints(n).toArray();
+            int[] expected = xs.clone();
+            Arrays.sort(expected);
+            sorter.sort(xs);
+            assertArrayEquals(expected, xs);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSortLongsParallel() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        ParallelRadixSort sorter = new ParallelRadixSort(pool, 100);
+        long[] xs = new Random(0L).longs(50_000).toArray();
+        long[] expected = xs.clone();
+        Arrays.sort(expected);
+        sorter.sort(xs);
+        assertArrayEquals(expected, xs);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSortRange() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelRadixSort sorter = new ParallelRadixSort(pool, 100);
+        int[] xs = new Random(1L).ints(10_000, -1000, 1000).toArray();
+        int[] expected = xs.clone();
+        Arrays.sort(expected, 123, 9_000);
+        sorter.sort(xs, 123, 9_000);
+        assertArrayEquals(expected, xs);
+        pool.shutdown();
+    }
+
+    @Test
+    public void testUniformBytes() {
+        // Only the lowest byte varies (and every element is negative), so three of the four passes are skipped
+        ParallelRadixSort sorter = new ParallelRadixSort(new ForkJoinPool(2), 10);
+        int[] xs = new Random(2L).ints(1000, -256, 0).toArray();
+        int[] expected = xs.clone();
+        Arrays.sort(expected);
+        sorter.sort(xs);
+        assertArrayEquals(expected, xs);
+        int[] ys = new int[1000];
+        Arrays.fill(ys, 42);
+        sorter.sort(ys);
+        assertEquals(42, ys[999]);
+        sorter.getPool().shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortBadRange() {
+        new ParallelRadixSort().sort(new int[4], 3, 2);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testSortBadTo() {
+        new ParallelRadixSort().sort(new int[4], 0, 5);
+    }
+}
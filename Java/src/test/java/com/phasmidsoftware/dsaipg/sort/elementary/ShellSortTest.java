@@ -52,6 +52,13 @@ public class ShellSortTest {
         assertEquals(0, h.next());
     }
 
+    @Test
+    public void testGaps() {
+        assertArrayEquals(new int[]{1}, ShellSort.gaps(100, 1));
+        assertArrayEquals(new int[]{40, 13, 4, 1}, ShellSort.gaps(100, 3));
+        assertArrayEquals(new int[]{41, 19, 5, 1}, ShellSort.gaps(50, 4));
+    }
+
     @Test
     public void hSortKnuth3() {
         Integer[] xs = {15, 3, -1, 2, 4, 1, 0, 5, 8, 6, 1, 9, 17, 7, 11};
@@ -0,0 +1,32 @@
+package com.phasmidsoftware.dsaipg.sort.helper;
+
+import org.junit.Test;
+
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.setupConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentComparableHelperTest {
+
+    @Test
+    public void testCreateConcurrent() {
+        Helper<Integer> helper = HelperFactory.createConcurrent("test", 100, 0L, 1, setupConfig("true", "false", "0", "0", "", ""));
+        assertTrue(helper instanceof ConcurrentComparableHelper);
+        assertTrue(helper.clone("clone", 10) instanceof ConcurrentComparableHelper);
+    }
+
+    @Test
+    public void testRegisterDepth() throws InterruptedException {
+        Helper<Integer> helper = HelperFactory.createConcurrent("test", 100, 0L, 1, setupConfig("true", "false", "0", "0", "", ""));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) helper.registerDepth(i * threads.length + offset);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(400_000 - 1, helper.maxDepth());
+    }
+}
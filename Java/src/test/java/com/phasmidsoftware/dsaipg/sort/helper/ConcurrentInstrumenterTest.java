@@ -0,0 +1,45 @@
+package com.phasmidsoftware.dsaipg.sort.helper;
+
+import org.junit.Test;
+
+import static com.phasmidsoftware.dsaipg.sort.helper.Instrument.COMPARES;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.setupConfig;
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentInstrumenterTest {
+
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException {
+        ConcurrentInstrumenter instrumenter = new ConcurrentInstrumenter(setupConfig("true", "true", "0", "0", "", ""));
+        instrumenter.init(100, 1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    instrumenter.incrementCompares();
+                    instrumenter.incrementSwaps(2);
+                    instrumenter.incrementHits(3);
+                    instrumenter.incrementFixes(1);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(400_000, instrumenter.getCompares());
+        assertEquals(800_000, instrumenter.getSwaps());
+        assertEquals(1_200_000, instrumenter.getHits());
+        assertEquals(400_000, instrumenter.getFixes());
+        instrumenter.gatherStatistic();
+        assertEquals(400_000, instrumenter.getStatPack().getStatistics(COMPARES).mean(), 0.0);
+        assertEquals(0, instrumenter.getCompares());
+    }
+
+    @Test
+    public void testNotCounting() {
+        ConcurrentInstrumenter instrumenter = new ConcurrentInstrumenter(setupConfig("false", "false", "0", "0", "", ""));
+        instrumenter.incrementCompares();
+        instrumenter.incrementCopies(5);
+        assertEquals(0, instrumenter.getCompares());
+        assertEquals(0, instrumenter.getCopies());
+    }
+}
@@ -0,0 +1,110 @@
+package com.phasmidsoftware.dsaipg.sort.par;
+
+import com.phasmidsoftware.dsaipg.sort.generic.SortWithHelper;
+import com.phasmidsoftware.dsaipg.sort.helper.ConcurrentInstrumenter;
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.sort.helper.InstrumentedComparableHelper;
+import com.phasmidsoftware.dsaipg.sort.linearithmic.MergeSort;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+import static org.junit.Assert.*;
+
+public class ParMergeSortTest {
+
+    @Test
+    public void testSort() {
+        Integer[] xs = {3, 4, 2, 1};
+        try (SortWithHelper<Integer> sorter = new ParMergeSort<>(xs.length, 1, setupConfig("false", "false", "0", "0", "1", ""))) {
+            assertArrayEquals(new Integer[]{1, 2, 3, 4}, sorter.sort(xs));
+            assertArrayEquals(new Integer[]{3, 4, 2, 1}, xs);
+        }
+    }
+
+    @Test
+    public void testSortParallel() {
+        int n = 100_000;
+        Config config = setupConfig("false", "false", "0", "0", "", "").copy(PARALLEL, CUTOFF, "1000").copy(PARALLEL, PARALLELISM, "4");
+        try (ParMergeSort<Integer> sorter = new ParMergeSort<>(n, 1, config)) {
+            assertEquals(4, sorter.getPool().getParallelism());
+            Integer[] xs = sorter.getHelper().random(Integer.class, r -> r.nextInt(n / 10));
+            Integer[] expected = Arrays.copyOf(xs, n);
+            Arrays.sort(expected);
+            sorter.mutatingSort(xs);
+            assertArrayEquals(expected, xs);
+        }
+    }
+
+    @Test
+    public void testSortCommonPool() {
+        Config config = setupConfig("false", "false", "0", "0", "", "").copy(PARALLEL, CUTOFF, "4");
+        for (int n = 1; n < 200; n++)
+            try (ParMergeSort<Integer> sorter = new ParMergeSort<>(n, 1, config)) {
+                assertSame(ForkJoinPool.commonPool(), sorter.getPool());
+                Integer[] xs = sorter.getHelper().random(n, Integer.class, r -> r.nextInt(50));
+                Integer[] expected = Arrays.copyOf(xs, n);
+                Arrays.sort(expected);
+                assertArrayEquals(expected, sorter.sort(xs));
+            }
+    }
+
+    @Test
+    public void testStable() {
+        // Keys which compare equal keep their order
+        Helper<Key> helper = HelperFactory.createConcurrent("stable", 1000, 0L, 1, setupConfig("false", "false", "0", "0", "1", ""));
+        try (ParMergeSort<Key> sorter = new ParMergeSort<>(helper, 16, 3)) {
+            Key[] keys = new Key[1000];
+            for (int i = 0; i < keys.length; i++) keys[i] = new Key(i % 7, i);
+            Key[] sorted = sorter.sort(keys);
+            for (int i = 1; i < sorted.length; i++)
+                assertTrue(sorted[i - 1].key < sorted[i].key || sorted[i - 1].key == sorted[i].key && sorted[i - 1].index < sorted[i].index);
+        }
+    }
+
+    @Test
+    public void testInstrumented() {
+        // The fixes counted by all threads account for every inversion, as they do for MergeSort
+        int n = 5000;
+        Config config = setupConfig("true", "true", "0", "1", "8", "").copy(PARALLEL, CUTOFF, "64").copy(PARALLEL, PARALLELISM, "4");
+        try (ParMergeSort<Integer> sorter = new ParMergeSort<>(n, 1, config)) {
+            Helper<Integer> helper = sorter.getHelper();
+            assertTrue(helper instanceof InstrumentedComparableHelper);
+            assertTrue(((InstrumentedComparableHelper<Integer>) helper).instrumenter instanceof ConcurrentInstrumenter);
+            helper.init(n);
+            Integer[] xs = helper.random(Integer.class, r -> r.nextInt(10000));
+            long inversions = helper.inversions(xs);
+            Integer[] ys = sorter.sort(xs);
+            assertTrue(helper.isSorted(ys));
+            assertEquals(inversions, helper.getFixes());
+            assertTrue(helper.getCompares() > 0);
+            assertTrue(helper.getCopies() >= n);
+        }
+    }
+
+    @Test
+    public void testDescription() {
+        try (SortWithHelper<Integer> sorter = new ParMergeSort<>(10, 1, setupConfig("false", "false", "0", "0", "", ""))) {
+            assertEquals(ParMergeSort.DESCRIPTION, sorter.getDescription());
+            assertNotEquals(MergeSort.DESCRIPTION, sorter.getDescription());
+        }
+    }
+
+    private static class Key implements Comparable<Key> {
+        Key(int key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        public int compareTo(Key o) {
+            return Integer.compare(key, o.key);
+        }
+
+        final int key;
+        final int index;
+    }
+}
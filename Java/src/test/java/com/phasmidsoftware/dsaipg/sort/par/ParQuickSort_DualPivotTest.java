@@ -0,0 +1,73 @@
+package com.phasmidsoftware.dsaipg.sort.par;
+
+import com.phasmidsoftware.dsaipg.sort.generic.SortWithHelper;
+import com.phasmidsoftware.dsaipg.sort.helper.Helper;
+import com.phasmidsoftware.dsaipg.sort.helper.HelperFactory;
+import com.phasmidsoftware.dsaipg.sort.linearithmic.QuickSort_DualPivot;
+import com.phasmidsoftware.dsaipg.util.config.Config;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.*;
+import static org.junit.Assert.*;
+
+public class ParQuickSort_DualPivotTest {
+
+    @Test
+    public void testSort() {
+        Integer[] xs = {3, 4, 2, 1};
+        try (SortWithHelper<Integer> sorter = new ParQuickSort_DualPivot<>(xs.length, setupConfig("false", "false", "0", "0", "", ""))) {
+            assertArrayEquals(new Integer[]{1, 2, 3, 4}, sorter.sort(xs));
+        }
+    }
+
+    @Test
+    public void testSortParallel() {
+        int n = 100_000;
+        Config config = setupConfig("false", "false", "0", "0", "", "").copy(PARALLEL, CUTOFF, "1000").copy(PARALLEL, PARALLELISM, "4");
+        try (ParQuickSort_DualPivot<Integer> sorter = new ParQuickSort_DualPivot<>(n, 1, config)) {
+            assertEquals(4, sorter.getPool().getParallelism());
+            Integer[] xs = sorter.getHelper().random(Integer.class, r -> r.nextInt(n / 10));
+            Integer[] expected = Arrays.copyOf(xs, n);
+            Arrays.sort(expected);
+            sorter.mutatingSort(xs);
+            assertArrayEquals(expected, xs);
+        }
+    }
+
+    @Test
+    public void testSortSmallCutoff() {
+        Config config = setupConfig("false", "false", "0", "0", "1", "").copy(PARALLEL, CUTOFF, "1").copy(PARALLEL, PARALLELISM, "2");
+        for (int n = 1; n < 200; n++)
+            try (ParQuickSort_DualPivot<Integer> sorter = new ParQuickSort_DualPivot<>(n, 1, config)) {
+                Integer[] xs = sorter.getHelper().random(n, Integer.class, r -> r.nextInt(20));
+                Integer[] expected = Arrays.copyOf(xs, n);
+                Arrays.sort(expected);
+                assertArrayEquals(expected, sorter.sort(xs));
+            }
+    }
+
+    @Test
+    public void testInstrumented() {
+        // The partitions are the same as QuickSort_DualPivot's, so the counts (gathered from all threads) are too
+        int n = 10_000;
+        Config config = setupConfig("true", "false", "0", "0", "", "").copy(PARALLEL, CUTOFF, "100").copy(PARALLEL, PARALLELISM, "4");
+        Helper<Integer> sequentialHelper = HelperFactory.create("sequential", n, config);
+        Helper<Integer> parallelHelper = HelperFactory.createConcurrent("parallel", n, 0L, 1, config);
+        sequentialHelper.init(n);
+        parallelHelper.init(n);
+        Integer[] xs = sequentialHelper.random(Integer.class, r -> r.nextInt(1000));
+        try (SortWithHelper<Integer> sequential = new QuickSort_DualPivot<>(sequentialHelper);
+             SortWithHelper<Integer> parallel = new ParQuickSort_DualPivot<>(parallelHelper, 100, 4)) {
+            Integer[] ys = sequential.sort(xs);
+            Integer[] zs = parallel.sort(xs);
+            assertArrayEquals(ys, zs);
+            assertTrue(parallelHelper.getCompares() > n);
+            assertEquals(sequentialHelper.getCompares(), parallelHelper.getCompares());
+            assertEquals(sequentialHelper.getSwaps(), parallelHelper.getSwaps());
+            assertEquals(sequentialHelper.getHits(), parallelHelper.getHits());
+            assertEquals(sequentialHelper.maxDepth(), parallelHelper.maxDepth());
+        }
+    }
+}
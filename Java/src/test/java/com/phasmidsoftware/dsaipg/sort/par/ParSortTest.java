@@ -3,8 +3,12 @@ package com.phasmidsoftware.dsaipg.sort.par;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * ParSortTest is a test suite for the ParSort class.
@@ -156,4 +160,61 @@ public class ParSortTest {
         ParSort.sort(array, 0, 3);
         assertArrayEquals(expected, array);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSortWithExplicitPool() {
+        Random random = new Random(0L);
+        int[] array = new int[100000];
+        for (int i = 0; i < array.length; i++) array[i] = random.nextInt();
+        int[] expected = Arrays.copyOf(array, array.length);
+        Arrays.sort(expected);
+        ParSort.cutoff = 1000;
+        AtomicInteger threads = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(3, p -> {
+            threads.incrementAndGet();
+            return ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+        }, null, false);
+        try {
+            ParSort.sort(array, 0, array.length, pool);
+            assertTrue(threads.get() > 0); // The work was done by the given pool
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(expected, array);
+    }
+
+    @Test
+    public void testSortParallelSubRange() {
+        // A range which does not start at zero, with a small cutoff so that the merges are split too
+        Random random = new Random(1L);
+        int[] array = new int[5000];
+        for (int i = 0; i < array.length; i++) array[i] = random.nextInt(100);
+        int[] expected = Arrays.copyOf(array, array.length);
+        Arrays.sort(expected, 123, 4321);
+        ParSort.cutoff = 1;
+        ParSort.sort(array, 123, 4321);
+        assertArrayEquals(expected, array);
+    }
+
+    @Test
+    public void testSortUnevenSizes() {
+        Random random = new Random(2L);
+        ParSort.cutoff = 7;
+        for (int n = 0; n < 300; n++) {
+            int[] array = new int[n];
+            for (int i = 0; i < n; i++) array[i] = random.nextInt(n + 1) - n / 2;
+            int[] expected = Arrays.copyOf(array, n);
+            Arrays.sort(expected);
+            ParSort.sort(array, 0, n);
+            assertArrayEquals(expected, array);
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        int[] xs = {1, 3, 5, 7, 2, 3, 4, 8, 9};
+        int[] ys = new int[11];
+        ParSort.merge(xs, 0, 4, 4, 9, ys, 1);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 3, 4, 5, 7, 8, 9, 0}, ys);
+    }
+}
@@ -0,0 +1,99 @@
+package com.phasmidsoftware.dsaipg.sort.primitive;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Instrumenter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.phasmidsoftware.dsaipg.sort.primitive.PrimitiveSort.Algorithm;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.setupConfig;
+import static org.junit.Assert.*;
+
+public class DoubleSortTest {
+
+    @Test
+    public void testSort() {
+        // The order is that of Double.compare (and Arrays.sort)
+        for (Algorithm algorithm : Algorithm.values()) {
+            double[] xs = {Double.NaN, 1.5, 0.0, -0.0, Double.NEGATIVE_INFINITY, -2.5, Double.POSITIVE_INFINITY};
+            new DoubleSort(algorithm).sort(xs);
+            assertArrayEquals(algorithm.toString(), new double[]{Double.NEGATIVE_INFINITY, -2.5, -0.0, 0.0, 1.5, Double.POSITIVE_INFINITY, Double.NaN}, xs, 0.0);
+        }
+    }
+
+    @Test
+    public void testSortRandom() {
+        Random random = new Random(0L);
+        for (Algorithm algorithm : Algorithm.values())
+            for (int n : new int[]{0, 1, 2, 16, 17, 1000, 10_000}) {
+                double[] xs = random.doubles(n).map(x -> x < 0.05 ? Double.NaN : x < 0.1 ? -0.0 : x - 0.5).toArray();
+                double[] expected = xs.clone();
+                Arrays.sort(expected);
+                assertArrayEquals(algorithm + ": " + n, expected, new DoubleSort(algorithm).sort(xs, true), 0.0);
+            }
+    }
+
+    @Test
+    public void testSortOrdered() {
+        // Ordered and reverse-ordered input must not degrade the dual-pivot quicksort
+        int n = 100_000;
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.QUICK_DUAL_PIVOT, Algorithm.INTRO, Algorithm.MERGE}) {
+            double[] xs = new double[n];
+            for (int i = 0; i < n; i++) xs[i] = n - i;
+            new DoubleSort(algorithm).sort(xs);
+            for (int i = 0; i < n; i++) assertEquals(i + 1, xs[i], 0.0);
+            new DoubleSort(algorithm).sort(xs);
+            for (int i = 0; i < n; i++) assertEquals(i + 1, xs[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testSortRange() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            double[] xs = {9, 8, 7, 6, 5, 4, 3, 2, 1, 0};
+            new DoubleSort(algorithm).sort(xs, 2, 8);
+            assertArrayEquals(algorithm.toString(), new double[]{9, 8, 2, 3, 4, 5, 6, 7, 1, 0}, xs, 0.0);
+        }
+    }
+
+    @Test
+    public void testShellModes() {
+        double[] ys = new Random(1L).doubles(1000).toArray();
+        double[] expected = ys.clone();
+        Arrays.sort(expected);
+        for (int m = 1; m <= 5; m++)
+            assertArrayEquals("mode " + m, expected, new DoubleSort(Algorithm.SHELL, m, null).sort(ys, true), 0.0);
+    }
+
+    @Test
+    public void testInstrumented() {
+        int n = 1000;
+        Instrumenter instrumenter = new Instrumenter(setupConfig("true", "false", "0", "0", "", ""));
+        DoubleSort sorter = new DoubleSort(Algorithm.INSERTION, instrumenter);
+        assertSame(instrumenter, sorter.getInstrument());
+        double[] xs = new double[n];
+        for (int i = 0; i < n; i++) xs[i] = n - i;
+        sorter.sort(xs);
+        // Reverse order: every pair is an inversion, each fixed by one move and found by one compare
+        assertEquals((long) n * (n - 1) / 2, instrumenter.getSwaps());
+        assertEquals((long) n * (n - 1) / 2, instrumenter.getCompares());
+    }
+
+    @Test
+    public void testInstrumentedQuickSort() {
+        int n = 10_000;
+        Instrumenter instrumenter = new Instrumenter(setupConfig("true", "false", "0", "0", "", ""));
+        double[] xs = new Random(2L).doubles(n).toArray();
+        new DoubleSort(Algorithm.QUICK_DUAL_PIVOT, instrumenter).sort(xs);
+        long compares = instrumenter.getCompares();
+        double nLgN = n * Math.log(n) / Math.log(2);
+        assertTrue(compares > nLgN / 2 && compares < 2 * nLgN);
+        assertTrue(instrumenter.getSwaps() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortBadRange() {
+        new DoubleSort(Algorithm.MERGE).sort(new double[4], 3, 2);
+    }
+}
@@ -0,0 +1,98 @@
+package com.phasmidsoftware.dsaipg.sort.primitive;
+
+import com.phasmidsoftware.dsaipg.sort.helper.Instrumenter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.phasmidsoftware.dsaipg.sort.primitive.PrimitiveSort.Algorithm;
+import static com.phasmidsoftware.dsaipg.util.config.Config_Benchmark.setupConfig;
+import static org.junit.Assert.*;
+
+public class LongSortTest {
+
+    @Test
+    public void testSort() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            long[] xs = {3, -4, 2, Long.MIN_VALUE, 1L << 40, 0, Long.MAX_VALUE, -(1L << 40)};
+            new LongSort(algorithm).sort(xs);
+            assertArrayEquals(algorithm.toString(), new long[]{Long.MIN_VALUE, -(1L << 40), -4, 0, 2, 3, 1L << 40, Long.MAX_VALUE}, xs);
+        }
+    }
+
+    @Test
+    public void testSortRandom() {
+        Random random = new Random(0L);
+        for (Algorithm algorithm : Algorithm.values())
+            for (int n : new int[]{0, 1, 2, 16, 17, 1000, 10_000}) {
+                long[] xs = random.longs(n).toArray();
+                long[] expected = xs.clone();
+                Arrays.sort(expected);
+                assertArrayEquals(algorithm + ": " + n, expected, new LongSort(algorithm).sort(xs, true));
+            }
+    }
+
+    @Test
+    public void testSortOrdered() {
+        // Ordered and reverse-ordered input must not degrade the dual-pivot quicksort
+        int n = 100_000;
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.QUICK_DUAL_PIVOT, Algorithm.INTRO, Algorithm.MERGE}) {
+            long[] xs = new long[n];
+            for (int i = 0; i < n; i++) xs[i] = n - i;
+            new LongSort(algorithm).sort(xs);
+            for (int i = 0; i < n; i++) assertEquals(i + 1, xs[i]);
+            new LongSort(algorithm).sort(xs);
+            for (int i = 0; i < n; i++) assertEquals(i + 1, xs[i]);
+        }
+    }
+
+    @Test
+    public void testSortRange() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            long[] xs = {9, 8, 7, 6, 5, 4, 3, 2, 1, 0};
+            new LongSort(algorithm).sort(xs, 2, 8);
+            assertArrayEquals(algorithm.toString(), new long[]{9, 8, 2, 3, 4, 5, 6, 7, 1, 0}, xs);
+        }
+    }
+
+    @Test
+    public void testShellModes() {
+        long[] ys = new Random(1L).longs(1000).toArray();
+        long[] expected = ys.clone();
+        Arrays.sort(expected);
+        for (int m = 1; m <= 5; m++)
+            assertArrayEquals("mode " + m, expected, new LongSort(Algorithm.SHELL, m, null).sort(ys, true));
+    }
+
+    @Test
+    public void testInstrumented() {
+        int n = 1000;
+        Instrumenter instrumenter = new Instrumenter(setupConfig("true", "false", "0", "0", "", ""));
+        LongSort sorter = new LongSort(Algorithm.INSERTION, instrumenter);
+        assertSame(instrumenter, sorter.getInstrument());
+        long[] xs = new long[n];
+        for (int i = 0; i < n; i++) xs[i] = n - i;
+        sorter.sort(xs);
+        // Reverse order: every pair is an inversion, each fixed by one move and found by one compare
+        assertEquals((long) n * (n - 1) / 2, instrumenter.getSwaps());
+        assertEquals((long) n * (n - 1) / 2, instrumenter.getCompares());
+    }
+
+    @Test
+    public void testInstrumentedQuickSort() {
+        int n = 10_000;
+        Instrumenter instrumenter = new Instrumenter(setupConfig("true", "false", "0", "0", "", ""));
+        long[] xs = new Random(2L).longs(n).toArray();
+        new LongSort(Algorithm.QUICK_DUAL_PIVOT, instrumenter).sort(xs);
+        long compares = instrumenter.getCompares();
+        double nLgN = n * Math.log(n) / Math.log(2);
+        assertTrue(compares > nLgN / 2 && compares < 2 * nLgN);
+        assertTrue(instrumenter.getSwaps() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortBadRange() {
+        new LongSort(Algorithm.MERGE).sort(new long[4], 3, 2);
+    }
+}